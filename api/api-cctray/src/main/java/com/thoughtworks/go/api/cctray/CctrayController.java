@@ -35,7 +35,7 @@ import java.io.OutputStreamWriter;
 import static spark.Spark.*;
 
 @Component
-public class CctrayController implements SparkSpringController, SparkController {
+public class CctrayController implements SparkSpringController, SparkController, ControllerMethods {
 
     private static final String ACCESS_DENIED_XML_RESPONSE = "<access-denied>\n" +
             "  <message>您未通过身份验证！</message>\n" +
@@ -63,20 +63,18 @@ public class CctrayController implements SparkSpringController, SparkController
     }
 
     public String index(Request req, Response res) throws IOException {
+        String siteUrlPrefix = siteUrlPrefix(req);
+        if (fresh(req, ccTrayService.etagFor(siteUrlPrefix))) {
+            return notModified(res);
+        }
+
         OutputStreamWriter appendable = new OutputStreamWriter(res.raw().getOutputStream());
-        ccTrayService.renderCCTrayXML(siteUrlPrefix(req), currentUsername().getUsername().toString(), appendable, etag -> setEtagHeader(res, etag));
+        ccTrayService.renderCCTrayXML(siteUrlPrefix, currentUsername().getUsername().toString(), appendable, etag -> setEtagHeader(res, etag));
         appendable.flush();
         // because we've streamed the ccontent already.
         return ControllerMethods.NOTHING;
     }
 
-    private void setEtagHeader(Response res, String value) {
-        if (value == null) {
-            return;
-        }
-        res.header("ETag", '"' + value + '"');
-    }
-
     private String siteUrlPrefix(Request req) {
         return RequestContext.requestContext(req).urlFor("");
     }
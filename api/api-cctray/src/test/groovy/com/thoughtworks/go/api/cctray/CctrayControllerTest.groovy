@@ -96,6 +96,19 @@ class CctrayControllerTest implements SecurityServiceTrait, ControllerTrait<Cctr
           .hasContentType("application/xml")
           .hasBody("blah!")
       }
+
+      @Test
+      void 'should render 304 if etag matches'() {
+        enableSecurity()
+        loginAsUser()
+        when(ccTrayService.etagFor("http://test.host/go")).thenReturn("some-etag")
+
+        get("/cctray.xml", ['if-none-match': '"some-etag"'])
+
+        assertThatResponse()
+          .isNotModified()
+        verify(ccTrayService, never()).renderCCTrayXML(any() as String, any() as String, any() as Appendable, any() as Consumer<String>)
+      }
     }
   }
 }
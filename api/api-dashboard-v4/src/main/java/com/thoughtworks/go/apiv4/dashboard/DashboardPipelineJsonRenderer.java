@@ -0,0 +1,47 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.apiv4.dashboard;
+
+import com.thoughtworks.go.api.base.JsonOutputWriter;
+import com.thoughtworks.go.apiv4.dashboard.representers.PipelineRepresenter;
+import com.thoughtworks.go.server.dashboard.GoDashboardPipeline;
+import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.websocket.DashboardPipelineRenderer;
+import com.thoughtworks.go.server.websocket.DashboardUpdatesSender;
+import com.thoughtworks.go.spark.RequestContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.StringWriter;
+import java.net.URI;
+
+/* Renders the pipelines pushed to dashboards the same way this API renders them on the dashboard. */
+@Component
+public class DashboardPipelineJsonRenderer implements DashboardPipelineRenderer {
+
+    @Autowired
+    public DashboardPipelineJsonRenderer(DashboardUpdatesSender dashboardUpdatesSender) {
+        dashboardUpdatesSender.useRenderer(this);
+    }
+
+    @Override
+    public String render(GoDashboardPipeline pipeline, Username username, URI baseUrl) {
+        RequestContext requestContext = new RequestContext(baseUrl.getScheme(), baseUrl.getHost(), baseUrl.getPort(), baseUrl.getPath());
+        StringWriter writer = new StringWriter(1024);
+        new JsonOutputWriter(writer, requestContext).forTopLevelObject(outputWriter -> PipelineRepresenter.toJSON(outputWriter, pipeline, username));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.apiv4.dashboard
+
+import com.thoughtworks.go.apiv4.dashboard.representers.PipelineRepresenter
+import com.thoughtworks.go.server.domain.Username
+import com.thoughtworks.go.server.websocket.DashboardUpdatesSender
+import org.junit.jupiter.api.Test
+
+import static com.thoughtworks.go.api.base.JsonUtils.toObject
+import static com.thoughtworks.go.apiv4.dashboard.GoDashboardPipelineMother.dashboardPipeline
+import static net.javacrumbs.jsonunit.fluent.JsonFluentAssert.assertThatJson
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.verify
+
+class DashboardPipelineJsonRendererTest {
+
+  @Test
+  void 'should register itself to render the pipelines pushed to dashboards'() {
+    def sender = mock(DashboardUpdatesSender.class)
+
+    def renderer = new DashboardPipelineJsonRenderer(sender)
+
+    verify(sender).useRenderer(renderer)
+  }
+
+  @Test
+  void 'should render a pipeline for a user like the dashboard API does, with links to the server the dashboard connected through'() {
+    def renderer = new DashboardPipelineJsonRenderer(mock(DashboardUpdatesSender.class))
+    def pipeline = dashboardPipeline('pipeline1')
+    def username = new Username('bob')
+
+    def json = renderer.render(pipeline, username, URI.create('http://test.host/go'))
+
+    assertThatJson(json).isEqualTo(toObject({ PipelineRepresenter.toJSON(it, pipeline, username) }))
+  }
+}
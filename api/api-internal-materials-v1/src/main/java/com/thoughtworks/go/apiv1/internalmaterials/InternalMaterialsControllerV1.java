@@ -124,7 +124,7 @@ public class InternalMaterialsControllerV1 extends ApiController implements Spar
     public String triggerUpdate(Request request, Response response) {
         String fingerprint = request.params(FINGERPRINT);
         MaterialConfig materialConfig = materialConfigService.getMaterialConfig(currentUsernameString(), fingerprint);
-        if (materialUpdateService.updateMaterial(materialConfigConverter.toMaterial(materialConfig))) {
+        if (materialUpdateService.updateMaterialOnDemand(materialConfigConverter.toMaterial(materialConfig))) {
             response.status(HttpStatus.CREATED.value());
             return MessageJson.create("OK");
         } else {
@@ -254,11 +254,11 @@ class InternalMaterialsControllerV1Test implements SecurityServiceTrait, Control
     @Test
     void 'should return ok when trigger is successful'() {
       when(materialConfigService.getMaterialConfig(anyString(), anyString())).thenReturn(git)
-      when(materialUpdateService.updateMaterial((Material) any())).thenReturn(true)
+      when(materialUpdateService.updateMaterialOnDemand((Material) any())).thenReturn(true)
 
       postWithApiHeader("/api/internal/materials/abc123/trigger_update", [])
 
-      verify(materialUpdateService).updateMaterial(material)
+      verify(materialUpdateService).updateMaterialOnDemand(material)
       assertThatResponse()
         .isCreated()
         .hasJsonMessage("OK")
@@ -267,11 +267,11 @@ class InternalMaterialsControllerV1Test implements SecurityServiceTrait, Control
     @Test
     void 'should not trigger update if update is already in progress'() {
       when(materialConfigService.getMaterialConfig(anyString(), anyString())).thenReturn(git)
-      when(materialUpdateService.updateMaterial((Material) any())).thenReturn(false)
+      when(materialUpdateService.updateMaterialOnDemand((Material) any())).thenReturn(false)
 
       postWithApiHeader("/api/internal/materials/abc123/trigger_update", [])
 
-      verify(materialUpdateService).updateMaterial(material)
+      verify(materialUpdateService).updateMaterialOnDemand(material)
       assertThatResponse()
         .isConflict()
         .hasJsonMessage("Update already in progress.")
@@ -109,6 +109,9 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
 
     public static final String MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY = "material.update.idle.interval";
     private static final GoSystemProperty<Long> MATERIAL_UPDATE_IDLE_INTERVAL_IN_MILLIS = new GoLongSystemProperty(MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, SECONDS.toMillis(60));
+    public static final String MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY = "material.update.max.idle.interval";
+    // polling backs off only when this is set to longer than the idle interval
+    private static final GoSystemProperty<Long> MATERIAL_UPDATE_MAX_IDLE_INTERVAL_IN_MILLIS = new GoLongSystemProperty(MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY, 0L);
 
     public static final GoSystemProperty<Integer> PLUGIN_LOCATION_MONITOR_INTERVAL_IN_SECONDS = new GoIntSystemProperty("pluginLocationMonitor.sleepTimeInSecs", -1);
     public static final String PLUGINS_PATH = "plugins";
@@ -203,6 +206,13 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final GoSystemProperty<Boolean> START_IN_MAINTENANCE_MODE = new GoBooleanSystemProperty("gocd.server.start.in.maintenance.mode", false);
 
     public static final GoSystemProperty<Boolean> INITIALIZE_CONFIG_REPOSITORIES_ON_STARTUP = new GoBooleanSystemProperty("gocd.initialize.config.repositories.on.startup", true);
+    public static final GoIntSystemProperty CONFIG_REPOSITORIES_INITIALIZATION_THREADS = new GoIntSystemProperty("gocd.initialize.config.repositories.threads", 4);
+    public static final GoSystemProperty<Long> PIPELINE_SCHEDULER_FULL_CHECK_INTERVAL_IN_MILLIS = new GoLongSystemProperty("go.pipeline.scheduler.full.check.interval", 0L);
+    public static final GoSystemProperty<Integer> PIPELINE_CREATION_THREADS = new GoIntSystemProperty("go.pipeline.creation.threads", 4);
+    public static final GoSystemProperty<Long> DEPENDENCY_MATERIAL_UPDATE_COALESCE_WINDOW_IN_MILLIS = new GoLongSystemProperty("go.dependency.material.update.coalesce.window", 0L);
+    public static final GoSystemProperty<Long> TIMER_TRIGGER_MAX_JITTER_IN_MILLIS = new GoLongSystemProperty("go.timer.trigger.max.jitter", 0L);
+    public static final GoSystemProperty<Integer> TIMER_TRIGGER_THREADS = new GoIntSystemProperty("go.timer.trigger.threads", 4);
+    public static final GoSystemProperty<Integer> JOB_STATUS_UPDATE_THREADS = new GoIntSystemProperty("go.job.status.update.threads", 4);
 
     private static final Map<String, String> GIT_ALLOW_PROTOCOL = Map.of(
         "GIT_ALLOW_PROTOCOL",
@@ -371,6 +381,10 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return Integer.parseInt(getPropertyImpl("material.check.threads", "10"));
     }
 
+    public int getNumberOfPriorityMaterialCheckListener() {
+        return Integer.parseInt(getPropertyImpl("material.priority.check.threads", "2"));
+    }
+
     public int getNumberOfConfigMaterialCheckListener() {
         return Integer.parseInt(getPropertyImpl("material.config.check.threads", "2"));
     }
@@ -562,6 +576,10 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return MATERIAL_UPDATE_IDLE_INTERVAL_IN_MILLIS.getValue();
     }
 
+    public long getMaterialUpdateMaxIdleInterval() {
+        return Math.max(getMaterialUpdateIdleInterval(), MATERIAL_UPDATE_MAX_IDLE_INTERVAL_IN_MILLIS.getValue());
+    }
+
     public String landingPage() {
         return GO_LANDING_PAGE.getValue();
     }
@@ -695,6 +713,30 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return INITIALIZE_CONFIG_REPOSITORIES_ON_STARTUP.getValue();
     }
 
+    public int getNumberOfConfigRepositoryInitializationThreads() {
+        return CONFIG_REPOSITORIES_INITIALIZATION_THREADS.getValue();
+    }
+
+    public long getPipelineSchedulerFullCheckIntervalInMillis() {
+        return PIPELINE_SCHEDULER_FULL_CHECK_INTERVAL_IN_MILLIS.getValue();
+    }
+
+    public long getDependencyMaterialUpdateCoalesceWindowInMillis() {
+        return DEPENDENCY_MATERIAL_UPDATE_COALESCE_WINDOW_IN_MILLIS.getValue();
+    }
+
+    public long getTimerTriggerMaxJitterInMillis() {
+        return TIMER_TRIGGER_MAX_JITTER_IN_MILLIS.getValue();
+    }
+
+    public int getTimerTriggerThreads() {
+        return TIMER_TRIGGER_THREADS.getValue();
+    }
+
+    public int getJobStatusUpdateThreads() {
+        return JOB_STATUS_UPDATE_THREADS.getValue();
+    }
+
     public static abstract class GoSystemProperty<T> {
         private final String propertyName;
         protected T defaultValue;
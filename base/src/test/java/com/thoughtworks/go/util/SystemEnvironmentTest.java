@@ -133,6 +133,18 @@ class SystemEnvironmentTest {
         assertThat(systemEnvironment.getMaterialUpdateIdleInterval()).isEqualTo(20L);
     }
 
+    @Test
+    void shouldNotHoldOnToDependencyMaterialUpdatesByDefault() {
+        assertThat(systemEnvironment.getDependencyMaterialUpdateCoalesceWindowInMillis()).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldNotBackOffMaterialUpdatesUnlessAMaxIdleIntervalIsSet() {
+        assertThat(systemEnvironment.getMaterialUpdateMaxIdleInterval()).isEqualTo(60000L);
+        systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY, "600000");
+        assertThat(systemEnvironment.getMaterialUpdateMaxIdleInterval()).isEqualTo(600000L);
+    }
+
     @Test
     void shouldReturnTheJobWarningLimit() {
         assertThat(systemEnvironment.getUnresponsiveJobWarningThreshold()).isEqualTo(5 * 60 * 1000L);
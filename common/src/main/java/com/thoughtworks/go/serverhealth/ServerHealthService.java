@@ -28,43 +28,41 @@ import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class ServerHealthService implements ApplicationContextAware {
-    private final Map<HealthStateType, ServerHealthState> serverHealth;
+    // Health states are looked up and removed by scope far more often than all of them are listed, so they are kept
+    // grouped by scope. The states of a scope are replaced as a whole, so they can be read without locking.
+    private final Map<HealthStateScope, Map<HealthStateType, ServerHealthState>> serverHealth;
+    private final PriorityQueue<ServerHealthState> expiringStates;
     private ApplicationContext applicationContext;
 
     public ServerHealthService() {
         this.serverHealth = new ConcurrentHashMap<>();
+        this.expiringStates = new PriorityQueue<>(Comparator.comparing(ServerHealthState::getExpiryTime));
     }
 
     public void removeByScope(HealthStateScope scope) {
-        for (HealthStateType healthStateType : entryKeys()) {
-            if (healthStateType.isSameScope(scope)) {
-                serverHealth.remove(healthStateType);
-            }
-        }
-    }
-
-    private Set<HealthStateType> entryKeys() {
-        return new HashSet<>(serverHealth.keySet());
+        serverHealth.remove(scope);
     }
 
     public List<ServerHealthState> filterByScope(HealthStateScope scope) {
-        List<ServerHealthState> filtered = new ArrayList<>();
-        for (Map.Entry<HealthStateType, ServerHealthState> entry : sortedEntries()) {
-            HealthStateType type = entry.getKey();
-            if (type.isSameScope(scope)) {
-                filtered.add(entry.getValue());
-            }
-        }
-        return filtered;
+        return new ArrayList<>(statesOf(scope).values());
     }
 
     public HealthStateType update(ServerHealthState serverHealthState) {
         HealthStateType type = serverHealthState.getType();
         if (serverHealthState.getLogLevel() == HealthStateLevel.OK) {
-            serverHealth.remove(type);
+            remove(type, null);
             return null;
         } else {
-            serverHealth.put(type, serverHealthState);
+            serverHealth.compute(type.getScope(), (scope, states) -> {
+                Map<HealthStateType, ServerHealthState> updated = states == null ? new LinkedHashMap<>() : new LinkedHashMap<>(states);
+                updated.put(type, serverHealthState);
+                return Collections.unmodifiableMap(updated);
+            });
+            if (serverHealthState.getExpiryTime() != null) {
+                synchronized (expiringStates) {
+                    expiringStates.add(serverHealthState);
+                }
+            }
             return type;
         }
     }
@@ -83,43 +81,60 @@ public class ServerHealthService implements ApplicationContextAware {
     @TestOnly // Remove once we get rid of SpringJUnitTestRunner
     public void removeAllLogs() {
         serverHealth.clear();
+        synchronized (expiringStates) {
+            expiringStates.clear();
+        }
     }
 
     private void removeMessagesForElementsNoLongerInConfig(CruiseConfig cruiseConfig) {
-        for (HealthStateType type : entryKeys()) {
-            if (type.isRemovedFromConfig(cruiseConfig)) {
-                this.removeByScope(type);
+        for (HealthStateScope scope : new ArrayList<>(serverHealth.keySet())) {
+            if (scope.isRemovedFromConfig(cruiseConfig)) {
+                removeByScope(scope);
             }
         }
     }
 
     private void removeExpiredMessages() {
-        for (Map.Entry<HealthStateType, ServerHealthState> entry : new HashSet<>(serverHealth.entrySet())) {
-            ServerHealthState value = entry.getValue();
-            if (value.hasExpired()) {
-                serverHealth.remove(entry.getKey());
+        List<ServerHealthState> expired = new ArrayList<>();
+        synchronized (expiringStates) {
+            // ordered by expiry time, so only the states that have expired are looked at
+            while (!expiringStates.isEmpty() && expiringStates.peek().hasExpired()) {
+                expired.add(expiringStates.poll());
             }
         }
+        for (ServerHealthState state : expired) {
+            remove(state.getType(), state);
+        }
     }
 
-    private void removeByScope(HealthStateType type) {
-        removeByScope(type.getScope());
+    /* Removes the state of the given type, or only the given state if it is still the current state of its type. */
+    private void remove(HealthStateType type, ServerHealthState onlyIfCurrent) {
+        serverHealth.computeIfPresent(type.getScope(), (scope, states) -> {
+            ServerHealthState current = states.get(type);
+            if (current == null || (onlyIfCurrent != null && current != onlyIfCurrent)) {
+                return states;
+            }
+            Map<HealthStateType, ServerHealthState> updated = new LinkedHashMap<>(states);
+            updated.remove(type);
+            return updated.isEmpty() ? null : Collections.unmodifiableMap(updated);
+        });
+    }
+
+    private Map<HealthStateType, ServerHealthState> statesOf(HealthStateScope scope) {
+        return serverHealth.getOrDefault(scope, Collections.emptyMap());
     }
 
     public ServerHealthStates logs() {
+        List<HealthStateScope> scopes = new ArrayList<>(serverHealth.keySet());
+        Collections.sort(scopes);
+
         ArrayList<ServerHealthState> logs = new ArrayList<>();
-        for (Map.Entry<HealthStateType, ServerHealthState> entry : sortedEntries()) {
-            logs.add(entry.getValue());
+        for (HealthStateScope scope : scopes) {
+            logs.addAll(statesOf(scope).values());
         }
         return new ServerHealthStates(logs);
     }
 
-    private List<Map.Entry<HealthStateType, ServerHealthState>> sortedEntries() {
-        List<Map.Entry<HealthStateType, ServerHealthState>> entries = new ArrayList<>(serverHealth.entrySet());
-        entries.sort(Map.Entry.comparingByKey());
-        return entries;
-    }
-
     public String getLogsAsText() {
         StringBuilder text = new StringBuilder();
         for (ServerHealthState state : logs()) {
@@ -132,13 +147,8 @@ public class ServerHealthService implements ApplicationContextAware {
     }
 
     public boolean containsError(HealthStateType type, HealthStateLevel level) {
-        ServerHealthStates allLogs = logs();
-        for (ServerHealthState log : allLogs) {
-            if (log.getType().equals(type) && log.getLogLevel() == level) {
-                return true;
-            }
-        }
-        return false;
+        ServerHealthState state = statesOf(type.getScope()).get(type);
+        return state != null && state.getLogLevel() == level;
     }
 
     @Override
@@ -219,6 +219,10 @@ public class ServerHealthState {
         return ToStringBuilder.reflectionToString(this);
     }
 
+    DateTime getExpiryTime() {
+        return expiryTime;
+    }
+
     public boolean hasExpired() {
         return expiryTime != null && expiryTime.isBefore(clock.currentDateTime());
     }
@@ -92,6 +92,21 @@ public class ServerHealthServiceTest {
         assertThat(logs,hasItem(expiresNever));
     }
 
+    @Test
+    public void shouldNotRemoveALogMessageWhenTheMessageItReplacedExpires() throws Exception {
+        testingClock.setTime(new DateTime(2002,10,10,10,10,10,10));
+        ServerHealthState expiresInNintySecs = warning("hg-message1", "description", HealthStateType.databaseDiskFull(), Timeout.NINETY_SECONDS);
+        ServerHealthState expiresNever = warning("hg-message2", "description", HealthStateType.databaseDiskFull(), Timeout.NEVER);
+        serverHealthService.update(expiresInNintySecs);
+        serverHealthService.update(expiresNever);
+
+        testingClock.addSeconds(100);
+        serverHealthService.purgeStaleHealthMessages(new BasicCruiseConfig());
+
+        assertThat(serverHealthService.logs().size(), is(1));
+        assertThat(serverHealthService.logs(), hasItem(expiresNever));
+    }
+
     @Test
     public void shouldRemoveErrorLogWhenCorrespondingMaterialIsMissing() throws Exception {
         serverHealthService.update(ServerHealthState.error("hg-message", "description", HealthStateType.general(forMaterial(MaterialsMother.hgMaterial()))));
@@ -156,6 +156,28 @@ public class BasicCruiseConfig implements CruiseConfig {
         resetAllPipelineConfigsCache();
     }
 
+    @Override
+    public CruiseConfig mergedCopy(List<PartialConfig> partList, boolean forEdit) {
+        if (strategy instanceof MergeStrategy)
+            throw new RuntimeException("cannot merge partials to already merged configuration");
+        BasicCruiseConfig copy = new BasicCruiseConfig();
+        copy.serverConfig = serverConfig;
+        copy.elasticConfig = elasticConfig;
+        copy.packageRepositories = packageRepositories;
+        copy.scms = scms;
+        copy.configRepos = configRepos;
+        copy.artifactStores = artifactStores;
+        copy.secretConfigs = secretConfigs;
+        copy.groups = groups;
+        copy.templatesConfig = templatesConfig;
+        copy.environments = environments;
+        copy.md5 = md5;
+        copy.partials = new ArrayList<>(partials);
+        // drops the partials which do not belong to any of the config repos, and leaves the copy unmerged if none is left
+        copy.merge(partList, forEdit);
+        return copy;
+    }
+
     private List<PartialConfig> removePartialsThatDoNotCorrespondToTheCurrentConfigReposList(List<PartialConfig> partList) {
         List<Object> notToBeMerged = new ArrayList<>();
         for (PartialConfig partialConfig : partList) {
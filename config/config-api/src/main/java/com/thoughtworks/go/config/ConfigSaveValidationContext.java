@@ -277,10 +277,7 @@ public class ConfigSaveValidationContext implements ValidationContext {
 
     @Override
     public MaterialConfigs getAllMaterialsByFingerPrint(String fingerprint) {
-        if (fingerprintToMaterials == null || fingerprintToMaterials.isEmpty()) {
-            primeForMaterialValidations();
-        }
-        MaterialConfigs matchingMaterials = fingerprintToMaterials.get(fingerprint);
+        MaterialConfigs matchingMaterials = fingerprintToMaterials().get(fingerprint);
         return matchingMaterials == null ? new MaterialConfigs() : matchingMaterials;
     }
 
@@ -294,8 +291,21 @@ public class ConfigSaveValidationContext implements ValidationContext {
         return map;
     }
 
-    private void primeForMaterialValidations() {
+    // A new context is created for every node that is validated. The materials of the whole config are indexed
+    // only once, on the outermost context that has the same cruise config, instead of once per material.
+    private HashMap<String, MaterialConfigs> fingerprintToMaterials() {
         CruiseConfig cruiseConfig = getCruiseConfig();
+        ConfigSaveValidationContext owner = this;
+        while (owner.parentContext != null && owner.parentContext.getFirstOfType(CruiseConfig.class) == cruiseConfig) {
+            owner = owner.parentContext;
+        }
+        if (owner.fingerprintToMaterials == null || owner.fingerprintToMaterials.isEmpty()) {
+            owner.primeForMaterialValidations(cruiseConfig);
+        }
+        return owner.fingerprintToMaterials;
+    }
+
+    private void primeForMaterialValidations(CruiseConfig cruiseConfig) {
         fingerprintToMaterials = new HashMap<>();
         for (PipelineConfig pipelineConfig : cruiseConfig.getAllPipelineConfigs()) {
             for (MaterialConfig material : pipelineConfig.materialConfigs()) {
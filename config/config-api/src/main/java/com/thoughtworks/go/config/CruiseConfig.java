@@ -39,6 +39,13 @@ public interface CruiseConfig extends Validatable, ConfigOriginTraceable {
 
     void merge(List<PartialConfig> partList, boolean forEdit);
 
+    /**
+     * Same as merging the partials into a deep clone of this config, except that the result shares every subtree of
+     * this config instead of copying it. Use it only on configs which are no longer edited in place. Always returns a
+     * new config, which is left unmerged when none of the partials belong to the config repos of this config.
+     */
+    CruiseConfig mergedCopy(List<PartialConfig> partList, boolean forEdit);
+
     @PostConstruct
     void initializeServer();
 
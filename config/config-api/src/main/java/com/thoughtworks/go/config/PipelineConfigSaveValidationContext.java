@@ -174,8 +174,7 @@ public class PipelineConfigSaveValidationContext implements ValidationContext {
 
     @Override
     public MaterialConfigs getAllMaterialsByFingerPrint(String fingerprint) {
-        initMaterialConfigMap();
-        return materialConfigsFingerprintMap.get(fingerprint);
+        return materialConfigsFingerprintMap().get(fingerprint);
     }
 
     @Override
@@ -216,17 +215,59 @@ public class PipelineConfigSaveValidationContext implements ValidationContext {
         return getDependencies().keySet();
     }
 
+    /**
+     * All pipelines which depend on the given pipeline, directly or through other pipelines. These are the only
+     * pipelines whose dependency materials and fetch tasks can be affected by a change to the given pipeline.
+     */
+    public Set<CaseInsensitiveString> getPipelinesDependingOn(CaseInsensitiveString pipelineName) {
+        Map<CaseInsensitiveString, List<CaseInsensitiveString>> downstreams = getDownstreams();
+        Set<CaseInsensitiveString> dependents = new HashSet<>();
+        Deque<CaseInsensitiveString> toVisit = new ArrayDeque<>(downstreams.getOrDefault(pipelineName, Collections.emptyList()));
+        while (!toVisit.isEmpty()) {
+            CaseInsensitiveString dependent = toVisit.pop();
+            if (!dependent.equals(pipelineName) && dependents.add(dependent)) {
+                toVisit.addAll(downstreams.getOrDefault(dependent, Collections.emptyList()));
+            }
+        }
+        return dependents;
+    }
+
     private Hashtable<CaseInsensitiveString, Node> getDependencies() {
-        if (dependencies == null) {
-            dependencies = new Hashtable<>();
+        PipelineConfigSaveValidationContext owner = contextOwningIndexes();
+        if (owner.dependencies == null) {
+            owner.dependencies = new Hashtable<>();
             for (PipelineConfig pipeline : cruiseConfig.getAllPipelineConfigs()) {
-                dependencies.put(pipeline.name(), pipeline.getDependenciesAsNode());
+                owner.dependencies.put(pipeline.name(), pipeline.getDependenciesAsNode());
+            }
+        }
+        return owner.dependencies;
+    }
+
+    private Map<CaseInsensitiveString, List<CaseInsensitiveString>> getDownstreams() {
+        PipelineConfigSaveValidationContext owner = contextOwningIndexes();
+        if (owner.downstreams == null) {
+            owner.downstreams = new HashMap<>();
+            for (Map.Entry<CaseInsensitiveString, Node> entry : getDependencies().entrySet()) {
+                for (Node.DependencyNode upstream : entry.getValue().getDependencies()) {
+                    owner.downstreams.computeIfAbsent(upstream.getPipelineName(), k -> new ArrayList<>()).add(entry.getKey());
+                }
             }
         }
-        return dependencies;
+        return owner.downstreams;
+    }
+
+    // A new context is created for every node that is validated. Indexes over the whole config are built only once,
+    // on the outermost context that has the same cruise config, instead of once per node.
+    private PipelineConfigSaveValidationContext contextOwningIndexes() {
+        PipelineConfigSaveValidationContext owner = this;
+        while (owner.parentContext != null && owner.parentContext.cruiseConfig == cruiseConfig) {
+            owner = owner.parentContext;
+        }
+        return owner;
     }
 
     private Hashtable<CaseInsensitiveString, Node> dependencies;
+    private Map<CaseInsensitiveString, List<CaseInsensitiveString>> downstreams;
 
     public PipelineGroups getGroups() {
         return cruiseConfig.getGroups();
@@ -236,10 +277,12 @@ public class PipelineConfigSaveValidationContext implements ValidationContext {
         return isPipelineBeingCreated;
     }
 
-    private void initMaterialConfigMap() {
-        if (materialConfigsFingerprintMap == null) {
-            materialConfigsFingerprintMap = new MaterialConfigFingerprintMap(cruiseConfig);
+    private MaterialConfigFingerprintMap materialConfigsFingerprintMap() {
+        PipelineConfigSaveValidationContext owner = contextOwningIndexes();
+        if (owner.materialConfigsFingerprintMap == null) {
+            owner.materialConfigsFingerprintMap = new MaterialConfigFingerprintMap(cruiseConfig);
         }
+        return owner.materialConfigsFingerprintMap;
     }
 
     private class MaterialConfigFingerprintMap {
@@ -27,6 +27,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class PipelineConfigTreeValidator {
     private final PipelineConfig pipelineConfig;
@@ -87,8 +88,9 @@ public class PipelineConfigTreeValidator {
 
     void validateDependencies(PipelineConfigSaveValidationContext validationContext) {
         if (validationContext.isPipelineBeingCreated()) return;
+        Set<CaseInsensitiveString> dependents = validationContext.getPipelinesDependingOn(pipelineConfig.name());
         for (CaseInsensitiveString selected : validationContext.getPipelinesWithDependencyMaterials()) {
-            if (selected.equals(pipelineConfig.name())) continue;
+            if (selected.equals(pipelineConfig.name()) || !dependents.contains(selected)) continue;
             PipelineConfig selectedPipeline = validationContext.getPipelineConfigByName(selected);
             validateDependencyMaterialsForDownstreams(validationContext, selected, selectedPipeline);
             validateFetchTasksForOtherPipelines(validationContext, selectedPipeline);
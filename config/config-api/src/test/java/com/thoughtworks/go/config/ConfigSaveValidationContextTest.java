@@ -69,6 +69,18 @@ public class ConfigSaveValidationContextTest {
         assertThat(context.getAllMaterialsByFingerPrint(hg.getFingerprint()).size()).isEqualTo(10);
     }
 
+    @Test
+    void shouldIndexMaterialsOfTheConfigOnlyOnceForAllChildContexts() {
+        CruiseConfig cruiseConfig = new BasicCruiseConfig();
+        HgMaterialConfig hg = hg("url", null);
+        PipelineConfig pipelineConfig = pipelineConfig("pipeline", new MaterialConfigs(hg));
+        cruiseConfig.addPipeline("defaultGroup", pipelineConfig);
+        ValidationContext context = ConfigSaveValidationContext.forChain(cruiseConfig);
+        ValidationContext childContext = context.withParent(cruiseConfig.getGroups()).withParent(pipelineConfig);
+
+        assertThat(childContext.getAllMaterialsByFingerPrint(hg.getFingerprint())).isSameAs(context.getAllMaterialsByFingerPrint(hg.getFingerprint()));
+    }
+
     @Test
     void shouldReturnEmptyListWhenNoMaterialsMatch() {
         CruiseConfig cruiseConfig = new BasicCruiseConfig();
@@ -181,6 +181,76 @@ public class MergeCruiseConfigTest extends CruiseConfigTestBase {
         assertThat(localPipelines.size(), is(0));
     }
 
+    @Test
+    public void mergedCopy_shouldMergePartialsWithoutChangingOrCopyingTheOriginalConfig() {
+        pipelines = new BasicPipelineConfigs("group_main", new Authorization(), PipelineConfigMother.pipelineConfig("local-pipeline-1"));
+        BasicCruiseConfig mainConfig = new BasicCruiseConfig(pipelines);
+        ConfigReposConfig reposConfig = new ConfigReposConfig();
+        ConfigRepoConfig configRepoConfig = ConfigRepoConfig.createConfigRepoConfig(git("http://git"), "myplug", "id");
+        reposConfig.add(configRepoConfig);
+        mainConfig.setConfigRepos(reposConfig);
+        PartialConfig partialConfig = PartialConfigMother.withPipelineInGroup("remote-pipeline-1", "g2");
+        partialConfig.setOrigins(new RepoConfigOrigin(configRepoConfig, "123"));
+
+        CruiseConfig merged = mainConfig.mergedCopy(List.of(partialConfig), true);
+
+        assertThat(merged.hasPipelineNamed(new CaseInsensitiveString("local-pipeline-1")), is(true));
+        assertThat(merged.hasPipelineNamed(new CaseInsensitiveString("remote-pipeline-1")), is(true));
+        assertThat(merged.findGroup("group_main"), sameInstance(pipelines));
+        assertThat(mainConfig.hasPipelineNamed(new CaseInsensitiveString("remote-pipeline-1")), is(false));
+        assertThat(mainConfig.getGroups().size(), is(1));
+        assertThat(mainConfig.isLocal(), is(true));
+    }
+
+    @Test
+    public void mergedCopy_shouldShareTheTopLevelConfigOfTheOriginalConfigAndMergeScms() {
+        BasicCruiseConfig mainConfig = GoConfigMother.configWithPipelines("p1");
+        ConfigRepoConfig configRepoConfig = ConfigRepoConfig.createConfigRepoConfig(git("http://git"), "myplug", "id");
+        mainConfig.setConfigRepos(new ConfigReposConfig(configRepoConfig));
+        PartialConfig partialConfig = PartialConfigMother.withSCM("scm_id", "scm_name",
+                new PluginConfiguration("plugin_id", "1"), new Configuration(), new RepoConfigOrigin(configRepoConfig, "123"));
+
+        CruiseConfig merged = mainConfig.mergedCopy(List.of(partialConfig), false);
+
+        assertThat(merged.getSCMs().contains(partialConfig.getScms().first()), is(true));
+        assertThat(mainConfig.getSCMs().contains(partialConfig.getScms().first()), is(false));
+        assertThat(merged.server(), sameInstance(mainConfig.server()));
+        assertThat(merged.getElasticConfig(), sameInstance(mainConfig.getElasticConfig()));
+        assertThat(merged.getArtifactStores(), sameInstance(mainConfig.getArtifactStores()));
+        assertThat(merged.getSecretConfigs(), sameInstance(mainConfig.getSecretConfigs()));
+        assertThat(merged.getTemplates(), sameInstance(mainConfig.getTemplates()));
+        assertThat(merged.getPackageRepositories(), sameInstance(mainConfig.getPackageRepositories()));
+        assertThat(merged.getConfigRepos(), sameInstance(mainConfig.getConfigRepos()));
+    }
+
+    @Test
+    public void mergedCopy_shouldReturnAnUnmergedCopyWhenNoPartialBelongsToItsConfigRepos() {
+        BasicCruiseConfig mainConfig = new BasicCruiseConfig(new BasicPipelineConfigs("group_main", new Authorization(), PipelineConfigMother.pipelineConfig("local-pipeline-1")));
+        PartialConfig partialConfig = PartialConfigMother.withPipelineInGroup("remote-pipeline-1", "g2");
+        partialConfig.setOrigins(new RepoConfigOrigin(ConfigRepoConfig.createConfigRepoConfig(git("http://git"), "myplug", "id"), "123"));
+
+        CruiseConfig copy = mainConfig.mergedCopy(List.of(partialConfig), true);
+
+        assertThat(copy, not(sameInstance(mainConfig)));
+        assertThat(copy.hasPipelineNamed(new CaseInsensitiveString("local-pipeline-1")), is(true));
+        assertThat(copy.hasPipelineNamed(new CaseInsensitiveString("remote-pipeline-1")), is(false));
+        assertThat(copy.isLocal(), is(true));
+    }
+
+    @Test
+    public void shouldShareTheSubtreesOfTheMainConfigWithoutMergingScmsWhenConstructingAMergedConfig() {
+        BasicCruiseConfig mainConfig = GoConfigMother.configWithPipelines("p1");
+        PartialConfig partialConfig = PartialConfigMother.withSCM("scm_id", "scm_name",
+                new PluginConfiguration("plugin_id", "1"), new Configuration(), new RepoConfigOrigin());
+
+        BasicCruiseConfig merged = new BasicCruiseConfig(mainConfig, partialConfig);
+
+        assertThat(merged.getSCMs(), sameInstance(mainConfig.getSCMs()));
+        assertThat(merged.getSCMs().contains(partialConfig.getScms().first()), is(false));
+        assertThat(merged.server(), sameInstance(mainConfig.server()));
+        assertThat(merged.getTemplates(), sameInstance(mainConfig.getTemplates()));
+    }
+
     @Test
     public void shouldGetPipelinesWithGroupName() throws Exception {
         PipelineConfig pipeline1 = createPipelineConfig("pipeline1", "stage1");
@@ -113,6 +113,30 @@ class PipelineConfigSaveValidationContextTest {
         assertThat(context.getDependencyMaterialsFor(new CaseInsensitiveString("junk")).getDependencies().isEmpty()).isTrue();
     }
 
+    @Test
+    void shouldGetAllPipelinesDependingOnAPipelineDirectlyOrTransitively() {
+        BasicCruiseConfig cruiseConfig = GoConfigMother.configWithPipelines("p1", "p2", "p3", "p4");
+        cruiseConfig.getPipelineConfigByName(new CaseInsensitiveString("p2")).addMaterialConfig(new DependencyMaterialConfig(new CaseInsensitiveString("p1"), new CaseInsensitiveString("stage")));
+        cruiseConfig.getPipelineConfigByName(new CaseInsensitiveString("p3")).addMaterialConfig(new DependencyMaterialConfig(new CaseInsensitiveString("p2"), new CaseInsensitiveString("stage")));
+        PipelineConfigSaveValidationContext context = PipelineConfigSaveValidationContext.forChain(true, "group", cruiseConfig);
+
+        assertThat(context.getPipelinesDependingOn(new CaseInsensitiveString("p1"))).containsExactlyInAnyOrder(new CaseInsensitiveString("p2"), new CaseInsensitiveString("p3"));
+        assertThat(context.getPipelinesDependingOn(new CaseInsensitiveString("p2"))).containsExactly(new CaseInsensitiveString("p3"));
+        assertThat(context.getPipelinesDependingOn(new CaseInsensitiveString("p3"))).isEmpty();
+        assertThat(context.getPipelinesDependingOn(new CaseInsensitiveString("p4"))).isEmpty();
+    }
+
+    @Test
+    void shouldShareIndexesOfTheConfigWithChildContexts() {
+        CruiseConfig cruiseConfig = new GoConfigMother().cruiseConfigWithPipelineUsingTwoMaterials();
+        MaterialConfig material = MaterialConfigsMother.multipleMaterialConfigs().get(1);
+        PipelineConfigSaveValidationContext context = PipelineConfigSaveValidationContext.forChain(true, "group", cruiseConfig);
+        PipelineConfigSaveValidationContext childContext = context.withParent(new PipelineConfig()).withParent(new StageConfig());
+
+        assertThat(childContext.getAllMaterialsByFingerPrint(material.getFingerprint())).isSameAs(context.getAllMaterialsByFingerPrint(material.getFingerprint()));
+        assertThat(childContext.getPipelinesWithDependencyMaterials()).isSameAs(context.getPipelinesWithDependencyMaterials());
+    }
+
     @Test
     void shouldGetParentDisplayName() {
         assertThat(PipelineConfigSaveValidationContext.forChain(true, "group", new PipelineConfig()).getParentDisplayName()).isEqualTo("pipeline");
@@ -274,6 +274,42 @@ public class GoConfigMother {
         return config;
     }
 
+    /*
+        Each pipeline has its own git material, depends on the previous pipeline of its group, and runs
+        stagesPerPipeline stages of jobsPerStage jobs, each with an exec task and a plain and a secure variable.
+     */
+    public static BasicCruiseConfig configWithManyPipelines(int numberOfGroups, int pipelinesPerGroup, int stagesPerPipeline, int jobsPerStage) {
+        final BasicCruiseConfig config = new BasicCruiseConfig();
+        config.initializeServer();
+        GoCipher cipher = new GoCipher();
+        for (int group = 1; group <= numberOfGroups; group++) {
+            String previousPipeline = null;
+            for (int pipeline = 1; pipeline <= pipelinesPerGroup; pipeline++) {
+                String pipelineName = String.format("pipeline_%d_%d", group, pipeline);
+                MaterialConfigs materialConfigs = new MaterialConfigs(git("https://example.com/" + pipelineName + ".git"));
+                if (previousPipeline != null) {
+                    materialConfigs.add(new DependencyMaterialConfig(new CaseInsensitiveString(previousPipeline), new CaseInsensitiveString("stage_1")));
+                }
+                PipelineConfig pipelineConfig = new PipelineConfig(new CaseInsensitiveString(pipelineName), materialConfigs);
+                for (int stage = 1; stage <= stagesPerPipeline; stage++) {
+                    JobConfigs jobs = new JobConfigs();
+                    for (int job = 1; job <= jobsPerStage; job++) {
+                        JobConfig jobConfig = new JobConfig(new CaseInsensitiveString("job_" + job), new ResourceConfigs(), new ArtifactTypeConfigs());
+                        jobConfig.addTask(new ExecTask("make", "-j4 build", "src"));
+                        jobConfig.getVariables().add("PLAIN_" + job, "value");
+                        jobConfig.getVariables().add(new EnvironmentVariableConfig(cipher, "SECURE_" + job, "secret", true));
+                        jobs.add(jobConfig);
+                    }
+                    pipelineConfig.add(StageConfigMother.custom("stage_" + stage, jobs));
+                }
+                pipelineConfig.setOrigin(new FileConfigOrigin());
+                config.addPipeline("group_" + group, pipelineConfig);
+                previousPipeline = pipelineName;
+            }
+        }
+        return config;
+    }
+
     public static CruiseConfig configWithPackageRepo(String... ids) throws Exception {
         final CruiseConfig config = new BasicCruiseConfig();
         PackageConfigurations configuration = new PackageConfigurations();
@@ -19,15 +19,15 @@ import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.domain.GoConfigRevision;
 import com.thoughtworks.go.util.TimeProvider;
 import org.apache.commons.io.FileUtils;
-import org.jdom2.Document;
-import org.jdom2.Element;
-import org.jdom2.input.SAXBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import javax.xml.transform.Transformer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Templates;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -38,6 +38,8 @@ import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static com.thoughtworks.go.util.ExceptionUtils.bombIfNull;
@@ -53,6 +55,8 @@ public class GoConfigMigration {
     private final String schemaVersion = "schemaVersion";
     private final TimeProvider timeProvider;
     private final ConfigElementImplementationRegistry registry;
+    // upgrade script URL -> compiled script; compiled templates are thread safe, unlike the transformers created from them
+    private final Map<String, Templates> upgradeTemplates = new ConcurrentHashMap<>();
 
     @Autowired
     public GoConfigMigration(final TimeProvider timeProvider, ConfigElementImplementationRegistry registry) {
@@ -73,7 +77,12 @@ public class GoConfigMigration {
     }
 
     public String upgradeIfNecessary(String content) {
-        return upgrade(content, getCurrentSchemaVersion(content));
+        int currentVersion = getCurrentSchemaVersion(content);
+        if (currentVersion == GoConfigSchema.currentSchemaVersion()) {
+            // nothing to upgrade; the config is validated against the current schema when it is loaded anyway
+            return content;
+        }
+        return upgrade(content, currentVersion);
     }
 
     private void backup(File configFile, File backupFile) throws IOException {
@@ -95,34 +104,33 @@ public class GoConfigMigration {
         LOG.info("Upgrading config file from version {} to version {}", currentVersion, targetVersion);
         List<URL> upgradeScripts = upgradeScripts(currentVersion, targetVersion);
 
+        byte[] config = content.getBytes();
         for (URL upgradeScript : upgradeScripts) {
-            validate(content);
-            content = upgrade(content, upgradeScript);
+            validate(config);
+            config = upgrade(config, upgradeScript);
         }
-        validate(content);
+        validate(config);
         LOG.info("Finished upgrading config file");
-        return content;
+        return new String(config);
     }
 
-    private void validate(String content) {
-        int currentVersion = getCurrentSchemaVersion(content);
+    private void validate(byte[] content) {
+        int currentVersion = getCurrentSchemaVersion(new ByteArrayInputStream(content));
         try {
-            buildXmlDocument(new ByteArrayInputStream(content.getBytes()), GoConfigSchema.getResource(currentVersion), registry.xsds());
+            buildXmlDocument(new ByteArrayInputStream(content), GoConfigSchema.getResource(currentVersion), registry.xsds());
         } catch (Exception e) {
             throw bomb("Cruise config file with version " + currentVersion + " is invalid. Unable to upgrade.", e);
         }
     }
 
-    private String upgrade(String originalContent, URL upgradeScript) {
-        try (InputStream xslt = upgradeScript.openStream()) {
-            ByteArrayOutputStream convertedConfig = new ByteArrayOutputStream();
-            transformer(upgradeScript.getPath(), xslt)
-                    .transform(new StreamSource(new ByteArrayInputStream(originalContent.getBytes())), new StreamResult(convertedConfig));
-            return convertedConfig.toString();
+    private byte[] upgrade(byte[] originalContent, URL upgradeScript) {
+        try {
+            ByteArrayOutputStream convertedConfig = new ByteArrayOutputStream(originalContent.length);
+            templates(upgradeScript).newTransformer()
+                    .transform(new StreamSource(new ByteArrayInputStream(originalContent)), new StreamResult(convertedConfig));
+            return convertedConfig.toByteArray();
         } catch (TransformerException e) {
             throw bomb("Couldn't transform configuration file using upgrade script " + upgradeScript.getPath(), e);
-        } catch (IOException e) {
-            throw bomb("Couldn't write converted config file", e);
         }
     }
 
@@ -141,14 +149,18 @@ public class GoConfigMigration {
         return GoConfigMigration.class.getResource(script);
     }
 
-    private Transformer transformer(String xsltName, InputStream xslt) {
-        try {
-            TransformerFactory factory = TransformerFactory.newInstance();
-            tryIncreaseXpathExpressionOperationLimit(factory);
-            return factory.newTransformer(new StreamSource(xslt));
-        } catch (TransformerConfigurationException tce) {
-            throw bomb("Couldn't parse XSL template " + xsltName, tce);
-        }
+    private Templates templates(URL upgradeScript) {
+        return upgradeTemplates.computeIfAbsent(upgradeScript.toString(), key -> {
+            try (InputStream xslt = upgradeScript.openStream()) {
+                TransformerFactory factory = TransformerFactory.newInstance();
+                tryIncreaseXpathExpressionOperationLimit(factory);
+                return factory.newTemplates(new StreamSource(xslt));
+            } catch (TransformerConfigurationException tce) {
+                throw bomb("Couldn't parse XSL template " + upgradeScript.getPath(), tce);
+            } catch (IOException e) {
+                throw bomb("Couldn't read XSL template " + upgradeScript.getPath(), e);
+            }
+        });
     }
 
     private void tryIncreaseXpathExpressionOperationLimit(TransformerFactory factory) {
@@ -160,15 +172,31 @@ public class GoConfigMigration {
     }
 
     private int getCurrentSchemaVersion(String content) {
-        try {
-            SAXBuilder builder = new SAXBuilder();
-            Document document = builder.build(new ByteArrayInputStream(content.getBytes()));
-            Element root = document.getRootElement();
+        return getCurrentSchemaVersion(new ByteArrayInputStream(content.getBytes()));
+    }
 
-            String currentVersion = root.getAttributeValue(schemaVersion) == null ? "0" : root.getAttributeValue(schemaVersion);
+    // only the root element is read, rather than building the whole document
+    private int getCurrentSchemaVersion(InputStream content) {
+        XMLStreamReader reader = null;
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            reader = factory.createXMLStreamReader(content);
+            while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                // skip the prolog
+            }
+
+            String currentVersion = reader.getAttributeValue(null, schemaVersion) == null ? "0" : reader.getAttributeValue(null, schemaVersion);
             return Integer.parseInt(currentVersion);
         } catch (Exception e) {
             throw bomb(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (Exception ignored) {
+                }
+            }
         }
     }
 }
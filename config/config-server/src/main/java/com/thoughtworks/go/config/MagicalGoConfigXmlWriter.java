@@ -79,12 +79,17 @@ public class MagicalGoConfigXmlWriter {
         Document document = createEmptyCruiseConfigDocument();
         write(configForEdit, document.getRootElement(), configCache, registry);
 
-        LOGGER.debug("[Serializing Config] XSD and DOM validation.");
-        verifyXsdValid(document);
-        MagicalGoConfigXmlLoader.validateDom(document.getRootElement(), registry);
-        LOGGER.info("[Serializing Config] Generating config partial.");
-        XmlUtils.writeXml(document, output);
-        LOGGER.debug("[Serializing Config] Finished writing config partial.");
+        // serialized once, and the same bytes are both validated against the XSD and written out
+        try (ByteArrayOutputStream buffer = new ByteArrayOutputStream(32 * 1024)) {
+            XmlUtils.writeXml(document, buffer);
+
+            LOGGER.debug("[Serializing Config] XSD and DOM validation.");
+            verifyXsdValid(buffer);
+            MagicalGoConfigXmlLoader.validateDom(document.getRootElement(), registry);
+            LOGGER.info("[Serializing Config] Generating config partial.");
+            buffer.writeTo(output);
+            LOGGER.debug("[Serializing Config] Finished writing config partial.");
+        }
     }
 
     public Document documentFrom(CruiseConfig config) {
@@ -103,10 +108,14 @@ public class MagicalGoConfigXmlWriter {
     public void verifyXsdValid(Document document) throws Exception {
         try (ByteArrayOutputStream buffer = new ByteArrayOutputStream(32 * 1024)) {
             XmlUtils.writeXml(document, buffer);
-            buildXmlDocument(buffer.toInputStream(), GoConfigSchema.getCurrentSchema(), registry.xsds());
+            verifyXsdValid(buffer);
         }
     }
 
+    private void verifyXsdValid(ByteArrayOutputStream serializedDocument) throws Exception {
+        buildXmlDocument(serializedDocument.toInputStream(), GoConfigSchema.getCurrentSchema(), registry.xsds());
+    }
+
     public String toXmlPartial(Object domainObject) {
         bombIf(!isAnnotationPresent(domainObject.getClass(), ConfigTag.class), () -> "Object " + domainObject + " does not have a ConfigTag");
         Element element = elementFor(domainObject.getClass());
@@ -151,26 +160,57 @@ public class MagicalGoConfigXmlWriter {
     private static List<XmlFieldWithValue<?>> allFields(Object o, ConfigCache configCache, final ConfigElementImplementationRegistry registry) {
         List<XmlFieldWithValue<?>> list = new ArrayList<>();
         Class<?> originalClass = o.getClass();
+        // all fields of an object are compared against the same default instance, which is only created when first needed
+        DefaultInstance defaultInstance = new DefaultInstance(originalClass);
         for (GoConfigFieldWriter field : allFieldsWithInherited(originalClass, o, configCache, registry)) {
             Field configField = field.getConfigField();
+            XmlFieldWithValue<?> xmlField = null;
             if (field.isImplicitCollection()) {
-                list.add(new ImplicitCollectionXmlFieldWithValue(originalClass, configField,
-                        (Collection<?>) field.getValue(), configCache, registry));
+                xmlField = new ImplicitCollectionXmlFieldWithValue(originalClass, configField,
+                        (Collection<?>) field.getValue(), configCache, registry);
             } else if (field.isConfigCollection()) {
-                list.add(new ExplicitCollectionXmlFieldWithValue(originalClass, configField,
-                        (Collection<?>) field.getValue(), configCache, registry));
+                xmlField = new ExplicitCollectionXmlFieldWithValue(originalClass, configField,
+                        (Collection<?>) field.getValue(), configCache, registry);
             } else if (field.isSubtag()) {
-                list.add(new SubTagXmlFieldWithValue(originalClass, configField, field.getValue(), configCache, registry));
+                xmlField = new SubTagXmlFieldWithValue(originalClass, configField, field.getValue(), configCache, registry);
             } else if (field.isAttribute()) {
                 final Object value = field.getValue();
-                list.add(new AttributeXmlFieldWithValue(originalClass, configField, value, configCache, registry));
+                xmlField = new AttributeXmlFieldWithValue(originalClass, configField, value, configCache, registry);
             } else if (field.isConfigValue()) {
-                list.add(new ValueXmlFieldWithValue(configField, field.getValue(), originalClass, configCache, registry));
+                xmlField = new ValueXmlFieldWithValue(configField, field.getValue(), originalClass, configCache, registry);
+            }
+            if (xmlField != null) {
+                xmlField.defaultInstance = defaultInstance;
+                list.add(xmlField);
             }
         }
         return list;
     }
 
+    private static class DefaultInstance {
+        private final Class<?> aClass;
+        private Object instance;
+        private RuntimeException failure;
+
+        private DefaultInstance(Class<?> aClass) {
+            this.aClass = aClass;
+        }
+
+        Object get() {
+            if (instance == null && failure == null) {
+                try {
+                    instance = ConfigElementInstantiator.instantiateConfigElement(new GoCipher(), aClass);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return instance;
+        }
+    }
+
     private static List<GoConfigFieldWriter> allFieldsWithInherited(Class<?> aClass, Object o, ConfigCache configCache, final ConfigElementImplementationRegistry registry) {
         return new GoConfigClassWriter(aClass, configCache, registry).getAllFields(o);
     }
@@ -181,6 +221,7 @@ public class MagicalGoConfigXmlWriter {
         protected final T value;
         protected final ConfigCache configCache;
         protected final ConfigElementImplementationRegistry registry;
+        private DefaultInstance defaultInstance;
 
         private XmlFieldWithValue(Class<?> originalClass, Field field, T value, ConfigCache configCache, ConfigElementImplementationRegistry registry) {
             this.originalClass = originalClass;
@@ -192,7 +233,7 @@ public class MagicalGoConfigXmlWriter {
 
         public boolean isDefault() {
             try {
-                Object defaultObject = ConfigElementInstantiator.instantiateConfigElement(new GoCipher(), originalClass);
+                Object defaultObject = defaultInstance != null ? defaultInstance.get() : ConfigElementInstantiator.instantiateConfigElement(new GoCipher(), originalClass);
                 Object defaultValue = field.get(defaultObject);
                 return Objects.equals(value, defaultValue);
             } catch (Exception e) {
@@ -21,13 +21,14 @@ import com.thoughtworks.go.util.ConfigUtil;
 import org.jdom2.Element;
 
 import java.lang.reflect.Field;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
 public class GoConfigAttributeLoader {
-    private static final Map<Field, ConfigAttribute> isAttributes = new HashMap<>();
+    private static final Map<Field, Optional<ConfigAttribute>> isAttributes = new ConcurrentHashMap<>();
     private final ConfigUtil configUtil = new ConfigUtil("magic");
     private final Element e;
     private final Field field;
@@ -37,10 +38,7 @@ public class GoConfigAttributeLoader {
     }
 
     private static ConfigAttribute findAttribute(Field field) {
-        if (!isAttributes.containsKey(field)) {
-            isAttributes.put(field, field.getAnnotation(ConfigAttribute.class));
-        }
-        return isAttributes.get(field);
+        return isAttributes.computeIfAbsent(field, f -> Optional.ofNullable(f.getAnnotation(ConfigAttribute.class))).orElse(null);
     }
 
     public static GoConfigAttributeLoader attributeParser(Element e, Field field) {
@@ -27,8 +27,12 @@ import javax.annotation.PostConstruct;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.config.ConfigCache.annotationFor;
 import static com.thoughtworks.go.config.ConfigCache.isAnnotationPresent;
@@ -39,6 +43,7 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 
 public class GoConfigClassLoader<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(GoConfigClassLoader.class);
+    private static final Map<Class<?>, List<Method>> postConstructMethods = new ConcurrentHashMap<>();
     private final ConfigUtil configUtil = new ConfigUtil("magic");
     private final Element e;
     private final Class<T> aClass;
@@ -86,15 +91,15 @@ public class GoConfigClassLoader<T> {
     }
 
     private void postConstruct(T o) {
-        Method[] methods = o.getClass().getMethods();
+        List<Method> methods = postConstructMethods.computeIfAbsent(o.getClass(), type -> Arrays.stream(type.getMethods())
+            .filter(method -> isAnnotationPresent(method, PostConstruct.class))
+            .collect(Collectors.toList()));
         for (Method method : methods) {
-            if (isAnnotationPresent(method, PostConstruct.class)) {
-                try {
-                    method.invoke(o);
-                } catch (Exception e) {
-                    LOGGER.error("Failed to save config: ", e);
-                    throw bomb(e);
-                }
+            try {
+                method.invoke(o);
+            } catch (Exception e) {
+                LOGGER.error("Failed to save config: ", e);
+                throw bomb(e);
             }
         }
     }
@@ -113,7 +118,7 @@ public class GoConfigClassLoader<T> {
         for (Element childElement : e.getChildren()) {
             if (isInCollection(childElement, elementType)) {
                 Class<?> collectionType = findConcreteType(childElement, elementType);
-                collection.add(classParser(childElement, collectionType, configCache, new GoCipher(), registry, configReferenceElements).parse());
+                collection.add(classParser(childElement, collectionType, configCache, goCipher, registry, configReferenceElements).parse());
             }
         }
         int minimumSize = collectionAnnotation.minimum();
@@ -126,7 +131,7 @@ public class GoConfigClassLoader<T> {
         List<GoConfigFieldLoader<?>> fields = new ArrayList<>();
         List<Field> allFields = configCache.getFieldCache().valuesFor(o.getClass());
         for (Field field : allFields) {
-            fields.add(fieldParser(e, o, field, configCache, registry, configReferenceElements));
+            fields.add(fieldParser(e, o, field, configCache, goCipher, registry, configReferenceElements));
         }
         return fields;
     }
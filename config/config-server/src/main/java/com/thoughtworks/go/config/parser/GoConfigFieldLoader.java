@@ -26,8 +26,9 @@ import org.springframework.beans.TypeMismatchException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.thoughtworks.go.config.ConfigCache.isAnnotationPresent;
 import static com.thoughtworks.go.config.parser.GoConfigAttributeLoader.attributeParser;
@@ -38,26 +39,29 @@ import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static java.text.MessageFormat.format;
 
 public class GoConfigFieldLoader<T> {
-    private static final Map<Field, Boolean> implicits = new HashMap<>();
+    private static final Map<Field, Boolean> implicits = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Optional<Constructor<?>>> attributeValueConstructors = new ConcurrentHashMap<>();
     private static final SimpleTypeConverter typeConverter = new GoConfigFieldTypeConverter();
 
     private final Element e;
     private final T instance;
     private final Field field;
     private final ConfigCache configCache;
+    private final GoCipher goCipher;
     private final ConfigReferenceElements configReferenceElements;
     private final ConfigElementImplementationRegistry registry;
 
-    public static <T> GoConfigFieldLoader<T> fieldParser(Element e, T instance, Field field, ConfigCache configCache, final ConfigElementImplementationRegistry registry,
+    public static <T> GoConfigFieldLoader<T> fieldParser(Element e, T instance, Field field, ConfigCache configCache, GoCipher goCipher, final ConfigElementImplementationRegistry registry,
                                                              ConfigReferenceElements configReferenceElements) {
-        return new GoConfigFieldLoader<>(e, instance, field, configCache, registry, configReferenceElements);
+        return new GoConfigFieldLoader<>(e, instance, field, configCache, goCipher, registry, configReferenceElements);
     }
 
-    private GoConfigFieldLoader(Element e, T instance, Field field, ConfigCache configCache, final ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
+    private GoConfigFieldLoader(Element e, T instance, Field field, ConfigCache configCache, GoCipher goCipher, final ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
         this.e = e;
         this.instance = instance;
         this.field = field;
         this.configCache = configCache;
+        this.goCipher = goCipher;
         this.configReferenceElements = configReferenceElements;
         this.registry = registry;
     }
@@ -65,11 +69,11 @@ public class GoConfigFieldLoader<T> {
     public void parse() {
         if (isImplicitCollection()) {
             field.setAccessible(true);
-            Object val = GoConfigClassLoader.classParser(e, field.getType(), configCache, new GoCipher(), registry, configReferenceElements).parseImplicitCollection();
+            Object val = GoConfigClassLoader.classParser(e, field.getType(), configCache, goCipher, registry, configReferenceElements).parseImplicitCollection();
             setValue(val);
         } else if (isSubtag(field)) {
             field.setAccessible(true);
-            Object val = subtagParser(e, field, configCache, registry, configReferenceElements).parse();
+            Object val = subtagParser(e, field, configCache, goCipher, registry, configReferenceElements).parse();
             setValue(val);
         } else if (isAttribute(field)) {
             field.setAccessible(true);
@@ -93,11 +97,8 @@ public class GoConfigFieldLoader<T> {
     }
 
     private boolean isImplicitCollection() {
-        if (!implicits.containsKey(field)) {
-            implicits.put(field, ConfigCache.isAnnotationPresent(field, ConfigSubtag.class)
-                    && GoConfigClassLoader.isImplicitCollection(field.getType()));
-        }
-        return implicits.get(field);
+        return implicits.computeIfAbsent(field, f -> ConfigCache.isAnnotationPresent(f, ConfigSubtag.class)
+                && GoConfigClassLoader.isImplicitCollection(f.getType()));
     }
 
     private void setValue(Object val) {
@@ -105,7 +106,7 @@ public class GoConfigFieldLoader<T> {
             ConfigAttributeValue configAttributeValue = field.getType().getAnnotation(ConfigAttributeValue.class);
             if (configAttributeValue != null) {
                 if (val != null || configAttributeValue.createForNull()) {
-                    Constructor<?> constructor = field.getType().getConstructor(String.class);
+                    Constructor<?> constructor = stringConstructorOf(field.getType());
                     field.set(instance, constructor.newInstance(val));
                 }
             } else if (val != null) {
@@ -125,6 +126,20 @@ public class GoConfigFieldLoader<T> {
         }
     }
 
+    private static Constructor<?> stringConstructorOf(Class<?> type) throws NoSuchMethodException {
+        Optional<Constructor<?>> constructor = attributeValueConstructors.computeIfAbsent(type, t -> {
+            try {
+                return Optional.of(t.getConstructor(String.class));
+            } catch (NoSuchMethodException e) {
+                return Optional.empty();
+            }
+        });
+        if (constructor.isEmpty()) {
+            throw new NoSuchMethodException(type.getName() + ".<init>(java.lang.String)");
+        }
+        return constructor.get();
+    }
+
     private Object defaultValue() {
         try {
             return field.get(instance);
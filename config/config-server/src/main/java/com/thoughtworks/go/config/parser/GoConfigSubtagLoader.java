@@ -25,20 +25,22 @@ import com.thoughtworks.go.util.ConfigUtil;
 import org.jdom2.Element;
 
 import java.lang.reflect.Field;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.thoughtworks.go.config.ConfigCache.annotationFor;
 import static com.thoughtworks.go.config.ConfigCache.isAnnotationPresent;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
 public class GoConfigSubtagLoader {
-    private static final Map<Field, ConfigSubtag> isSubTags = new HashMap<>();
+    private static final Map<Field, Optional<ConfigSubtag>> isSubTags = new ConcurrentHashMap<>();
 
     private final ConfigUtil configUtil = new ConfigUtil("magic");
     private final Element e;
     private final Field field;
     private final ConfigCache configCache;
+    private final GoCipher goCipher;
     private final ConfigElementImplementationRegistry registry;
     private final ConfigReferenceElements configReferenceElements;
 
@@ -47,21 +49,19 @@ public class GoConfigSubtagLoader {
     }
 
     private static ConfigSubtag findSubTag(Field field) {
-        if (!isSubTags.containsKey(field)) {
-            isSubTags.put(field, field.getAnnotation(ConfigSubtag.class));
-        }
-        return isSubTags.get(field);
+        return isSubTags.computeIfAbsent(field, f -> Optional.ofNullable(f.getAnnotation(ConfigSubtag.class))).orElse(null);
     }
 
-    public static GoConfigSubtagLoader subtagParser(Element e, Field field, ConfigCache configCache, final ConfigElementImplementationRegistry registry,
+    public static GoConfigSubtagLoader subtagParser(Element e, Field field, ConfigCache configCache, GoCipher goCipher, final ConfigElementImplementationRegistry registry,
                                                         ConfigReferenceElements configReferenceElements) {
-        return new GoConfigSubtagLoader(e, field, configCache, registry, configReferenceElements);
+        return new GoConfigSubtagLoader(e, field, configCache, goCipher, registry, configReferenceElements);
     }
 
-    private GoConfigSubtagLoader(Element e, Field field, ConfigCache configCache, final ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
+    private GoConfigSubtagLoader(Element e, Field field, ConfigCache configCache, GoCipher goCipher, final ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
         this.e = e;
         this.field = field;
         this.configCache = configCache;
+        this.goCipher = goCipher;
         this.registry = registry;
         this.configReferenceElements = configReferenceElements;
     }
@@ -75,7 +75,7 @@ public class GoConfigSubtagLoader {
             return null;
         }
 
-        return GoConfigClassLoader.classParser(configUtil.getChild(e, tag), type, configCache, new GoCipher(), registry, configReferenceElements).parse();
+        return GoConfigClassLoader.classParser(configUtil.getChild(e, tag), type, configCache, goCipher, registry, configReferenceElements).parse();
     }
 
     private Class<?> findTypeOfField() {
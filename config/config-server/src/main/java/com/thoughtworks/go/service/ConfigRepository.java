@@ -31,10 +31,14 @@ import org.eclipse.jgit.api.errors.NoHeadException;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.pack.PackConfig;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.jetbrains.annotations.TestOnly;
 import org.slf4j.Logger;
@@ -46,8 +50,12 @@ import org.springframework.util.Assert;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.text.ParseException;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.stream.StreamSupport;
 
@@ -64,6 +72,8 @@ public class ConfigRepository {
     static final String BRANCH_AT_HEAD = "branch-at-head";
     public static final String CURRENT = "current";
     private static final String REFS_MASTER = "refs/heads/master";
+    private static final String MD5_FRAGMENT = GoConfigRevision.Fragment.md5.represent("");
+    static final int MAX_INDEXED_MASTER_COMMITS = 1000;
     private final SystemEnvironment systemEnvironment;
 
     private File workingDir;
@@ -72,6 +82,16 @@ public class ConfigRepository {
     private Git git;
     private Repository gitRepo;
 
+    // (escaped) md5 of a config revision -> commit on master, for the revisions most recently checked in or looked up.
+    // Bounded, so that a long config history is not held in memory; a revision which is not in it is looked up in the
+    // history again.
+    private final Map<String, ObjectId> masterCommitsByMd5 = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ObjectId> eldest) {
+            return size() > MAX_INDEXED_MASTER_COMMITS;
+        }
+    };
+
     @Autowired
     public ConfigRepository(SystemEnvironment systemEnvironment) throws IOException {
         this.systemEnvironment = systemEnvironment;
@@ -126,7 +146,10 @@ public class ConfigRepository {
                 @Override
                 public void run() throws Exception {
                     addCommand.addFilepattern(CRUISE_CONFIG_XML).call();
-                    git.commit().setAuthor(rev.getUsername(), COMMIT_EMAIL).setMessage(rev.getComment()).call();
+                    RevCommit commit = git.commit().setAuthor(rev.getUsername(), COMMIT_EMAIL).setMessage(rev.getComment()).call();
+                    if (REFS_MASTER.equals(gitRepo.getFullBranch())) {
+                        indexMasterCommit(commit);
+                    }
                 }
             });
         } catch (Exception e) {
@@ -157,14 +180,52 @@ public class ConfigRepository {
     public RevCommit getRevCommitForMd5(String md5) throws GitAPIException {
         Assert.notNull(md5, "md5 is required");
 
-        final String expectedPart = GoConfigRevision.Fragment.md5.represent(GoConfigRevision.esc(md5));
-        for (RevCommit revision : revisions()) {
-            String message = revision.getFullMessage();
-            if (message.endsWith(expectedPart)) {
-                return revision;
+        final String escapedMd5 = GoConfigRevision.esc(md5);
+        return doLocked(() -> {
+            try (RevWalk walk = new RevWalk(gitRepo)) {
+                ObjectId commitId = masterCommitsByMd5.get(escapedMd5);
+                if (commitId == null) {
+                    commitId = findLatestCommitOnHead(walk, escapedMd5);
+                }
+                if (commitId == null) {
+                    throw new IllegalArgumentException(String.format("There is no config version corresponding to md5: '%s'", md5));
+                }
+                return walk.parseCommit(commitId);
+            } catch (IOException e) {
+                throw new RuntimeException("Error while fetching a commit from the config repository.", e);
             }
+        });
+    }
+
+    private ObjectId findLatestCommitOnHead(RevWalk walk, String escapedMd5) throws IOException {
+        ObjectId head = gitRepo.resolve(Constants.HEAD);
+        if (head == null) {
+            return null;
+        }
+        walk.markStart(walk.parseCommit(head));
+        for (RevCommit commit : walk) {
+            if (escapedMd5.equals(md5Of(commit))) {
+                if (REFS_MASTER.equals(gitRepo.getFullBranch())) {
+                    masterCommitsByMd5.put(escapedMd5, commit.copy());
+                }
+                return commit;
+            }
+            commit.disposeBody();
+        }
+        return null;
+    }
+
+    private void indexMasterCommit(RevCommit commit) {
+        String escapedMd5 = md5Of(commit);
+        if (escapedMd5 != null) {
+            masterCommitsByMd5.put(escapedMd5, commit.copy());
         }
-        throw new IllegalArgumentException(String.format("There is no config version corresponding to md5: '%s'", md5));
+    }
+
+    private String md5Of(RevCommit commit) {
+        String message = commit.getFullMessage();
+        int md5Start = message.lastIndexOf(MD5_FRAGMENT);
+        return md5Start < 0 ? null : message.substring(md5Start + MD5_FRAGMENT.length());
     }
 
     RevCommit getRevCommitForCommitSHA(String commitSHA) throws GitAPIException {
@@ -393,24 +454,52 @@ public class ConfigRepository {
         if (!systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_PERIODIC_GC)) {
             return;
         }
-        doLocked(new VoidThrowingFn<Exception>() {
-            @Override
-            public void run() throws Exception {
-                try {
-                    LOGGER.info("Before GC: {}", git.gc().getStatistics());
-                    LOGGER.debug("Before GC: Size - {}", getConfigRepoDisplaySize());
-                    long expireTimeInMs = systemEnvironment.getConfigGitGcExpireInMillis();
-                    git.gc().setAggressive(systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_GC_AGGRESSIVE))
-                            .setExpire(new Date(System.currentTimeMillis() - expireTimeInMs))
-                            .call();
-                    LOGGER.info("After GC: {}", git.gc().getStatistics());
-                    LOGGER.debug("After GC: Size: {}", getConfigRepoDisplaySize());
-                } catch (GitAPIException e) {
-                    LOGGER.error("Could not perform GC", e);
-                    throw e;
+        try {
+            LOGGER.info("Before GC: {}", getStatistics());
+            LOGGER.debug("Before GC: Size - {}", getConfigRepoDisplaySize());
+            long expireTimeInMs = systemEnvironment.getConfigGitGcExpireInMillis();
+            GC gc = new GC((FileRepository) gitRepo);
+            gc.setExpire(new Date(System.currentTimeMillis() - expireTimeInMs));
+            gc.setPackConfig(packConfig(systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_GC_AGGRESSIVE)));
+
+            // Repacking takes most of the time. It packs what is reachable from the refs as they are when it starts,
+            // so config can be checked in meanwhile. Packing refs and deleting loose objects is done under the lock,
+            // since a check-in in progress can rely on a loose object which is not reachable yet.
+            repack(gc);
+            doLocked(new VoidThrowingFn<Exception>() {
+                @Override
+                public void run() throws Exception {
+                    gc.packRefs();
+                    gc.prunePacked();
+                    gc.prune(Collections.emptySet());
                 }
-            }
-        });
+            });
+            LOGGER.info("After GC: {}", getStatistics());
+            LOGGER.debug("After GC: Size: {}", getConfigRepoDisplaySize());
+        } catch (IOException | ParseException | GitAPIException e) {
+            LOGGER.error("Could not perform GC", e);
+            throw e;
+        }
+    }
+
+    void repack(GC gc) throws IOException {
+        gc.repack();
+    }
+
+    private PackConfig packConfig(boolean aggressive) {
+        PackConfig packConfig = new PackConfig(gitRepo);
+        if (aggressive) {
+            // same as `git.gc().setAggressive(true)`
+            packConfig.setDeltaSearchWindowSize(GarbageCollectCommand.DEFAULT_GC_AGGRESSIVE_WINDOW);
+            packConfig.setMaxDeltaDepth(GarbageCollectCommand.DEFAULT_GC_AGGRESSIVE_DEPTH);
+            packConfig.setReuseObjects(false);
+        }
+        // Packs replaced by a repack are moved aside instead of being deleted. A check-in which found an object in one
+        // of them while the repack ran gets the pack restored when it reads that object. They are deleted by the next
+        // repack.
+        packConfig.setPreserveOldPacks(true);
+        packConfig.setPrunePreserved(true);
+        return packConfig;
     }
 
     private String getConfigRepoDisplaySize() {
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistrar;
+import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
+import com.thoughtworks.go.helper.GoConfigMother;
+import com.thoughtworks.go.security.ResetCipher;
+import com.thoughtworks.go.util.ConfigElementImplementationRegistryMother;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+@ExtendWith(ResetCipher.class)
+public class MagicalGoConfigXmlLoaderPerformanceTest {
+    private MagicalGoConfigXmlLoader xmlLoader;
+    private MagicalGoConfigXmlWriter xmlWriter;
+
+    @BeforeEach
+    public void setup() {
+        ConfigCache configCache = new ConfigCache();
+        ConfigElementImplementationRegistry registry = ConfigElementImplementationRegistryMother.withNoPlugins();
+        new ConfigElementImplementationRegistrar(registry).initialize();
+        xmlLoader = new MagicalGoConfigXmlLoader(configCache, registry);
+        xmlWriter = new MagicalGoConfigXmlWriter(configCache, registry);
+    }
+
+    @Test
+    @Timeout(value = 4, unit = MINUTES)
+    public void shouldLoadALargeConfig() throws Exception {
+        int numberOfGroups = 10;
+        int pipelinesPerGroup = 50;
+        String xml = serialize(GoConfigMother.configWithManyPipelines(numberOfGroups, pipelinesPerGroup, 3, 3));
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.currentTimeMillis();
+        CruiseConfig firstLoad = xmlLoader.loadConfigHolder(xml).config;
+        long firstAttempt = System.currentTimeMillis() - start;
+        long firstAllocation = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        start = System.currentTimeMillis();
+        CruiseConfig secondLoad = xmlLoader.loadConfigHolder(xml).config;
+        long secondAttempt = System.currentTimeMillis() - start;
+        long secondAllocation = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        String measurements = String.format("Loading %d chars of config took %dms and allocated %dMB the first time, and %dms and %dMB the next time.",
+                xml.length(), firstAttempt, firstAllocation >> 20, secondAttempt, secondAllocation >> 20);
+        assertThat(measurements, firstAttempt, lessThan(60000L));
+        assertThat(measurements, secondAttempt, lessThan(60000L));
+
+        assertThat(firstLoad.getAllPipelineConfigs().size(), is(numberOfGroups * pipelinesPerGroup));
+        assertThat(secondLoad.getAllPipelineConfigs().size(), is(numberOfGroups * pipelinesPerGroup));
+    }
+
+    private String serialize(CruiseConfig config) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        xmlWriter.write(config, output, true);
+        return output.toString(UTF_8);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistrar;
+import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
+import com.thoughtworks.go.helper.GoConfigMother;
+import com.thoughtworks.go.security.ResetCipher;
+import com.thoughtworks.go.util.ConfigElementImplementationRegistryMother;
+import org.jdom2.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+@ExtendWith(ResetCipher.class)
+public class MagicalGoConfigXmlWriterPerformanceTest {
+    private static final int ATTEMPTS = 3;
+
+    private final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private ConfigElementImplementationRegistry registry;
+    private MagicalGoConfigXmlWriter xmlWriter;
+
+    @BeforeEach
+    public void setup() {
+        ConfigCache configCache = new ConfigCache();
+        registry = ConfigElementImplementationRegistryMother.withNoPlugins();
+        new ConfigElementImplementationRegistrar(registry).initialize();
+        xmlWriter = new MagicalGoConfigXmlWriter(configCache, registry);
+    }
+
+    @Test
+    @Timeout(value = 4, unit = MINUTES)
+    public void shouldSerializeALargeConfigOnlyOnceWhenSaving() throws Exception {
+        CruiseConfig config = GoConfigMother.configWithManyPipelines(10, 50, 3, 3);
+
+        String serializedTwice = serializeTwice(config);
+        String serializedOnce = serializeOnce(config);
+        assertThat(serializedOnce, is(serializedTwice));
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            serializeTwice(config);
+        }
+        long twiceTime = System.currentTimeMillis() - start;
+        long twiceAllocation = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        start = System.currentTimeMillis();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            serializeOnce(config);
+        }
+        long onceTime = System.currentTimeMillis() - start;
+        long onceAllocation = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        String measurements = String.format("Saving %d chars of config %d times took %dms and allocated %dMB when serialized twice, and %dms and %dMB when serialized once.",
+                serializedOnce.length(), ATTEMPTS, twiceTime, twiceAllocation >> 20, onceTime, onceAllocation >> 20);
+        assertThat(measurements, onceAllocation, lessThan(twiceAllocation));
+    }
+
+    private String serializeOnce(CruiseConfig config) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        xmlWriter.write(config, output, true);
+        return output.toString(UTF_8);
+    }
+
+    // how MagicalGoConfigXmlWriter.write used to save: once to validate against the XSD, and once more to write out
+    private String serializeTwice(CruiseConfig config) throws Exception {
+        Document document = xmlWriter.documentFrom(config);
+        xmlWriter.verifyXsdValid(document);
+        MagicalGoConfigXmlLoader.validateDom(document.getRootElement(), registry);
+        return xmlWriter.toString(document);
+    }
+}
@@ -18,7 +18,9 @@ package com.thoughtworks.go.config.parser;
 import com.thoughtworks.go.config.AttributeAwareConfigTag;
 import com.thoughtworks.go.config.ConfigAttribute;
 import com.thoughtworks.go.config.ConfigCache;
+import com.thoughtworks.go.config.ConfigSubtag;
 import com.thoughtworks.go.config.ConfigTag;
+import com.thoughtworks.go.config.PasswordEncrypter;
 import com.thoughtworks.go.config.preprocessor.ClassAttributeCache;
 import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.security.GoCipher;
@@ -30,6 +32,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -136,6 +139,17 @@ public class GoConfigClassLoaderTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Attribute `type` is not allowed in com.thoughtworks.go.config.parser.AttributeAwareConfigTagHasConfigAttributeWithSameName. You cannot use @ConfigAttribute annotation with attribute name `type` when @AttributeAwareConfigTag is configured with same name.");
     }
+
+    @Test
+    public void shouldCreateNestedElementsWithTheSameCipher() {
+        final Element element = new Element("example");
+        element.addContent(new Element("encrypted"));
+        when(configCache.getFieldCache()).thenReturn(new ClassAttributeCache.FieldCache());
+
+        final GoConfigClassLoader<ConfigWithEncryptedSubtag> loader = GoConfigClassLoader.classParser(element, ConfigWithEncryptedSubtag.class, configCache, goCipher, registry, referenceElements);
+
+        assertSame(goCipher, loader.parse().encrypted.goCipher);
+    }
 }
 
 class ConfigWithoutAnnotation {
@@ -158,4 +172,23 @@ class AttributeAwareConfigTagWithBlankAttributeValue {
 class AttributeAwareConfigTagHasConfigAttributeWithSameName {
     @ConfigAttribute("type")
     private String type;
+}
+
+@ConfigTag("example")
+class ConfigWithEncryptedSubtag {
+    @ConfigSubtag
+    EncryptedConfig encrypted;
+}
+
+@ConfigTag("encrypted")
+class EncryptedConfig implements PasswordEncrypter {
+    final GoCipher goCipher;
+
+    EncryptedConfig(GoCipher goCipher) {
+        this.goCipher = goCipher;
+    }
+
+    @Override
+    public void ensureEncrypted() {
+    }
 }
\ No newline at end of file
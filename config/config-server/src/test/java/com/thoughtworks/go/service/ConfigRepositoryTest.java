@@ -24,6 +24,7 @@ import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TimeProvider;
 import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.GC;
 import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.StoredConfig;
@@ -38,12 +39,18 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 public class ConfigRepositoryTest {
@@ -183,6 +190,30 @@ public class ConfigRepositoryTest {
         assertThat(actual, containsString(configChangesLine2));
     }
 
+    @Test
+    public void shouldFindCommitsForMd5sCheckedInBeforeAndAfterAnEarlierLookup() throws Exception {
+        configRepo.checkin(goConfigRevision("v1", "md5-1"));
+        configRepo.checkin(goConfigRevision("v2", "md5-2"));
+        assertThat(configRepo.getRevCommitForMd5("md5-2"), is(configRepo.getCurrentRevCommit()));
+
+        configRepo.checkin(goConfigRevision("v3", "md5-3"));
+        configRepo.checkin(goConfigRevision("v1", "md5-1"));
+
+        assertThat(configRepo.getRevCommitForMd5("md5-3").getParent(0).getId(), is(configRepo.getRevCommitForMd5("md5-2").getId()));
+        assertThat(configRepo.getRevCommitForMd5("md5-1"), is(configRepo.getCurrentRevCommit()));
+        assertThat(configRepo.getRevision("md5-3").getContent(), is("v3"));
+    }
+
+    @Test
+    public void shouldNotFindCommitsForMd5sCheckedInToOtherBranches() throws Exception {
+        configRepo.checkin(goConfigRevision("v1", "md5-1"));
+        configRepo.createBranch(ConfigRepository.BRANCH_AT_REVISION, configRepo.getCurrentRevCommit());
+        configRepo.checkinToBranch(ConfigRepository.BRANCH_AT_REVISION, goConfigRevision("v2", "md5-2"));
+        configRepo.cleanAndResetToMaster();
+
+        assertThrows(IllegalArgumentException.class, () -> configRepo.getRevCommitForMd5("md5-2"));
+    }
+
     @Test
     public void shouldReturnNullForFirstCommit() throws Exception {
         configRepo.checkin(goConfigRevision("something", "md5-1"));
@@ -413,6 +444,28 @@ public class ConfigRepositoryTest {
         assertThat(numberOfLooseObjects, is(0L));
     }
 
+    @Test
+    public void shouldCheckinConfigWhileGCIsRepacking() throws Exception {
+        configRepo.checkin(goConfigRevision("v1", "md5-1"));
+        ConfigRepository repository = spy(configRepo);
+        doAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    repository.checkin(goConfigRevision("v2", "md5-2"));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }).get(30, SECONDS);
+            return invocation.callRealMethod();
+        }).when(repository).repack(any(GC.class));
+
+        repository.garbageCollect();
+
+        assertThat(repository.getRevision("md5-1").getContent(), is("v1"));
+        assertThat(repository.getRevision("md5-2").getContent(), is("v2"));
+        assertThat(configRepo.git().gc().getStatistics().get("numberOfLooseObjects"), is(0L));
+    }
+
     @Test
     public void shouldNotPerformGCWhenPeriodicGCIsTurnedOff() throws Exception {
         when(systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_PERIODIC_GC)).thenReturn(false);
@@ -124,7 +124,15 @@ public class GoConfigRepoConfigDataSource implements ChangedRepoConfigWatchListL
 
     public void onCheckoutComplete(MaterialConfig material, File folder, Modification modification) {
         // called when pipelines/flyweight/[flyweight] has a clean checkout of latest material
+        parseCheckout(material, folder, modification).run();
+    }
 
+    /**
+     * Parses a clean checkout of a config repo material, without exposing the result yet. Parsing through a plugin
+     * can be slow, so checkouts of several materials can be parsed concurrently. Running the returned task stores the
+     * result and notifies the listeners, which updates the config, and should be done on one thread at a time.
+     */
+    public Runnable parseCheckout(MaterialConfig material, File folder, Modification modification) {
         // Having modifications in signature might seem like an overkill
         // but on the other hand if plugin is smart enough it could
         // parse only files that have changed, which is a huge performance gain where there are many pipelines
@@ -136,14 +144,19 @@ public class GoConfigRepoConfigDataSource implements ChangedRepoConfigWatchListL
          */
 
         String fingerprint = material.getFingerprint();
-        if (this.configWatchList.hasConfigRepoWithFingerprint(fingerprint)) {
-            PartialConfigProvider plugin = null;
-            ConfigRepoConfig repoConfig = configWatchList.getConfigRepoForMaterial(material);
-            HealthStateScope scope = HealthStateScope.forPartialConfigRepo(repoConfig);
+        if (!this.configWatchList.hasConfigRepoWithFingerprint(fingerprint)) {
+            return () -> {
+            };
+        }
 
-            try {
-                plugin = this.configPluginService.partialConfigProviderFor(repoConfig);
-            } catch (Exception ex) {
+        PartialConfigProvider plugin;
+        ConfigRepoConfig repoConfig = configWatchList.getConfigRepoForMaterial(material);
+        HealthStateScope scope = HealthStateScope.forPartialConfigRepo(repoConfig);
+
+        try {
+            plugin = this.configPluginService.partialConfigProviderFor(repoConfig);
+        } catch (Exception ex) {
+            return () -> {
                 this.configReposMaterialParseResultManager.parseFailed(fingerprint, modification, ex);
                 LOGGER.error("Failed to get config plugin for {}", material.getDisplayName());
                 String message = String.format("Failed to obtain configuration plugin '%s' for material: %s",
@@ -152,35 +165,45 @@ public class GoConfigRepoConfigDataSource implements ChangedRepoConfigWatchListL
                         : ex.getMessage();
                 serverHealthService.update(ServerHealthState.error(message, errorDescription, HealthStateType.general(scope)));
                 notifyFailureListeners(repoConfig, ex);
-                return;
-            }
-            try {
-                this.modifiedConfigRepoConfigsAwaitingParse.remove(repoConfig);
-                //TODO put modifications and previous partial config in context
-                // the context is just a helper for plugin.
-                PartialConfigLoadContext context = new LoadContext(repoConfig);
-                PartialConfig newPart = plugin.load(folder, context);
-                if (newPart == null) {
-                    LOGGER.warn("Parsed configuration material {} by {} is null", material.getDisplayName(), plugin.displayName());
-                    newPart = new PartialConfig();
-                }
+            };
+        }
+        PartialConfig parsed;
+        try {
+            this.modifiedConfigRepoConfigsAwaitingParse.remove(repoConfig);
+            //TODO put modifications and previous partial config in context
+            // the context is just a helper for plugin.
+            PartialConfigLoadContext context = new LoadContext(repoConfig);
+            parsed = plugin.load(folder, context);
+        } catch (Exception ex) {
+            return () -> parseFailed(material, modification, repoConfig, plugin, ex);
+        }
+        if (parsed == null) {
+            LOGGER.warn("Parsed configuration material {} by {} is null", material.getDisplayName(), plugin.displayName());
+        }
+        PartialConfig newPart = parsed == null ? new PartialConfig() : parsed;
 
+        return () -> {
+            try {
                 newPart.setOrigins(new RepoConfigOrigin(repoConfig, modification.getRevision()));
                 this.configReposMaterialParseResultManager.parseSuccess(fingerprint, modification, newPart);
 
                 // it is the responsibility of the success listeners to clear the ServerHealthState
                 notifySuccessListeners(repoConfig, newPart);
             } catch (Exception ex) {
-                this.configReposMaterialParseResultManager.parseFailed(fingerprint, modification, ex);
-                LOGGER.error("Failed to parse configuration material {} by {}", material.getDisplayName(), plugin.displayName(), ex);
-                String message = String.format("Parsing configuration repository using %s failed for material: %s",
-                        plugin.displayName(), material.getLongDescription());
-                String errorDescription = ex.getMessage() == null ? ex.toString()
-                        : ex.getMessage();
-                serverHealthService.update(ServerHealthState.error(message, errorDescription, HealthStateType.general(scope)));
-                notifyFailureListeners(repoConfig, ex);
+                parseFailed(material, modification, repoConfig, plugin, ex);
             }
-        }
+        };
+    }
+
+    private void parseFailed(MaterialConfig material, Modification modification, ConfigRepoConfig repoConfig, PartialConfigProvider plugin, Exception ex) {
+        this.configReposMaterialParseResultManager.parseFailed(material.getFingerprint(), modification, ex);
+        LOGGER.error("Failed to parse configuration material {} by {}", material.getDisplayName(), plugin.displayName(), ex);
+        String message = String.format("Parsing configuration repository using %s failed for material: %s",
+                plugin.displayName(), material.getLongDescription());
+        String errorDescription = ex.getMessage() == null ? ex.toString()
+                : ex.getMessage();
+        serverHealthService.update(ServerHealthState.error(message, errorDescription, HealthStateType.general(HealthStateScope.forPartialConfigRepo(repoConfig))));
+        notifyFailureListeners(repoConfig, ex);
     }
 
     protected void onConfigRepoConfigChange(ConfigRepoConfig configRepoConfig) {
@@ -21,6 +21,7 @@ import com.thoughtworks.go.config.exceptions.*;
 import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.config.remote.PartialConfig;
 import com.thoughtworks.go.config.update.FullConfigUpdateCommand;
+import com.thoughtworks.go.config.update.PartialConfigUpdateCommand;
 import com.thoughtworks.go.domain.GoConfigRevision;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.service.ConfigRepository;
@@ -67,6 +68,7 @@ public class GoFileConfigDataSource {
     private final GoConfigFileReader goConfigFileReader;
     private final GoConfigFileWriter goConfigFileWriter;
     private final PartialConfigHelper partials;
+    private final IncrementalPartialConfigSave incrementalPartialConfigSave;
     private ReloadStrategy reloadStrategy = new ReloadIfModified();
 
     /* Will only upgrade cruise config file on application startup. */
@@ -101,6 +103,7 @@ public class GoFileConfigDataSource {
         this.goConfigFileReader = goConfigFileReader;
         this.goConfigFileWriter = goConfigFileWriter;
         this.partials = partials;
+        this.incrementalPartialConfigSave = new IncrementalPartialConfigSave(partials);
     }
 
     private interface ReloadStrategy {
@@ -499,8 +502,7 @@ public class GoFileConfigDataSource {
                 CruiseConfig mergedCruiseConfigForEdit = modifiedConfig;
                 if (!partials.isEmpty()) {
                     LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Starting.");
-                    mergedCruiseConfigForEdit = cloner.deepClone(modifiedConfig);
-                    mergedCruiseConfigForEdit.merge(partials, true);
+                    mergedCruiseConfigForEdit = modifiedConfig.mergedCopy(partials, true);
                     LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Done.");
                 }
                 return new EntityConfigSaveResult(updatingCommand.getPreprocessedEntityConfig(), new GoConfigHolder(preprocessedConfig, modifiedConfig, mergedCruiseConfigForEdit));
@@ -540,9 +542,7 @@ public class GoFileConfigDataSource {
 
     private void updateMergedConfigForEdit(GoConfigHolder validatedConfigHolder, List<PartialConfig> partialConfigs) {
         if (partialConfigs.isEmpty()) return;
-        CruiseConfig mergedCruiseConfigForEdit = cloner.deepClone(validatedConfigHolder.configForEdit);
-        mergedCruiseConfigForEdit.merge(partialConfigs, true);
-        validatedConfigHolder.mergedConfigForEdit = mergedCruiseConfigForEdit;
+        validatedConfigHolder.mergedConfigForEdit = validatedConfigHolder.configForEdit.mergedCopy(partialConfigs, true);
     }
 
     private GoConfigHolder trySavingFullConfig(FullConfigUpdateCommand updatingCommand, GoConfigHolder configHolder, List<PartialConfig> partials) throws Exception {
@@ -568,6 +568,12 @@ public class GoFileConfigDataSource {
     private GoConfigHolder trySavingConfig(UpdateConfigCommand updatingCommand, GoConfigHolder configHolder, List<PartialConfig> partials) throws Exception {
         String configAsXml;
         GoConfigHolder validatedConfigHolder;
+        if (updatingCommand instanceof PartialConfigUpdateCommand) {
+            validatedConfigHolder = trySwappingPartial((PartialConfigUpdateCommand) updatingCommand, configHolder, partials);
+            if (validatedConfigHolder != null) {
+                return validatedConfigHolder;
+            }
+        }
         LOGGER.debug("[Config Save] ==-- Getting modified config");
         if (shouldMergeConfig(updatingCommand, configHolder)) {
             if (!systemEnvironment.get(SystemEnvironment.ENABLE_CONFIG_MERGE_FEATURE)) {
@@ -589,6 +595,16 @@ public class GoFileConfigDataSource {
         return validatedConfigHolder;
     }
 
+    private GoConfigHolder trySwappingPartial(PartialConfigUpdateCommand updatingCommand, GoConfigHolder configHolder, List<PartialConfig> partials) {
+        GoConfigHolder validatedConfigHolder = incrementalPartialConfigSave.save(updatingCommand, configHolder, partials);
+        if (validatedConfigHolder != null) {
+            // the xml did not change, so there is nothing to write or check in
+            reloadStrategy.latestState(validatedConfigHolder.config);
+            cachedGoPartials.markAsValid(partials);
+        }
+        return validatedConfigHolder;
+    }
+
     private ConfigModifyingUser getConfigUpdatingUser(UpdateConfigCommand updatingCommand) {
         return updatingCommand instanceof UserAware ? ((UserAware) updatingCommand).user() : new ConfigModifyingUser();
     }
@@ -597,7 +613,10 @@ public class GoFileConfigDataSource {
         CruiseConfig deepCloneForEdit = cloner.deepClone(configHolder.configForEdit);
         deepCloneForEdit.setPartials(partials);
         CruiseConfig config = updatingCommand.update(deepCloneForEdit);
-        String configAsXml = configAsXml(config, false);
+        // A partial update does not touch anything in the main config that needs encrypting. The xml is loaded,
+        // preprocessed and validated along with the partials before it is written, so validating the updated
+        // config here as well would only merge and validate everything twice.
+        String configAsXml = configAsXml(config, updatingCommand instanceof PartialConfigUpdateCommand);
         if (deepCloneForEdit.getPartials().size() < partials.size())
             throw new RuntimeException("should never be called");
         return configAsXml;
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.config.exceptions.GoConfigInvalidMergeException;
+import com.thoughtworks.go.config.materials.dependency.DependencyMaterialConfig;
+import com.thoughtworks.go.config.preprocessor.ConfigRepoPartialPreprocessor;
+import com.thoughtworks.go.config.remote.PartialConfig;
+import com.thoughtworks.go.config.remote.RepoConfigOrigin;
+import com.thoughtworks.go.config.update.PartialConfigUpdateCommand;
+import com.thoughtworks.go.domain.ConfigErrors;
+import com.thoughtworks.go.domain.materials.MaterialConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static java.lang.String.format;
+
+/**
+ * @understands swapping the partial of one config repo into the current config, without going through the config xml
+ * <p>
+ * When a config repo update only swaps its partial, the main config and its xml stay as they are. The config is then
+ * built from a clone of the main config and the partials of the current config, already preprocessed, with only the
+ * changed partial cloned and preprocessed. Only the groups and pipelines of the changed partial are validated, against
+ * the whole config, which covers the pipelines depending on them as well. Whatever the partial could affect beyond
+ * that, such as environments, SCMs or pipelines depending on a pipeline it dropped, is left to a full save.
+ */
+class IncrementalPartialConfigSave {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalPartialConfigSave.class);
+
+    private final GoConfigCloner cloner = new GoConfigCloner();
+    private final GoConfigCloner mainConfigCloner = new GoConfigCloner();
+    private final PartialConfigHelper partials;
+
+    IncrementalPartialConfigSave(PartialConfigHelper partials) {
+        this.partials = partials;
+        mainConfigCloner.dontClone(PartialConfig.class);
+    }
+
+    /* Returns the validated config with the partial of the update swapped in, or null when the update needs a full save. */
+    GoConfigHolder save(PartialConfigUpdateCommand updatingCommand, GoConfigHolder configHolder, List<PartialConfig> partials) {
+        if (!(configHolder.configForEdit instanceof BasicCruiseConfig) || configHolder.config == null) {
+            return null;
+        }
+        List<PartialConfig> updatedPartials = updatingCommand.partialsAfterUpdate(configHolder.configForEdit, partials);
+        List<PartialConfig> currentPartials = configHolder.configForEdit.getPartials();
+        List<PartialConfig> currentPreprocessedPartials = configHolder.config.getPartials();
+        if (updatedPartials == null || currentPartials.size() != currentPreprocessedPartials.size()) {
+            return null;
+        }
+
+        Map<PartialConfig, PartialConfig> preprocessedPartials = new IdentityHashMap<>();
+        Map<String, PartialConfig> currentPartialsByFingerprint = new HashMap<>();
+        for (int i = 0; i < currentPartials.size(); i++) {
+            preprocessedPartials.put(currentPartials.get(i), currentPreprocessedPartials.get(i));
+            currentPartialsByFingerprint.put(fingerprintOf(currentPartials.get(i)), currentPartials.get(i));
+        }
+
+        PartialConfig changed = cloner.deepClone(updatedPartials.get(updatedPartials.size() - 1));
+        List<PartialConfig> partialsOfConfig = new ArrayList<>();
+        Set<PartialConfig> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PartialConfig partial : updatedPartials.subList(0, updatedPartials.size() - 1)) {
+            PartialConfig preprocessed = preprocessedPartials.get(partial);
+            if (preprocessed == null) {
+                // the config keeps a clone of the partial each update swapped in, rather than the partial cached for the repo
+                PartialConfig current = currentPartialsByFingerprint.get(fingerprintOf(partial));
+                if (current == null || !this.partials.isEquivalent(current, partial)) {
+                    return null;
+                }
+                preprocessed = preprocessedPartials.get(current);
+            }
+            partialsOfConfig.add(preprocessed);
+            kept.add(preprocessed);
+        }
+        partialsOfConfig.add(changed);
+
+        List<PartialConfig> replaced = new ArrayList<>();
+        for (PartialConfig preprocessed : currentPreprocessedPartials) {
+            if (!kept.contains(preprocessed)) {
+                replaced.add(preprocessed);
+            }
+        }
+        if (!affectsOnlyItsPipelines(changed, replaced, configHolder.config)) {
+            return null;
+        }
+
+        LOGGER.debug("[Config Save] Swapping in partial from {} without a full save", changed.getOrigin().displayName());
+        CruiseConfig configForEdit = mainConfigCloner.deepClone(configHolder.configForEdit);
+        configForEdit.setPartials(updatedPartials);
+        CruiseConfig config = preprocessedMainConfig(configHolder.configForEdit);
+        preprocess(changed, config);
+        config.setPartials(partialsOfConfig);
+        new ConfigRepoPartialPreprocessor().process(config);
+
+        if (dependsOnDroppedPipelines(config, changed, replaced)) {
+            return null;
+        }
+        validate(changed, config);
+        configForEdit.encryptSecureProperties(config);
+        LOGGER.debug("[Config Save] Done swapping in partial from {}", changed.getOrigin().displayName());
+        return new GoConfigHolder(config, configForEdit);
+    }
+
+    private CruiseConfig preprocessedMainConfig(CruiseConfig configForEdit) {
+        CruiseConfig config = mainConfigCloner.deepClone(configForEdit);
+        config.setPartials(new ArrayList<>());
+        MagicalGoConfigXmlLoader.preprocess(config);
+        return config;
+    }
+
+    /* Expands the templates and resolves the params of the pipelines of the partial, as preprocessing the merged config would. */
+    private static void preprocess(PartialConfig partial, CruiseConfig mainConfig) {
+        BasicCruiseConfig withTemplates = new BasicCruiseConfig();
+        withTemplates.setTemplates(mainConfig.getTemplates());
+        BasicCruiseConfig partialOnly = new BasicCruiseConfig(withTemplates, partial);
+        for (GoConfigPreprocessor preprocessor : MagicalGoConfigXmlLoader.PREPROCESSORS) {
+            if (!(preprocessor instanceof ConfigRepoPartialPreprocessor)) {
+                preprocessor.process(partialOnly);
+            }
+        }
+    }
+
+    private static boolean affectsOnlyItsPipelines(PartialConfig changed, List<PartialConfig> replaced, CruiseConfig currentConfig) {
+        List<PartialConfig> affected = new ArrayList<>(replaced);
+        affected.add(changed);
+        for (PartialConfig partial : affected) {
+            if (!partial.getEnvironments().isEmpty() || !partial.getScms().isEmpty()) {
+                return false;
+            }
+            for (PipelineConfigs group : partial.getGroups()) {
+                for (PipelineConfigs currentGroup : currentConfig.getGroups()) {
+                    if (currentGroup.getGroup().equalsIgnoreCase(group.getGroup()) && !currentGroup.getGroup().equals(group.getGroup())) {
+                        return false;
+                    }
+                }
+                for (PipelineConfig pipeline : group) {
+                    for (EnvironmentConfig environment : currentConfig.getEnvironments()) {
+                        if (environment.containsPipeline(pipeline.name())) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean dependsOnDroppedPipelines(CruiseConfig config, PartialConfig changed, List<PartialConfig> replaced) {
+        Set<CaseInsensitiveString> dropped = pipelineNamesOf(replaced);
+        Set<CaseInsensitiveString> swappedIn = pipelineNamesOf(List.of(changed));
+        dropped.removeAll(swappedIn);
+        if (dropped.isEmpty()) {
+            return false;
+        }
+        for (PipelineConfig pipeline : config.getAllPipelineConfigs()) {
+            if (swappedIn.contains(pipeline.name())) {
+                continue;
+            }
+            for (MaterialConfig material : pipeline.materialConfigs()) {
+                if (material instanceof DependencyMaterialConfig && dropped.contains(((DependencyMaterialConfig) material).getPipelineName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void validate(PartialConfig changed, CruiseConfig config) {
+        validatePipelineNameUniqueness(changed, config);
+        List<ConfigErrors> allErrors = new ArrayList<>();
+        for (PipelineConfigs group : changed.getGroups()) {
+            group.validate(ConfigSaveValidationContext.forChain(config, group));
+            for (PipelineConfig pipeline : group) {
+                pipeline.validateTree(PipelineConfigSaveValidationContext.forChain(false, group.getGroup(), config, pipeline));
+            }
+            allErrors.addAll(ErrorCollector.getAllErrors(group));
+        }
+        if (!allErrors.isEmpty()) {
+            throw new GoConfigInvalidMergeException(config, config.getMergedPartials(), allErrors);
+        }
+    }
+
+    private static void validatePipelineNameUniqueness(PartialConfig changed, CruiseConfig config) {
+        Map<CaseInsensitiveString, List<PipelineConfig>> pipelinesByName = new HashMap<>();
+        for (PipelineConfig pipeline : config.getAllPipelineConfigs()) {
+            pipelinesByName.computeIfAbsent(pipeline.name(), name -> new ArrayList<>()).add(pipeline);
+        }
+        for (PipelineConfigs group : changed.getGroups()) {
+            for (PipelineConfig pipeline : group) {
+                List<PipelineConfig> named = pipelinesByName.get(pipeline.name());
+                if (named.size() > 1) {
+                    Set<String> sources = new HashSet<>();
+                    for (PipelineConfig each : named) {
+                        sources.add(each.getOriginDisplayName());
+                    }
+                    pipeline.addError(PipelineConfig.NAME, format("You have defined multiple pipelines named '%s'. Pipeline names must be unique. Source(s): %s", pipeline.name(), sources));
+                }
+            }
+        }
+    }
+
+    private static Set<CaseInsensitiveString> pipelineNamesOf(List<PartialConfig> partials) {
+        Set<CaseInsensitiveString> names = new HashSet<>();
+        for (PartialConfig partial : partials) {
+            for (PipelineConfigs group : partial.getGroups()) {
+                for (PipelineConfig pipeline : group) {
+                    names.add(pipeline.name());
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String fingerprintOf(PartialConfig partial) {
+        return partial.getOrigin() instanceof RepoConfigOrigin ? ((RepoConfigOrigin) partial.getOrigin()).getMaterial().getFingerprint() : null;
+    }
+}
@@ -18,8 +18,12 @@ package com.thoughtworks.go.config.update;
 import com.rits.cloning.Cloner;
 import com.thoughtworks.go.config.*;
 import com.thoughtworks.go.config.remote.PartialConfig;
+import com.thoughtworks.go.config.remote.RepoConfigOrigin;
 import com.thoughtworks.go.util.ClonerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class PartialConfigUpdateCommand implements UpdateConfigCommand {
     private static final Cloner CLONER = ClonerFactory.instance();
 
@@ -64,4 +68,32 @@ public class PartialConfigUpdateCommand implements UpdateConfigCommand {
         }
         return cruiseConfig;
     }
+
+    /**
+     * The given partials with the partial of this update swapped in, last, as {@link #update} would leave them. Returns
+     * null when the update does more than that: when the partial is invalid, or when the main config is missing a
+     * group or an environment of the partials, which the update would add.
+     */
+    public List<PartialConfig> partialsAfterUpdate(CruiseConfig cruiseConfig, List<PartialConfig> partials) {
+        if (partial == null || fingerprint == null || partial.hasErrors()) {
+            return null;
+        }
+        List<PartialConfig> updated = new ArrayList<>(partials);
+        updated.removeIf(existing -> existing.getOrigin() instanceof RepoConfigOrigin && ((RepoConfigOrigin) existing.getOrigin()).getMaterial().getFingerprint().equals(fingerprint));
+        updated.add(CLONER.deepClone(partial));
+
+        for (PartialConfig partial : updated) {
+            for (EnvironmentConfig environmentConfig : partial.getEnvironments()) {
+                if (!cruiseConfig.getEnvironments().hasEnvironmentNamed(environmentConfig.name())) {
+                    return null;
+                }
+            }
+            for (PipelineConfigs pipelineConfigs : partial.getGroups()) {
+                if (!cruiseConfig.getGroups().hasGroup(pipelineConfigs.getGroup())) {
+                    return null;
+                }
+            }
+        }
+        return updated;
+    }
 }
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /* Understands how to cache CcTray statuses, for every stage and job (project). */
 @Component
@@ -34,6 +35,11 @@ public class CcTrayCache {
      */
     private LinkedHashMap<String, ProjectStatus> cache;
     private volatile List<ProjectStatus> orderedEntries;
+    /**
+     * Bumped every time the cache changes, so that readers can tell whether anything they have rendered from
+     * {@link #allEntriesInOrder()} is stale, without having to look at the entries themselves.
+     */
+    private final AtomicLong version = new AtomicLong();
 
     public CcTrayCache() {
         this.cache = new LinkedHashMap<>();
@@ -64,8 +70,13 @@ public class CcTrayCache {
         return this.orderedEntries;
     }
 
+    public long version() {
+        return version.get();
+    }
+
     private void cacheHasChanged() {
         this.orderedEntries = new ArrayList<>(cache.values());
+        version.incrementAndGet();
     }
 
     private Map<String, ProjectStatus> createReplacementItems(List<ProjectStatus> statuses) {
@@ -19,8 +19,6 @@ import com.thoughtworks.go.domain.AgentInstance;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.domain.JobResult;
 import com.thoughtworks.go.domain.JobState;
-import com.thoughtworks.go.server.messaging.JobStatusMessage;
-import com.thoughtworks.go.server.messaging.JobStatusTopic;
 import com.thoughtworks.go.server.service.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,13 +32,11 @@ public class BuildRepositoryRemoteImpl {
 
     private AgentService agentService;
     private BuildRepositoryService buildRepositoryService;
-    private JobStatusTopic jobStatusTopic;
 
     @Autowired
-    BuildRepositoryRemoteImpl(BuildRepositoryService buildRepositoryService, AgentService agentService, JobStatusTopic jobStatusTopic) {
+    BuildRepositoryRemoteImpl(BuildRepositoryService buildRepositoryService, AgentService agentService) {
         this.buildRepositoryService = buildRepositoryService;
         this.agentService = agentService;
-        this.jobStatusTopic = jobStatusTopic;
     }
 
     public AgentInstruction ping(AgentRuntimeInfo info) {
@@ -62,8 +58,7 @@ public class BuildRepositoryRemoteImpl {
         handleFailuresDuringReporting(agentRuntimeInfo, jobIdentifier, "status", state.toString(), () -> {
             //TODO: may be i don't belong here, ping already updates agent runtime info
             agentService.updateRuntimeInfo(agentRuntimeInfo);
-            buildRepositoryService.updateStatusFromAgent(jobIdentifier, state, agentRuntimeInfo.getUUId());
-            jobStatusTopic.post(new JobStatusMessage(jobIdentifier, state, agentRuntimeInfo.getUUId()));
+            buildRepositoryService.queueStatusUpdateFromAgent(jobIdentifier, state, agentRuntimeInfo.getUUId());
         });
     }
 
@@ -86,8 +81,8 @@ public class BuildRepositoryRemoteImpl {
 
             buildRepositoryService.completing(jobIdentifier, result, agentRuntimeInfo.getUUId());
 
-            buildRepositoryService.updateStatusFromAgent(jobIdentifier, state, agentRuntimeInfo.getUUId());
-            jobStatusTopic.post(new JobStatusMessage(jobIdentifier, state, agentRuntimeInfo.getUUId()));
+            // Written before replying, so that a failure reaches the agent instead of leaving the stage waiting for the job.
+            buildRepositoryService.writeStatusUpdateFromAgent(jobIdentifier, state, agentRuntimeInfo.getUUId());
         });
     }
 
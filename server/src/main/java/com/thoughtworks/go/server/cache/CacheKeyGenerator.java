@@ -47,7 +47,7 @@ public class CacheKeyGenerator {
         allArgs.add(0, clazz.getName());
         allArgs.add(1, identifier);
 
-        return StringUtils.join(allArgs, DELIMITER).intern();
+        return StringUtils.join(allArgs, DELIMITER);
     }
 
     private static boolean isAllowed(Object arg) {
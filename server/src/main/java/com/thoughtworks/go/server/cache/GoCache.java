@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.cache;
 import com.thoughtworks.go.domain.NullUser;
 import com.thoughtworks.go.domain.PersistentObject;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 import net.sf.ehcache.config.CacheConfiguration;
@@ -40,6 +41,7 @@ import static com.thoughtworks.go.util.ExceptionUtils.bomb;
  * understands storing and retrieving objects from an underlying LRU cache
  */
 public class GoCache {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("GoCache");
     public static final String SUB_KEY_DELIMITER = "!_#$#_!";
     private static final Logger LOGGER = LoggerFactory.getLogger(GoCache.class);
     private final ThreadLocal<Boolean> doNotServeForTransaction = new ThreadLocal<>();
@@ -152,7 +154,7 @@ public class GoCache {
     }
 
     public boolean remove(String key) {
-        synchronized (key.intern()) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
             Object value = getWithoutTransactionCheck(key);
             if (value instanceof KeyList) {
                 for (String subKey : (KeyList) value) {
@@ -169,7 +171,7 @@ public class GoCache {
 
     public void put(String key, String subKey, Object value) {
         KeyList subKeys;
-        synchronized (key.intern()) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
             subKeys = subKeyFamily(key);
             if (subKeys == null) {
                 subKeys = new KeyList();
@@ -188,7 +190,7 @@ public class GoCache {
 
     public void removeAssociations(String key, Element element) {
         if (element.getObjectValue() instanceof KeyList) {
-            synchronized (key.intern()) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 for (String subkey : (KeyList) element.getObjectValue()) {
                     remove(compositeKey(key, subkey));
                 }
@@ -197,7 +199,7 @@ public class GoCache {
             String[] parts = StringUtils.splitByWholeSeparator(key, SUB_KEY_DELIMITER);
             String parentKey = parts[0];
             String childKey = parts[1];
-            synchronized (parentKey.intern()) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(parentKey)) {
                 Element parent = ehCache.get(parentKey);
                 if (parent == null) {
                     return;
@@ -225,7 +227,7 @@ public class GoCache {
     }
 
     public void remove(String key, String subKey) {
-        synchronized (key.intern()) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
             KeyList subKeys = subKeyFamily(key);
             if (subKeys == null) {
                 return;
@@ -16,6 +16,7 @@
 package com.thoughtworks.go.server.cache;
 
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
@@ -23,6 +24,7 @@ import org.springframework.transaction.support.TransactionSynchronizationAdapter
 import java.util.function.Supplier;
 
 public class LazyCache {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("LazyCache");
     private final Ehcache ehcache;
     private final TransactionSynchronizationManager transactionSynchronizationManager;
 
@@ -39,7 +41,7 @@ public class LazyCache {
             return (T) element.getObjectValue();
         }
 
-        synchronized (key.intern()) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
             element = ehcache.get(key);
             if (element != null) {
                 return (T) element.getObjectValue();
@@ -27,6 +27,7 @@ import com.thoughtworks.go.server.service.ConsoleActivityMonitor;
 import com.thoughtworks.go.server.service.ConsoleService;
 import com.thoughtworks.go.server.service.RestfulService;
 import com.thoughtworks.go.server.util.ErrorHandler;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.server.view.artifacts.ArtifactsView;
 import com.thoughtworks.go.server.view.artifacts.LocalArtifactsView;
 import com.thoughtworks.go.server.web.ArtifactFolderViewFactory;
@@ -62,6 +63,7 @@ import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 
 @Controller
 public class ArtifactsController {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("ArtifactsController");
     private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactsController.class);
 
     private final JobInstanceDao jobInstanceDao;
@@ -199,7 +201,7 @@ public class ArtifactsController {
         if (checksumMultipartFile != null) {
             String checksumFilePath = String.format("%s/%s/%s", artifactsService.findArtifactRoot(jobIdentifier), ArtifactLogUtil.CRUISE_OUTPUT_FOLDER, ArtifactLogUtil.MD5_CHECKSUM_FILENAME);
             File checksumFile = artifactsService.getArtifactLocation(checksumFilePath);
-            synchronized (checksumFilePath.intern()) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(checksumFilePath)) {
                 return artifactsService.saveOrAppendFile(checksumFile, checksumMultipartFile.getInputStream());
             }
         } else {
@@ -32,6 +32,7 @@ import com.thoughtworks.go.server.transaction.SqlMapClientDaoSupport;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.server.ui.SortOrder;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.util.ClonerFactory;
 import com.thoughtworks.go.util.SystemEnvironment;
 import net.sf.ehcache.CacheManager;
@@ -55,6 +56,7 @@ import static com.thoughtworks.go.util.IBatisUtil.arguments;
 
 @Component
 public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobInstanceDao, JobStatusListener {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("JobInstanceSqlMapDao");
     private static final Logger LOG = LoggerFactory.getLogger(JobInstanceSqlMapDao.class);
     private final LazyCache latestCompletedCache;
     private final CacheKeyGenerator cacheKeyGenerator;
@@ -111,7 +113,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
     @Override
     public JobInstance buildByIdWithTransitions(long buildInstanceId) {
         String cacheKey = cacheKeyForJobInstanceWithTransitions(buildInstanceId);
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             JobInstance instance = goCache.get(cacheKey);
             if (instance == null) {
                 instance = job(buildInstanceId, "buildByIdWithTransitions");
@@ -161,7 +163,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         String activeJobKey = cacheKeyForActiveJob(activeJobId);
         ActiveJob activeJob = goCache.get(activeJobKey);
         if (activeJob == null) {
-            synchronized (activeJobKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(activeJobKey)) {
                 activeJob = goCache.get(activeJobKey);
                 if (activeJob == null) {
                     activeJob = _getActiveJob(activeJobId);
@@ -178,7 +180,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         String idsCacheKey = cacheKeyForActiveJobIds();
         List<Long> activeJobIds = goCache.get(idsCacheKey);
 
-        synchronized (idsCacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(idsCacheKey)) {
             if (activeJobIds == null) {
                 activeJobIds = getSqlMapClientTemplate().queryForList("getActiveJobIds");
                 goCache.put(idsCacheKey, activeJobIds);
@@ -278,7 +280,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
 
         JobIdentifier jobIdentifier = goCache.get(key);
         if (jobIdentifier == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 jobIdentifier = goCache.get(key);
                 if (jobIdentifier == null) {
                     Map<String, Object> params = arguments("pipelineName", stageIdentifier.getPipelineName()).
@@ -365,14 +367,14 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
                 @Override
                 public void afterCommit() {
                     // Methods not extracted in order to make synchronization visible.
-                    synchronized (cacheKeyForJobPlan(jobInstance.getId())) {
+                    try (KeyedLocks.Held ignored = LOCKS.lock(cacheKeyForJobPlan(jobInstance.getId()))) {
                         removeCachedJobPlan(jobInstance);
                     }
-                    synchronized (cacheKeyForActiveJobIds()) {
+                    try (KeyedLocks.Held ignored = LOCKS.lock(cacheKeyForActiveJobIds())) {
                         goCache.remove(cacheKeyForActiveJobIds());
                     }
                     String activeJobKey = cacheKeyForActiveJob(jobInstance.getId());
-                    synchronized (activeJobKey) {
+                    try (KeyedLocks.Held ignored = LOCKS.lock(activeJobKey)) {
                         goCache.remove(activeJobKey);
                     }
                     removeCachedJobInstance(jobInstance);
@@ -388,7 +390,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
 
     private void removeCachedJobInstance(JobInstance jobInstance) {
         String cacheKeyOfJob = cacheKeyForJobInstanceWithTransitions(jobInstance.getId());
-        synchronized (cacheKeyOfJob) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKeyOfJob)) {
             goCache.remove(cacheKeyOfJob);
         }
     }
@@ -539,7 +541,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         List<JobPlan> plans = new ArrayList<>();
         for (Long jobId : jobIds) {
             String cacheKey = cacheKeyForJobPlan(jobId);
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 JobPlan jobPlan = goCache.get(cacheKey);
                 if (jobPlan == null) {
                     jobPlan = _loadJobPlan(jobId);
@@ -589,10 +591,10 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
     }
 
     public JobStateTransition oldestBuild() {
-        String cacheKeyForOldestBuild = (JobInstanceSqlMapDao.class.getName() + "_oldestBuild").intern();
+        String cacheKeyForOldestBuild = JobInstanceSqlMapDao.class.getName() + "_oldestBuild";
         JobStateTransition oldestBuild = goCache.get(cacheKeyForOldestBuild);
         if (oldestBuild == null) {
-            synchronized (cacheKeyForOldestBuild) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKeyForOldestBuild)) {
                 oldestBuild = goCache.get(cacheKeyForOldestBuild);
                 if (oldestBuild == null) {
                     oldestBuild = getSqlMapClientTemplate().queryForObject("oldestBuild", new Object());
@@ -74,12 +74,25 @@ public interface PipelineDao {
 
     BuildCause findBuildCauseOfPipelineByNameAndCounter(String name, int counter);
 
+    /**
+     * Finds the build cause of each of the given pipeline instances, in the same order as the pipeline instances.
+     * Instances that are not cached are loaded together, instead of with a few queries each.
+     */
+    List<BuildCause> findBuildCausesOfPipelines(List<PipelineIdentifier> pipelineInstances);
+
     StageIdentifier latestPassedStageIdentifier(long pipelineId, String stage);
 
     List<PipelineIdentifier> getPipelineInstancesTriggeredWithDependencyMaterial(String pipelineName, PipelineIdentifier revision);
 
     List<PipelineIdentifier> getPipelineInstancesTriggeredWithDependencyMaterial(String pipelineName, MaterialInstance materialInstance, String revision);
 
+    /**
+     * Finds, for each position, the instances of the pipeline at that position in {@code pipelineNames} triggered by
+     * the dependency instance at the same position in {@code revisions}. Lookups that are not cached are made together,
+     * instead of with one query each.
+     */
+    List<List<PipelineIdentifier>> getPipelineInstancesTriggeredWithDependencyMaterials(List<String> pipelineNames, List<PipelineIdentifier> revisions);
+
     PipelineInstanceModels loadHistoryForDashboard(List<String> pipelineNames);
 
     PipelineInstanceModels loadHistory(String pipelineName, FeedModifier modifier, long cursor, Integer pageSize);
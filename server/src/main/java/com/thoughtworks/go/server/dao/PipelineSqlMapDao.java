@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.dao;
 
+import com.google.common.collect.Lists;
 import com.rits.cloning.Cloner;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.GoConfigDao;
@@ -36,6 +37,7 @@ import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.transaction.SqlMapClientDaoSupport;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.util.Clock;
 import com.thoughtworks.go.util.ClonerFactory;
@@ -63,12 +65,15 @@ import java.util.*;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.util.IBatisUtil.arguments;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 @Component
 public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initializer, PipelineDao, StageStatusListener {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("PipelineSqlMapDao");
+    private static final int MAX_PIPELINE_INSTANCES_PER_QUERY = 100;
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineSqlMapDao.class);
     private static final Marker FATAL = MarkerFactory.getMarker("FATAL");
     private final LazyCache pipelineByBuildIdCache;
@@ -215,7 +220,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForBuildCauseByNameAndCounter(name, counter);
         BuildCause buildCause = goCache.get(cacheKey);
         if (buildCause == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 buildCause = goCache.get(cacheKey);
                 if (buildCause == null) {
                     Pipeline pipeline = findPipelineByNameAndCounter(name, counter);
@@ -231,6 +236,66 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return buildCause;
     }
 
+    @Override
+    public List<BuildCause> findBuildCausesOfPipelines(List<PipelineIdentifier> pipelineInstances) {
+        Map<String, BuildCause> buildCausesByCacheKey = new HashMap<>();
+        Map<String, PipelineIdentifier> notCached = new TreeMap<>();
+        for (PipelineIdentifier pipelineInstance : pipelineInstances) {
+            String cacheKey = cacheKeyForBuildCauseByNameAndCounter(pipelineInstance.getName(), pipelineInstance.getCounter());
+            BuildCause buildCause = goCache.get(cacheKey);
+            if (buildCause == null) {
+                notCached.put(cacheKey, pipelineInstance);
+            } else {
+                buildCausesByCacheKey.put(cacheKey, buildCause);
+            }
+        }
+
+        for (List<String> batch : Lists.partition(new ArrayList<>(notCached.keySet()), MAX_PIPELINE_INSTANCES_PER_QUERY)) {
+            try (KeyedLocks.HeldAll ignored = LOCKS.lockAll(batch)) {
+                List<PipelineIdentifier> stillNotCached = new ArrayList<>();
+                for (String cacheKey : batch) {
+                    BuildCause buildCause = goCache.get(cacheKey);
+                    if (buildCause == null) {
+                        stillNotCached.add(notCached.get(cacheKey));
+                    } else {
+                        buildCausesByCacheKey.put(cacheKey, buildCause);
+                    }
+                }
+                if (!stillNotCached.isEmpty()) {
+                    buildCausesByCacheKey.putAll(loadAndCacheBuildCausesOf(stillNotCached));
+                }
+            }
+        }
+
+        List<BuildCause> buildCauses = new ArrayList<>();
+        for (PipelineIdentifier pipelineInstance : pipelineInstances) {
+            buildCauses.add(buildCausesByCacheKey.get(cacheKeyForBuildCauseByNameAndCounter(pipelineInstance.getName(), pipelineInstance.getCounter())));
+        }
+        return buildCauses;
+    }
+
+    private Map<String, BuildCause> loadAndCacheBuildCausesOf(List<PipelineIdentifier> pipelineInstances) {
+        List<Pipeline> pipelines = getSqlMapClientTemplate().queryForList("findPipelinesByNamesAndCounters", arguments("pipelineInstances", pipelineInstances).asMap());
+        Map<String, Pipeline> pipelinesByCacheKey = new HashMap<>();
+        for (Pipeline pipeline : pipelines) {
+            pipelinesByCacheKey.put(cacheKeyForBuildCauseByNameAndCounter(pipeline.getName(), pipeline.getCounter()), pipeline);
+        }
+        Map<Long, MaterialRevisions> revisionsByPipelineId = materialRepository.findMaterialRevisionsForPipelines(pipelines.stream().map(Pipeline::getId).collect(Collectors.toList()));
+
+        Map<String, BuildCause> buildCausesByCacheKey = new HashMap<>();
+        for (PipelineIdentifier pipelineInstance : pipelineInstances) {
+            String cacheKey = cacheKeyForBuildCauseByNameAndCounter(pipelineInstance.getName(), pipelineInstance.getCounter());
+            Pipeline pipeline = pipelinesByCacheKey.get(cacheKey);
+            if (pipeline == null) {
+                throw new RecordNotFoundException(String.format("Pipeline %s with counter %d was not found", pipelineInstance.getName(), pipelineInstance.getCounter()));
+            }
+            pipeline.setModificationsOnBuildCause(revisionsByPipelineId.get(pipeline.getId()));
+            goCache.put(cacheKey, pipeline.getBuildCause());
+            buildCausesByCacheKey.put(cacheKey, pipeline.getBuildCause());
+        }
+        return buildCausesByCacheKey;
+    }
+
     String cacheKeyForBuildCauseByNameAndCounter(String name, int counter) {
         return cacheKeyGenerator.generate("buildCauseByNameAndCounter", name.toLowerCase(), counter);
     }
@@ -245,7 +310,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         if (stage.passed()) {
             StageIdentifier identifier = stage.getIdentifier();
             String cacheKey = latestSuccessfulStageCacheKey(identifier.getPipelineName(), identifier.getStageName());
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 goCache.put(cacheKey, identifier);
             }
         }
@@ -355,7 +420,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForPipelineHistoryByNameAndCounter(pipelineName, pipelineCounter);
         PipelineInstanceModel instanceModel = goCache.get(cacheKey);
         if (instanceModel == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 instanceModel = goCache.get(cacheKey);
                 if (instanceModel == null) {
                     instanceModel = getSqlMapClientTemplate().queryForObject("getPipelineHistoryByNameAndCounter",
@@ -528,7 +593,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = pipelineHistoryCacheKey(id);
         PipelineInstanceModel result = goCache.get(cacheKey);
         if (result == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 result = goCache.get(cacheKey);
                 if (result == null) {
                     result = getSqlMapClientTemplate().queryForObject("getPipelineHistoryById", arguments("id", id).asMap());
@@ -687,7 +752,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
             String cacheKey = cacheKeyForLatestPipelineIdByPipelineName(pipelineName);
             List<Long> ids = goCache.get(cacheKey);
             if (ids == null) {
-                synchronized (cacheKey) {
+                try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                     ids = goCache.get(cacheKey);
                     if (ids == null) {
                         ids = fetchPipelineIds(pipelineName, limit, offset);
@@ -792,7 +857,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
 
     public void pause(String pipelineName, String pauseCause, String pauseBy) {
         String cacheKey = cacheKeyForPauseState(pipelineName);
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             Map<String, Object> args = arguments("pipelineName", pipelineName).and("pauseCause", pauseCause).and("pauseBy", pauseBy).and("paused", true).and("pausedAt", timeProvider.currentTime()).asMap();
             PipelinePauseInfo pipelinePauseInfo = getSqlMapClientTemplate().queryForObject("getPipelinePauseState", pipelineName);
             if (pipelinePauseInfo == null) {
@@ -806,7 +871,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
 
     public void unpause(String pipelineName) {
         String cacheKey = cacheKeyForPauseState(pipelineName);
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             Map<String, Object> args = arguments("pipelineName", pipelineName).and("pauseCause", null).and("pauseBy", null).and("paused", false).and("pausedAt", null).asMap();
             getSqlMapClientTemplate().update("updatePipelinePauseState", args);
             goCache.remove(cacheKey);
@@ -818,7 +883,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForPauseState(pipelineName);
         PipelinePauseInfo result = goCache.get(cacheKey);
         if (result == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 result = goCache.get(cacheKey);
                 if (result == null) {
                     result = getSqlMapClientTemplate().queryForObject("getPipelinePauseState", pipelineName);
@@ -843,7 +908,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForLatestPassedStage(pipelineId, stage);
         StageIdentifier result = goCache.get(cacheKey);
         if (result == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 result = goCache.get(cacheKey);
                 if (result == null) {
                     result = getSqlMapClientTemplate().queryForObject("latestPassedStageForPipelineId", arguments("id", pipelineId).and("stage", stage).asMap());
@@ -861,7 +926,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(pipelineName, dependencyPipelineIdentifier.getName(), dependencyPipelineIdentifier.getCounter());
         List<PipelineIdentifier> pipelineIdentifiers = goCache.get(cacheKey);
         if (pipelineIdentifiers == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 pipelineIdentifiers = goCache.get(cacheKey);
                 if (pipelineIdentifiers == null) {
                     pipelineIdentifiers = getSqlMapClientTemplate().queryForList("pipelineInstancesTriggeredOutOfDependencyMaterial",
@@ -882,7 +947,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(pipelineName, materialInstance.getFingerprint(), revision);
         List<PipelineIdentifier> pipelineIdentifiers = goCache.get(cacheKey);
         if (pipelineIdentifiers == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 pipelineIdentifiers = goCache.get(cacheKey);
                 if (pipelineIdentifiers == null) {
                     pipelineIdentifiers = getSqlMapClientTemplate().queryForList("pipelineInstancesTriggeredOffOfMaterialRevision",
@@ -894,6 +959,62 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return pipelineIdentifiers;
     }
 
+    @Override
+    public List<List<PipelineIdentifier>> getPipelineInstancesTriggeredWithDependencyMaterials(List<String> pipelineNames, List<PipelineIdentifier> revisions) {
+        Map<String, List<PipelineIdentifier>> pipelineIdentifiersByCacheKey = new HashMap<>();
+        Map<String, Integer> notCached = new TreeMap<>();
+        for (int i = 0; i < pipelineNames.size(); i++) {
+            String cacheKey = cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(pipelineNames.get(i), revisions.get(i).getName(), revisions.get(i).getCounter());
+            List<PipelineIdentifier> pipelineIdentifiers = goCache.get(cacheKey);
+            if (pipelineIdentifiers == null) {
+                notCached.put(cacheKey, i);
+            } else {
+                pipelineIdentifiersByCacheKey.put(cacheKey, pipelineIdentifiers);
+            }
+        }
+
+        for (List<String> batch : Lists.partition(new ArrayList<>(notCached.keySet()), MAX_PIPELINE_INSTANCES_PER_QUERY)) {
+            try (KeyedLocks.HeldAll ignored = LOCKS.lockAll(batch)) {
+                Map<String, Integer> stillNotCached = new LinkedHashMap<>();
+                for (String cacheKey : batch) {
+                    List<PipelineIdentifier> pipelineIdentifiers = goCache.get(cacheKey);
+                    if (pipelineIdentifiers == null) {
+                        stillNotCached.put(cacheKey, notCached.get(cacheKey));
+                    } else {
+                        pipelineIdentifiersByCacheKey.put(cacheKey, pipelineIdentifiers);
+                    }
+                }
+                if (stillNotCached.isEmpty()) {
+                    continue;
+                }
+
+                List<Map<String, Object>> lookups = new ArrayList<>();
+                for (int i : stillNotCached.values()) {
+                    lookups.add(arguments("pipelineName", pipelineNames.get(i)).and("dependencyPipelineName", revisions.get(i).getName())
+                            .and("stageLocator", revisions.get(i).getName() + "/" + revisions.get(i).getCounter() + "/%/%").asMap());
+                }
+                List<PipelineTriggeredByDependency> triggered = getSqlMapClientTemplate().queryForList("pipelineInstancesTriggeredOutOfDependencyMaterials", arguments("lookups", lookups).asMap());
+                stillNotCached.forEach((cacheKey, i) -> {
+                    Set<PipelineIdentifier> pipelineIdentifiers = new LinkedHashSet<>();
+                    for (PipelineTriggeredByDependency pipeline : triggered) {
+                        if (pipeline.wasTriggeredBy(pipelineNames.get(i), revisions.get(i))) {
+                            pipelineIdentifiers.add(pipeline.getPipelineIdentifier());
+                        }
+                    }
+                    List<PipelineIdentifier> found = new ArrayList<>(pipelineIdentifiers);
+                    goCache.put(cacheKey, found);
+                    pipelineIdentifiersByCacheKey.put(cacheKey, found);
+                });
+            }
+        }
+
+        List<List<PipelineIdentifier>> result = new ArrayList<>();
+        for (int i = 0; i < pipelineNames.size(); i++) {
+            result.add(pipelineIdentifiersByCacheKey.get(cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(pipelineNames.get(i), revisions.get(i).getName(), revisions.get(i).getCounter())));
+        }
+        return result;
+    }
+
     @Override
     public PipelineInstanceModels loadHistoryForDashboard(List<String> pipelineNames) {
         if (pipelineNames == null || pipelineNames.isEmpty()) {
@@ -960,7 +1081,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = activePipelinesCacheKey();
         Map<CaseInsensitiveString, TreeSet<Long>> result = goCache.get(cacheKey);
         if (result == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 result = goCache.get(cacheKey);
                 if (result == null) {
                     List<PipelineInstanceModel> pipelines = getAllPIMs();
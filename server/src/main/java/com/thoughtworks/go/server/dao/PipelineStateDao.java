@@ -27,6 +27,7 @@ import com.thoughtworks.go.server.transaction.AfterCompletionCallback;
 import com.thoughtworks.go.server.transaction.SqlMapClientDaoSupport;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.hibernate.Criteria;
@@ -44,6 +45,7 @@ import java.util.List;
 
 @Component
 public class PipelineStateDao extends SqlMapClientDaoSupport implements StageStatusListener {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("PipelineStateDao");
     private TransactionTemplate transactionTemplate;
     private TransactionSynchronizationManager transactionSynchronizationManager;
     private SessionFactory sessionFactory;
@@ -70,7 +72,7 @@ public class PipelineStateDao extends SqlMapClientDaoSupport implements StageSta
     }
 
     public void lockPipeline(final Pipeline pipeline, AfterCompletionCallback... callbacks) {
-        synchronized (pipelineLockStateCacheKey(pipeline.getName())) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(pipelineLockStateCacheKey(pipeline.getName()))) {
             transactionTemplate.execute(new TransactionCallbackWithoutResult() {
                 @Override
                 protected void doInTransactionWithoutResult(TransactionStatus status) {
@@ -111,7 +113,7 @@ public class PipelineStateDao extends SqlMapClientDaoSupport implements StageSta
     }
 
     public void unlockPipeline(final String pipelineName, AfterCompletionCallback... afterCompletionCallbacks) {
-        synchronized (pipelineLockStateCacheKey(pipelineName)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(pipelineLockStateCacheKey(pipelineName))) {
             transactionTemplate.execute(new TransactionCallbackWithoutResult() {
                 @Override
                 protected void doInTransactionWithoutResult(TransactionStatus status) {
@@ -150,7 +152,7 @@ public class PipelineStateDao extends SqlMapClientDaoSupport implements StageSta
         if (pipelineState != null) {
             return pipelineState.equals(PipelineState.NOT_LOCKED) ? null : pipelineState;
         }
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             pipelineState = goCache.get(cacheKey);
             if (pipelineState != null) {
                 return pipelineState.equals(PipelineState.NOT_LOCKED) ? null : pipelineState;
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.dao;
+
+import com.thoughtworks.go.domain.PipelineIdentifier;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * A pipeline instance, along with the revision of the dependency material it was triggered with.
+ */
+public class PipelineTriggeredByDependency {
+    private String pipelineName;
+    private String label;
+    private Integer pipelineCounter;
+    private String dependencyPipelineName;
+    private String dependencyRevision;
+
+    public PipelineTriggeredByDependency() {
+    }
+
+    public PipelineTriggeredByDependency(String pipelineName, Integer pipelineCounter, String label, String dependencyPipelineName, String dependencyRevision) {
+        this.pipelineName = pipelineName;
+        this.pipelineCounter = pipelineCounter;
+        this.label = label;
+        this.dependencyPipelineName = dependencyPipelineName;
+        this.dependencyRevision = dependencyRevision;
+    }
+
+    public PipelineIdentifier getPipelineIdentifier() {
+        return new PipelineIdentifier(pipelineName, pipelineCounter, label);
+    }
+
+    /* Whether this instance of the pipeline was triggered by the given instance of the dependency pipeline. */
+    public boolean wasTriggeredBy(String pipelineName, PipelineIdentifier dependency) {
+        return this.pipelineName.equals(pipelineName)
+                && dependencyPipelineName.equals(dependency.getName())
+                && dependencyRevision.startsWith(dependency.getName() + "/" + dependency.getCounter() + "/");
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
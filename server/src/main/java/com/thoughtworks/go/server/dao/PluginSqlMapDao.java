@@ -20,6 +20,7 @@ import com.thoughtworks.go.domain.Plugin;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import org.hibernate.Query;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Restrictions;
@@ -34,6 +35,7 @@ import java.util.List;
 
 @Component
 public class PluginSqlMapDao extends HibernateDaoSupport implements PluginDao {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("PluginSqlMapDao");
     private final CacheKeyGenerator cacheKeyGenerator;
     private SessionFactory sessionFactory;
     private TransactionTemplate transactionTemplate;
@@ -51,7 +53,7 @@ public class PluginSqlMapDao extends HibernateDaoSupport implements PluginDao {
     @Override
     public void saveOrUpdate(final Plugin plugin) {
         String cacheKey = cacheKeyForPluginSettings(plugin.getPluginId());
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             transactionTemplate.execute(new TransactionCallbackWithoutResult() {
                 @Override
                 protected void doInTransactionWithoutResult(TransactionStatus status) {
@@ -69,7 +71,7 @@ public class PluginSqlMapDao extends HibernateDaoSupport implements PluginDao {
         if (plugin != null) {
             return plugin;
         }
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             plugin = goCache.get(cacheKey);
             if (plugin != null) {
                 return plugin;
@@ -123,7 +125,7 @@ public class PluginSqlMapDao extends HibernateDaoSupport implements PluginDao {
             return;
         }
 
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             Plugin found = this.findPlugin(pluginId);
             if (found instanceof NullPlugin) {
                 return;
@@ -99,6 +99,12 @@ public interface StageDao extends JobDurationStrategy {
 
     Stages findAllStagesFor(String pipelineName, int counter);
 
+    /**
+     * Finds all stages of each of the given pipeline instances, in the same order as the pipeline instances.
+     * Instances that are not cached are loaded together, instead of with one query each.
+     */
+    List<Stages> findAllStagesFor(List<PipelineIdentifier> pipelineInstances);
+
     List<Stage> oldestStagesHavingArtifacts();
 
     void markArtifactsDeletedFor(Stage stage);
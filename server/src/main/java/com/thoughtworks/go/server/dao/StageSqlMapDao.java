@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.dao;
 import com.opensymphony.oscache.base.Cache;
 import com.opensymphony.oscache.base.CacheEntry;
 import com.opensymphony.oscache.base.NeedsRefreshException;
+import com.google.common.collect.Lists;
 import com.rits.cloning.Cloner;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.StageConfig;
@@ -36,6 +37,7 @@ import com.thoughtworks.go.server.domain.StageStatusListener;
 import com.thoughtworks.go.server.transaction.SqlMapClientDaoSupport;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.util.ClonerFactory;
 import com.thoughtworks.go.util.DynamicReadWriteLock;
@@ -52,10 +54,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Supplier;
 
 import static com.thoughtworks.go.util.IBatisUtil.arguments;
@@ -63,7 +62,9 @@ import static java.lang.String.format;
 
 @Component
 public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao, StageStatusListener, JobStatusListener {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("StageSqlMapDao");
     private static final Logger LOGGER = LoggerFactory.getLogger(SqlSessionDaoSupport.class);
+    private static final int MAX_PIPELINE_INSTANCES_PER_QUERY = 100;
     private final CacheKeyGenerator cacheKeyGenerator;
     private final TransactionTemplate transactionTemplate;
     private final JobInstanceSqlMapDao buildInstanceDao;
@@ -199,7 +200,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     public Stage findStageWithIdentifier(StageIdentifier identifier) {
         String cachekey = cacheKeyForStageIdentifier(identifier);
         String cacheKeyForIdentifiers = cacheKeyForListOfStageIdentifiers(identifier);
-        synchronized (cacheKeyForIdentifiers) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKeyForIdentifiers)) {
             Stage stage = (Stage) goCache.get(cacheKeyForIdentifiers, cachekey);
             if (stage == null) {
                 IBatisUtil.IBatisArgument argument = IBatisUtil.arguments("pipelineName", identifier.getPipelineName())
@@ -365,7 +366,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     @Override
     public Stages getAllRunsOfStageForPipelineInstance(String pipelineName, Integer pipelineCounter, String stageName) {
         String cacheKeyForAllStages = cacheKeyForAllStageOfPipeline(pipelineName, pipelineCounter, stageName);
-        synchronized (cacheKeyForAllStages) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKeyForAllStages)) {
             List<Stage> stages = goCache.get(cacheKeyForAllStages);
             if (stages == null) {
                 Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("pipelineCounter", pipelineCounter).and("stageName", stageName).asMap();
@@ -395,7 +396,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         String key = cacheKeyForStageCountForGraph(pipelineName, stageName);
         Integer total = goCache.get(key);
         if (total == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 if (total == null) {
                     Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("stageName", stageName).asMap();
                     total = getSqlMapClientTemplate().queryForObject("getTotalStageCountForChart", toGet);
@@ -411,7 +412,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         String key = cacheKeyForLatestStageInstances();
         List<StageIdentity> stageIdentities = goCache.get(key);
         if (stageIdentities == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 stageIdentities = goCache.get(key);
                 if (stageIdentities == null) {
                     stageIdentities = getSqlMapClientTemplate().queryForList("latestStageInstances");
@@ -508,7 +509,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     String mutexForStageHistory(String pipelineName, String stageName) {
-        return format("%s_stageHistoryMutex_%s_<>_%s", getClass().getName(), pipelineName, stageName).intern();
+        return format("%s_stageHistoryMutex_%s_<>_%s", getClass().getName(), pipelineName, stageName);
     }
 
     String cacheKeyForStageHistories(String pipelineName, String stageName) {
@@ -556,7 +557,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     String cacheKeyForStageOffset(Stage stage) {
-        return cacheKeyGenerator.generate("stageOffsetMap", stage.getIdentifier().getPipelineName(), stage.getIdentifier().getStageName()).intern();
+        return cacheKeyGenerator.generate("stageOffsetMap", stage.getIdentifier().getPipelineName(), stage.getIdentifier().getStageName());
     }
 
     private List<StageFeedEntry> findForFeed(String baseQuery, FeedModifier modifier, long transitionId, int pageSize) {
@@ -616,7 +617,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         if (id != null) {
             return id;
         }
-        synchronized (key) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
             id = goCache.get(key);
             if (id != null) {
                 return id;
@@ -646,7 +647,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         Stage stage = goCache.get(key);
 
         if (stage == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 stage = goCache.get(key);
                 if (stage == null) {
                     stage = getSqlMapClientTemplate().queryForObject("getStageById", id);
@@ -674,7 +675,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     @Override
     public boolean isStageActive(String pipelineName, String stageName) {
         String cacheKey = cacheKeyForPipelineAndStage(pipelineName, stageName);
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             Boolean isActive = goCache.get(cacheKey);
             if (isActive == null) {
                 final Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("stageName", stageName).asMap();
@@ -714,7 +715,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         String key = cacheKeyForPipelineAndCounter(pipelineName, counter);
         List<Stage> stages = goCache.get(key);
         if (stages == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 stages = goCache.get(key);
                 if (stages == null) {
                     Map<String, Object> params = arguments("pipelineName", pipelineName).and("pipelineCounter", counter).asMap();
@@ -726,6 +727,73 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         return new Stages(stages);
     }
 
+    @Override
+    public List<Stages> findAllStagesFor(List<PipelineIdentifier> pipelineInstances) {
+        Map<String, List<Stage>> stagesByCacheKey = new HashMap<>();
+        List<PipelineIdentifier> notCached = new ArrayList<>();
+        for (PipelineIdentifier pipelineInstance : pipelineInstances) {
+            String key = cacheKeyForPipelineAndCounter(pipelineInstance.getName(), pipelineInstance.getCounter());
+            List<Stage> stages = goCache.get(key);
+            if (stages == null) {
+                notCached.add(pipelineInstance);
+            } else {
+                stagesByCacheKey.put(key, stages);
+            }
+        }
+
+        for (List<PipelineIdentifier> batch : Lists.partition(notCached, MAX_PIPELINE_INSTANCES_PER_QUERY)) {
+            stagesByCacheKey.putAll(loadAndCacheAllStagesFor(batch));
+        }
+
+        List<Stages> result = new ArrayList<>();
+        for (PipelineIdentifier pipelineInstance : pipelineInstances) {
+            result.add(new Stages(stagesByCacheKey.get(cacheKeyForPipelineAndCounter(pipelineInstance.getName(), pipelineInstance.getCounter()))));
+        }
+        return result;
+    }
+
+    /* Holds the lock of every instance in the batch, so no invalidation slips in between the query and the put. */
+    private Map<String, List<Stage>> loadAndCacheAllStagesFor(List<PipelineIdentifier> batch) {
+        Map<String, PipelineIdentifier> pipelineInstancesByCacheKey = new TreeMap<>();
+        for (PipelineIdentifier pipelineInstance : batch) {
+            pipelineInstancesByCacheKey.put(cacheKeyForPipelineAndCounter(pipelineInstance.getName(), pipelineInstance.getCounter()), pipelineInstance);
+        }
+
+        try (KeyedLocks.HeldAll ignored = LOCKS.lockAll(pipelineInstancesByCacheKey.keySet())) {
+            Map<String, List<Stage>> stagesByCacheKey = new HashMap<>();
+            List<PipelineIdentifier> stillNotCached = new ArrayList<>();
+            pipelineInstancesByCacheKey.forEach((key, pipelineInstance) -> {
+                List<Stage> stages = goCache.get(key);
+                if (stages == null) {
+                    stillNotCached.add(pipelineInstance);
+                } else {
+                    stagesByCacheKey.put(key, stages);
+                }
+            });
+            if (stillNotCached.isEmpty()) {
+                return stagesByCacheKey;
+            }
+
+            List<Stage> loaded = getSqlMapClientTemplate().queryForList("getStagesByPipelineNamesAndCounters", arguments("pipelineInstances", stillNotCached).asMap());
+            Map<String, List<Stage>> loadedByPipelineInstance = new HashMap<>();
+            for (Stage stage : loaded) {
+                StageIdentifier identifier = stage.getIdentifier();
+                loadedByPipelineInstance.computeIfAbsent(pipelineInstanceKey(identifier.getPipelineName(), identifier.getPipelineCounter()), k -> new ArrayList<>()).add(stage);
+            }
+            for (PipelineIdentifier pipelineInstance : stillNotCached) {
+                List<Stage> stages = loadedByPipelineInstance.getOrDefault(pipelineInstanceKey(pipelineInstance.getName(), pipelineInstance.getCounter()), new ArrayList<>());
+                String key = cacheKeyForPipelineAndCounter(pipelineInstance.getName(), pipelineInstance.getCounter());
+                goCache.put(key, stages);
+                stagesByCacheKey.put(key, stages);
+            }
+            return stagesByCacheKey;
+        }
+    }
+
+    private String pipelineInstanceKey(String pipelineName, Integer pipelineCounter) {
+        return pipelineName.toLowerCase() + "/" + pipelineCounter;
+    }
+
     @Override
     public List<Stage> oldestStagesHavingArtifacts() {
         return getSqlMapClientTemplate().queryForList("oldestStagesHavingArtifacts");
@@ -761,7 +829,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     private void removeFromCache(String key) {
-        synchronized (key) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
             goCache.remove(key);
         }
     }
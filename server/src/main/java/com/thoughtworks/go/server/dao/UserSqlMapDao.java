@@ -24,6 +24,7 @@ import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.exceptions.UserEnabledException;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Criteria;
 import org.hibernate.Query;
@@ -45,6 +46,7 @@ import java.util.Set;
 
 @Component
 public class UserSqlMapDao extends HibernateDaoSupport implements UserDao {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("UserSqlMapDao");
     private SessionFactory sessionFactory;
     private TransactionTemplate transactionTemplate;
     private GoCache goCache;
@@ -121,7 +123,7 @@ public class UserSqlMapDao extends HibernateDaoSupport implements UserDao {
             return value;
         }
 
-        synchronized (ENABLED_USER_COUNT_CACHE_KEY) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(ENABLED_USER_COUNT_CACHE_KEY)) {
             value = goCache.get(ENABLED_USER_COUNT_CACHE_KEY);
             if (value == null) {
                 value = hibernateTemplate().execute(session -> (Long) session.createCriteria(User.class).add(Restrictions.eq("enabled", true)).setProjection(Projections.rowCount()).setCacheable(true).uniqueResult());
@@ -200,7 +202,7 @@ public class UserSqlMapDao extends HibernateDaoSupport implements UserDao {
     }
 
     private void clearEnabledUserCountFromCache() {
-        synchronized (ENABLED_USER_COUNT_CACHE_KEY) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(ENABLED_USER_COUNT_CACHE_KEY)) {
             goCache.remove(ENABLED_USER_COUNT_CACHE_KEY);
         }
     }
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /* Understands how to cache dashboard statuses, for every pipeline. */
 @Component
@@ -36,6 +37,7 @@ public class GoDashboardCache {
      */
     private LinkedHashMap<CaseInsensitiveString, GoDashboardPipeline> cache;
     private volatile GoDashboardPipelines dashboardPipelines;
+    private final List<GoDashboardCacheListener> listeners = new CopyOnWriteArrayList<>();
 
     @Autowired
     public GoDashboardCache(TimeStampBasedCounter timeStampBasedCounter) {
@@ -44,19 +46,29 @@ public class GoDashboardCache {
         dashboardPipelines = new GoDashboardPipelines(new HashMap<>(), timeStampBasedCounter);
     }
 
+    public void addListener(GoDashboardCacheListener listener) {
+        listeners.add(listener);
+    }
+
     public void put(GoDashboardPipeline pipeline) {
         cache.put(pipeline.name(), pipeline);
         cacheHasChanged();
+        listeners.forEach(listener -> listener.pipelineChanged(pipeline));
     }
 
     public void remove(CaseInsensitiveString pipelineName) {
-        cache.remove(pipelineName);
+        GoDashboardPipeline removedPipeline = cache.remove(pipelineName);
+        if (removedPipeline != null) {
+            listeners.forEach(listener -> listener.pipelineRemoved(removedPipeline));
+        }
     }
 
     public void replaceAllEntriesInCacheWith(List<GoDashboardPipeline> newPipelinesToCache) {
         cache.clear();
         cache.putAll(createMapFor(newPipelinesToCache));
         cacheHasChanged();
+        GoDashboardPipelines pipelines = dashboardPipelines;
+        listeners.forEach(listener -> listener.allPipelinesReplaced(pipelines));
     }
 
     public GoDashboardPipelines allEntries() {
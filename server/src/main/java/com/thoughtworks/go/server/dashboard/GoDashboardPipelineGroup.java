@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.dashboard;
 
+import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.security.Permissions;
 import com.thoughtworks.go.server.domain.Username;
 
@@ -43,4 +44,16 @@ public class GoDashboardPipelineGroup extends AbstractDashboardGroup {
     public boolean hasPermissions() {
         return permissions != null;
     }
+
+    boolean hasPipeline(CaseInsensitiveString pipelineName) {
+        return allPipelines().stream().anyMatch(pipeline -> pipeline.name().equals(pipelineName));
+    }
+
+    GoDashboardPipelineGroup withPipelineReplacedBy(GoDashboardPipeline replacement) {
+        GoDashboardPipelineGroup copy = new GoDashboardPipelineGroup(name(), permissions, hasDefinedPipelines());
+        for (GoDashboardPipeline pipeline : allPipelines()) {
+            copy.addPipeline(pipeline.name().equals(replacement.name()) ? replacement : pipeline);
+        }
+        return copy;
+    }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.dashboard;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.PipelineConfig;
+import com.thoughtworks.go.config.PipelineConfigs;
+import com.thoughtworks.go.config.security.GoConfigPipelinePermissionsAuthority;
+import com.thoughtworks.go.config.security.Permissions;
+import com.thoughtworks.go.domain.PipelineGroups;
+import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.domain.user.DashboardFilter;
+import com.thoughtworks.go.server.domain.user.Filters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Understands the pipeline groups shown on the dashboard, for every combination of pipeline group permissions and
+ * dashboard filter that has been asked for. Users who can view the same set of pipeline groups get the same
+ * dashboard, so it is computed once and shared between them.
+ * <p>
+ * When a pipeline in the {@link GoDashboardCache} is replaced by a newer status of itself, the remembered dashboards
+ * are patched with it. Anything else (new, removed or moved pipelines, permission or config changes) forgets them.
+ */
+@Component
+public class GoDashboardViewsCache implements GoDashboardCacheListener {
+    private static final int MAX_VIEWS = 1000;
+
+    private final GoDashboardCache cache;
+    private final GoConfigPipelinePermissionsAuthority permissionsAuthority;
+    /* Guarded by this. Pipelines of the cache, as they were when the current views were created or last patched. */
+    private final Map<CaseInsensitiveString, GoDashboardPipeline> knownPipelines = new HashMap<>();
+    private volatile Views views;
+
+    @Autowired
+    public GoDashboardViewsCache(GoDashboardCache cache, GoConfigPipelinePermissionsAuthority permissionsAuthority) {
+        this.cache = cache;
+        this.permissionsAuthority = permissionsAuthority;
+        cache.addListener(this);
+    }
+
+    public List<GoDashboardPipelineGroup> pipelineGroupsFor(PipelineGroups groupsConfig, DashboardFilter filter, Username user, boolean allowEmpty) {
+        Views current = viewsFor(groupsConfig);
+
+        // filters can be changed in place, so they are remembered as their JSON representation
+        ViewKey key = new ViewKey(current.groupsVisibleTo(user), Filters.toJson(filter), allowEmpty);
+        List<GoDashboardPipelineGroup> pipelineGroups = current.pipelineGroups.get(key);
+        if (pipelineGroups == null) {
+            pipelineGroups = current.computePipelineGroups(key.visibleGroups, filter, allowEmpty, cache.allEntries());
+            if (current.pipelineGroups.size() < MAX_VIEWS) {
+                current.pipelineGroups.putIfAbsent(key, pipelineGroups);
+            }
+        }
+        return pipelineGroups;
+    }
+
+    @Override
+    public synchronized void pipelineChanged(GoDashboardPipeline pipeline) {
+        Views current = views;
+        if (current == null) {
+            return;
+        }
+
+        GoDashboardPipeline previous = knownPipelines.get(pipeline.name());
+        if (previous == null || !previous.groupName().equals(pipeline.groupName()) || !Objects.equals(previous.permissions(), pipeline.permissions())) {
+            forget();
+            return;
+        }
+
+        knownPipelines.put(pipeline.name(), pipeline);
+        views = current.patchedWith(pipeline);
+    }
+
+    @Override
+    public synchronized void pipelineRemoved(GoDashboardPipeline pipeline) {
+        forget();
+    }
+
+    @Override
+    public synchronized void allPipelinesReplaced(GoDashboardPipelines pipelines) {
+        forget();
+    }
+
+    private synchronized Views viewsFor(PipelineGroups groupsConfig) {
+        Views current = views;
+        if (current == null || current.groupsConfig != groupsConfig) {
+            current = createViews(groupsConfig, cache.allEntries());
+            views = current;
+        }
+        return current;
+    }
+
+    private Views createViews(PipelineGroups groupsConfig, GoDashboardPipelines allPipelines) {
+        knownPipelines.clear();
+        List<Permissions> permissionsOfGroups = new ArrayList<>();
+
+        for (PipelineConfigs group : groupsConfig) {
+            Permissions groupPermissions = null;
+            for (PipelineConfig pipelineConfig : group) {
+                GoDashboardPipeline pipeline = allPipelines.find(pipelineConfig.getName());
+                if (pipeline != null) {
+                    knownPipelines.put(pipeline.name(), pipeline);
+                    if (groupPermissions == null) {
+                        groupPermissions = pipeline.permissions();
+                    }
+                }
+            }
+            permissionsOfGroups.add(groupPermissions != null ? groupPermissions : permissionsAuthority.permissionsForEmptyGroup(group));
+        }
+
+        return new Views(groupsConfig, permissionsOfGroups, new ConcurrentHashMap<>());
+    }
+
+    private void forget() {
+        views = null;
+        knownPipelines.clear();
+    }
+
+    private static class Views {
+        private final PipelineGroups groupsConfig;
+        private final List<Permissions> permissionsOfGroups;
+        private final ConcurrentHashMap<ViewKey, List<GoDashboardPipelineGroup>> pipelineGroups;
+
+        private Views(PipelineGroups groupsConfig, List<Permissions> permissionsOfGroups, ConcurrentHashMap<ViewKey, List<GoDashboardPipelineGroup>> pipelineGroups) {
+            this.groupsConfig = groupsConfig;
+            this.permissionsOfGroups = permissionsOfGroups;
+            this.pipelineGroups = pipelineGroups;
+        }
+
+        BitSet groupsVisibleTo(Username user) {
+            BitSet visibleGroups = new BitSet(permissionsOfGroups.size());
+            String userName = user.getUsername().toString();
+            for (int i = 0; i < permissionsOfGroups.size(); i++) {
+                Permissions permissions = permissionsOfGroups.get(i);
+                if (permissions != null && permissions.viewers().contains(userName)) {
+                    visibleGroups.set(i);
+                }
+            }
+            return visibleGroups;
+        }
+
+        List<GoDashboardPipelineGroup> computePipelineGroups(BitSet visibleGroups, DashboardFilter filter, boolean allowEmpty, GoDashboardPipelines allPipelines) {
+            List<GoDashboardPipelineGroup> result = new ArrayList<>();
+
+            for (int i = 0; i < groupsConfig.size(); i++) {
+                PipelineConfigs group = groupsConfig.get(i);
+                GoDashboardPipelineGroup dashboardPipelineGroup = new GoDashboardPipelineGroup(group.getGroup(), permissionsOfGroups.get(i), !group.isEmpty());
+
+                if (visibleGroups.get(i)) {
+                    for (PipelineConfig pipelineConfig : group) {
+                        CaseInsensitiveString pipelineName = pipelineConfig.name();
+                        GoDashboardPipeline pipeline = allPipelines.find(pipelineName);
+                        if (pipeline != null && filter.isPipelineVisible(pipelineName)) {
+                            dashboardPipelineGroup.addPipeline(pipeline);
+                        }
+                    }
+                }
+
+                // A group can be forced onto the dashboard while empty, if nothing is defined in it and the user can view it.
+                boolean forceIncludeEmptyGroup = allowEmpty && !dashboardPipelineGroup.hasDefinedPipelines() && visibleGroups.get(i);
+                if (forceIncludeEmptyGroup || dashboardPipelineGroup.hasPipelines()) {
+                    result.add(dashboardPipelineGroup);
+                }
+            }
+
+            return Collections.unmodifiableList(result);
+        }
+
+        /* Views are shared by requests being served, so the groups holding the pipeline are replaced, not changed. */
+        Views patchedWith(GoDashboardPipeline pipeline) {
+            ConcurrentHashMap<ViewKey, List<GoDashboardPipelineGroup>> patched = new ConcurrentHashMap<>();
+
+            pipelineGroups.forEach((key, groups) -> {
+                List<GoDashboardPipelineGroup> patchedGroups = new ArrayList<>(groups.size());
+                for (GoDashboardPipelineGroup group : groups) {
+                    patchedGroups.add(group.hasPipeline(pipeline.name()) ? group.withPipelineReplacedBy(pipeline) : group);
+                }
+                patched.put(key, Collections.unmodifiableList(patchedGroups));
+            });
+
+            return new Views(groupsConfig, permissionsOfGroups, patched);
+        }
+    }
+
+    private static class ViewKey {
+        private final BitSet visibleGroups;
+        private final String filter;
+        private final boolean allowEmpty;
+
+        private ViewKey(BitSet visibleGroups, String filter, boolean allowEmpty) {
+            this.visibleGroups = visibleGroups;
+            this.filter = filter;
+            this.allowEmpty = allowEmpty;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ViewKey viewKey = (ViewKey) o;
+            return allowEmpty == viewKey.allowEmpty &&
+                    visibleGroups.equals(viewKey.visibleGroups) &&
+                    filter.equals(viewKey.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(visibleGroups, filter, allowEmpty);
+        }
+    }
+}
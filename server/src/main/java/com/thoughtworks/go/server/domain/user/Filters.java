@@ -46,6 +46,10 @@ public class Filters {
         return GSON.toJson(filters);
     }
 
+    public static String toJson(DashboardFilter filter) {
+        return GSON.toJson(filter, DashboardFilter.class);
+    }
+
     public static Filters single(DashboardFilter filter) {
         return new Filters(List.of(filter));
     }
@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.materials;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
@@ -31,6 +32,7 @@ import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.collections4.CollectionUtils;
 import org.jetbrains.annotations.TestOnly;
 import org.slf4j.Logger;
@@ -39,6 +41,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.thoughtworks.go.serverhealth.HealthStateType.general;
 import static com.thoughtworks.go.serverhealth.ServerHealthState.error;
@@ -55,18 +61,24 @@ public class DependencyMaterialUpdateNotifier implements StageStatusListener, Co
     private final MaterialConfigConverter materialConfigConverter;
     private final MaterialUpdateService materialUpdateService;
     private ServerHealthService serverHealthService;
+    private final SystemEnvironment systemEnvironment;
     private boolean skipUpdate = false;
 
     private volatile Map<String, Material> dependencyMaterials;
     private Set<Material> retryQueue = Collections.synchronizedSet(new HashSet<>());
+    private final Set<Material> pendingUpdates = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService coalescer = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("dependency-material-update-coalescer").setDaemon(true).build());
 
     @Autowired
     public DependencyMaterialUpdateNotifier(GoConfigService goConfigService, MaterialConfigConverter materialConfigConverter,
-                                            MaterialUpdateService materialUpdateService, ServerHealthService serverHealthService) {
+                                            MaterialUpdateService materialUpdateService, ServerHealthService serverHealthService,
+                                            SystemEnvironment systemEnvironment) {
         this.goConfigService = goConfigService;
         this.materialConfigConverter = materialConfigConverter;
         this.materialUpdateService = materialUpdateService;
         this.serverHealthService = serverHealthService;
+        this.systemEnvironment = systemEnvironment;
     }
 
     @Override
@@ -86,7 +98,8 @@ public class DependencyMaterialUpdateNotifier implements StageStatusListener, Co
     }
 
     @Override
-    public void onMaterialUpdate(Material material) {
+    public void onMaterialUpdate(MaterialUpdateCompletedMessage message) {
+        Material material = message.getMaterial();
         if (material instanceof DependencyMaterial) {
             if (retryQueue.remove(material)) {
                 LOGGER.debug("[Material Update] Retrying update of dependency material {} ", material);
@@ -101,7 +114,7 @@ public class DependencyMaterialUpdateNotifier implements StageStatusListener, Co
             Material material = dependencyMaterials.get(stageIdentifier(stage.getIdentifier().getPipelineName(), stage.getName()));
 
             if (material != null) {
-                updateMaterial(material);
+                coalesceUpdate(material);
             }
         }
     }
@@ -146,6 +159,32 @@ public class DependencyMaterialUpdateNotifier implements StageStatusListener, Co
         }
     }
 
+    /**
+     * Stages of a busy upstream pipeline can pass in quick succession. Passes while an update of the material is in
+     * progress already lead to a single retry once it completes. Where that is not enough, a coalesce window can be set
+     * to hold on to the update for a short while, so that all passes within it are picked up by a single update.
+     */
+    private void coalesceUpdate(Material material) {
+        long window = systemEnvironment.getDependencyMaterialUpdateCoalesceWindowInMillis();
+        if (window <= 0) {
+            updateMaterial(material);
+            return;
+        }
+
+        if (pendingUpdates.add(material)) {
+            coalescer.schedule(this::updatePendingMaterials, window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void updatePendingMaterials() {
+        Iterator<Material> iterator = pendingUpdates.iterator();
+        while (iterator.hasNext()) {
+            Material material = iterator.next();
+            iterator.remove();
+            updateMaterial(material);
+        }
+    }
+
     private void updateMaterialsOnIntialization() {
         for (Material material : this.dependencyMaterials.values()) {
             updateMaterial(material);
@@ -29,6 +29,7 @@ import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.MaterialExpansionService;
 import com.thoughtworks.go.server.transaction.TransactionCallback;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
@@ -50,6 +51,7 @@ import static org.apache.commons.text.StringEscapeUtils.escapeHtml4;
  */
 @Component
 public class MaterialDatabaseUpdater {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("MaterialDatabaseUpdater");
     public static final String MATERIALS_MUTEX_FORMAT = MaterialDatabaseUpdater.class.getName() + "_MaterialMutex_%s_%s";
     private static final Logger LOGGER = LoggerFactory.getLogger(MaterialDatabaseUpdater.class);
     static final int STAGES_PER_PAGE = 100;
@@ -79,39 +81,40 @@ public class MaterialDatabaseUpdater {
         this.goConfigService = goConfigService;
     }
 
-    public void updateMaterial(final Material material) throws Exception {
+    /* Returns whether the update found and saved any new modifications. */
+    public boolean updateMaterial(final Material material) throws Exception {
         String materialMutex = mutexForMaterial(material);
         HealthStateScope scope = HealthStateScope.forMaterial(material);
+        boolean foundNewModifications = false;
         try {
             MaterialInstance materialInstance = materialRepository.findMaterialInstance(material);
             if (materialInstance == null) {
                 LOGGER.debug("[Material Update] Material repository not found, creating with latest revision from {}", material);
 
-                synchronized (materialMutex) {
+                try (KeyedLocks.Held ignored = LOCKS.lock(materialMutex)) {
                     if (materialRepository.findMaterialInstance(material) == null) {
-                        transactionTemplate.executeWithExceptionHandling(new TransactionCallback() {
+                        foundNewModifications = Boolean.TRUE.equals(transactionTemplate.executeWithExceptionHandling(new TransactionCallback() {
                             @Override
                             public Object doInTransaction(TransactionStatus status) {
-                                initializeMaterialWithLatestRevision(material);
-                                return null;
+                                return initializeMaterialWithLatestRevision(material);
                             }
-                        });
+                        }));
                     }
                 }
             } else {
                 LOGGER.debug("[Material Update] Existing material repository, fetching new revisions from {} in flyweight {}", material, materialInstance.getFlyweightName());
 
-                synchronized (materialMutex) {
-                    transactionTemplate.executeWithExceptionHandling(new TransactionCallback() {
+                try (KeyedLocks.Held ignored = LOCKS.lock(materialMutex)) {
+                    foundNewModifications = Boolean.TRUE.equals(transactionTemplate.executeWithExceptionHandling(new TransactionCallback() {
                         @Override
                         public Object doInTransaction(TransactionStatus status) {
-                            updateMaterialWithNewRevisions(material);
-                            return null;
+                            return updateMaterialWithNewRevisions(material);
                         }
-                    });
+                    }));
                 }
             }
             healthService.removeByScope(scope);
+            return foundNewModifications;
         } catch (Exception e) {
             List<CaseInsensitiveString> pipelineNames = goConfigService.pipelinesWithMaterial(material.config().getFingerprint());
             String message = escapeHtml4("Modification check failed for material: " + material.getLongDescription());
@@ -129,32 +132,36 @@ public class MaterialDatabaseUpdater {
         }
     }
 
-    private void initializeMaterialWithLatestRevision(Material material) {
+    private boolean initializeMaterialWithLatestRevision(Material material) {
         Materials materials = new Materials();
         materialExpansionService.expandForHistory(material, materials);
+        boolean foundNewModifications = false;
         for (Material expanded : materials) {
-            addNewMaterialWithModifications(folderFor(expanded), expanded, updater(expanded));
+            foundNewModifications |= addNewMaterialWithModifications(folderFor(expanded), expanded, updater(expanded));
         }
+        return foundNewModifications;
     }
 
-    void updateMaterialWithNewRevisions(Material material) {
+    boolean updateMaterialWithNewRevisions(Material material) {
         Materials materials = new Materials();
         materialExpansionService.expandForHistory(material, materials);
+        boolean foundNewModifications = false;
         for (Material expanded : materials) {
             MaterialInstance expandedInstance = materialRepository.findMaterialInstance(expanded);
             File expandedFolder = folderFor(expanded);
             if (expandedInstance == null) {
-                addNewMaterialWithModifications(expandedFolder, expanded, updater(expanded));
+                foundNewModifications |= addNewMaterialWithModifications(expandedFolder, expanded, updater(expanded));
             } else {
-                insertLatestOrNewModifications(expanded, expandedInstance, expandedFolder, updater(expanded));
+                foundNewModifications |= insertLatestOrNewModifications(expanded, expandedInstance, expandedFolder, updater(expanded));
             }
         }
+        return foundNewModifications;
     }
 
-    private void insertLatestOrNewModifications(Material material, MaterialInstance materialInstance, File folder, MaterialUpdater updater) {
+    private boolean insertLatestOrNewModifications(Material material, MaterialInstance materialInstance, File folder, MaterialUpdater updater) {
         MaterialRevisions materialRevisions = materialRepository.findLatestModification(material);
         Modifications list = materialRevisions.getModifications(material);
-        updater.insertLatestOrNewModifications(material, materialInstance, folder, list);
+        return updater.insertLatestOrNewModifications(material, materialInstance, folder, list);
     }
 
     MaterialUpdater updater(Material material) {
@@ -174,16 +181,16 @@ public class MaterialDatabaseUpdater {
         return this.materialRepository.folderFor(material);
     }
 
-    private void addNewMaterialWithModifications(File folder, Material expanded, MaterialUpdater updater) {
-        updater.addNewMaterialWithModifications(expanded, folder);
+    private boolean addNewMaterialWithModifications(File folder, Material expanded, MaterialUpdater updater) {
+        return updater.addNewMaterialWithModifications(expanded, folder);
     }
 
     private String mutexForMaterial(Material material) {
         if (material instanceof DependencyMaterial) {
             DependencyMaterial dep = ((DependencyMaterial) material);
-            return String.format(MATERIALS_MUTEX_FORMAT, dep.getPipelineName().toLower(), dep.getStageName().toLower()).intern();
+            return String.format(MATERIALS_MUTEX_FORMAT, dep.getPipelineName().toLower(), dep.getStageName().toLower());
         } else {
-            return String.format(MATERIALS_MUTEX_FORMAT, material.getFingerprint(), "-this-lock-should-not-be-acquired-by-anyone-else-inadvertently").intern();
+            return String.format(MATERIALS_MUTEX_FORMAT, material.getFingerprint(), "-this-lock-should-not-be-acquired-by-anyone-else-inadvertently");
         }
     }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.domain.materials.Material;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @understands how long to wait before polling a material again, based on how often it has changed
+ * <p>
+ * A material is polled every minimum interval for as long as its polls keep finding new revisions. Each poll that finds
+ * nothing new doubles its interval, up to the maximum interval. A material that is notified of changes (through a
+ * webhook or the notify API) does not need polling to notice them, so it is only polled every maximum interval.
+ * Intervals longer than the minimum are shortened by an offset derived from the fingerprint, so that materials which
+ * went quiet at the same time do not all come due together.
+ */
+class MaterialPollSchedule {
+    private final long minimumInterval;
+    private final long maximumInterval;
+    private final ConcurrentMap<Material, PollState> states = new ConcurrentHashMap<>();
+
+    MaterialPollSchedule(long minimumInterval, long maximumInterval) {
+        this.minimumInterval = minimumInterval;
+        this.maximumInterval = Math.max(minimumInterval, maximumInterval);
+    }
+
+    boolean isDue(Material material, long now) {
+        PollState state = states.get(material);
+        return state == null || now >= state.nextPollAt(material);
+    }
+
+    Long nextPollAt(Material material) {
+        PollState state = states.get(material);
+        return state == null ? null : state.nextPollAt(material);
+    }
+
+    void polled(Material material, boolean foundNewRevisions, long now) {
+        states.computeIfAbsent(material, m -> new PollState()).polled(foundNewRevisions, now);
+    }
+
+    void notified(Material material, long now) {
+        states.computeIfAbsent(material, m -> new PollState()).lastNotifiedAt = now;
+    }
+
+    void retainAll(Collection<Material> materials) {
+        states.keySet().retainAll(materials);
+    }
+
+    Map<Material, Long> nextPollTimes() {
+        Map<Material, Long> nextPollTimes = new HashMap<>();
+        states.forEach((material, state) -> nextPollTimes.put(material, state.nextPollAt(material)));
+        return nextPollTimes;
+    }
+
+    private class PollState {
+        private volatile long lastPolledAt;
+        private volatile long interval = minimumInterval;
+        private volatile long lastNotifiedAt = -1;
+
+        synchronized void polled(boolean foundNewRevisions, long now) {
+            // the first poll only tells where the material is at, not whether it has been changing
+            boolean quiet = !foundNewRevisions && lastPolledAt > 0;
+            interval = quiet ? Math.min(interval * 2, maximumInterval) : minimumInterval;
+            lastPolledAt = now;
+        }
+
+        long nextPollAt(Material material) {
+            long effectiveInterval = isCoveredByNotifications() ? maximumInterval : interval;
+            long spread = (effectiveInterval - minimumInterval) / 4;
+            long offset = spread <= 0 ? 0 : Math.floorMod((long) material.getFingerprint().hashCode(), spread);
+            return lastPolledAt + effectiveInterval - offset;
+        }
+
+        private boolean isCoveredByNotifications() {
+            return lastNotifiedAt >= 0 && lastPolledAt - lastNotifiedAt <= maximumInterval;
+        }
+    }
+}
@@ -21,4 +21,8 @@ import java.util.Set;
 
 public interface MaterialSource {
     Set<Material> materialsForUpdate();
+
+    /* Called when a material is told about a change (through a webhook or the notify API) rather than polled for it. */
+    default void onMaterialNotified(Material material) {
+    }
 }
@@ -15,9 +15,6 @@
  */
 package com.thoughtworks.go.server.materials;
 
-import com.thoughtworks.go.domain.materials.Material;
-
-
 public interface MaterialUpdateCompleteListener {
-    void onMaterialUpdate(Material material);
+    void onMaterialUpdate(MaterialUpdateCompletedMessage message);
 }
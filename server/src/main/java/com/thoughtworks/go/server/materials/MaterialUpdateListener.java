@@ -37,19 +37,25 @@ public class MaterialUpdateListener implements GoMessageListener<MaterialUpdateM
     private final MDUPerformanceLogger mduPerformanceLogger;
     private final GoDiskSpaceMonitor diskSpaceMonitor;
     private final MaintenanceModeService maintenanceModeService;
+    private final MaterialUpdateQueueMetrics queueMetrics;
+    private final MaterialUpdateQueueMetrics.Lane lane;
 
     public MaterialUpdateListener(GoMessageChannel<MaterialUpdateCompletedMessage> channel, MaterialDatabaseUpdater updater,
-                                  MDUPerformanceLogger mduPerformanceLogger, GoDiskSpaceMonitor diskSpaceMonitor, MaintenanceModeService maintenanceModeService) {
+                                  MDUPerformanceLogger mduPerformanceLogger, GoDiskSpaceMonitor diskSpaceMonitor, MaintenanceModeService maintenanceModeService,
+                                  MaterialUpdateQueueMetrics queueMetrics, MaterialUpdateQueueMetrics.Lane lane) {
         this.channel = channel;
         this.updater = updater;
         this.mduPerformanceLogger = mduPerformanceLogger;
         this.diskSpaceMonitor = diskSpaceMonitor;
         this.maintenanceModeService = maintenanceModeService;
+        this.queueMetrics = queueMetrics;
+        this.lane = lane;
     }
 
     @Override
     public void onMessage(MaterialUpdateMessage message) {
         final Material material = message.getMaterial();
+        queueMetrics.pickedUp(lane, material, System.currentTimeMillis() - message.queuedAt());
 
         if (maintenanceModeService.isMaintenanceMode()) {
             LOGGER.debug("[Maintenance Mode] GoCD server is in 'maintenance' mode, skip performing MDU for material {}.", material);
@@ -57,17 +63,19 @@ public class MaterialUpdateListener implements GoMessageListener<MaterialUpdateM
             return;
         }
 
+        long startedAt = System.currentTimeMillis();
         try {
             maintenanceModeService.mduStartedForMaterial(material);
             mduPerformanceLogger.pickedUpMaterialForMDU(message.trackingId(), material);
             bombIf(diskSpaceMonitor.isLowOnDisk(), "GoCD server is too low on disk to continue with material update");
-            updater.updateMaterial(material);
+            boolean foundNewModifications = updater.updateMaterial(material);
             mduPerformanceLogger.postingMessageAboutMDUCompletion(message.trackingId(), material);
-            channel.post(new MaterialUpdateSuccessfulMessage(material, message.trackingId())); //This should happen only if the transaction is committed.
+            channel.post(new MaterialUpdateSuccessfulMessage(material, message.trackingId(), foundNewModifications)); //This should happen only if the transaction is committed.
         } catch (Exception e) {
             channel.post(new MaterialUpdateFailedMessage(material, message.trackingId(), e));
             mduPerformanceLogger.postingMessageAboutMDUFailure(message.trackingId(), material);
         } finally {
+            queueMetrics.processed(lane, material, System.currentTimeMillis() - startedAt);
             maintenanceModeService.mduFinishedForMaterial(material);
         }
     }
@@ -34,6 +34,7 @@ public class MaterialUpdateListenerFactory {
     private MaterialUpdateCompletedTopic topic;
     private final MaterialRepository materialRepository;
     private MaterialUpdateQueue queue;
+    private PriorityMaterialUpdateQueue priorityQueue;
     private ConfigMaterialUpdateQueue configQueue;
     private DependencyMaterialUpdateQueue dependencyMaterialQueue;
     private MaintenanceModeService maintenanceModeService;
@@ -49,6 +50,7 @@ public class MaterialUpdateListenerFactory {
     private final PluggableSCMMaterialUpdater pluggableSCMMaterialUpdater;
     private final MaterialExpansionService materialExpansionService;
     private final MDUPerformanceLogger mduPerformanceLogger;
+    private final MaterialUpdateQueueMetrics queueMetrics;
 
     @Autowired
     public MaterialUpdateListenerFactory(MaterialUpdateCompletedTopic topic,
@@ -68,7 +70,9 @@ public class MaterialUpdateListenerFactory {
                                          DependencyMaterialUpdateQueue dependencyMaterialQueue,
                                          MaintenanceModeService maintenanceModeService,
                                          ConfigMaterialPostUpdateQueue configMaterialPostUpdateQueue,
-                                         GoConfigService goConfigService) {
+                                         GoConfigService goConfigService,
+                                         PriorityMaterialUpdateQueue priorityQueue,
+                                         MaterialUpdateQueueMetrics queueMetrics) {
         this.topic = topic;
         this.queue = queue;
         this.configQueue = configQueue;
@@ -87,29 +91,37 @@ public class MaterialUpdateListenerFactory {
         this.maintenanceModeService = maintenanceModeService;
         this.configMaterialPostUpdateQueue = configMaterialPostUpdateQueue;
         this.goConfigService = goConfigService;
+        this.priorityQueue = priorityQueue;
+        this.queueMetrics = queueMetrics;
     }
 
     public void init() {
         int numberOfStandardMaterialListeners = systemEnvironment.getNumberOfMaterialCheckListener();
+        int numberOfPriorityMaterialListeners = systemEnvironment.getNumberOfPriorityMaterialCheckListener();
         int numberOfConfigListeners = systemEnvironment.getNumberOfConfigMaterialCheckListener();
         int numberOfDependencyMaterialCheckListeners = systemEnvironment.getNumberOfDependencyMaterialUpdateListeners();
 
         for (int i = 0; i < numberOfStandardMaterialListeners; i++) {
-            createWorker(this.queue, this.topic);
+            createWorker(this.queue, this.topic, MaterialUpdateQueueMetrics.Lane.ROUTINE);
+        }
+
+        for (int i = 0; i < numberOfPriorityMaterialListeners; i++) {
+            createWorker(this.priorityQueue, this.topic, MaterialUpdateQueueMetrics.Lane.PRIORITY);
         }
 
         for (int i = 0; i < numberOfConfigListeners; i++) {
-            createWorker(this.configQueue, this.configMaterialPostUpdateQueue);
+            createWorker(this.configQueue, this.configMaterialPostUpdateQueue, MaterialUpdateQueueMetrics.Lane.CONFIG_REPOSITORY);
         }
 
         for (int i = 0; i < numberOfDependencyMaterialCheckListeners; i++) {
-            createWorker(this.dependencyMaterialQueue, this.topic);
+            createWorker(this.dependencyMaterialQueue, this.topic, MaterialUpdateQueueMetrics.Lane.DEPENDENCY);
         }
     }
 
-    private void createWorker(GoMessageQueue<MaterialUpdateMessage> queue, GoMessageChannel<MaterialUpdateCompletedMessage> topic) {
+    private void createWorker(GoMessageQueue<MaterialUpdateMessage> queue, GoMessageChannel<MaterialUpdateCompletedMessage> topic, MaterialUpdateQueueMetrics.Lane lane) {
         MaterialDatabaseUpdater updater = new MaterialDatabaseUpdater(materialRepository, serverHealthService, transactionTemplate, dependencyMaterialUpdater, scmMaterialUpdater,
                 packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, goConfigService);
-        queue.addListener(new MaterialUpdateListener(topic, updater, mduPerformanceLogger, diskSpaceMonitor, maintenanceModeService));
+        queue.addListener(new MaterialUpdateListener(topic, updater, mduPerformanceLogger, diskSpaceMonitor, maintenanceModeService, queueMetrics, lane));
+        queueMetrics.workerAdded(lane);
     }
 }
@@ -29,9 +29,12 @@ public class MaterialUpdateMessage implements GoMessage {
 
     private long trackingId;
 
+    private final long queuedAt;
+
     public MaterialUpdateMessage(Material material, long trackingId) {
         this.material = material;
         this.trackingId = trackingId;
+        this.queuedAt = System.currentTimeMillis();
     }
 
     public Material getMaterial() {
@@ -40,16 +43,20 @@ public class MaterialUpdateMessage implements GoMessage {
 
     @Override
     public boolean equals(Object o) {
-        return reflectionEquals(this, o, "trackingId");
+        return reflectionEquals(this, o, "trackingId", "queuedAt");
     }
 
     public long trackingId() {
         return trackingId;
     }
 
+    public long queuedAt() {
+        return queuedAt;
+    }
+
     @Override
     public int hashCode() {
-        return reflectionHashCode(this);
+        return reflectionHashCode(this, "queuedAt");
     }
 
     @Override public String toString() {
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.domain.materials.Material;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @understands how deep each material update queue is, and how long updates wait in and take out of it
+ */
+@Component
+public class MaterialUpdateQueueMetrics {
+    public enum Lane {
+        PRIORITY("Manual and webhook"),
+        CONFIG_REPOSITORY("Config repository"),
+        ROUTINE("Polling"),
+        DEPENDENCY("Dependency");
+
+        private final String displayName;
+
+        Lane(String displayName) {
+            this.displayName = displayName;
+        }
+    }
+
+    private final Map<Lane, LaneMetrics> lanes = new EnumMap<>(Lane.class);
+
+    public MaterialUpdateQueueMetrics() {
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneMetrics());
+        }
+    }
+
+    public void workerAdded(Lane lane) {
+        lanes.get(lane).workers.increment();
+    }
+
+    public void queued(Lane lane) {
+        lanes.get(lane).depth.increment();
+    }
+
+    public void pickedUp(Lane lane, Material material, long waitMillis) {
+        LaneMetrics metrics = lanes.get(lane);
+        metrics.depth.decrement();
+        metrics.timingsFor(material).waited(waitMillis);
+    }
+
+    public void processed(Lane lane, Material material, long processingMillis) {
+        lanes.get(lane).timingsFor(material).processed(processingMillis);
+    }
+
+    public Map<String, Object> statistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        lanes.forEach((lane, metrics) -> statistics.put(lane.displayName, metrics.statistics()));
+        return statistics;
+    }
+
+    private static class LaneMetrics {
+        private final LongAdder workers = new LongAdder();
+        private final LongAdder depth = new LongAdder();
+        private final ConcurrentMap<String, Timings> timingsByMaterialType = new ConcurrentHashMap<>();
+
+        private Timings timingsFor(Material material) {
+            return timingsByMaterialType.computeIfAbsent(material.getTypeForDisplay(), type -> new Timings());
+        }
+
+        private Map<String, Object> statistics() {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("Workers", workers.sum());
+            statistics.put("Depth", Math.max(0, depth.sum()));
+            Map<String, Object> byMaterialType = new TreeMap<>();
+            timingsByMaterialType.forEach((type, timings) -> byMaterialType.put(type, timings.statistics()));
+            statistics.put("By material type", byMaterialType);
+            return statistics;
+        }
+    }
+
+    private static class Timings {
+        private final LongAdder pickedUp = new LongAdder();
+        private final LongAdder totalWaitMillis = new LongAdder();
+        private final LongAccumulator maxWaitMillis = new LongAccumulator(Math::max, 0);
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder totalProcessingMillis = new LongAdder();
+        private final LongAccumulator maxProcessingMillis = new LongAccumulator(Math::max, 0);
+
+        private void waited(long millis) {
+            pickedUp.increment();
+            totalWaitMillis.add(millis);
+            maxWaitMillis.accumulate(millis);
+        }
+
+        private void processed(long millis) {
+            processed.increment();
+            totalProcessingMillis.add(millis);
+            maxProcessingMillis.accumulate(millis);
+        }
+
+        private Map<String, Object> statistics() {
+            long pickedUpCount = pickedUp.sum();
+            long processedCount = processed.sum();
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("Updates", processedCount);
+            statistics.put("Average wait (ms)", pickedUpCount == 0 ? 0 : totalWaitMillis.sum() / pickedUpCount);
+            statistics.put("Max wait (ms)", maxWaitMillis.get());
+            statistics.put("Average processing (ms)", processedCount == 0 ? 0 : totalProcessingMillis.sum() / processedCount);
+            statistics.put("Max processing (ms)", maxProcessingMillis.get());
+            return statistics;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.thoughtworks.go.config.materials.PluggableSCMMaterial;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
 import com.thoughtworks.go.config.materials.git.GitMaterial;
 import com.thoughtworks.go.config.materials.svn.SvnMaterial;
+import com.thoughtworks.go.config.materials.svn.SvnMaterialConfig;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
 import com.thoughtworks.go.listener.ConfigChangedListener;
@@ -54,8 +55,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.thoughtworks.go.serverhealth.HealthStateType.general;
 import static com.thoughtworks.go.serverhealth.ServerHealthState.warning;
@@ -68,6 +68,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     private static final Logger LOGGER = LoggerFactory.getLogger(MaterialUpdateService.class);
 
     private final MaterialUpdateQueue updateQueue;
+    private final PriorityMaterialUpdateQueue priorityUpdateQueue;
     private final ConfigMaterialUpdateQueue configUpdateQueue;
     private final DependencyMaterialUpdateQueue dependencyMaterialUpdateQueue;
     private final MaintenanceModeService maintenanceModeService;
@@ -79,10 +80,14 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     private ServerHealthService serverHealthService;
 
     private ConcurrentMap<Material, Date> inProgress = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Material, MaterialUpdateQueueMetrics.Lane> inProgressLanes = new ConcurrentHashMap<>();
+    private final Set<Material> promotedToPriority = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<PostCommitMaterials> postCommitMaterials = new AtomicReference<>();
 
     private final PostCommitHookMaterialTypeResolver postCommitHookMaterialType;
     private final MDUPerformanceLogger mduPerformanceLogger;
     private final MaterialConfigConverter materialConfigConverter;
+    private final MaterialUpdateQueueMetrics queueMetrics;
     private final Set<MaterialSource> materialSources = new HashSet<>();
     private final Set<MaterialUpdateCompleteListener> materialUpdateCompleteListeners = new HashSet<>();
     public static final String TYPE = "post_commit_hook_material_type";
@@ -94,7 +99,8 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
                                  ServerHealthService serverHealthService, PostCommitHookMaterialTypeResolver postCommitHookMaterialType,
                                  MDUPerformanceLogger mduPerformanceLogger, MaterialConfigConverter materialConfigConverter,
                                  DependencyMaterialUpdateQueue dependencyMaterialUpdateQueue, MaintenanceModeService maintenanceModeService,
-                                 SecretParamResolver secretParamResolver, ExponentialBackoffService exponentialBackoffService) {
+                                 SecretParamResolver secretParamResolver, ExponentialBackoffService exponentialBackoffService,
+                                 PriorityMaterialUpdateQueue priorityUpdateQueue, MaterialUpdateQueueMetrics queueMetrics) {
         this.watchList = watchList;
         this.goConfigService = goConfigService;
         this.systemEnvironment = systemEnvironment;
@@ -108,6 +114,8 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         this.maintenanceModeService = maintenanceModeService;
         this.secretParamResolver = secretParamResolver;
         this.exponentialBackoffService = exponentialBackoffService;
+        this.priorityUpdateQueue = priorityUpdateQueue;
+        this.queueMetrics = queueMetrics;
         completed.addListener(this);
     }
 
@@ -152,9 +160,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
                 return;
             }
             final PostCommitHookImplementer materialTypeImplementer = materialType.getImplementer();
-            final CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
-            Set<Material> allUniquePostCommitSchedulableMaterials = materialConfigConverter.toMaterials(cruiseConfig.getAllUniquePostCommitSchedulableMaterials());
-            resolveSecretForSvnMaterials(allUniquePostCommitSchedulableMaterials);
+            Set<Material> allUniquePostCommitSchedulableMaterials = withSecretsResolvedForSvnMaterials(postCommitMaterials().all());
             final Set<Material> prunedMaterialList = materialTypeImplementer.prune(allUniquePostCommitSchedulableMaterials, attributes);
 
             if (prunedMaterialList.isEmpty()) {
@@ -163,7 +169,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
             }
 
             for (Material material : prunedMaterialList) {
-                updateMaterial(material);
+                updateNotifiedMaterial(material);
             }
 
             result.accepted("The material is now scheduled for an update. Please check relevant pipeline(s) for status.");
@@ -173,32 +179,62 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     }
 
     public boolean updateGitMaterial(String branchName, Collection<String> possibleUrls, List<String> scmNames) {
-        final CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
-        Set<Material> allUniquePostCommitSchedulableMaterials = materialConfigConverter.toMaterials(cruiseConfig.getAllUniquePostCommitSchedulableMaterials());
-
-        Predicate<Material> predicate = scmNames.isEmpty() ? new MaterialPredicate(branchName, possibleUrls) : new PluggableScmPredicate(scmNames);
-        Set<Material> allGitMaterials = allUniquePostCommitSchedulableMaterials.stream().filter(predicate).collect(Collectors.toSet());
+        PostCommitMaterials postCommitMaterials = postCommitMaterials();
+        Set<Material> allGitMaterials = scmNames.isEmpty() ? postCommitMaterials.gitMaterials(branchName, possibleUrls) : postCommitMaterials.pluggableScmMaterials(scmNames);
 
-        allGitMaterials.forEach(MaterialUpdateService.this::updateMaterial);
+        allGitMaterials.forEach(MaterialUpdateService.this::updateNotifiedMaterial);
 
         return !allGitMaterials.isEmpty();
     }
 
+    /* The config only changes by being replaced, so the materials are converted and indexed once per config. */
+    private PostCommitMaterials postCommitMaterials() {
+        final CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
+        PostCommitMaterials materials = postCommitMaterials.get();
+        if (materials == null || materials.config != cruiseConfig) {
+            materials = new PostCommitMaterials(cruiseConfig, materialConfigConverter.toMaterials(cruiseConfig.getAllUniquePostCommitSchedulableMaterials()));
+            postCommitMaterials.set(materials);
+        }
+        return materials;
+    }
+
     public boolean updateMaterial(MaterialConfig config) {
         return updateMaterial(materialConfigConverter.toMaterial(config));
     }
 
     public boolean updateMaterial(Material material) {
+        return updateMaterial(material, false);
+    }
+
+    /**
+     * Like {@link #updateMaterial(Material)}, for updates someone is waiting on, such as manual triggers and webhooks.
+     * These go through their own queue and workers, so they do not wait behind a backlog of routine polls.
+     */
+    public boolean updateMaterialOnDemand(Material material) {
+        return updateMaterial(material, true);
+    }
+
+    private boolean updateMaterial(Material material, boolean onDemand) {
         Date inProgressSince = inProgress.putIfAbsent(material, new Date());
         if (inProgressSince == null || !material.isAutoUpdate()) {
             LOGGER.debug("[Material Update] Starting update of material {}", material);
             try {
-                long trackingId = mduPerformanceLogger.materialSentToUpdateQueue(material);
-                queueFor(material).post(new MaterialUpdateMessage(material, trackingId));
-
+                post(material, laneFor(material, onDemand));
                 return true;
             } catch (RuntimeException e) {
                 inProgress.remove(material);
+                inProgressLanes.remove(material);
+                throw e;
+            }
+        } else if (onDemand && inProgressLanes.get(material) == MaterialUpdateQueueMetrics.Lane.ROUTINE && promotedToPriority.add(material)) {
+            // the routine poll could be waiting behind a backlog, so the update is queued again on the priority lane, and
+            // the material stays in progress until both updates have completed
+            LOGGER.debug("[Material Update] Moving update of material {} which is waiting for a routine poll to the priority lane", material);
+            try {
+                post(material, MaterialUpdateQueueMetrics.Lane.PRIORITY);
+                return true;
+            } catch (RuntimeException e) {
+                promotedToPriority.remove(material);
                 throw e;
             }
         } else {
@@ -215,12 +251,34 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         }
     }
 
-    private void resolveSecretForSvnMaterials(Set<Material> allUniquePostCommitSchedulableMaterials) {
-//      Secrets are resolved only for SvnMaterials, since only SvnMaterial prune requires resolved password.
+    private void post(Material material, MaterialUpdateQueueMetrics.Lane lane) {
+        long trackingId = mduPerformanceLogger.materialSentToUpdateQueue(material);
+        queueFor(lane).post(new MaterialUpdateMessage(material, trackingId));
+        queueMetrics.queued(lane);
+        inProgressLanes.put(material, lane);
+    }
+
+    private void updateNotifiedMaterial(Material material) {
+        for (MaterialSource materialSource : materialSources) {
+            materialSource.onMaterialNotified(material);
+        }
+        updateMaterialOnDemand(material);
+    }
 
-        allUniquePostCommitSchedulableMaterials.stream()
-                .filter(material -> material instanceof SvnMaterial)
-                .forEach(secretParamResolver::resolve);
+    private Set<Material> withSecretsResolvedForSvnMaterials(Set<Material> allUniquePostCommitSchedulableMaterials) {
+//      Secrets are resolved only for SvnMaterials, since only SvnMaterial prune requires resolved password.
+//      The materials are shared by every request against the same config, so secrets are resolved on copies of them.
+        Set<Material> materials = new HashSet<>();
+        for (Material material : allUniquePostCommitSchedulableMaterials) {
+            if (material instanceof SvnMaterial) {
+                SvnMaterial copy = new SvnMaterial((SvnMaterialConfig) material.config());
+                secretParamResolver.resolve(copy);
+                materials.add(copy);
+            } else {
+                materials.add(material);
+            }
+        }
+        return materials;
     }
 
     public void registerMaterialSources(MaterialSource materialSource) {
@@ -229,28 +287,37 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
 
     @Override
     public void onMessage(MaterialUpdateCompletedMessage message) {
+        // the first of the two updates of a material moved to the priority lane to complete leaves it in progress
+        boolean otherUpdateStillQueued = promotedToPriority.remove(message.getMaterial());
         if (message instanceof MaterialUpdateSkippedMessage) {
-            inProgress.remove(message.getMaterial());
+            if (!otherUpdateStillQueued) {
+                removeFromInProgress(message.getMaterial());
+            }
             return;
         }
 
         try {
             LOGGER.debug("[Material Update] Material update completed for material {}", message.getMaterial());
 
-            Date addedOn = inProgress.remove(message.getMaterial());
+            Date addedOn = otherUpdateStillQueued ? inProgress.get(message.getMaterial()) : removeFromInProgress(message.getMaterial());
             serverHealthService.removeByScope(HealthStateScope.forMaterialUpdate(message.getMaterial()));
             if (addedOn == null) {
                 LOGGER.warn("[Material Update] Material {} was not removed from those inProgress. This might result in it's pipelines not getting scheduled. in-progress: {}", message.getMaterial(), inProgress);
             }
 
             for (MaterialUpdateCompleteListener listener : materialUpdateCompleteListeners) {
-                listener.onMaterialUpdate(message.getMaterial());
+                listener.onMaterialUpdate(message);
             }
         } finally {
             mduPerformanceLogger.completionMessageForMaterialReceived(message.trackingId(), message.getMaterial());
         }
     }
 
+    private Date removeFromInProgress(Material material) {
+        inProgressLanes.remove(material);
+        return inProgress.remove(material);
+    }
+
     @Override
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         Set<HealthStateScope> materialScopes = toHealthStateScopes(newCruiseConfig.getAllUniqueMaterials());
@@ -288,12 +355,24 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         return TimeUnit.MINUTES.toMillis(systemEnvironment.get(SystemEnvironment.MATERIAL_UPDATE_INACTIVE_TIMEOUT_IN_MINUTES));
     }
 
-    private GoMessageQueue<MaterialUpdateMessage> queueFor(Material material) {
+    private MaterialUpdateQueueMetrics.Lane laneFor(Material material, boolean onDemand) {
         if (isConfigMaterial(material)) {
-            return configUpdateQueue;
+            return MaterialUpdateQueueMetrics.Lane.CONFIG_REPOSITORY;
+        }
+        if (material instanceof DependencyMaterial) {
+            return MaterialUpdateQueueMetrics.Lane.DEPENDENCY;
         }
 
-        return (material instanceof DependencyMaterial) ? dependencyMaterialUpdateQueue : updateQueue;
+        return onDemand ? MaterialUpdateQueueMetrics.Lane.PRIORITY : MaterialUpdateQueueMetrics.Lane.ROUTINE;
+    }
+
+    private GoMessageQueue<MaterialUpdateMessage> queueFor(MaterialUpdateQueueMetrics.Lane lane) {
+        return switch (lane) {
+            case PRIORITY -> priorityUpdateQueue;
+            case CONFIG_REPOSITORY -> configUpdateQueue;
+            case DEPENDENCY -> dependencyMaterialUpdateQueue;
+            case ROUTINE -> updateQueue;
+        };
     }
 
     ProcessManager getProcessManager() {
@@ -312,34 +391,50 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         this.materialUpdateCompleteListeners.add(materialUpdateCompleteListener);
     }
 
-    private static class MaterialPredicate implements Predicate<Material> {
-        private final String branchName;
-        private final Set<String> possibleUrls;
-
-        public MaterialPredicate(String branchName, Collection<String> possibleUrls) {
-            this.branchName = branchName;
-            this.possibleUrls = new HashSet<>(possibleUrls);
+    /* Understands the post-commit schedulable materials of one config, indexed by what notifications identify them with. */
+    private static class PostCommitMaterials {
+        private final CruiseConfig config;
+        private final Set<Material> all;
+        private final Map<String, List<Material>> gitMaterialsByUrlAndBranch = new HashMap<>();
+        private final Map<String, List<Material>> pluggableScmMaterialsByName = new HashMap<>();
+
+        PostCommitMaterials(CruiseConfig config, Set<Material> materials) {
+            this.config = config;
+            this.all = Collections.unmodifiableSet(materials);
+            for (Material material : materials) {
+                if (material instanceof GitMaterial) {
+                    GitMaterial gitMaterial = (GitMaterial) material;
+                    String key = urlAndBranch(gitMaterial.getUrlArgument().withoutCredentials(), gitMaterial.getBranch());
+                    gitMaterialsByUrlAndBranch.computeIfAbsent(key, k -> new ArrayList<>()).add(material);
+                } else if (material instanceof PluggableSCMMaterial) {
+                    String name = ((PluggableSCMMaterial) material).getScmConfig().getName();
+                    pluggableScmMaterialsByName.computeIfAbsent(name, k -> new ArrayList<>()).add(material);
+                }
+            }
         }
 
-        @Override
-        public boolean test(Material material) {
-            return material instanceof GitMaterial &&
-                    ((GitMaterial) material).getBranch().equals(branchName) &&
-                    possibleUrls.contains(((GitMaterial) material).getUrlArgument().withoutCredentials());
+        Set<Material> all() {
+            return all;
         }
-    }
 
-    private static class PluggableScmPredicate implements Predicate<Material> {
-        private final List<String> scmNames;
+        Set<Material> gitMaterials(String branchName, Collection<String> possibleUrls) {
+            Set<Material> materials = new LinkedHashSet<>();
+            for (String url : possibleUrls) {
+                materials.addAll(gitMaterialsByUrlAndBranch.getOrDefault(urlAndBranch(url, branchName), Collections.emptyList()));
+            }
+            return materials;
+        }
 
-        public PluggableScmPredicate(List<String> scmNames) {
-            this.scmNames = scmNames;
+        Set<Material> pluggableScmMaterials(List<String> scmNames) {
+            Set<Material> materials = new LinkedHashSet<>();
+            for (String scmName : scmNames) {
+                materials.addAll(pluggableScmMaterialsByName.getOrDefault(scmName, Collections.emptyList()));
+            }
+            return materials;
         }
 
-        @Override
-        public boolean test(Material material) {
-            return material instanceof PluggableSCMMaterial &&
-                    scmNames.contains(((PluggableSCMMaterial) material).getScmConfig().getName());
+        private static String urlAndBranch(String url, String branch) {
+            return url + "\n" + branch;
         }
     }
 }
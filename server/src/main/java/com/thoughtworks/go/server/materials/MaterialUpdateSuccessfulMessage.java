@@ -21,7 +21,18 @@ import com.thoughtworks.go.domain.materials.Material;
  * @understands when a material has been updated successfully
  */
 public class MaterialUpdateSuccessfulMessage extends MaterialUpdateCompletedMessage {
+    private final boolean foundNewModifications;
+
     public MaterialUpdateSuccessfulMessage(Material material, long trackingId) {
+        this(material, trackingId, false);
+    }
+
+    public MaterialUpdateSuccessfulMessage(Material material, long trackingId, boolean foundNewModifications) {
         super(material, trackingId);
+        this.foundNewModifications = foundNewModifications;
+    }
+
+    public boolean foundNewModifications() {
+        return foundNewModifications;
     }
 }
@@ -21,8 +21,9 @@ import com.thoughtworks.go.domain.MaterialInstance;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.Modifications;
 
+/* Both return whether any new modifications were found and saved. */
 interface MaterialUpdater {
-    void insertLatestOrNewModifications(Material material, MaterialInstance materialInstance, File folder, Modifications list);
+    boolean insertLatestOrNewModifications(Material material, MaterialInstance materialInstance, File folder, Modifications list);
 
-    void addNewMaterialWithModifications(Material material, File folder);
+    boolean addNewMaterialWithModifications(Material material, File folder);
 }
@@ -34,12 +34,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Date;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.*;
 
 /**
  * Provides a list of unique SCMMaterials to be updated which will be consumed by MaterialUpdateService
@@ -50,10 +45,9 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     private static final Logger LOGGER = LoggerFactory.getLogger(SCMMaterialSource.class);
 
     private final GoConfigService goConfigService;
-    private ConcurrentMap<Material, Long> materialLastUpdateTimeMap = new ConcurrentHashMap<>();
+    private final MaterialPollSchedule pollSchedule;
     private final MaterialConfigConverter materialConfigConverter;
     private final MaterialUpdateService materialUpdateService;
-    private final long materialUpdateInterval;
     private Set<Material> schedulableMaterials;
 
     @Autowired
@@ -62,7 +56,7 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
         this.goConfigService = goConfigService;
         this.materialConfigConverter = materialConfigConverter;
         this.materialUpdateService = materialUpdateService;
-        this.materialUpdateInterval = systemEnvironment.getMaterialUpdateIdleInterval();
+        this.pollSchedule = new MaterialPollSchedule(systemEnvironment.getMaterialUpdateIdleInterval(), systemEnvironment.getMaterialUpdateMaxIdleInterval());
     }
 
     public void initialize() {
@@ -85,12 +79,32 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     }
 
     @Override
-    public void onMaterialUpdate(Material material) {
+    public void onMaterialUpdate(MaterialUpdateCompletedMessage message) {
+        Material material = message.getMaterial();
         if (!(material instanceof DependencyMaterial)) {
-            updateLastUpdateTimeForScmMaterial(material);
+            boolean foundNewModifications = message instanceof MaterialUpdateSuccessfulMessage && ((MaterialUpdateSuccessfulMessage) message).foundNewModifications();
+            pollSchedule.polled(material, foundNewModifications, DateTimeUtils.currentTimeMillis());
         }
     }
 
+    @Override
+    public void onMaterialNotified(Material material) {
+        if (!(material instanceof DependencyMaterial)) {
+            pollSchedule.notified(material, DateTimeUtils.currentTimeMillis());
+        }
+    }
+
+    /* The time each schedulable material is next due to be polled, null when it has not been polled yet. */
+    public Map<Material, Date> nextPollTimes() {
+        updateSchedulableMaterials(false);
+        Map<Material, Date> nextPollTimes = new HashMap<>();
+        for (Material material : schedulableMaterials) {
+            Long nextPollAt = pollSchedule.nextPollAt(material);
+            nextPollTimes.put(material, nextPollAt == null ? null : new Date(nextPollAt));
+        }
+        return nextPollTimes;
+    }
+
     @Override
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         updateSchedulableMaterials(true);
@@ -123,24 +137,17 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     }
 
     boolean hasUpdateIntervalElapsedForScmMaterial(Material material) {
-        Long lastMaterialUpdateTime = materialLastUpdateTimeMap.get(material);
-        if (lastMaterialUpdateTime != null) {
-            boolean shouldUpdateMaterial = (DateTimeUtils.currentTimeMillis() - lastMaterialUpdateTime) >= materialUpdateInterval;
-            if (LOGGER.isDebugEnabled() && !shouldUpdateMaterial) {
-                LOGGER.debug("[Material Update] Skipping update of material {} which has been last updated at {}", material, new Date(lastMaterialUpdateTime));
-            }
-            return shouldUpdateMaterial;
+        boolean shouldUpdateMaterial = pollSchedule.isDue(material, DateTimeUtils.currentTimeMillis());
+        if (LOGGER.isDebugEnabled() && !shouldUpdateMaterial) {
+            LOGGER.debug("[Material Update] Skipping update of material {} which is next due for an update at {}", material, new Date(pollSchedule.nextPollAt(material)));
         }
-        return true;
-    }
-
-    private void updateLastUpdateTimeForScmMaterial(Material material) {
-        materialLastUpdateTimeMap.put(material, DateTimeUtils.currentTimeMillis());
+        return shouldUpdateMaterial;
     }
 
     private void updateSchedulableMaterials(boolean forceLoad) {
         if (forceLoad || schedulableMaterials == null) {
             schedulableMaterials = materialConfigConverter.toMaterials(goConfigService.getSchedulableSCMMaterials());
+            pollSchedule.retainAll(schedulableMaterials);
         }
     }
 
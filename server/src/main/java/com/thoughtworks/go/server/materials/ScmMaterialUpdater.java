@@ -50,23 +50,24 @@ class ScmMaterialUpdater implements MaterialUpdater {
     }
 
     @Override
-    public void insertLatestOrNewModifications(Material material, MaterialInstance materialInstance, File folder, Modifications list) {
+    public boolean insertLatestOrNewModifications(Material material, MaterialInstance materialInstance, File folder, Modifications list) {
         List<Modification> newChanges = list.isEmpty() ?
                 materialChecker.findLatestModification(folder, material, subprocessExecutionContext) :
                 materialService.modificationsSince(material, folder, list.latestRevision(material), subprocessExecutionContext);
         if (newChanges.isEmpty()) {
             LOGGER.debug("[Material Update] Did not find any new modifications for material '{}' with flyweight '{}' using working directory '{}'", material, material.getFingerprint(), folder.getAbsolutePath());
-        } else {
-            LOGGER.info("[Material Update] Found '{}' modifications for material '{}' with flyweight '{}' using working directory '{}'", newChanges.size(), material, material.getFingerprint(), folder.getAbsolutePath());
-
-            materialRepository.saveModifications(materialInstance, newChanges);
+            return false;
         }
+        LOGGER.info("[Material Update] Found '{}' modifications for material '{}' with flyweight '{}' using working directory '{}'", newChanges.size(), material, material.getFingerprint(), folder.getAbsolutePath());
+
+        materialRepository.saveModifications(materialInstance, newChanges);
+        return true;
     }
 
     @Override
-    public void addNewMaterialWithModifications(Material material, File folder) {
+    public boolean addNewMaterialWithModifications(Material material, File folder) {
         MaterialRevisions materialRevisions = materialRepository.findLatestModification(material);
         Modifications list = materialRevisions.getModifications(material);
-        insertLatestOrNewModifications(material, materialRepository.findOrCreateFrom(material), folder, list);
+        return insertLatestOrNewModifications(material, materialRepository.findOrCreateFrom(material), folder, list);
     }
 }
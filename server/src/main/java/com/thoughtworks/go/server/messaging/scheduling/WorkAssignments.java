@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.messaging.scheduling;
 
+import com.thoughtworks.go.server.util.KeyedLocks;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -29,6 +30,7 @@ import org.springframework.stereotype.Service;
 
 @Service
 public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("WorkAssignments");
     private GoMessageChannel<IdleAgentMessage> idleAgentsTopic;
     private ConcurrentMap<AgentIdentifier, Work> assignments;
     private static final NoWork NO_WORK = new NoWork();
@@ -43,7 +45,7 @@ public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
 
     public Work getWork(AgentRuntimeInfo runtimeInfo) {
         AgentIdentifier agent = runtimeInfo.getIdentifier();
-        synchronized (agentMutex(agent)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(agentMutex(agent))) {
             Work work = assignments.get(agent);
             if (work == null) {
                 assignments.put(agent, NO_WORK);
@@ -60,7 +62,7 @@ public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
     }
 
     private String agentMutex(AgentIdentifier agent) {
-        return agent.getUuid().intern();
+        return agent.getUuid();
     }
 
     @Override
@@ -68,11 +70,11 @@ public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
         AgentIdentifier agentIdentifier = message.getAgent();
         Work work = message.getWork();
         if (work instanceof NoWork) {
-            synchronized (agentMutex(agentIdentifier)) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(agentMutex(agentIdentifier))) {
                 assignments.remove(agentIdentifier);
             }
         } else {
-            synchronized (agentMutex(agentIdentifier)) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(agentMutex(agentIdentifier))) {
                 assignments.replace(agentIdentifier, NO_WORK, work);
             }
         }
@@ -21,6 +21,7 @@ import com.thoughtworks.go.server.newsecurity.providers.PasswordBasedPluginAuthe
 import com.thoughtworks.go.server.newsecurity.providers.WebBasedPluginAuthenticationProvider;
 import com.thoughtworks.go.server.newsecurity.utils.SessionUtils;
 import com.thoughtworks.go.server.service.SecurityService;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.util.Clock;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.slf4j.Logger;
@@ -35,6 +36,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 public abstract class AbstractReAuthenticationFilter extends OncePerRequestFilter {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("AbstractReAuthenticationFilter");
     protected final Logger LOGGER = LoggerFactory.getLogger(getClass());
     protected final SecurityService securityService;
     protected final PasswordBasedPluginAuthenticationProvider passwordBasedPluginAuthenticationProvider;
@@ -80,7 +82,7 @@ public abstract class AbstractReAuthenticationFilter extends OncePerRequestFilte
     private void performReauthentication(HttpServletRequest request,
                                          HttpServletResponse response,
                                          FilterChain filterChain) throws IOException, ServletException {
-        synchronized (request.getSession(false).getId().intern()) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(request.getSession(false).getId())) {
             if (SessionUtils.isAuthenticated(request, clock, systemEnvironment)) {
                 LOGGER.debug("Continuing chain because user is authenticated.");
                 filterChain.doFilter(request, response);
@@ -25,6 +25,7 @@ import com.thoughtworks.go.server.newsecurity.utils.SessionUtils;
 import com.thoughtworks.go.server.service.AuthorizationExtensionCacheService;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.PluginRoleService;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.util.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +43,7 @@ import java.util.Objects;
 
 @Component
 public class InvalidateAuthenticationOnSecurityConfigChangeFilter extends OncePerRequestFilter implements ConfigChangedListener, PluginRoleChangeListener {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("InvalidateAuthenticationOnSecurityConfigChangeFilter");
     public static final String SECURITY_CONFIG_LAST_CHANGE = "GOCD_SECURITY_CONFIG_LAST_CHANGED_TIME";
     private static final Logger LOGGER = LoggerFactory.getLogger(InvalidateAuthenticationOnSecurityConfigChangeFilter.class);
     private SecurityConfig securityConfig;
@@ -91,7 +93,7 @@ public class InvalidateAuthenticationOnSecurityConfigChangeFilter extends OncePe
 
         final AuthenticationToken<?> authenticationToken = SessionUtils.getAuthenticationToken(request);
         Assert.notNull(authenticationToken);
-        synchronized (request.getSession(false).getId().intern()) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(request.getSession(false).getId())) {
             long localCopyOfLastChangedTime = lastChangedTime;//This is so that the volatile variable is accessed only once.
             Long previousLastChangedTime = (Long) request.getSession().getAttribute(SECURITY_CONFIG_LAST_CHANGE);
             if (previousLastChangedTime == null) {
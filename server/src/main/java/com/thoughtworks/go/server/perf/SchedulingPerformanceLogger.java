@@ -19,6 +19,10 @@ import com.thoughtworks.go.config.CaseInsensitiveString;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 @Component
 public class SchedulingPerformanceLogger {
     private PerformanceLogger performanceLogger;
@@ -82,4 +86,20 @@ public class SchedulingPerformanceLogger {
     public void scheduledPipeline(CaseInsensitiveString pipelineName, int toBeScheduledQueueSize, long schedulePipelineStartTime, long schedulePipelineEndTime) {
         performanceLogger.log("SCH-SCHEDULED {} {} {} {}", pipelineName, toBeScheduledQueueSize, schedulePipelineStartTime, schedulePipelineEndTime);
     }
+
+    /* Latencies are the time each pipeline took to be created, counted from when its batch was picked up from the to-be-scheduled queue. */
+    public void scheduledPipelines(List<Long> schedulingLatenciesInMillis) {
+        if (schedulingLatenciesInMillis.isEmpty()) {
+            return;
+        }
+        List<Long> latencies = new ArrayList<>(schedulingLatenciesInMillis);
+        Collections.sort(latencies);
+        performanceLogger.log("SCH-SCHEDULED-BATCH {} {} {} {} {}", latencies.size(),
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99), latencies.get(latencies.size() - 1));
+    }
+
+    private static long percentile(List<Long> sortedValues, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedValues.size()) - 1;
+        return sortedValues.get(Math.max(0, index));
+    }
 }
@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.persistence;
 
+import com.google.common.collect.Lists;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.materials.AbstractMaterial;
 import com.thoughtworks.go.config.materials.MaterialConfigs;
@@ -33,6 +34,7 @@ import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.ui.ModificationForPipeline;
 import com.thoughtworks.go.server.ui.PipelineId;
 import com.thoughtworks.go.server.util.CollectionUtil;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.collections4.CollectionUtils;
@@ -66,6 +68,9 @@ import static org.hibernate.criterion.Restrictions.isNull;
  */
 @Component
 public class MaterialRepository extends HibernateDaoSupport {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("MaterialRepository");
+    private static final int PIPELINES_PER_PMR_QUERY = 500;
+    private static final int PMRS_PER_MODIFICATION_QUERY = 100;
     private static final Logger LOGGER = LoggerFactory.getLogger(MaterialRepository.class.getName());
 
     private final GoCache goCache;
@@ -226,6 +231,90 @@ public class MaterialRepository extends HibernateDaoSupport {
         return materialRevisions;
     }
 
+    /* Loads what is not cached yet with a query per batch of pipelines, rather than a few queries per pipeline. */
+    public Map<Long, MaterialRevisions> findMaterialRevisionsForPipelines(Collection<Long> pipelineIds) {
+        Map<Long, List<PipelineMaterialRevision>> revisionsByPipelineId = findPipelineMaterialRevisions(pipelineIds);
+        List<PipelineMaterialRevision> allRevisions = new ArrayList<>();
+        revisionsByPipelineId.values().forEach(allRevisions::addAll);
+        cacheModificationsFor(allRevisions);
+
+        Map<Long, MaterialRevisions> materialRevisionsByPipelineId = new HashMap<>();
+        revisionsByPipelineId.forEach((pipelineId, revisions) -> {
+            MaterialRevisions materialRevisions = new MaterialRevisions();
+            for (PipelineMaterialRevision revision : revisions) {
+                List<Modification> modifications = findModificationsFor(revision);
+                materialRevisions.addRevision(new MaterialRevision(revision.getMaterial(), revision.getChanged(), modifications.toArray(new Modification[0])));
+            }
+            materialRevisionsByPipelineId.put(pipelineId, materialRevisions);
+        });
+        return materialRevisionsByPipelineId;
+    }
+
+    /* The revisions of a pipeline are saved along with it and never change, so a batch loaded without holding locks is still current. */
+    private Map<Long, List<PipelineMaterialRevision>> findPipelineMaterialRevisions(Collection<Long> pipelineIds) {
+        Map<Long, List<PipelineMaterialRevision>> revisionsByPipelineId = new HashMap<>();
+        List<Long> notCached = new ArrayList<>();
+        for (Long pipelineId : new LinkedHashSet<>(pipelineIds)) {
+            List<PipelineMaterialRevision> revisions = goCache.get(pipelinePmrsKey(pipelineId));
+            if (revisions == null) {
+                notCached.add(pipelineId);
+            } else {
+                revisionsByPipelineId.put(pipelineId, revisions);
+            }
+        }
+
+        for (List<Long> batch : Lists.partition(notCached, PIPELINES_PER_PMR_QUERY)) {
+            @SuppressWarnings("unchecked") List<PipelineMaterialRevision> pmrs = (List<PipelineMaterialRevision>) getHibernateTemplate().findByCriteria(buildPMRDetachedQuery(batch));
+            sortPersistentObjectsById(pmrs, true);
+            Map<Long, List<PipelineMaterialRevision>> loaded = new HashMap<>();
+            for (Long pipelineId : batch) {
+                loaded.put(pipelineId, new ArrayList<>());
+            }
+            for (PipelineMaterialRevision pmr : pmrs) {
+                loaded.get(pmr.getPipelineId()).add(pmr);
+            }
+            loaded.forEach((pipelineId, revisions) -> {
+                String cacheKey = pipelinePmrsKey(pipelineId);
+                try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
+                    List<PipelineMaterialRevision> cached = goCache.get(cacheKey);
+                    if (cached == null) {
+                        goCache.put(cacheKey, revisions);
+                        cached = revisions;
+                    }
+                    revisionsByPipelineId.put(pipelineId, cached);
+                }
+            });
+        }
+        return revisionsByPipelineId;
+    }
+
+    private void cacheModificationsFor(List<PipelineMaterialRevision> pmrs) {
+        List<PipelineMaterialRevision> notCached = pmrs.stream().filter(pmr -> goCache.get(pmrModificationsKey(pmr)) == null).collect(Collectors.toList());
+        for (List<PipelineMaterialRevision> batch : Lists.partition(notCached, PMRS_PER_MODIFICATION_QUERY)) {
+            List<Criterion> criterions = new ArrayList<>();
+            Map<String, List<Modification>> modificationsByCacheKey = new HashMap<>();
+            for (PipelineMaterialRevision pmr : batch) {
+                criterions.add(Restrictions.and(Restrictions.eq("materialInstance", pmr.getMaterialInstance()),
+                        Restrictions.between("id", pmr.getFromModification().getId(), pmr.getToModification().getId())));
+                modificationsByCacheKey.put(pmrModificationsKey(pmr), new ArrayList<>());
+            }
+            @SuppressWarnings("unchecked") List<Modification> modifications = (List<Modification>) getHibernateTemplate().findByCriteria(buildModificationDetachedQuery(criterions));
+            sortPersistentObjectsById(modifications, false);
+            for (Modification modification : modifications) {
+                for (String cacheKey : pmrModificationsKey(modification, batch)) {
+                    modificationsByCacheKey.get(cacheKey).add(modification);
+                }
+            }
+            modificationsByCacheKey.forEach((cacheKey, modificationsOfPmr) -> {
+                try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
+                    if (goCache.get(cacheKey) == null) {
+                        goCache.put(cacheKey, modificationsOfPmr);
+                    }
+                }
+            });
+        }
+    }
+
     public void cacheMaterialRevisionsForPipelines(Set<Long> pipelineIds) {
         List<Long> ids = new ArrayList<>(pipelineIds);
 
@@ -256,7 +345,7 @@ public class MaterialRepository extends HibernateDaoSupport {
 
     public List<PipelineMaterialRevision> findPipelineMaterialRevisions(long pipelineId) {
         String cacheKey = pipelinePmrsKey(pipelineId);
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             List<PipelineMaterialRevision> results = goCache.get(cacheKey);
             if (results != null) {
                 return results;
@@ -356,7 +445,7 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     private String pipelinePmrsKey(long pipelineId) {
-        return (MaterialRepository.class.getName() + "_pipelinePMRs_" + pipelineId).intern();
+        return MaterialRepository.class.getName() + "_pipelinePMRs_" + pipelineId;
     }
 
     @SuppressWarnings("unchecked")
@@ -368,7 +457,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String cacheKey = pmrModificationsKey(pmr);
         List<Modification> modifications = goCache.get(cacheKey);
         if (modifications == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 modifications = goCache.get(cacheKey);
                 if (modifications == null) {
                     //noinspection unchecked
@@ -383,8 +472,7 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     private String pmrModificationsKey(PipelineMaterialRevision pmr) {
-        // we intern() it because we might synchronize on the returned String
-        return (MaterialRepository.class.getName() + "_pmrModifications_" + pmr.getId()).intern();
+        return MaterialRepository.class.getName() + "_pmrModifications_" + pmr.getId();
     }
 
     private List<String> pmrModificationsKey(Modification modification, List<PipelineMaterialRevision> pmrs) {
@@ -404,18 +492,15 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     String latestMaterialModificationsKey(MaterialInstance materialInstance) {
-        // we intern() it because we might synchronize on the returned String
-        return (MaterialRepository.class.getName() + "_latestMaterialModifications_" + materialInstance.getId()).intern();
+        return MaterialRepository.class.getName() + "_latestMaterialModifications_" + materialInstance.getId();
     }
 
     String materialModificationCountKey(MaterialInstance materialInstance) {
-        // we intern() it because we might synchronize on the returned String
-        return (MaterialRepository.class.getName() + "_materialModificationCount_" + materialInstance.getId()).intern();
+        return MaterialRepository.class.getName() + "_materialModificationCount_" + materialInstance.getId();
     }
 
     String materialModificationsWithPaginationKey(MaterialInstance materialInstance) {
-        // we intern() it because we might synchronize on the returned String
-        return (MaterialRepository.class.getName() + "_materialModificationsWithPagination_" + materialInstance.getId()).intern();
+        return MaterialRepository.class.getName() + "_materialModificationsWithPagination_" + materialInstance.getId();
     }
 
     String materialModificationsWithPaginationSubKey(Pagination pagination) {
@@ -424,7 +509,7 @@ public class MaterialRepository extends HibernateDaoSupport {
 
     public void saveOrUpdate(MaterialInstance materialInstance) {
         String cacheKey = materialKey(materialInstance.getFingerprint());
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             getHibernateTemplate().saveOrUpdate(materialInstance);
             goCache.remove(cacheKey);
             goCache.put(cacheKey, materialInstance);
@@ -459,7 +544,7 @@ public class MaterialRepository extends HibernateDaoSupport {
 
     public MaterialInstance findOrCreateFrom(Material material) {
         String cacheKey = materialKey(material);
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             MaterialInstance materialInstance = findMaterialInstance(material);
             if (materialInstance == null) {
                 LOGGER.debug("Material instance for material '{}' not found in the database, creating a new instance now.", material);
@@ -475,15 +560,14 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     private String materialKey(String fingerprint) {
-        // we intern() it because we synchronize on the returned String
-        return (MaterialRepository.class.getName() + "_materialInstance_" + fingerprint).intern();
+        return MaterialRepository.class.getName() + "_materialInstance_" + fingerprint;
     }
 
     public MaterialInstance findMaterialInstance(Material material) {
         String cacheKey = materialKey(material);
         MaterialInstance materialInstance = goCache.get(cacheKey);
         if (materialInstance == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 materialInstance = goCache.get(cacheKey);
                 if (materialInstance == null) {
                     DetachedCriteria hibernateCriteria = DetachedCriteria.forClass(material.getInstanceType());
@@ -498,7 +582,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String cacheKey = materialKey(materialConfig.getFingerprint());
         MaterialInstance materialInstance = goCache.get(cacheKey);
         if (materialInstance == null) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 materialInstance = goCache.get(cacheKey);
                 if (materialInstance == null) {
                     DetachedCriteria hibernateCriteria = DetachedCriteria.forClass(materialConfigConverter.getInstanceType(materialConfig));
@@ -603,7 +687,7 @@ public class MaterialRepository extends HibernateDaoSupport {
             @Override
             public void afterCommit() {
                 String key = cacheKeyForLatestPmrForPipelineKey(pipelineMaterialRevision.getMaterialId(), pipelineName.toLowerCase());
-                synchronized (key) {
+                try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                     goCache.remove(key);
                 }
             }
@@ -644,7 +728,7 @@ public class MaterialRepository extends HibernateDaoSupport {
     public List<Modification> findModificationsSince(Material material, MaterialRevision revision) {
         MaterialInstance materialInstance = findOrCreateFrom(material);
         String cacheKey = latestMaterialModificationsKey(materialInstance);
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             long sinceModificationId = revision.getLatestModification().getId();
             Modifications modifications = cachedModifications(materialInstance);
             if (!modificationExists(sinceModificationId, modifications)) {
@@ -678,7 +762,7 @@ public class MaterialRepository extends HibernateDaoSupport {
             @Override
             public void afterCommit() {
                 String cacheKey = latestMaterialModificationsKey(materialInstance);
-                synchronized (cacheKey) {
+                try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                     goCache.remove(cacheKey);
                 }
             }
@@ -690,7 +774,7 @@ public class MaterialRepository extends HibernateDaoSupport {
             @Override
             public void afterCommit() {
                 String key = materialModificationCountKey(materialInstance);
-                synchronized (key) {
+                try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                     goCache.remove(key);
                 }
             }
@@ -702,7 +786,7 @@ public class MaterialRepository extends HibernateDaoSupport {
             @Override
             public void afterCommit() {
                 String key = materialModificationsWithPaginationKey(materialInstance);
-                synchronized (key) {
+                try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                     goCache.remove(key);
                 }
             }
@@ -737,7 +821,7 @@ public class MaterialRepository extends HibernateDaoSupport {
             return modifications.get(0);
         }
         String cacheKey = latestMaterialModificationsKey(expandedInstance);
-        synchronized (cacheKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
             Modification modification = (Modification) getHibernateTemplate().execute(session -> {
                 Query query = session.createQuery("FROM Modification WHERE materialId = ? ORDER BY id DESC");
                 query.setMaxResults(1);
@@ -822,7 +906,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String key = cacheKeyForModificationWithRevision(materialId, revision);
         modification = goCache.get(key);
         if (modification == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 modification = goCache.get(key);
                 if (modification == null) {
                     Query query = session.createQuery("FROM Modification WHERE materialId = ? and revision = ? ORDER BY id DESC");
@@ -918,7 +1002,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String key = cacheKeyForModificationsForStageLocator(stageIdentifier);
         List<Modification> modifications = goCache.get(key);
         if (modifications == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 modifications = goCache.get(key);
                 if (modifications == null) {
                     //noinspection unchecked
@@ -940,7 +1024,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String key = materialModificationCountKey(materialInstance);
         Long totalCount = goCache.get(key);
         if (totalCount == null || totalCount == 0) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 totalCount = goCache.get(key);
                 if (totalCount == null || totalCount == 0) {
                     totalCount = (Long) getHibernateTemplate().execute(session -> {
@@ -960,7 +1044,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String subKey = materialModificationsWithPaginationSubKey(pagination);
         Modifications modifications = (Modifications) goCache.get(key, subKey);
         if (modifications == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 modifications = (Modifications) goCache.get(key, subKey);
                 if (modifications == null) {
                     @SuppressWarnings("unchecked") List<Modification> modificationsList = getHibernateTemplate().execute(session -> {
@@ -985,7 +1069,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String key = cacheKeyForLatestPmrForPipelineKey(materialId, pipelineName.toLower());
         Long modificationId = goCache.get(key);
         if (modificationId == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 modificationId = goCache.get(key);
                 if (modificationId == null) {
                     modificationId = (Long) getHibernateTemplate().execute(session -> {
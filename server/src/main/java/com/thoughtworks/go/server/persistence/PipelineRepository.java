@@ -21,6 +21,7 @@ import com.thoughtworks.go.server.database.Database;
 import com.thoughtworks.go.server.database.QueryExtensions;
 import com.thoughtworks.go.server.domain.PipelineTimeline;
 import com.thoughtworks.go.server.domain.user.PipelineSelections;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.HibernateException;
 import org.hibernate.SQLQuery;
@@ -41,6 +42,7 @@ import java.util.*;
  */
 @Component
 public class PipelineRepository extends HibernateDaoSupport {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("PipelineRepository");
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineRepository.class);
     private final QueryExtensions queryExtensions;
     private GoCache goCache;
@@ -235,7 +237,7 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
             return goCache.get(key);
         }
 
-        synchronized (key) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
             if (goCache.isKeyInCache(key)) {
                 return goCache.get(key);
             }
@@ -266,7 +268,7 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
         if (goCache.isKeyInCache(key)) {
             return goCache.get(key);
         }
-        synchronized (key) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
             if (goCache.isKeyInCache(key)) {
                 return goCache.get(key);
             }
@@ -284,23 +286,23 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
 
     private void removePipelineSelectionFromCacheForCookie(PipelineSelections pipelineSelections) {
         String pipelineSelectionCookieKey = pipelineSelectionForCookieKey(pipelineSelections.getId());
-        synchronized (pipelineSelectionCookieKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(pipelineSelectionCookieKey)) {
             goCache.remove(pipelineSelectionCookieKey);
         }
     }
 
     private void removePipelineSelectionFromCacheForUserId(PipelineSelections pipelineSelections) {
         String pipelineSelectionUserIdKey = pipelineSelectionForUserIdKey(pipelineSelections.userId());
-        synchronized (pipelineSelectionUserIdKey) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(pipelineSelectionUserIdKey)) {
             goCache.remove(pipelineSelectionUserIdKey);
         }
     }
 
     String pipelineSelectionForUserIdKey(Long userId) {
-        return (PipelineRepository.class.getName() + "_userIdPipelineSelection_" + userId).intern();
+        return PipelineRepository.class.getName() + "_userIdPipelineSelection_" + userId;
     }
 
     String pipelineSelectionForCookieKey(long id) {
-        return (PipelineRepository.class.getName() + "_cookiePipelineSelection_" + id).intern();
+        return PipelineRepository.class.getName() + "_cookiePipelineSelection_" + id;
     }
 }
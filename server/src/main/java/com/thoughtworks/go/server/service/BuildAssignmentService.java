@@ -82,6 +82,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
     private SecretParamResolver secretParamResolver;
     private JobStatusTopic jobStatusTopic;
     private ConsoleService consoleService;
+    private JobStatusUpdateQueue jobStatusUpdateQueue;
 
     @Autowired
     public BuildAssignmentService(GoConfigService goConfigService, JobInstanceService jobInstanceService,
@@ -91,7 +92,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
                                   BuilderFactory builderFactory,
                                   MaintenanceModeService maintenanceModeService, ElasticAgentPluginService elasticAgentPluginService,
                                   SystemEnvironment systemEnvironment, SecretParamResolver secretParamResolver, JobStatusTopic jobStatusTopic,
-                                  ConsoleService consoleService) {
+                                  ConsoleService consoleService, JobStatusUpdateQueue jobStatusUpdateQueue) {
         this.goConfigService = goConfigService;
         this.jobInstanceService = jobInstanceService;
         this.scheduleService = scheduleService;
@@ -107,6 +108,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
         this.secretParamResolver = secretParamResolver;
         this.jobStatusTopic = jobStatusTopic;
         this.consoleService = consoleService;
+        this.jobStatusUpdateQueue = jobStatusUpdateQueue;
     }
 
     public void initialize() {
@@ -180,6 +182,8 @@ public class BuildAssignmentService implements ConfigChangedListener {
                 return new DeniedAgentWork(agent.getUuid());
             }
             //check if agent already has assigned build, if so, reschedule it
+            //the job it just reported completed is not abandoned, so its status has to be written first
+            jobStatusUpdateQueue.awaitUpdatesFrom(agent.getUuid());
             scheduleService.rescheduleAbandonedBuildIfNecessary(agent.getAgentIdentifier());
             final JobPlan job = findMatchingJob(agent);
             if (job != null) {
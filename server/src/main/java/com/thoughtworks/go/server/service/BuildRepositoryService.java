@@ -20,6 +20,7 @@ import com.thoughtworks.go.domain.JobInstance;
 import com.thoughtworks.go.domain.JobResult;
 import com.thoughtworks.go.domain.JobState;
 import com.thoughtworks.go.remote.work.InvalidAgentException;
+import com.thoughtworks.go.server.messaging.JobStatusMessage;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,19 +30,23 @@ import org.springframework.stereotype.Service;
 @Service
 public class BuildRepositoryService {
     private ScheduleService scheduleService;
+    private JobStatusUpdateQueue jobStatusUpdateQueue;
     public JobInstanceService jobInstanceService;
     private static final Logger LOGGER = LoggerFactory.getLogger(BuildRepositoryService.class);
 
     @Autowired
     public BuildRepositoryService(JobInstanceService jobInstanceService,
-                                  ScheduleService scheduleService) {
+                                  ScheduleService scheduleService,
+                                  JobStatusUpdateQueue jobStatusUpdateQueue) {
         this.jobInstanceService = jobInstanceService;
         this.scheduleService = scheduleService;
+        this.jobStatusUpdateQueue = jobStatusUpdateQueue;
     }
 
     public void completing(JobIdentifier jobIdentifier, JobResult result, String agentUuid) {
         checkAgentUUID(jobIdentifier, agentUuid, result.toString());
         LOGGER.debug("Changing result of job instance with identifier {} to {} from agent[{}]", jobIdentifier, result, agentUuid);
+        jobStatusUpdateQueue.awaitUpdatesFrom(agentUuid);
         scheduleService.jobCompleting(jobIdentifier, result, agentUuid);
     }
 
@@ -51,6 +56,21 @@ public class BuildRepositoryService {
         scheduleService.updateJobStatus(jobIdentifier, jobState);
     }
 
+    /* Returns once the status has been written, along with the other updates of the stage pending at the time, and a
+     * JobStatusMessage posted. Throws if it could not be written. */
+    public void writeStatusUpdateFromAgent(JobIdentifier jobIdentifier, JobState jobState, String agentUuid) throws Exception {
+        checkAgentUUID(jobIdentifier, agentUuid, jobState.toString());
+        LOGGER.debug("Changing status of job instance with identifier {} to {} from agent[{}] along with other pending updates", jobIdentifier, jobState, agentUuid);
+        jobStatusUpdateQueue.write(new JobStatusMessage(jobIdentifier, jobState, agentUuid));
+    }
+
+    /* Returns once the agent has been checked. The status is written, and a JobStatusMessage posted, in the background. */
+    public void queueStatusUpdateFromAgent(JobIdentifier jobIdentifier, JobState jobState, String agentUuid) {
+        checkAgentUUID(jobIdentifier, agentUuid, jobState.toString());
+        LOGGER.debug("Queueing status change of job instance with identifier {} to {} from agent[{}]", jobIdentifier, jobState, agentUuid);
+        jobStatusUpdateQueue.add(new JobStatusMessage(jobIdentifier, jobState, agentUuid));
+    }
+
     private void checkAgentUUID(JobIdentifier jobIdentifier, String agentUuid, String state) {
         JobInstance job = jobInstanceService.buildByIdWithTransitions(jobIdentifier.getBuildId());
         if (!StringUtils.equals(job.getAgentUuid(), agentUuid)) {
@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.service;
 
+import com.thoughtworks.go.config.security.users.Users;
 import com.thoughtworks.go.domain.activity.ProjectStatus;
 import com.thoughtworks.go.domain.cctray.CcTrayCache;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -23,15 +24,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /* Understands how to serve a request for the CcTray XML for the current user. */
 @Service
 public class CcTrayService {
+    /* Bounds the memory held by the rendered feeds remembered for a version, which are evicted least recently used first. */
+    private static final int MAX_RENDERED_CHARS_PER_VERSION = 8 * 1024 * 1024;
+
     private CcTrayCache ccTrayCache;
     private GoConfigService goConfigService;
+    /* Differentiates etags across server restarts, since the cache version starts over every time. */
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicReference<RenderedFeeds> renderedFeeds = new AtomicReference<>(new RenderedFeeds(-1, Collections.emptyList()));
 
     @Autowired
     public CcTrayService(CcTrayCache ccTrayCache, GoConfigService goConfigService) {
@@ -39,33 +46,127 @@ public class CcTrayService {
         this.goConfigService = goConfigService;
     }
 
+    public String etagFor(String siteUrlPrefix) {
+        return etagFor(siteUrlPrefix, ccTrayCache.version());
+    }
+
     public Appendable renderCCTrayXML(String siteUrlPrefix, String userName, Appendable appendable, Consumer<String> etagConsumer) {
         boolean isSecurityEnabled = goConfigService.isSecurityEnabled();
-        List<ProjectStatus> statuses = ccTrayCache.allEntriesInOrder();
+        RenderedFeeds feeds = currentFeeds();
 
-        String hashCodes = statuses.stream().map(ProjectStatus::hashCode).map(Object::toString).collect(Collectors.joining("/"));
-        String etag = DigestUtils.sha256Hex(siteUrlPrefix + "/" + hashCodes);
-        etagConsumer.accept(etag);
+        etagConsumer.accept(etagFor(siteUrlPrefix, feeds.version));
 
         try {
-            appendable.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>");
-            appendable.append("\n");
-            appendable.append("<Projects>");
-            appendable.append("\n");
-            for (ProjectStatus status : statuses) {
-                if (!isSecurityEnabled || status.canBeViewedBy(userName)) {
-                    String xmlRepresentation = status.xmlRepresentation().replaceAll(ProjectStatus.SITE_URL_PREFIX, siteUrlPrefix);
+            appendable.append(feeds.xmlFor(siteUrlPrefix, isSecurityEnabled ? userName : null));
+        } catch (IOException e) {
+            // ignore. `StringBuilder#append` does not throw
+        }
+
+        return appendable;
+    }
+
+    private RenderedFeeds currentFeeds() {
+        // The version is read before the entries, and the cache publishes the entries before bumping the version.
+        // So the entries seen here are never older than the version they are remembered against.
+        long version = ccTrayCache.version();
+        RenderedFeeds feeds = renderedFeeds.get();
+        if (feeds.version != version) {
+            feeds = new RenderedFeeds(version, ccTrayCache.allEntriesInOrder());
+            renderedFeeds.set(feeds);
+        }
+        return feeds;
+    }
+
+    private String etagFor(String siteUrlPrefix, long version) {
+        return DigestUtils.sha256Hex(siteUrlPrefix + "/" + instanceId + "/" + version);
+    }
+
+    /* Understands the CcTray XML already rendered for one version of the CcTray cache, per distinct set of permissions. */
+    private static class RenderedFeeds {
+        private final long version;
+        private final List<ProjectStatus> statuses;
+        private final List<Users> distinctViewers = new ArrayList<>();
+        private final int[] viewersIndexOfStatus;
+        private final Map<String, String> xmlByPrefixAndPermissions = new LinkedHashMap<>(16, 0.75f, true);
+        private long rememberedChars;
+
+        private RenderedFeeds(long version, List<ProjectStatus> statuses) {
+            this.version = version;
+            this.statuses = statuses;
+            this.viewersIndexOfStatus = new int[statuses.size()];
+
+            // Statuses of all stages and jobs in a pipeline group share the same viewers instance.
+            Map<Users, Integer> indexOfViewers = new IdentityHashMap<>();
+            for (int i = 0; i < statuses.size(); i++) {
+                Users viewers = statuses.get(i).viewers();
+                Integer index = indexOfViewers.get(viewers);
+                if (index == null) {
+                    index = distinctViewers.size();
+                    distinctViewers.add(viewers);
+                    indexOfViewers.put(viewers, index);
+                }
+                viewersIndexOfStatus[i] = index;
+            }
+        }
+
+        /* A null userName means that every project is visible. */
+        String xmlFor(String siteUrlPrefix, String userName) {
+            BitSet visibleViewers = userName == null ? null : visibleViewersFor(userName);
+            String key = siteUrlPrefix + "\n" + (visibleViewers == null ? "*" : visibleViewers.toString());
+
+            synchronized (this) {
+                String xml = xmlByPrefixAndPermissions.get(key);
+                if (xml != null) {
+                    return xml;
+                }
+            }
+
+            String xml = render(siteUrlPrefix, visibleViewers);
+            remember(key, xml);
+            return xml;
+        }
+
+        private synchronized void remember(String key, String xml) {
+            if (xml.length() > MAX_RENDERED_CHARS_PER_VERSION) {
+                return;
+            }
+            String previous = xmlByPrefixAndPermissions.put(key, xml);
+            rememberedChars += xml.length() - (previous == null ? 0 : previous.length());
+
+            Iterator<String> leastRecentlyUsed = xmlByPrefixAndPermissions.values().iterator();
+            while (rememberedChars > MAX_RENDERED_CHARS_PER_VERSION) {
+                rememberedChars -= leastRecentlyUsed.next().length();
+                leastRecentlyUsed.remove();
+            }
+        }
+
+        private BitSet visibleViewersFor(String userName) {
+            BitSet visibleViewers = new BitSet(distinctViewers.size());
+            for (int i = 0; i < distinctViewers.size(); i++) {
+                if (distinctViewers.get(i).contains(userName)) {
+                    visibleViewers.set(i);
+                }
+            }
+            return visibleViewers;
+        }
+
+        private String render(String siteUrlPrefix, BitSet visibleViewers) {
+            StringBuilder xml = new StringBuilder();
+            xml.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>");
+            xml.append("\n");
+            xml.append("<Projects>");
+            xml.append("\n");
+            for (int i = 0; i < statuses.size(); i++) {
+                if (visibleViewers == null || visibleViewers.get(viewersIndexOfStatus[i])) {
+                    String xmlRepresentation = StringUtils.replace(statuses.get(i).xmlRepresentation(), ProjectStatus.SITE_URL_PREFIX, siteUrlPrefix);
                     if (!StringUtils.isBlank(xmlRepresentation)) {
-                        appendable.append("  ").append(xmlRepresentation).append("\n");
+                        xml.append("  ").append(xmlRepresentation).append("\n");
                     }
                 }
             }
 
-            appendable.append("</Projects>");
-        } catch (IOException e) {
-            // ignore. `StringBuilder#append` does not throw
+            xml.append("</Projects>");
+            return xml.toString();
         }
-
-        return appendable;
     }
 }
@@ -16,6 +16,7 @@
 
 package com.thoughtworks.go.server.service;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.GoConfigRepoConfigDataSource;
 import com.thoughtworks.go.config.materials.MaterialConfigs;
@@ -39,6 +40,12 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.plugin.domain.common.PluginConstants.CONFIG_REPO_EXTENSION;
 
@@ -48,6 +55,7 @@ import static com.thoughtworks.go.plugin.domain.common.PluginConstants.CONFIG_RE
 @Service
 public class ConfigRepositoryInitializer implements ConfigChangedListener, PluginChangeListener {
     private PluginManager pluginManager;
+    private final SystemEnvironment systemEnvironment;
     private final ConfigRepoService configRepoService;
     private final MaterialRepository materialRepository;
     private final GoConfigRepoConfigDataSource goConfigRepoConfigDataSource;
@@ -61,6 +69,7 @@ public class ConfigRepositoryInitializer implements ConfigChangedListener, Plugi
     @Autowired
     public ConfigRepositoryInitializer(PluginManager pluginManager, ConfigRepoService configRepoService, MaterialRepository materialRepository, GoConfigRepoConfigDataSource goConfigRepoConfigDataSource, GoConfigService goConfigService, SystemEnvironment systemEnvironment) {
         this.pluginManager = pluginManager;
+        this.systemEnvironment = systemEnvironment;
         this.configRepoService = configRepoService;
         this.materialRepository = materialRepository;
         this.goConfigRepoConfigDataSource = goConfigRepoConfigDataSource;
@@ -106,15 +115,49 @@ public class ConfigRepositoryInitializer implements ConfigChangedListener, Plugi
             while (!pluginsQueue.isEmpty()) {
                 String pluginId = pluginsQueue.poll();
                 LOGGER.info("[Config Repository Initializer] Start initializing the config repositories for plugin '{}' ", pluginId);
-                this.configRepoService.getConfigRepos().stream()
+                List<ConfigRepoConfig> repos = this.configRepoService.getConfigRepos().stream()
                         .filter(configRepoConfig -> configRepoConfig.getPluginId().equalsIgnoreCase(pluginId))
-                        .forEach(this::initializeConfigRepository);
+                        .collect(Collectors.toList());
+                initializeConfigRepositories(pluginId, repos);
                 LOGGER.info("[Config Repository Initializer] Done initializing the config repositories for plugin '{}' ", pluginId);
             }
         }
     }
 
-    private void initializeConfigRepository(ConfigRepoConfig repo) {
+    // Parsing through the plugin is what takes time, so the checkouts are parsed concurrently. The parsed partials are
+    // merged into the config on this thread, one at a time, since it may already hold the config locks.
+    private void initializeConfigRepositories(String pluginId, List<ConfigRepoConfig> repos) {
+        if (repos.isEmpty()) {
+            return;
+        }
+        int threads = Math.max(1, Math.min(systemEnvironment.getNumberOfConfigRepositoryInitializationThreads(), repos.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("config-repository-initializer-%d").setDaemon(true).build());
+        try {
+            CompletionService<Runnable> parses = new ExecutorCompletionService<>(executor);
+            for (ConfigRepoConfig repo : repos) {
+                parses.submit(() -> parseConfigRepository(repo));
+            }
+            long startedAt = System.currentTimeMillis();
+            int progressInterval = Math.max(1, repos.size() / 10);
+            for (int done = 1; done <= repos.size(); done++) {
+                try {
+                    parses.take().get().run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    LOGGER.error("[Config Repository Initializer] an error occurred while initializing a config repository of plugin '{}'.", pluginId, e);
+                }
+                if (done % progressInterval == 0 || done == repos.size()) {
+                    LOGGER.info("[Config Repository Initializer] Initialized {} of {} config repositories for plugin '{}' in {}ms.", done, repos.size(), pluginId, System.currentTimeMillis() - startedAt);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Runnable parseConfigRepository(ConfigRepoConfig repo) {
         MaterialConfig materialConfig = repo.getRepo();
         Material material = new Materials(new MaterialConfigs(materialConfig)).first();
         MaterialInstance materialInstance = this.materialRepository.findMaterialInstance(materialConfig);
@@ -126,14 +169,27 @@ public class ConfigRepositoryInitializer implements ConfigChangedListener, Plugi
 
             try {
                 LOGGER.debug("[Config Repository Initializer] Initializing config repository '{}'. Loading the GoCD configuration from last fetched modification '{}'.", repo.getId(), modification.getRevision());
-                goConfigRepoConfigDataSource.onCheckoutComplete(materialConfig, folder, modification);
+                Runnable publish = goConfigRepoConfigDataSource.parseCheckout(materialConfig, folder, modification);
+                return () -> {
+                    try {
+                        publish.run();
+                    } catch (Exception e) {
+                        logInitializationError(repo, e);
+                    }
+                };
             } catch (Exception e) {
-                LOGGER.error(String.format("[Config Repository Initializer] an error occurred while initializing '%s' config repository.", repo.getId()), e);
-                // Do nothing when error occurs while initializing the config repository.
-                // The config repo initialization may fail due to config repo errors (config errors, or rules violation errors)
+                logInitializationError(repo, e);
             }
         } else {
             LOGGER.debug("[Config Repository Initializer] Skipped initializing config repository '{}'. Could not find material repository under flyweight folder.", repo.getId());
         }
+        return () -> {
+        };
+    }
+
+    private void logInitializationError(ConfigRepoConfig repo, Exception e) {
+        LOGGER.error(String.format("[Config Repository Initializer] an error occurred while initializing '%s' config repository.", repo.getId()), e);
+        // Do nothing when error occurs while initializing the config repository.
+        // The config repo initialization may fail due to config repo errors (config errors, or rules violation errors)
     }
 }
@@ -16,6 +16,8 @@
 
 package com.thoughtworks.go.server.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
@@ -47,6 +49,9 @@ public class EntityHashes implements DigestMixin {
 
     private final MagicalGoConfigXmlWriter xmlSerializer;
 
+    /* Keyed by identity, and held only as long as the entity itself. */
+    private final Cache<Object, ConfigEntityDigest> configEntityDigests = CacheBuilder.newBuilder().weakKeys().build();
+
     @Autowired
     public EntityHashes(ConfigCache configCache, ConfigElementImplementationRegistry registry) {
         xmlSerializer = new MagicalGoConfigXmlWriter(configCache, registry);
@@ -68,8 +73,27 @@ public class EntityHashes implements DigestMixin {
                 collect(Collectors.joining(SEP_CHAR)));
     }
 
+    /**
+     * Computes a cryptographic digest of a config entity. The digest is remembered for the entity instance, so that
+     * entities carried over unchanged into a new config (e.g. when only a config repository changed) are not
+     * serialized again. Loaded config is replaced rather than changed in place; a {@link StructuralHash} of every field
+     * in the entity's tree is recorded along with the digest, and guards against an entity that was changed after it
+     * was digested anyway. Unlike {@link Object#hashCode()}, which many config classes restrict to a few fields, it
+     * covers whatever the XML is serialized from.
+     *
+     * @param entity a config entity
+     * @return a cryptographic hex digest ({@link String})
+     */
     public String digestDomainConfigEntity(Object entity) {
-        return digest(serializeDomainEntity(entity));
+        long structuralHash = StructuralHash.of(entity);
+        ConfigEntityDigest remembered = configEntityDigests.getIfPresent(entity);
+        if (remembered != null && remembered.structuralHash == structuralHash) {
+            return remembered.digest;
+        }
+
+        String digest = digest(serializeDomainEntity(entity));
+        configEntityDigests.put(entity, new ConfigEntityDigest(structuralHash, digest));
+        return digest;
     }
 
     public String digestDomainNonConfigEntity(Object entity) {
@@ -80,6 +104,16 @@ public class EntityHashes implements DigestMixin {
         return xmlSerializer.toXmlPartial(domainObject);
     }
 
+    private static class ConfigEntityDigest {
+        private final long structuralHash;
+        private final String digest;
+
+        private ConfigEntityDigest(long structuralHash, String digest) {
+            this.structuralHash = structuralHash;
+            this.digest = digest;
+        }
+    }
+
     private interface Serializers {
         /**
          * Custom serializer for encrypted data to ensure stable JSON output when crypto salt changes
@@ -16,8 +16,6 @@
 package com.thoughtworks.go.server.service;
 
 import com.thoughtworks.go.config.*;
-import com.thoughtworks.go.config.security.GoConfigPipelinePermissionsAuthority;
-import com.thoughtworks.go.config.security.Permissions;
 import com.thoughtworks.go.config.security.users.AllowedUsers;
 import com.thoughtworks.go.config.security.users.Everyone;
 import com.thoughtworks.go.config.security.users.Users;
@@ -35,15 +33,15 @@ import static com.thoughtworks.go.config.security.util.SecurityConfigUtils.*;
 @Service
 public class GoDashboardService {
     private final GoDashboardCache cache;
+    private final GoDashboardViewsCache viewsCache;
     private final GoDashboardCurrentStateLoader dashboardCurrentStateLoader;
     private final GoConfigService goConfigService;
-    private GoConfigPipelinePermissionsAuthority permissionsAuthority;
 
     @Autowired
-    public GoDashboardService(GoDashboardCache cache, GoDashboardCurrentStateLoader dashboardCurrentStateLoader, GoConfigPipelinePermissionsAuthority permissionsAuthority, GoConfigService goConfigService) {
+    public GoDashboardService(GoDashboardCache cache, GoDashboardViewsCache viewsCache, GoDashboardCurrentStateLoader dashboardCurrentStateLoader, GoConfigService goConfigService) {
         this.cache = cache;
+        this.viewsCache = viewsCache;
         this.dashboardCurrentStateLoader = dashboardCurrentStateLoader;
-        this.permissionsAuthority = permissionsAuthority;
         this.goConfigService = goConfigService;
     }
 
@@ -69,17 +67,7 @@ public class GoDashboardService {
     }
 
     public List<GoDashboardPipelineGroup> allPipelineGroupsForDashboard(DashboardFilter filter, Username user, final boolean allowEmpty) {
-        GoDashboardPipelines allPipelines = cache.allEntries();
-        List<GoDashboardPipelineGroup> pipelineGroups = new ArrayList<>();
-
-        goConfigService.groups().accept(group -> {
-            GoDashboardPipelineGroup dashboardPipelineGroup = dashboardPipelineGroupFor(group, filter, user, allPipelines);
-            if (forceIncludeEmptyGroup(allowEmpty, dashboardPipelineGroup, user) || dashboardPipelineGroup.hasPipelines()) {
-                pipelineGroups.add(dashboardPipelineGroup);
-            }
-        });
-
-        return pipelineGroups;
+        return viewsCache.pipelineGroupsFor(goConfigService.groups(), filter, user, allowEmpty);
     }
 
     public void updateCacheForPipeline(CaseInsensitiveString pipelineName) {
@@ -120,22 +108,6 @@ public class GoDashboardService {
         return env;
     }
 
-    private GoDashboardPipelineGroup dashboardPipelineGroupFor(PipelineConfigs pipelineGroup, DashboardFilter filter, Username user, GoDashboardPipelines allPipelines) {
-        Permissions groupPermissions = resolvePermissionsForPipelineGroup(pipelineGroup, allPipelines);
-        GoDashboardPipelineGroup goDashboardPipelineGroup = new GoDashboardPipelineGroup(pipelineGroup.getGroup(), groupPermissions, !pipelineGroup.isEmpty());
-
-        if (goDashboardPipelineGroup.hasPermissions() && goDashboardPipelineGroup.canBeViewedBy(user)) {
-            pipelineGroup.accept(pipelineConfig -> {
-                CaseInsensitiveString pipelineName = pipelineConfig.name();
-                GoDashboardPipeline pipeline = allPipelines.find(pipelineName);
-                if (pipeline != null && filter.isPipelineVisible(pipelineName)) {
-                    goDashboardPipelineGroup.addPipeline(pipeline);
-                }
-            });
-        }
-        return goDashboardPipelineGroup;
-    }
-
     private Users superAdmins() {
         final SecurityConfig security = goConfigService.security();
         final Map<String, Collection<String>> rolesToUsersMap = rolesToUsers(security);
@@ -149,31 +121,6 @@ public class GoDashboardService {
         return new AllowedUsers(superAdminUsers, superAdminPluginRoles);
     }
 
-    private Permissions resolvePermissionsForPipelineGroup(PipelineConfigs pipelineGroup, GoDashboardPipelines allPipelines) {
-        for (PipelineConfig pipelineConfig : pipelineGroup) {
-            GoDashboardPipeline goDashboardPipeline = allPipelines.find(pipelineConfig.getName());
-            if (goDashboardPipeline != null) {
-                return goDashboardPipeline.permissions();
-            }
-        }
-
-        return permissionsAuthority.permissionsForEmptyGroup(pipelineGroup);
-    }
-
-    /**
-     * Determines whether or not to include a (potentially) empty pipeline group on the dashboard. This consults the
-     * feature toggle, view permissions, and whether or the not the pipeline group has any defined pipeline regardless
-     * of permissions and personalization filters.
-     *
-     * @param allowEmpty - flag from feature toggle
-     * @param dashboardGroup - the {@link GoDashboardPipelineGroup} instance
-     * @param user - the current user
-     * @return true if it should be included, false otherwise
-     */
-    private boolean forceIncludeEmptyGroup(final boolean allowEmpty, GoDashboardPipelineGroup dashboardGroup, Username user) {
-        return allowEmpty && !dashboardGroup.hasDefinedPipelines() && dashboardGroup.canBeViewedBy(user);
-    }
-
     private void updateCache(PipelineConfigs group, PipelineConfig pipelineConfig) {
         if (group == null) {
             removePipelineFromCache(pipelineConfig.name());
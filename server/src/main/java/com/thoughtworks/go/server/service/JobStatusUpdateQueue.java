@@ -0,0 +1,252 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.thoughtworks.go.server.messaging.JobStatusMessage;
+import com.thoughtworks.go.server.messaging.JobStatusTopic;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @understands writing the job states reported by agents, a batch per stage instance at a time
+ * <p>
+ * Each stage instance always goes to the same lane, and a lane is only ever written by one thread at a time, so the
+ * updates of a stage are written in the order they were reported. The updates that pile up in a lane while it is being
+ * written are written together, taking the stage lock, and computing the result of the stage, once for all of them.
+ * Preparing and Building are {@link #add added} and written in the background. Completed is {@link #write written}
+ * while the agent waits, so that a failure reaches the agent, but still together with whatever else of the stage is
+ * pending, so that jobs of a stage completing at the same time are written as one batch.
+ * <p>
+ * When a batch fails, the updates of each of its jobs are written, and retried with a back-off, on their own. Once
+ * written, every update is posted as a {@link JobStatusMessage}.
+ */
+@Component
+public class JobStatusUpdateQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobStatusUpdateQueue.class);
+    private static final int MAX_ATTEMPTS_PER_JOB = 3;
+    private static final long RETRY_BACK_OFF_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ScheduleService scheduleService;
+    private final JobStatusTopic jobStatusTopic;
+    private final Executor executor;
+    private final long retryBackOffMillis;
+    private final Lane[] lanes;
+    private final ConcurrentMap<String, Integer> pendingUpdatesByAgent = new ConcurrentHashMap<>();
+
+    @Autowired
+    public JobStatusUpdateQueue(ScheduleService scheduleService, JobStatusTopic jobStatusTopic, SystemEnvironment systemEnvironment) {
+        this(scheduleService, jobStatusTopic, systemEnvironment.getJobStatusUpdateThreads(),
+                Executors.newFixedThreadPool(systemEnvironment.getJobStatusUpdateThreads(),
+                        new ThreadFactoryBuilder().setNameFormat("job-status-update-%d").setDaemon(true).build()),
+                RETRY_BACK_OFF_MILLIS);
+    }
+
+    JobStatusUpdateQueue(ScheduleService scheduleService, JobStatusTopic jobStatusTopic, int numberOfLanes, Executor executor, long retryBackOffMillis) {
+        this.scheduleService = scheduleService;
+        this.jobStatusTopic = jobStatusTopic;
+        this.executor = executor;
+        this.retryBackOffMillis = retryBackOffMillis;
+        this.lanes = new Lane[Math.max(numberOfLanes, 1)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    public void add(JobStatusMessage update) {
+        Lane lane = enqueue(new PendingUpdate(update));
+        try {
+            executor.execute(lane::write);
+        } catch (RejectedExecutionException e) {
+            // stopping, so nothing writes in the background any more
+            lane.write();
+        }
+    }
+
+    /* Returns once the update has been written, or throws why it could not be. */
+    public void write(JobStatusMessage update) throws Exception {
+        PendingUpdate pending = new PendingUpdate(update);
+        // The lane is written by this thread, or by the one writing it at the moment, and either way includes this update.
+        enqueue(pending).write();
+        try {
+            pending.written.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /* Writes whatever the agent reported before, so that what it reports next does not get overwritten by it. */
+    public void awaitUpdatesFrom(String agentUuid) {
+        if (pendingUpdatesByAgent.containsKey(agentUuid)) {
+            for (Lane lane : lanes) {
+                lane.write();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor instanceof ExecutorService) {
+            ExecutorService executorService = (ExecutorService) executor;
+            executorService.shutdown();
+            if (!executorService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Job status updates were still being written after {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        }
+        for (Lane lane : lanes) {
+            lane.write();
+        }
+    }
+
+    private Lane enqueue(PendingUpdate pending) {
+        pendingUpdatesByAgent.merge(pending.update.getAgentUuid(), 1, Integer::sum);
+        Lane lane = lanes[Math.floorMod(stageOf(pending.update).hashCode(), lanes.length)];
+        lane.pending.add(pending);
+        return lane;
+    }
+
+    private void write(List<PendingUpdate> updates) {
+        try {
+            Exception failure = tryWrite(updates);
+            if (failure != null) {
+                Collection<List<PendingUpdate>> updatesByJob = byJob(updates).values();
+                if (updatesByJob.size() == 1) {
+                    writeWithRetries(updates, 1, failure);
+                } else {
+                    // One job of the stage failing should not cost the other jobs their updates, so each job is written on its own.
+                    for (List<PendingUpdate> updatesOfJob : updatesByJob) {
+                        writeWithRetries(updatesOfJob, 0, failure);
+                    }
+                }
+            }
+        } finally {
+            for (PendingUpdate pending : updates) {
+                pendingUpdatesByAgent.computeIfPresent(pending.update.getAgentUuid(), (agentUuid, count) -> count == 1 ? null : count - 1);
+            }
+        }
+    }
+
+    private void writeWithRetries(List<PendingUpdate> updatesOfJob, int attemptsMade, Exception lastFailure) {
+        for (int attempt = attemptsMade + 1; attempt <= MAX_ATTEMPTS_PER_JOB; attempt++) {
+            if (attempt > 1 && !backOff(attempt - 1)) {
+                break;
+            }
+            lastFailure = tryWrite(updatesOfJob);
+            if (lastFailure == null) {
+                return;
+            }
+        }
+        LOGGER.error("Gave up updating the status of job {} to {} after {} attempts", updatesOfJob.get(0).update.getJobIdentifier(), messagesOf(updatesOfJob), MAX_ATTEMPTS_PER_JOB);
+        for (PendingUpdate pending : updatesOfJob) {
+            pending.written.completeExceptionally(lastFailure);
+        }
+    }
+
+    private boolean backOff(int failedAttempts) {
+        try {
+            Thread.sleep(retryBackOffMillis * failedAttempts);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Exception tryWrite(List<PendingUpdate> updates) {
+        List<JobStatusMessage> messages = messagesOf(updates);
+        try {
+            scheduleService.updateJobStatuses(messages);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to update the status of jobs in stage {} to {}", stageOf(messages.get(0)), messages, e);
+            return e;
+        }
+        for (PendingUpdate pending : updates) {
+            jobStatusTopic.post(pending.update);
+            pending.written.complete(null);
+        }
+        return null;
+    }
+
+    private static List<JobStatusMessage> messagesOf(List<PendingUpdate> updates) {
+        List<JobStatusMessage> messages = new ArrayList<>(updates.size());
+        for (PendingUpdate pending : updates) {
+            messages.add(pending.update);
+        }
+        return messages;
+    }
+
+    private static Map<String, List<PendingUpdate>> byJob(List<PendingUpdate> updates) {
+        Map<String, List<PendingUpdate>> updatesByJob = new LinkedHashMap<>();
+        for (PendingUpdate pending : updates) {
+            updatesByJob.computeIfAbsent(pending.update.getJobIdentifier().buildLocator(), job -> new ArrayList<>()).add(pending);
+        }
+        return updatesByJob;
+    }
+
+    private static String stageOf(JobStatusMessage update) {
+        return update.getStageIdentifier().getStageLocator();
+    }
+
+    private static class PendingUpdate {
+        private final JobStatusMessage update;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        PendingUpdate(JobStatusMessage update) {
+            this.update = update;
+        }
+    }
+
+    private class Lane {
+        private final BlockingQueue<PendingUpdate> pending = new LinkedBlockingQueue<>();
+        private final ReentrantLock writing = new ReentrantLock();
+
+        void write() {
+            List<PendingUpdate> batch = new ArrayList<>();
+            writing.lock();
+            try {
+                pending.drainTo(batch);
+                if (batch.isEmpty()) {
+                    return;
+                }
+                Map<String, List<PendingUpdate>> updatesByStage = new LinkedHashMap<>();
+                for (PendingUpdate update : batch) {
+                    updatesByStage.computeIfAbsent(stageOf(update.update), stage -> new ArrayList<>()).add(update);
+                }
+                LOGGER.debug("Writing {} job status updates for {} stages", batch.size(), updatesByStage.size());
+                updatesByStage.values().forEach(JobStatusUpdateQueue.this::write);
+            } finally {
+                writing.unlock();
+                // does nothing for the updates which were written or given up on, and keeps agents from waiting forever on the others
+                for (PendingUpdate update : batch) {
+                    update.written.completeExceptionally(new IllegalStateException("Status update " + update.update + " was not written"));
+                }
+            }
+        }
+    }
+}
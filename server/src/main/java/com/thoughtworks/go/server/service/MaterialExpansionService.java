@@ -26,6 +26,7 @@ import com.thoughtworks.go.domain.materials.svn.SvnCommand;
 import com.thoughtworks.go.domain.materials.svn.SvnExternal;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -33,6 +34,7 @@ import java.util.List;
 
 @Service
 public class MaterialExpansionService {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("MaterialExpansionService");
 
     private final CacheKeyGenerator cacheKeyGenerator;
     private GoCache goCache;
@@ -102,7 +104,7 @@ public class MaterialExpansionService {
         String cacheKey = cacheKeyForSubversionMaterialCommand(materialConfig.getFingerprint());
         Subversion svnLazyLoaded = goCache.get(cacheKey);
         if (svnLazyLoaded == null || !svnLazyLoaded.getUrl().originalArgument().equals(materialConfig.getUrl())) {
-            synchronized (cacheKey) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(cacheKey)) {
                 svnLazyLoaded = goCache.get(cacheKey);
                 if (svnLazyLoaded == null || !svnLazyLoaded.getUrl().originalArgument().equals(materialConfig.getUrl())) {
                     svnLazyLoaded = new SvnCommand(materialConfig.getFingerprint(), materialConfig.getUrl(),
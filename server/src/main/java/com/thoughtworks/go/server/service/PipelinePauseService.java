@@ -27,6 +27,7 @@ import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.newsecurity.utils.SessionUtils;
 import com.thoughtworks.go.server.service.result.DefaultLocalizedOperationResult;
 import com.thoughtworks.go.server.service.result.LocalizedOperationResult;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +43,7 @@ import static com.thoughtworks.go.serverhealth.HealthStateType.general;
 
 @Service
 public class PipelinePauseService {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("PipelinePauseService");
 
     private PipelineSqlMapDao pipelineSqlMapDao;
     private final GoConfigService goConfigService;
@@ -123,7 +125,7 @@ public class PipelinePauseService {
 
     private void pausePipeline(String pipelineName, String pauseCause, Username pauseBy) {
         String mutexPipelineName = mutexForPausePipeline(pipelineName);
-        synchronized (mutexPipelineName) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexPipelineName)) {
             String sanitizedPauseCause = pauseCause.substring(0, Math.min(255, pauseCause.length()));
             String pauseByDisplayName = pauseBy.getDisplayName();
             String sanitizedPauseBy = pauseByDisplayName.substring(0, Math.min(255, pauseByDisplayName.length()));
@@ -154,7 +156,7 @@ public class PipelinePauseService {
 
     private void unpausePipeline(String pipelineName, Username unpausedBy) {
         String mutextPipelineName = mutexForPausePipeline(pipelineName);
-        synchronized (mutextPipelineName) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutextPipelineName)) {
             pipelineSqlMapDao.unpause(pipelineName);
             LOGGER.info("[Pipeline Unpause] Pipeline [{}] is unpaused by [{}]", pipelineName, unpausedBy);
             notifyListeners(PipelinePauseChangeListener.Event.unPause(pipelineName, unpausedBy));
@@ -166,7 +168,7 @@ public class PipelinePauseService {
      * updateCounter() and pause() are trying to insert pipeline row if one doesn't exist
      */
     public static String mutexForPausePipeline(String pipelineName) {
-        return (PipelineSqlMapDao.class.getName() + "_mutexForPausePipeline_" + pipelineName).intern();
+        return PipelineSqlMapDao.class.getName() + "_mutexForPausePipeline_" + pipelineName;
     }
 
     private void notifyListeners(PipelinePauseChangeListener.Event event) {
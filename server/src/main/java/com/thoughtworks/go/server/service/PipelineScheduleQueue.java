@@ -23,6 +23,7 @@ import com.thoughtworks.go.domain.SchedulingContext;
 import com.thoughtworks.go.domain.buildcause.BuildCause;
 import com.thoughtworks.go.domain.buildcause.BuildCauseOutOfDateException;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.util.Clock;
 import org.jetbrains.annotations.TestOnly;
 import org.slf4j.Logger;
@@ -36,6 +37,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class PipelineScheduleQueue {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("PipelineScheduleQueue");
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineScheduleQueue.class);
 
     private PipelineService pipelineService;
@@ -52,7 +54,7 @@ public class PipelineScheduleQueue {
     }
 
     public BuildCause mostRecentScheduled(CaseInsensitiveString pipelineName) {
-        synchronized (mutexForPipelineName(pipelineName)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForPipelineName(pipelineName))) {
             BuildCause buildCause = mostRecentScheduled.get(pipelineName);
             if (buildCause != null) {
                 return buildCause;
@@ -69,7 +71,7 @@ public class PipelineScheduleQueue {
     }
 
     public void schedule(CaseInsensitiveString pipelineName, BuildCause buildCause) {
-        synchronized (mutexForPipelineName(pipelineName)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForPipelineName(pipelineName))) {
             BuildCause current = toBeScheduled.get(pipelineName);
             if (current == null || buildCause.trumps(current)) {
                 toBeScheduled.put(pipelineName, buildCause);
@@ -78,7 +80,7 @@ public class PipelineScheduleQueue {
     }
 
     public void cancelSchedule(CaseInsensitiveString pipelineName) {
-        synchronized (mutexForPipelineName(pipelineName)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForPipelineName(pipelineName))) {
             toBeScheduled.remove(pipelineName);
         }
     }
@@ -88,7 +90,7 @@ public class PipelineScheduleQueue {
     }
 
     public void finishSchedule(CaseInsensitiveString pipelineName, BuildCause buildCause, BuildCause newCause) {
-        synchronized (mutexForPipelineName(pipelineName)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForPipelineName(pipelineName))) {
             if (buildCause.equals(toBeScheduled.get(pipelineName))) {
                 toBeScheduled.remove(pipelineName);
             }
@@ -97,7 +99,7 @@ public class PipelineScheduleQueue {
     }
 
     public void clearPipeline(CaseInsensitiveString pipelineName) {
-        synchronized (mutexForPipelineName(pipelineName)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForPipelineName(pipelineName))) {
             toBeScheduled.remove(pipelineName);
             mostRecentScheduled.remove(pipelineName);
         }
@@ -110,7 +112,7 @@ public class PipelineScheduleQueue {
     }
 
     public boolean hasForcedBuildCause(CaseInsensitiveString pipelineName) {
-        synchronized (mutexForPipelineName(pipelineName)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForPipelineName(pipelineName))) {
             BuildCause buildCause = toBeScheduled.get(pipelineName);
             return buildCause != null && buildCause.isForced();
         }
@@ -149,7 +151,7 @@ public class PipelineScheduleQueue {
     }
 
     private String mutexForPipelineName(CaseInsensitiveString pipelineName) {
-        return String.format("%s-%s", PipelineScheduleQueue.class.getName(), pipelineName.toLower()).intern();
+        return String.format("%s-%s", PipelineScheduleQueue.class.getName(), pipelineName.toLower());
     }
 
 }
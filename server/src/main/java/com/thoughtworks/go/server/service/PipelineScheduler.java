@@ -18,9 +18,13 @@ package com.thoughtworks.go.server.service;
 import com.thoughtworks.go.config.*;
 import com.thoughtworks.go.config.remote.ConfigRepoConfig;
 import com.thoughtworks.go.domain.PiplineConfigVisitor;
+import com.thoughtworks.go.domain.materials.MaterialConfig;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.materials.MaterialUpdateCompletedMessage;
+import com.thoughtworks.go.server.materials.MaterialUpdateCompletedTopic;
+import com.thoughtworks.go.server.materials.MaterialUpdateSuccessfulMessage;
 import com.thoughtworks.go.server.messaging.GoMessageListener;
 import com.thoughtworks.go.server.perf.SchedulingPerformanceLogger;
 import com.thoughtworks.go.server.scheduling.*;
@@ -30,16 +34,15 @@ import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.Clock;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Consumer;
 
 @Service
@@ -53,7 +56,15 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
     private ScheduleCheckQueue scheduleCheckQueue;
     private ScheduleCheckCompletedTopic scheduleCheckCompletedTopic;
     private SchedulingPerformanceLogger schedulingPerformanceLogger;
+    private MaterialUpdateCompletedTopic materialUpdateCompletedTopic;
+    private SystemEnvironment systemEnvironment;
+    private Clock clock;
     private final Map<String, ScheduleCheckState> pipelines = new HashMap<>();
+    // the fields below are guarded by the lock on pipelines, just like pipelines itself
+    private final Map<String, Set<String>> pipelinesByMaterialFingerprint = new HashMap<>();
+    private final Map<String, Set<String>> materialFingerprintsByPipeline = new HashMap<>();
+    private final Set<String> pipelinesWithChanges = new LinkedHashSet<>();
+    private long lastFullCheckAt;
 
     protected PipelineScheduler() {
     }
@@ -65,7 +76,10 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
                       BuildCauseProducerService buildCauseProducerService,
                       ScheduleCheckQueue scheduleCheckQueue,
                       ScheduleCheckCompletedTopic scheduleCheckCompletedTopic,
-                      SchedulingPerformanceLogger schedulingPerformanceLogger) {
+                      SchedulingPerformanceLogger schedulingPerformanceLogger,
+                      MaterialUpdateCompletedTopic materialUpdateCompletedTopic,
+                      SystemEnvironment systemEnvironment,
+                      Clock clock) {
         this.goConfigService = goConfigService;
         this.serverHealthService = serverHealthService;
         this.schedulingChecker = schedulingChecker;
@@ -73,6 +87,9 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
         this.scheduleCheckQueue = scheduleCheckQueue;
         this.scheduleCheckCompletedTopic = scheduleCheckCompletedTopic;
         this.schedulingPerformanceLogger = schedulingPerformanceLogger;
+        this.materialUpdateCompletedTopic = materialUpdateCompletedTopic;
+        this.systemEnvironment = systemEnvironment;
+        this.clock = clock;
     }
 
     public void initialize() {
@@ -80,6 +97,7 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
         goConfigService.register(pipelineConfigChangedListener());
         goConfigService.register(configRepoConfigChangedListener());
         scheduleCheckCompletedTopic.addListener(this);
+        materialUpdateCompletedTopic.addListener(new MaterialUpdateCompletedListener());
     }
 
     protected EntityConfigChangedListener<PipelineConfig> pipelineConfigChangedListener() {
@@ -90,6 +108,9 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
                     addPipelineIfNotPresent(pipelineConfig, pipelines);
                     if (!goConfigService.getAllPipelineConfigs().contains(pipelineConfig)) {
                         pipelines.remove(pipelineConfig.name().toString());
+                        unindexMaterialsOf(pipelineConfig.name().toString());
+                    } else {
+                        indexMaterialsOf(pipelineConfig);
                     }
                 }
             }
@@ -119,27 +140,88 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
             }
 
             removeLicenseInvalidFromLog();
-            checkPipelines();
+            if (isFullCheckDue()) {
+                checkPipelines();
+            } else {
+                checkPipelinesWithChanges();
+            }
         } catch (Exception e) {
             LOGGER.error("Error autoScheduling pipelines", e);
         }
 
     }
 
+    private boolean isFullCheckDue() {
+        long fullCheckInterval = systemEnvironment.getPipelineSchedulerFullCheckIntervalInMillis();
+        if (fullCheckInterval <= 0) {
+            return true;
+        }
+        synchronized (pipelines) {
+            return clock.currentTimeMillis() - lastFullCheckAt >= fullCheckInterval;
+        }
+    }
+
     void checkPipelines() {
         synchronized (pipelines) {
             for (Map.Entry<String, ScheduleCheckState> entry : pipelines.entrySet()) {
                 if (entry.getValue().equals(ScheduleCheckState.IDLE)) {
-                    long trackingId = schedulingPerformanceLogger.pipelineSentToScheduleCheckQueue(entry.getKey());
-
-                    scheduleCheckQueue.post(new ScheduleCheckMessage(entry.getKey(), trackingId));
-                    pipelines.put(entry.getKey(), ScheduleCheckState.BUSY);
-
-                    LOGGER.trace("try to schedule pipeline {}, current pipeline state: {}", entry.getKey(), pipelines);
+                    postScheduleCheck(entry);
+                    pipelinesWithChanges.remove(entry.getKey());
                 } else {
                     LOGGER.trace("skipping scheduling pipeline {} because it's busy scheduling, current pipelines state: {}", entry.getKey(), pipelines);
                 }
             }
+            lastFullCheckAt = clock.currentTimeMillis();
+        }
+    }
+
+    /* Only checks the pipelines which have been added, had their materials changed, or whose materials found new modifications since they were last checked. */
+    void checkPipelinesWithChanges() {
+        synchronized (pipelines) {
+            Iterator<String> iterator = pipelinesWithChanges.iterator();
+            while (iterator.hasNext()) {
+                String pipelineName = iterator.next();
+                ScheduleCheckState state = pipelines.get(pipelineName);
+                if (state == null) {
+                    iterator.remove();
+                } else if (state.equals(ScheduleCheckState.IDLE)) {
+                    postScheduleCheck(Map.entry(pipelineName, state));
+                    iterator.remove();
+                } else {
+                    // the check in progress might have missed the change, so it stays marked until the pipeline is idle again
+                    LOGGER.trace("skipping scheduling pipeline {} because it's busy scheduling, current pipelines state: {}", pipelineName, pipelines);
+                }
+            }
+        }
+    }
+
+    private void postScheduleCheck(Map.Entry<String, ScheduleCheckState> entry) {
+        long trackingId = schedulingPerformanceLogger.pipelineSentToScheduleCheckQueue(entry.getKey());
+
+        scheduleCheckQueue.post(new ScheduleCheckMessage(entry.getKey(), trackingId));
+        pipelines.put(entry.getKey(), ScheduleCheckState.BUSY);
+
+        LOGGER.trace("try to schedule pipeline {}, current pipeline state: {}", entry.getKey(), pipelines);
+    }
+
+    private class MaterialUpdateCompletedListener implements GoMessageListener<MaterialUpdateCompletedMessage> {
+        @Override
+        public void onMessage(MaterialUpdateCompletedMessage message) {
+            onMaterialUpdateCompleted(message);
+        }
+    }
+
+    void onMaterialUpdateCompleted(MaterialUpdateCompletedMessage message) {
+        // an update which found nothing new cannot make any pipeline schedulable, so it leaves them to the full check
+        if (!(message instanceof MaterialUpdateSuccessfulMessage) || !((MaterialUpdateSuccessfulMessage) message).foundNewModifications()) {
+            return;
+        }
+        synchronized (pipelines) {
+            Set<String> affectedPipelines = pipelinesByMaterialFingerprint.get(message.getMaterial().getFingerprint());
+            if (affectedPipelines != null) {
+                pipelinesWithChanges.addAll(affectedPipelines);
+                LOGGER.trace("material {} has new modifications, marking pipelines {} for a schedule check", message.getMaterial(), affectedPipelines);
+            }
         }
     }
 
@@ -215,7 +297,10 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
     @Override
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         synchronized (pipelines) {
-            newCruiseConfig.accept((PiplineConfigVisitor) pipelineConfig -> addPipelineIfNotPresent(pipelineConfig, pipelines));
+            newCruiseConfig.accept((PiplineConfigVisitor) pipelineConfig -> {
+                addPipelineIfNotPresent(pipelineConfig, pipelines);
+                indexMaterialsOf(pipelineConfig);
+            });
 
             List<String> deletedPipeline = new ArrayList<>();
             for (String pipelineName : pipelines.keySet()) {
@@ -226,6 +311,7 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
 
             for (String pipelineName : deletedPipeline) {
                 pipelines.remove(pipelineName);
+                unindexMaterialsOf(pipelineName);
             }
         }
     }
@@ -233,10 +319,45 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
     private void addPipelineIfNotPresent(PipelineConfig pipelineConfig, Map<String, ScheduleCheckState> pipelines) {
         if (!pipelines.containsKey(CaseInsensitiveString.str(pipelineConfig.name()))) {
             pipelines.put(CaseInsensitiveString.str(pipelineConfig.name()), ScheduleCheckState.IDLE);
+            pipelinesWithChanges.add(CaseInsensitiveString.str(pipelineConfig.name()));
             LOGGER.debug("[Configuration Changed] Marking new pipeline {} as IDLE", pipelineConfig.name());
         }
     }
 
+    private void indexMaterialsOf(PipelineConfig pipelineConfig) {
+        String pipelineName = CaseInsensitiveString.str(pipelineConfig.name());
+        Set<String> fingerprints = new HashSet<>();
+        for (MaterialConfig materialConfig : pipelineConfig.materialConfigs()) {
+            fingerprints.add(materialConfig.getFingerprint());
+        }
+        if (fingerprints.equals(materialFingerprintsByPipeline.get(pipelineName))) {
+            return;
+        }
+
+        unindexMaterialsOf(pipelineName);
+        materialFingerprintsByPipeline.put(pipelineName, fingerprints);
+        for (String fingerprint : fingerprints) {
+            pipelinesByMaterialFingerprint.computeIfAbsent(fingerprint, key -> new HashSet<>()).add(pipelineName);
+        }
+        pipelinesWithChanges.add(pipelineName);
+    }
+
+    private void unindexMaterialsOf(String pipelineName) {
+        Set<String> fingerprints = materialFingerprintsByPipeline.remove(pipelineName);
+        if (fingerprints == null) {
+            return;
+        }
+        for (String fingerprint : fingerprints) {
+            Set<String> pipelinesUsingMaterial = pipelinesByMaterialFingerprint.get(fingerprint);
+            if (pipelinesUsingMaterial != null) {
+                pipelinesUsingMaterial.remove(pipelineName);
+                if (pipelinesUsingMaterial.isEmpty()) {
+                    pipelinesByMaterialFingerprint.remove(fingerprint);
+                }
+            }
+        }
+    }
+
     @Override
     public void onMessage(ScheduleCheckCompletedMessage message) {
         synchronized (pipelines) {
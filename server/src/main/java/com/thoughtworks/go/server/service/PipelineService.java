@@ -34,6 +34,7 @@ import com.thoughtworks.go.server.domain.PipelineTimeline;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.dd.FanInGraph;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,11 +44,15 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.lang.String.format;
 
 @Service
 public class PipelineService implements UpstreamPipelineResolver {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("PipelineService");
 
     private TransactionTemplate transactionTemplate;
     private PipelineSqlMapDao pipelineDao;
@@ -58,6 +63,7 @@ public class PipelineService implements UpstreamPipelineResolver {
     private final SystemEnvironment systemEnvironment;
     private final GoConfigService goConfigService;
     private MaterialConfigConverter materialConfigConverter;
+    private final AtomicReference<FanInGraphs> fanInGraphs = new AtomicReference<>();
 
     @Autowired
     public PipelineService(PipelineSqlMapDao pipelineDao, StageService stageService, PipelineLockService pipelineLockService, PipelineTimeline pipelineTimeline, MaterialRepository materialRepository,
@@ -83,7 +89,7 @@ public class PipelineService implements UpstreamPipelineResolver {
 
     public Pipeline save(final Pipeline pipeline) {
         String mutexPipelineName = PipelinePauseService.mutexForPausePipeline(pipeline.getName());
-        synchronized (mutexPipelineName) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexPipelineName)) {
             return transactionTemplate.execute(status -> {
                 if (pipeline instanceof NullPipeline) {
                     return pipeline;
@@ -215,12 +221,32 @@ public class PipelineService implements UpstreamPipelineResolver {
     /* DIAMOND BEGIN */
 
     public MaterialRevisions getRevisionsBasedOnDependencies(MaterialRevisions actualRevisions, CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName) {
-        FanInGraph fanInGraph = new FanInGraph(cruiseConfig, pipelineName, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+        FanInGraph fanInGraph = fanInGraphFor(cruiseConfig, pipelineName);
         final MaterialRevisions computedRevisions = fanInGraph.computeRevisions(actualRevisions, pipelineTimeline);
         fillUpNonOverridableRevisions(actualRevisions, computedRevisions);
         return restoreOriginalMaterialConfigAndMaterialOrderUsingFingerprint(actualRevisions, computedRevisions);
     }
 
+    private FanInGraph fanInGraphFor(CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName) {
+        FanInGraphs graphs = fanInGraphs.get();
+        if (graphs == null || graphs.cruiseConfig != cruiseConfig) {
+            graphs = new FanInGraphs(cruiseConfig);
+            fanInGraphs.set(graphs);
+        }
+        return graphs.byPipelineName.computeIfAbsent(pipelineName,
+                name -> new FanInGraph(cruiseConfig, name, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter));
+    }
+
+    /* Understands the fan-in graphs built from one version of the config, which stay valid until the config changes. */
+    private static class FanInGraphs {
+        private final CruiseConfig cruiseConfig;
+        private final ConcurrentMap<CaseInsensitiveString, FanInGraph> byPipelineName = new ConcurrentHashMap<>();
+
+        private FanInGraphs(CruiseConfig cruiseConfig) {
+            this.cruiseConfig = cruiseConfig;
+        }
+    }
+
     // This is for debugging purposes
     public String getRevisionsBasedOnDependenciesForDebug(CaseInsensitiveString pipelineName, final Integer targetIterationCount) {
         CruiseConfig cruiseConfig = goConfigService.getCurrentConfig();
@@ -285,6 +311,10 @@ public class PipelineService implements UpstreamPipelineResolver {
         return pipelineDao.findBuildCauseOfPipelineByNameAndCounter(pipelineName, pipelineCounter);
     }
 
+    public List<BuildCause> buildCausesFor(List<PipelineIdentifier> pipelineInstances) {
+        return pipelineDao.findBuildCausesOfPipelines(pipelineInstances);
+    }
+
     private MaterialRevisions restoreOriginalMaterialConfigAndMaterialOrderUsingFingerprint(MaterialRevisions actualRevisions, MaterialRevisions computedRevisions) {
         MaterialRevisions orderedComputedRevisions = new MaterialRevisions();
         for (MaterialRevision actualRevision : actualRevisions) {
@@ -32,6 +32,7 @@ import com.thoughtworks.go.server.domain.PluginSettings;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.service.plugins.builder.DefaultPluginInfoFinder;
 import com.thoughtworks.go.server.service.result.LocalizedOperationResult;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +46,7 @@ import static com.thoughtworks.go.CurrentGoCDVersion.apiDocsUrl;
 
 @Service
 public class PluginService {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("PluginService");
     private static final Logger LOGGER = LoggerFactory.getLogger(TemplateConfigService.class);
     private final List<GoPluginExtension> extensions;
     private final PluginDao pluginDao;
@@ -86,7 +88,7 @@ public class PluginService {
 
     public void createPluginSettings(PluginSettings newPluginSettings, Username currentUser, LocalizedOperationResult result) {
         final String keyToLockOn = keyToLockOn(newPluginSettings.getPluginId());
-        synchronized (keyToLockOn) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(keyToLockOn)) {
             if (hasPermission(currentUser, newPluginSettings.getPluginId(), result)) {
                 final Plugin plugin = pluginDao.findPlugin(newPluginSettings.getPluginId());
                 if (plugin instanceof NullPlugin) {
@@ -103,7 +105,7 @@ public class PluginService {
         final String pluginId = newPluginSettings.getPluginId();
 
         final String keyToLockOn = keyToLockOn(pluginId);
-        synchronized (keyToLockOn) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(keyToLockOn)) {
             if (hasPermission(currentUser, newPluginSettings.getPluginId(), result)) {
                 final PluginSettings pluginSettingsFromDB = getPluginSettings(pluginId);
                 if (pluginSettingsFromDB == null) {
@@ -156,7 +158,7 @@ public class PluginService {
     }
 
     private void updatePluginSettingsAndNotifyPluginSettingsChangeListeners(LocalizedOperationResult result, PluginSettings pluginSettings) {
-        synchronized (keyToLockOn(pluginSettings.getPluginId())) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(keyToLockOn(pluginSettings.getPluginId()))) {
             try {
                 validatePluginSettings(pluginSettings);
                 if (pluginSettings.hasErrors()) {
@@ -199,7 +201,7 @@ public class PluginService {
     }
 
     private String keyToLockOn(String pluginId) {
-        return (getClass().getName() + "_plugin_settings_" + pluginId).intern();
+        return getClass().getName() + "_plugin_settings_" + pluginId;
     }
 
     private GoPluginExtension findExtensionWhichCanHandleSettingsFor(String pluginId) {
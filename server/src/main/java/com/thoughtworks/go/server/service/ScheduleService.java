@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.service;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.thoughtworks.go.config.Agents;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.PipelineConfig;
@@ -32,15 +33,18 @@ import com.thoughtworks.go.server.dao.PipelineDao;
 import com.thoughtworks.go.server.dao.StageDao;
 import com.thoughtworks.go.server.domain.AgentInstances;
 import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.messaging.JobStatusMessage;
 import com.thoughtworks.go.server.newsecurity.utils.SessionUtils;
 import com.thoughtworks.go.server.perf.SchedulingPerformanceLogger;
 import com.thoughtworks.go.server.service.result.*;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TimeProvider;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -51,15 +55,24 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.util.GoConstants.DEFAULT_APPROVED_BY;
+import static com.thoughtworks.go.util.SystemEnvironment.PIPELINE_CREATION_THREADS;
 
 @Service
 public class ScheduleService {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("ScheduleService");
     private static final Logger LOGGER = LoggerFactory.getLogger(ScheduleService.class);
 
     private GoConfigService goConfigService;
@@ -82,7 +95,8 @@ public class ScheduleService {
     private TimeProvider timeProvider;
     private TransactionTemplate transactionTemplate;
 
-    private final Object autoScheduleMutex = new Object();
+    private ExecutorService pipelineCreationExecutor;
+    private int pipelineCreationThreads;
     private ConsoleActivityMonitor consoleActivityMonitor;
     private PipelinePauseService pipelinePauseService;
     private InstanceFactory instanceFactory;
@@ -118,7 +132,8 @@ public class ScheduleService {
                            InstanceFactory instanceFactory,
                            SchedulingPerformanceLogger schedulingPerformanceLogger,
                            ElasticProfileService elasticProfileService,
-                           ClusterProfilesService clusterProfilesService
+                           ClusterProfilesService clusterProfilesService,
+                           SystemEnvironment systemEnvironment
     ) {
         this.goConfigService = goConfigService;
         this.pipelineService = pipelineService;
@@ -145,29 +160,62 @@ public class ScheduleService {
         this.schedulingPerformanceLogger = schedulingPerformanceLogger;
         this.elasticProfileService = elasticProfileService;
         this.clusterProfilesService = clusterProfilesService;
+        this.pipelineCreationThreads = Math.max(systemEnvironment.get(PIPELINE_CREATION_THREADS), 1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(pipelineCreationThreads, pipelineCreationThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("pipeline-creation-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        this.pipelineCreationExecutor = executor;
     }
 
-    //Note: This is called from a Spring timer
+    @PreDestroy
+    public void stopCreatingPipelines() {
+        if (pipelineCreationExecutor != null) {
+            pipelineCreationExecutor.shutdownNow();
+        }
+    }
+
+    //Note: This is called from a Spring timer, with a fixed delay, so runs never overlap and a pipeline is only ever created by one run at a time
     public void autoSchedulePipelinesFromRequestBuffer() {
-        synchronized (autoScheduleMutex) {
-            try {
-                for (Entry<CaseInsensitiveString, BuildCause> entry : pipelineScheduleQueue.toBeScheduled().entrySet()) {
-                    CaseInsensitiveString pipelineName = entry.getKey();
-                    BuildCause buildCause = entry.getValue();
+        try {
+            List<Entry<CaseInsensitiveString, BuildCause>> toBeScheduled = new ArrayList<>(pipelineScheduleQueue.toBeScheduled().entrySet());
+            long batchStartTime = System.currentTimeMillis();
+            List<Long> schedulingLatencies = Collections.synchronizedList(new ArrayList<>());
+
+            // Each pipeline instance is created in its own transaction and nothing in one depends on another, so they are created concurrently.
+            if (pipelineCreationThreads <= 1 || toBeScheduled.size() <= 1) {
+                for (Entry<CaseInsensitiveString, BuildCause> entry : toBeScheduled) {
+                    schedulePipelineFromRequestBuffer(entry.getKey(), entry.getValue(), batchStartTime, schedulingLatencies);
+                }
+            } else {
+                List<Future<?>> creations = new ArrayList<>();
+                for (Entry<CaseInsensitiveString, BuildCause> entry : toBeScheduled) {
+                    creations.add(pipelineCreationExecutor.submit(() -> schedulePipelineFromRequestBuffer(entry.getKey(), entry.getValue(), batchStartTime, schedulingLatencies)));
+                }
+                for (Future<?> creation : creations) {
+                    creation.get();
+                }
+            }
 
-                    LOGGER.info("[Pipeline Schedule] Scheduling pipeline {} with build cause {}", pipelineName, buildCause);
+            schedulingPerformanceLogger.scheduledPipelines(schedulingLatencies);
+        } catch (Throwable e) {
+            LOGGER.error("[Pipeline Schedule] An exception occurred while scheduling the pipeline. {}", e);
+        }
+    }
 
-                    long schedulingStartTime = System.currentTimeMillis();
-                    Pipeline pipeline = schedulePipeline(pipelineName, buildCause);
-                    long schedulingEndTime = System.currentTimeMillis();
+    private void schedulePipelineFromRequestBuffer(CaseInsensitiveString pipelineName, BuildCause buildCause, long batchStartTime, List<Long> schedulingLatencies) {
+        try {
+            LOGGER.info("[Pipeline Schedule] Scheduling pipeline {} with build cause {}", pipelineName, buildCause);
 
-                    if (pipeline != null) {
-                        schedulingPerformanceLogger.scheduledPipeline(pipelineName, pipelineScheduleQueue.toBeScheduled().size(), schedulingStartTime, schedulingEndTime);
-                    }
-                }
-            } catch (Throwable e) {
-                LOGGER.error("[Pipeline Schedule] An exception occurred while scheduling the pipeline. {}", e);
+            long schedulingStartTime = System.currentTimeMillis();
+            Pipeline pipeline = schedulePipeline(pipelineName, buildCause);
+            long schedulingEndTime = System.currentTimeMillis();
+
+            if (pipeline != null) {
+                schedulingPerformanceLogger.scheduledPipeline(pipelineName, pipelineScheduleQueue.toBeScheduled().size(), schedulingStartTime, schedulingEndTime);
+                schedulingLatencies.add(schedulingEndTime - batchStartTime);
             }
+        } catch (Throwable e) {
+            LOGGER.error("[Pipeline Schedule] An exception occurred while scheduling the pipeline {}.", pipelineName, e);
         }
     }
 
@@ -290,7 +338,7 @@ public class ScheduleService {
     }
 
     private Stage lockAndRerunStage(String pipelineName, Integer counter, String stageName, StageInstanceCreator creator, final ErrorConditionHandler errorHandler) {
-        synchronized (mutexForPipeline(pipelineName)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForPipeline(pipelineName))) {
             OperationResult result = new ServerHealthStateOperationResult();
             if (!schedulingChecker.canSchedule(result)) {
                 errorHandler.cantSchedule(result.getServerHealthState().getDescription(), pipelineName, stageName);
@@ -380,8 +428,7 @@ public class ScheduleService {
     }
 
     private String mutexForPipeline(String pipelineName) {
-        String s = String.format("%s_forPipeline_%s", getClass().getName(), pipelineName);
-        return s.intern(); // interned because we synchronize on it
+        return String.format("%s_forPipeline_%s", getClass().getName(), pipelineName);
     }
 
     private void triggerNextStageInPipeline(Pipeline pipeline, String stageName, String approvedBy) {
@@ -485,7 +532,7 @@ public class ScheduleService {
         }
 
         String stageMutex = mutexForStageInstance(stageForId.getIdentifier());
-        synchronized (stageMutex) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(stageMutex)) {
             // reload stage so we see committed state after acquiring mutex
             final Stage stage = stageService.stageById(stageId);
 
@@ -536,24 +583,48 @@ public class ScheduleService {
     // synchronized for updating job
 
     public void updateJobStatus(final JobIdentifier jobIdentifier, final JobState jobState) throws Exception {
+        updateJobStatuses(List.of(new JobStatusMessage(jobIdentifier, jobState, null)));
+    }
+
+    /* The updates are all for jobs of one stage instance, and are applied in order. The result of the stage is computed,
+     * and the stages following it are triggered, once for all of them. */
+    public void updateJobStatuses(final List<JobStatusMessage> updates) throws Exception {
         // have to synchronize at stage-level because cancellation happens at stage-level
-        final String stageMutex = mutexForStageInstance(jobIdentifier);
-        synchronized (stageMutex) {
-            synchronized (mutexForJob(jobIdentifier)) {
-                final JobInstance job = jobInstanceService.buildByIdWithTransitions(jobIdentifier.getBuildId());
+        final String stageMutex = mutexForStageInstance(updates.get(0).getJobIdentifier());
+        try (KeyedLocks.Held ignored = LOCKS.lock(stageMutex)) {
+            Map<Long, JobInstance> jobs = new LinkedHashMap<>();
+            List<KeyedLocks.Held> jobLocks = new ArrayList<>();
+            try {
+                for (JobStatusMessage update : updates) {
+                    JobIdentifier jobIdentifier = update.getJobIdentifier();
+                    if (!jobs.containsKey(jobIdentifier.getBuildId())) {
+                        jobLocks.add(LOCKS.lock(mutexForJob(jobIdentifier)));
+                        jobs.put(jobIdentifier.getBuildId(), jobInstanceService.buildByIdWithTransitions(jobIdentifier.getBuildId()));
+                    }
+                }
 
+                final Set<Long> completedStageIds = new LinkedHashSet<>();
                 transactionTemplate.executeWithExceptionHandling(new com.thoughtworks.go.server.transaction.TransactionCallbackWithoutResult() {
                     @Override
                     public void doInTransactionWithoutResult(TransactionStatus status) {
-                        if (job.isNull() || job.getState() == JobState.Rescheduled || job.getResult() == JobResult.Cancelled) {
-                            return;
-                        }
+                        for (JobStatusMessage update : updates) {
+                            JobIdentifier jobIdentifier = update.getJobIdentifier();
+                            JobInstance job = jobs.get(jobIdentifier.getBuildId());
+                            if (job.isNull() || job.getState() == JobState.Rescheduled || job.getResult() == JobResult.Cancelled) {
+                                continue;
+                            }
+
+                            job.changeState(update.getJobState());
+                            //TODO: #2318 JobInstance should contain identifier after it's loaded from database
+                            job.setIdentifier(jobIdentifier);
+                            jobInstanceService.updateStateAndResult(job);
 
-                        job.changeState(jobState);
-                        //TODO: #2318 JobInstance should contain identifier after it's loaded from database
-                        job.setIdentifier(jobIdentifier);
-                        jobInstanceService.updateStateAndResult(job);
+                            if (job.isCompleted()) {
+                                completedStageIds.add(job.getStageId());
+                            }
+                        }
 
+                        JobIdentifier jobIdentifier = updates.get(0).getJobIdentifier();
                         synchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
                             @Override
                             public void afterCommit() {
@@ -561,8 +632,8 @@ public class ScheduleService {
                             }
                         });
 
-                        if (job.isCompleted()) {
-                            Stage stage = stageService.stageById(job.getStageId());
+                        for (Long stageId : completedStageIds) {
+                            Stage stage = stageService.stageById(stageId);
                             stageService.updateResult(stage);
                         }
                     }
@@ -573,12 +644,22 @@ public class ScheduleService {
                 transactionTemplate.executeWithExceptionHandling(new com.thoughtworks.go.server.transaction.TransactionCallbackWithoutResult() {
                     @Override
                     public void doInTransactionWithoutResult(TransactionStatus status) throws Exception {
-                        if (job.isCompleted()) {
-                            Stage stage = stageService.stageById(job.getStageId());
+                        Set<Long> stageIds = new LinkedHashSet<>();
+                        for (JobInstance job : jobs.values()) {
+                            if (job.isCompleted()) {
+                                stageIds.add(job.getStageId());
+                            }
+                        }
+                        for (Long stageId : stageIds) {
+                            Stage stage = stageService.stageById(stageId);
                             automaticallyTriggerRelevantStagesFollowingCompletionOf(stage);
                         }
                     }
                 });
+            } finally {
+                for (int i = jobLocks.size() - 1; i >= 0; i--) {
+                    jobLocks.get(i).close();
+                }
             }
         }
     }
@@ -592,8 +673,7 @@ public class ScheduleService {
     }
 
     private String mutexForStageInstance(String pipelineName, Integer pipelineCounter, String stageName, String stageCounter) {
-        String s = String.format("%s_forStageInstance_%s_%s_%s_%s", getClass().getName(), pipelineName, pipelineCounter, stageName, stageCounter);
-        return s.intern(); // interned because we synchronize on it
+        return String.format("%s_forStageInstance_%s_%s_%s_%s", getClass().getName(), pipelineName, pipelineCounter, stageName, stageCounter);
     }
 
     //Note: This is called from a Spring timer
@@ -650,8 +730,8 @@ public class ScheduleService {
     //synchronized for updating job
     public void rescheduleJob(final JobInstance toBeRescheduled) {
         final JobIdentifier jobIdentifier = toBeRescheduled.getIdentifier();
-        synchronized (mutexForStageInstance(jobIdentifier)) {
-            synchronized (mutexForJob(jobIdentifier)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForStageInstance(jobIdentifier))) {
+            try (KeyedLocks.Held ignoredJobLock = LOCKS.lock(mutexForJob(jobIdentifier))) {
                 transactionTemplate.execute(new TransactionCallbackWithoutResult() {
                     @Override
                     protected void doInTransactionWithoutResult(TransactionStatus status) {
@@ -681,15 +761,15 @@ public class ScheduleService {
     }
 
     public void cancelJob(final JobInstance instance) {
-        synchronized (mutexForStageInstance(instance.getIdentifier())) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForStageInstance(instance.getIdentifier()))) {
             stageService.cancelJob(instance);
         }
     }
 
     public void jobCompleting(JobIdentifier jobIdentifier, JobResult result, String agentUuid) {
         // have to synchronize at stage-level because cancellation happens at stage-level
-        synchronized (mutexForStageInstance(jobIdentifier)) {
-            synchronized (mutexForJob(jobIdentifier)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForStageInstance(jobIdentifier))) {
+            try (KeyedLocks.Held ignoredJobLock = LOCKS.lock(mutexForJob(jobIdentifier))) {
                 JobInstance jobInstance = jobInstanceService.buildByIdWithTransitions(jobIdentifier.getBuildId());
                 if (jobInstance.isNull() || jobInstance.getResult() == JobResult.Cancelled || jobInstance.getState() == JobState.Rescheduled) {
                     return;
@@ -710,7 +790,7 @@ public class ScheduleService {
     public boolean updateAssignedInfo(String agentUuid, JobPlan job) {
         // have to synchronize at stage-level because cancellation happens at stage-level
         JobIdentifier jobIdentifier = job.getIdentifier();
-        synchronized (mutexForStageInstance(jobIdentifier)) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForStageInstance(jobIdentifier))) {
             JobInstance instance = jobInstanceService.buildByIdWithTransitions(job.getJobId());
             if (instance.getState() == JobState.Completed) {
                 LOGGER.info("[Agent Assignment] Not assigning a completed job [{}] to agent {}", instance.getIdentifier(), agentUuid);
@@ -723,7 +803,7 @@ public class ScheduleService {
     }
 
     public String mutexForJob(JobIdentifier jobIdentifier) {
-        return String.format("%s_forJobInstance_%s", getClass().getName(), jobIdentifier.buildLocator()).intern();
+        return String.format("%s_forJobInstance_%s", getClass().getName(), jobIdentifier.buildLocator());
     }
 
     public void cancelJob(JobIdentifier jobIdentifier) {
@@ -731,7 +811,7 @@ public class ScheduleService {
     }
 
     public void failJob(JobInstance instance) {
-        synchronized (mutexForStageInstance(instance.getIdentifier())) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(mutexForStageInstance(instance.getIdentifier()))) {
             stageService.failJob(instance);
         }
     }
@@ -48,6 +48,7 @@ import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.server.ui.ModificationForPipeline;
 import com.thoughtworks.go.server.ui.StageSummaryModel;
 import com.thoughtworks.go.server.ui.StageSummaryModels;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
@@ -70,6 +71,7 @@ import static com.thoughtworks.go.server.service.HistoryUtil.validateCursor;
 
 @Service
 public class StageService implements StageFinder {
+    private static final KeyedLocks.Family LOCKS = KeyedLocks.family("StageService");
     private static final Logger LOGGER = LoggerFactory.getLogger(StageService.class);
     private static final String NOT_AUTHORIZED_TO_VIEW_PIPELINE = "Not authorized to view pipeline";
     private static final int FEED_PAGE_SIZE = 25;
@@ -353,7 +355,7 @@ public class StageService implements StageFinder {
         String key = cacheKeyForLatestStageFeedForPipeline(pipelineName);
         List<StageFeedEntry> feedEntries = goCache.get(key);
         if (feedEntries == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 feedEntries = goCache.get(key);//Double check locking is done because the query is expensive (takes about 2 seconds)
                 if (feedEntries == null) {
                     feedEntries = stageDao.findCompletedStagesFor(pipelineName, FeedModifier.Latest, -1, FEED_PAGE_SIZE);
@@ -378,7 +380,7 @@ public class StageService implements StageFinder {
         List<StageFeedEntry> feedEntries = goCache.get(key);
 
         if (feedEntries == null) {
-            synchronized (key) {
+            try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
                 feedEntries = goCache.get(key);
                 if (feedEntries == null) {
                     feedEntries = stageDao.findStageFeedBy(pipelineName, pipelineCounter, null, FEED_PAGE_SIZE);
@@ -401,12 +403,12 @@ public class StageService implements StageFinder {
 
     private void clearCachedCompletedStageFeeds(String pipelineName) {
         String key = cacheKeyForLatestStageFeedForPipeline(pipelineName);
-        synchronized (key) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
             goCache.remove(key);
         }
 
         key = cacheKeyForLatestStageFeedForPipelineSortedByPipelineCounter(pipelineName);
-        synchronized (key) {
+        try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
             goCache.remove(key);
         }
     }
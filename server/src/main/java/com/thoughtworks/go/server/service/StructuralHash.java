@@ -0,0 +1,124 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.domain.ConfigErrors;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * @understands hashing the state of a config object tree, field by field, without serializing it
+ * <p>
+ * Every non-static, non-transient field of the GoCD classes in the tree is visited, including the fields of
+ * collections and maps which also hold state of their own. Validation errors are left out, since they are not part of
+ * what an entity is. Anything else (strings, numbers, dates, enums and library types) counts by its own hashCode().
+ */
+final class StructuralHash {
+    private static final String GOCD_PACKAGE = "com.thoughtworks.go.";
+
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null && isGoCDClass(current); current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic() || field.getType() == ConfigErrors.class) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long hash = 1125899906842597L;
+
+    private StructuralHash() {
+    }
+
+    static long of(Object root) {
+        StructuralHash structuralHash = new StructuralHash();
+        structuralHash.visit(root);
+        return structuralHash.hash;
+    }
+
+    private void visit(Object value) {
+        if (value == null) {
+            add(0);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (value instanceof ConfigErrors) {
+            return;
+        }
+        boolean goCDClass = isGoCDClass(type) && !type.isEnum();
+        if (!goCDClass && !(value instanceof Collection) && !(value instanceof Map) && !type.isArray()) {
+            add(value.hashCode());
+            return;
+        }
+        if (!visited.add(value)) {
+            // an object already on the way here, or shared by two parts of the tree, is only counted once
+            add(-1);
+            return;
+        }
+
+        add(type.getName().hashCode());
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            add(collection.size());
+            for (Object element : collection) {
+                visit(element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            add(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                visit(entry.getKey());
+                visit(entry.getValue());
+            }
+        } else if (type.isArray()) {
+            int length = Array.getLength(value);
+            add(length);
+            for (int i = 0; i < length; i++) {
+                visit(Array.get(value, i));
+            }
+        }
+        if (goCDClass) {
+            for (Field field : FIELDS.get(type)) {
+                try {
+                    visit(field.get(value));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    private void add(long value) {
+        hash = (hash ^ value) * 0x100000001b3L;
+    }
+
+    private static boolean isGoCDClass(Class<?> type) {
+        return type.getName().startsWith(GOCD_PACKAGE);
+    }
+}
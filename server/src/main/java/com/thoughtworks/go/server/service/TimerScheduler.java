@@ -15,6 +15,8 @@
  */
 package com.thoughtworks.go.server.service;
 
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
@@ -23,108 +25,199 @@ import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.scheduling.BuildCauseProducerService;
 import com.thoughtworks.go.server.service.result.ServerHealthStateOperationResult;
+import com.thoughtworks.go.server.util.HashedTimingWheel;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
-import org.quartz.*;
+import com.thoughtworks.go.util.Clock;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.TimeProvider;
+import org.quartz.CronExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.text.ParseException;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
-import static org.quartz.CronScheduleBuilder.cronSchedule;
-import static org.quartz.JobBuilder.newJob;
-import static org.quartz.JobKey.jobKey;
-import static org.quartz.TriggerBuilder.newTrigger;
-import static org.quartz.TriggerKey.triggerKey;
-import static org.quartz.impl.matchers.GroupMatcher.groupEquals;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * @understands scheduling pipelines based on a timer
+ * <p>
+ * All timers share one timing wheel, and a config change only re-registers the pipelines whose timer was added,
+ * changed or removed. Each timer can be delayed by a jitter of up to the configured maximum, always the same one for
+ * the same pipeline, so that the many pipelines sharing a spec (say, midnight) don't all trigger in the same second.
  */
 @Component
 public class TimerScheduler implements ConfigChangedListener {
     private static final Logger LOG = LoggerFactory.getLogger(TimerScheduler.class);
+    private static final long TICK_MILLIS = 100;
+    private static final int TICKS_PER_WHEEL = 1024;
 
     private final GoConfigService goConfigService;
     private final BuildCauseProducerService buildCauseProducerService;
     private final ServerHealthService serverHealthService;
     private final MaintenanceModeService maintenanceModeService;
-    private final Scheduler quartzScheduler;
-    protected static final String PIPELINE_TRIGGGER_TIMER_GROUP = "PIPELINE_TRIGGGER_TIMER_GROUP";
-    protected static final String BUILD_CAUSE_PRODUCER_SERVICE = "BuildCauseProducerService";
-    protected static final String MAINTENANCE_MODE_SERVICE = "MaintenanceModeService";
-    protected static final String PIPELINE_CONFIG = "PipelineConfig";
+    private final Clock clock;
+    private final HashedTimingWheel timingWheel;
+    private final Executor triggerExecutor;
+    private final long maxJitterMillis;
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+
+    private final LongAdder triggers = new LongAdder();
+    private final LongAdder skippedInMaintenanceMode = new LongAdder();
+    private final LongAdder totalTriggerLagMillis = new LongAdder();
+    private final LongAccumulator maxTriggerLagMillis = new LongAccumulator(Math::max, 0);
 
     @Autowired
-    public TimerScheduler(Scheduler scheduler, GoConfigService goConfigService,
+    public TimerScheduler(GoConfigService goConfigService,
                           BuildCauseProducerService buildCauseProducerService,
                           ServerHealthService serverHealthService,
-                          MaintenanceModeService maintenanceModeService) {
+                          MaintenanceModeService maintenanceModeService,
+                          SystemEnvironment systemEnvironment,
+                          TimeProvider timeProvider) {
+        this(goConfigService, buildCauseProducerService, serverHealthService, maintenanceModeService, timeProvider,
+                new HashedTimingWheel("timer-trigger-wheel", TICK_MILLIS, TICKS_PER_WHEEL, timeProvider),
+                Executors.newFixedThreadPool(systemEnvironment.getTimerTriggerThreads(),
+                        new ThreadFactoryBuilder().setNameFormat("timer-trigger-%d").setDaemon(true).build()),
+                systemEnvironment.getTimerTriggerMaxJitterInMillis());
+        this.timingWheel.start();
+    }
+
+    TimerScheduler(GoConfigService goConfigService,
+                   BuildCauseProducerService buildCauseProducerService,
+                   ServerHealthService serverHealthService,
+                   MaintenanceModeService maintenanceModeService,
+                   Clock clock,
+                   HashedTimingWheel timingWheel,
+                   Executor triggerExecutor,
+                   long maxJitterMillis) {
         this.goConfigService = goConfigService;
         this.buildCauseProducerService = buildCauseProducerService;
-        this.quartzScheduler = scheduler;
         this.serverHealthService = serverHealthService;
         this.maintenanceModeService = maintenanceModeService;
+        this.clock = clock;
+        this.timingWheel = timingWheel;
+        this.triggerExecutor = triggerExecutor;
+        this.maxJitterMillis = maxJitterMillis;
     }
 
     public void initialize() {
-        scheduleAllJobs(goConfigService.getAllPipelineConfigs());
+        updateTimers(goConfigService.getAllPipelineConfigs());
         goConfigService.register(this);
         goConfigService.register(pipelineConfigChangedListener());
     }
 
+    @PreDestroy
+    public void stop() {
+        timingWheel.stop();
+        if (triggerExecutor instanceof ExecutorService) {
+            ((ExecutorService) triggerExecutor).shutdownNow();
+        }
+    }
+
     protected EntityConfigChangedListener<PipelineConfig> pipelineConfigChangedListener() {
         return new EntityConfigChangedListener<>() {
             @Override
             public void onEntityConfigChange(PipelineConfig pipelineConfig) {
-                unscheduleJob(CaseInsensitiveString.str(pipelineConfig.name()));
-                scheduleJob(quartzScheduler, pipelineConfig);
+                updateTimer(pipelineConfig);
             }
         };
     }
 
-    private void scheduleAllJobs(List<PipelineConfig> pipelineConfigs) {
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig) {
+        updateTimers(newCruiseConfig.getAllPipelineConfigs());
+    }
+
+    public Map<String, Object> statistics() {
+        long triggered = triggers.sum();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("Registered timers", registrations.size());
+        statistics.put("Pending on timing wheel", timingWheel.pending());
+        statistics.put("Max jitter (ms)", maxJitterMillis);
+        statistics.put("Triggers", triggered);
+        statistics.put("Skipped in maintenance mode", skippedInMaintenanceMode.sum());
+        statistics.put("Average trigger lag (ms)", triggered == 0 ? 0 : totalTriggerLagMillis.sum() / triggered);
+        statistics.put("Max trigger lag (ms)", maxTriggerLagMillis.get());
+        return statistics;
+    }
+
+    Optional<Long> nextTriggerAt(String pipelineName) {
+        return Optional.ofNullable(registrations.get(pipelineName)).map(Registration::nextTriggerAt);
+    }
+
+    private synchronized void updateTimers(List<PipelineConfig> pipelineConfigs) {
+        Set<String> pipelineNames = new HashSet<>();
         for (PipelineConfig pipelineConfig : pipelineConfigs) {
-            scheduleJob(quartzScheduler, pipelineConfig);
+            pipelineNames.add(CaseInsensitiveString.str(pipelineConfig.name()));
+            updateTimer(pipelineConfig);
+        }
+        for (String pipelineName : new ArrayList<>(registrations.keySet())) {
+            if (!pipelineNames.contains(pipelineName)) {
+                unregister(pipelineName);
+            }
         }
     }
 
-    private void scheduleJob(Scheduler scheduler, PipelineConfig pipelineConfig) {
+    private synchronized void updateTimer(PipelineConfig pipelineConfig) {
+        String pipelineName = CaseInsensitiveString.str(pipelineConfig.name());
         TimerConfig timer = pipelineConfig.getTimer();
+        Registration registration = registrations.get(pipelineName);
+
+        if (registration != null && timer != null && Objects.equals(registration.timerSpec, timer.getTimerSpec())) {
+            // Same timer, so it keeps its place on the wheel, and only triggers the latest config of the pipeline.
+            registration.pipelineConfig = pipelineConfig;
+            return;
+        }
+
+        if (registration != null) {
+            unregister(pipelineName);
+        }
         if (timer != null) {
-            try {
-                CronTrigger trigger = newTrigger()
-                        .withIdentity(triggerKey(CaseInsensitiveString.str(pipelineConfig.name()), PIPELINE_TRIGGGER_TIMER_GROUP))
-                        .withSchedule(cronSchedule(new CronExpression(timer.getTimerSpec())))
-                        .build();
-
-
-                JobDetail jobDetail = newJob()
-                        .withIdentity(jobKey(CaseInsensitiveString.str(pipelineConfig.name()), PIPELINE_TRIGGGER_TIMER_GROUP))
-                        .ofType(SchedulePipelineQuartzJob.class)
-                        .usingJobData(jobDataMapFor(pipelineConfig))
-                        .build();
-
-                scheduler.scheduleJob(jobDetail, trigger);
-                LOG.info("Initialized timer for pipeline {} with {}", pipelineConfig.name(), timer.getTimerSpec());
-            } catch (ParseException e) {
-                showPipelineError(pipelineConfig, e,
-                        "Bad timer specification for timer in Pipeline: " + pipelineConfig.name(),
-                        "Cannot schedule pipeline using the timer");
-            } catch (SchedulerException e) {
-                showPipelineError(pipelineConfig, e,
-                        "Could not register pipeline '" + pipelineConfig.name() + "' with timer",
-                        "");
-            }
+            register(pipelineConfig, timer);
+        }
+    }
+
+    private void register(PipelineConfig pipelineConfig, TimerConfig timer) {
+        String pipelineName = CaseInsensitiveString.str(pipelineConfig.name());
+        try {
+            Registration registration = new Registration(pipelineConfig, timer.getTimerSpec(), new CronExpression(timer.getTimerSpec()), jitterFor(pipelineName));
+            registrations.put(pipelineName, registration);
+            registration.scheduleAfter(clock.currentTimeMillis());
+            LOG.info("Initialized timer for pipeline {} with {}", pipelineConfig.name(), timer.getTimerSpec());
+        } catch (ParseException e) {
+            showPipelineError(pipelineConfig, e,
+                    "Bad timer specification for timer in Pipeline: " + pipelineConfig.name(),
+                    "Cannot schedule pipeline using the timer");
         }
     }
 
+    private void unregister(String pipelineName) {
+        Registration registration = registrations.remove(pipelineName);
+        if (registration != null) {
+            registration.cancel();
+            LOG.info("Removed timer for pipeline {}", pipelineName);
+        }
+    }
+
+    private long jitterFor(String pipelineName) {
+        if (maxJitterMillis <= 0) {
+            return 0;
+        }
+        return Math.floorMod(Hashing.murmur3_128().hashString(pipelineName, UTF_8).asLong(), maxJitterMillis + 1);
+    }
+
     private void showPipelineError(PipelineConfig pipelineConfig, Exception e, String msg, String description) {
         LOG.error(msg, e);
         serverHealthService.update(
@@ -133,57 +226,73 @@ public class TimerScheduler implements ConfigChangedListener {
                         HealthStateType.general(HealthStateScope.forPipeline(CaseInsensitiveString.str(pipelineConfig.name())))));
     }
 
-    private JobDataMap jobDataMapFor(PipelineConfig pipelineConfig) {
-        JobDataMap map = new JobDataMap();
-        map.put(BUILD_CAUSE_PRODUCER_SERVICE, buildCauseProducerService);
-        map.put(MAINTENANCE_MODE_SERVICE, maintenanceModeService);
-        map.put(PIPELINE_CONFIG, pipelineConfig);
-        return map;
-    }
+    private void trigger(PipelineConfig pipelineConfig, long dueAt) {
+        long lagMillis = Math.max(clock.currentTimeMillis() - dueAt, 0);
+        triggers.increment();
+        totalTriggerLagMillis.add(lagMillis);
+        maxTriggerLagMillis.accumulate(lagMillis);
 
-    @Override
-    public void onConfigChange(CruiseConfig newCruiseConfig) {
-        unscheduleAllJobs();
-        scheduleAllJobs(newCruiseConfig.getAllPipelineConfigs());
+        if (maintenanceModeService.isMaintenanceMode()) {
+            skippedInMaintenanceMode.increment();
+            LOG.debug("[Maintenance Mode] GoCD server is in 'maintenance' mode, skipping scheduling of timer triggered pipeline: '{}'.", pipelineConfig.getName());
+            return;
+        }
+
+        buildCauseProducerService.timerSchedulePipeline(pipelineConfig, new ServerHealthStateOperationResult());
     }
 
-    private void unscheduleAllJobs() {
-        try {
-            Set<JobKey> jobKeys = quartzScheduler.getJobKeys(groupEquals(PIPELINE_TRIGGGER_TIMER_GROUP));
-            for (JobKey jobKey : jobKeys) {
-                unscheduleJob(jobKey.getName());
-            }
-        } catch (SchedulerException e) {
-            LOG.error("Could not unschedule quartz jobs", e);
+    /* Understands the one pending trigger of a pipeline timer on the timing wheel. */
+    private class Registration {
+        private final String timerSpec;
+        private final CronExpression cronExpression;
+        private final long jitterMillis;
+        private volatile PipelineConfig pipelineConfig;
+        private HashedTimingWheel.Handle pending;
+        private boolean cancelled;
+
+        private Registration(PipelineConfig pipelineConfig, String timerSpec, CronExpression cronExpression, long jitterMillis) {
+            this.pipelineConfig = pipelineConfig;
+            this.timerSpec = timerSpec;
+            this.cronExpression = cronExpression;
+            this.jitterMillis = jitterMillis;
         }
-    }
 
-    private void unscheduleJob(String pipelineName) {
-        try {
-            JobKey jobKey = jobKey(pipelineName, PIPELINE_TRIGGGER_TIMER_GROUP);
-            if (quartzScheduler.getJobDetail(jobKey) != null) {
-                quartzScheduler.unscheduleJob(triggerKey(pipelineName, PIPELINE_TRIGGGER_TIMER_GROUP));
-                quartzScheduler.deleteJob(jobKey);
+        synchronized void scheduleAfter(long afterMillis) {
+            if (cancelled) {
+                return;
+            }
+            Date next = cronExpression.getNextValidTimeAfter(new Date(afterMillis));
+            if (next == null) {
+                pending = null;
+                LOG.info("Timer for pipeline {} with {} will not trigger again", pipelineConfig.name(), timerSpec);
+                return;
             }
-        } catch (SchedulerException e) {
-            LOG.error("Could not unschedule quartz jobs", e);
+            long dueAt = next.getTime() + jitterMillis;
+            pending = timingWheel.schedule(() -> fire(next.getTime(), dueAt), dueAt);
         }
-    }
 
-    public static class SchedulePipelineQuartzJob implements Job {
-        @Override
-        public void execute(JobExecutionContext context) {
-            JobDataMap jobDataMap = context.getJobDetail().getJobDataMap();
-            BuildCauseProducerService buildCauseProducerService = (BuildCauseProducerService) jobDataMap.get(BUILD_CAUSE_PRODUCER_SERVICE);
-            MaintenanceModeService maintenanceModeService = (MaintenanceModeService) jobDataMap.get(MAINTENANCE_MODE_SERVICE);
-            PipelineConfig pipelineConfig = (PipelineConfig) jobDataMap.get(PIPELINE_CONFIG);
+        synchronized Long nextTriggerAt() {
+            return pending == null ? null : pending.deadlineMillis();
+        }
 
-            if (maintenanceModeService.isMaintenanceMode()) {
-                LOG.debug("[Maintenance Mode] GoCD server is in 'maintenance' mode, skipping scheduling of timer triggered pipeline: '{}'.", pipelineConfig.getName());
-                return;
+        synchronized void cancel() {
+            cancelled = true;
+            if (pending != null) {
+                pending.cancel();
+                pending = null;
             }
+        }
 
-            buildCauseProducerService.timerSchedulePipeline(pipelineConfig, new ServerHealthStateOperationResult());
+        private void fire(long firedFor, long dueAt) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                // Having missed several triggers (say, while the server was suspended), it triggers just once for all of them.
+                scheduleAfter(Math.max(firedFor, clock.currentTimeMillis() - jitterMillis));
+            }
+            PipelineConfig pipelineConfig = this.pipelineConfig;
+            triggerExecutor.execute(() -> trigger(pipelineConfig, dueAt));
         }
     }
 }
@@ -20,6 +20,7 @@ import com.thoughtworks.go.config.exceptions.RecordNotFoundException;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
 import com.thoughtworks.go.domain.MaterialInstance;
 import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.PipelineIdentifier;
 import com.thoughtworks.go.domain.buildcause.BuildCause;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
@@ -35,6 +36,8 @@ import com.thoughtworks.go.server.service.result.LocalizedOperationResult;
 import com.thoughtworks.go.server.valuestreammap.DownstreamInstancePopulator;
 import com.thoughtworks.go.server.valuestreammap.RunStagesPopulator;
 import com.thoughtworks.go.server.valuestreammap.UnrunStagesPopulator;
+import com.thoughtworks.go.server.valuestreammap.UpstreamGraph;
+import com.thoughtworks.go.server.valuestreammap.UpstreamGraphCache;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import org.slf4j.Logger;
@@ -43,6 +46,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -57,11 +62,13 @@ public class ValueStreamMapService {
     private final RunStagesPopulator runStagesPopulator;
     private final UnrunStagesPopulator unrunStagePopulator;
     private final SecurityService securityService;
+    private final UpstreamGraphCache upstreamGraphCache;
     private static final Logger LOGGER = LoggerFactory.getLogger(ValueStreamMapService.class);
 
     @Autowired
     public ValueStreamMapService(PipelineService pipelineService, MaterialRepository materialRepository, GoConfigService goConfigService, DownstreamInstancePopulator downstreamInstancePopulator,
-                                 RunStagesPopulator runStagesPopulator, UnrunStagesPopulator unrunStagePopulator, SecurityService securityService) {
+                                 RunStagesPopulator runStagesPopulator, UnrunStagesPopulator unrunStagePopulator, SecurityService securityService,
+                                 UpstreamGraphCache upstreamGraphCache) {
         this.pipelineService = pipelineService;
         this.materialRepository = materialRepository;
         this.goConfigService = goConfigService;
@@ -69,6 +76,7 @@ public class ValueStreamMapService {
         this.runStagesPopulator = runStagesPopulator;
         this.unrunStagePopulator = unrunStagePopulator;
         this.securityService = securityService;
+        this.upstreamGraphCache = upstreamGraphCache;
     }
 
     public ValueStreamMapPresentationModel getValueStreamMap(CaseInsensitiveString pipelineName, int counter, Username username, LocalizedOperationResult result) {
@@ -91,10 +99,14 @@ public class ValueStreamMapService {
 
     private ValueStreamMap buildValueStreamMap(CaseInsensitiveString pipelineName, int counter, Username username, LocalizedOperationResult result) {
         CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
-        BuildCause buildCauseForPipeline;
+        UpstreamGraph upstreamGraph;
+        BuildCause buildCauseForPipeline = null;
         try {
             pipelineName = pipelineNameWithSameCaseAsConfig(pipelineName, cruiseConfig);
-            buildCauseForPipeline = pipelineService.buildCauseFor(pipelineName.toString(), counter);
+            upstreamGraph = upstreamGraphCache.get(pipelineName, counter);
+            if (upstreamGraph == null) {
+                buildCauseForPipeline = pipelineService.buildCauseFor(pipelineName.toString(), counter);
+            }
         } catch (RecordNotFoundException e) {
             result.notFound("Pipeline '" + pipelineName + "' with counter '" + counter + "' not found.", HealthStateType.general(HealthStateScope.forPipeline(pipelineName.toString())));
             return null;
@@ -104,7 +116,12 @@ public class ValueStreamMapService {
         Map<CaseInsensitiveString, List<PipelineConfig>> pipelineToDownstreamMap = cruiseConfig.generatePipelineVsDownstreamMap();
 
         traverseDownstream(pipelineName, pipelineToDownstreamMap, valueStreamMap, new ArrayList<>());
-        traverseUpstream(pipelineName, buildCauseForPipeline, valueStreamMap, new ArrayList<>());
+        if (upstreamGraph == null) {
+            upstreamGraph = new UpstreamGraph();
+            traverseUpstream(pipelineName, buildCauseForPipeline, upstreamGraph, new ArrayList<>(), buildCausesUpstreamOf(buildCauseForPipeline));
+            upstreamGraphCache.put(pipelineName, counter, upstreamGraph);
+        }
+        upstreamGraph.addTo(valueStreamMap);
 
         if (valueStreamMap.hasCycle()) {
             result.notImplemented("Value Stream Map of Pipeline '" + pipelineName + "' with counter '" + counter + "' can not be rendered. Changes to the configuration have introduced complex dependencies for this instance which are not supported currently.");
@@ -211,30 +228,61 @@ public class ValueStreamMapService {
         }
     }
 
-    private void traverseUpstream(CaseInsensitiveString pipelineName, BuildCause buildCause, ValueStreamMap graph, List<MaterialRevision> visitedNodes) {
+    /* Loads the build causes of all the upstream pipeline instances, a level of the graph at a time, so that walking it takes a query per level rather than per instance. */
+    private Map<String, BuildCause> buildCausesUpstreamOf(BuildCause buildCause) {
+        Map<String, BuildCause> buildCauses = new HashMap<>();
+        List<BuildCause> level = List.of(buildCause);
+        while (!level.isEmpty()) {
+            Map<String, PipelineIdentifier> upstreamInstances = new LinkedHashMap<>();
+            for (BuildCause cause : level) {
+                for (MaterialRevision materialRevision : cause.getMaterialRevisions()) {
+                    if (materialRevision.getMaterial() instanceof DependencyMaterial) {
+                        CaseInsensitiveString upstreamPipeline = ((DependencyMaterial) materialRevision.getMaterial()).getPipelineName();
+                        DependencyMaterialRevision dmrOfUpstreamPipeline = cause.getMaterialRevisions().findDependencyMaterialRevision(upstreamPipeline.toString());
+                        String key = upstreamInstanceKey(dmrOfUpstreamPipeline);
+                        if (!buildCauses.containsKey(key)) {
+                            upstreamInstances.put(key, new PipelineIdentifier(dmrOfUpstreamPipeline.getPipelineName(), dmrOfUpstreamPipeline.getPipelineCounter()));
+                        }
+                    }
+                }
+            }
+            List<BuildCause> upstreamBuildCauses = pipelineService.buildCausesFor(new ArrayList<>(upstreamInstances.values()));
+            int i = 0;
+            for (String key : upstreamInstances.keySet()) {
+                buildCauses.put(key, upstreamBuildCauses.get(i++));
+            }
+            level = upstreamBuildCauses;
+        }
+        return buildCauses;
+    }
+
+    private void traverseUpstream(CaseInsensitiveString pipelineName, BuildCause buildCause, UpstreamGraph graph, List<MaterialRevision> visitedNodes, Map<String, BuildCause> upstreamBuildCauses) {
         for (MaterialRevision materialRevision : buildCause.getMaterialRevisions()) {
             Material material = materialRevision.getMaterial();
             if (material instanceof DependencyMaterial) {
                 CaseInsensitiveString upstreamPipeline = ((DependencyMaterial) material).getPipelineName();
                 DependencyMaterialRevision revision = (DependencyMaterialRevision) materialRevision.getRevision();
 
-                graph.addUpstreamNode(new PipelineDependencyNode(upstreamPipeline, upstreamPipeline.toString()), new PipelineRevision(revision.getPipelineName(), revision.getPipelineCounter(), revision.getPipelineLabel()),
-                        pipelineName);
+                graph.addUpstreamPipeline(upstreamPipeline, revision.getPipelineName(), revision.getPipelineCounter(), revision.getPipelineLabel(), pipelineName);
 
                 if (visitedNodes.contains(materialRevision)) {
                     continue;
                 }
                 visitedNodes.add(materialRevision);
                 DependencyMaterialRevision dmrOfUpstreamPipeline = buildCause.getMaterialRevisions().findDependencyMaterialRevision(upstreamPipeline.toString());
-                BuildCause buildCauseForUpstreamPipeline = pipelineService.buildCauseFor(dmrOfUpstreamPipeline.getPipelineName(), dmrOfUpstreamPipeline.getPipelineCounter());
-                traverseUpstream(upstreamPipeline, buildCauseForUpstreamPipeline, graph, visitedNodes);
+                BuildCause buildCauseForUpstreamPipeline = upstreamBuildCauses.get(upstreamInstanceKey(dmrOfUpstreamPipeline));
+                traverseUpstream(upstreamPipeline, buildCauseForUpstreamPipeline, graph, visitedNodes, upstreamBuildCauses);
             } else {
-                graph.addUpstreamMaterialNode(new SCMDependencyNode(material.getFingerprint(), material.getUriForDisplay(), materialRevision.getMaterialType()), material.getName(),
+                graph.addUpstreamMaterial(material.getFingerprint(), material.getUriForDisplay(), materialRevision.getMaterialType(), material.getName(),
                         pipelineName, materialRevision);
             }
         }
     }
 
+    private static String upstreamInstanceKey(DependencyMaterialRevision revision) {
+        return revision.getPipelineName().toLowerCase() + "/" + revision.getPipelineCounter();
+    }
+
     private void traverseDownstream(CaseInsensitiveString upstreamPipelineName, Map<CaseInsensitiveString, List<PipelineConfig>> pipelineToDownstreamMap, ValueStreamMap graph, List<PipelineConfig> visitedNodes) {
         List<PipelineConfig> downstreamPipelines = pipelineToDownstreamMap.get(upstreamPipelineName);
         traverseDownstream(upstreamPipelineName, downstreamPipelines, pipelineToDownstreamMap, graph, visitedNodes);
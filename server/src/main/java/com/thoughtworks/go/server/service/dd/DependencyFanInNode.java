@@ -21,7 +21,6 @@ import com.thoughtworks.go.domain.PipelineTimelineEntry;
 import com.thoughtworks.go.domain.StageIdentifier;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
 import com.thoughtworks.go.domain.materials.dependency.DependencyMaterialRevision;
-import com.thoughtworks.go.server.domain.PipelineTimeline;
 import com.thoughtworks.go.server.service.NoCompatibleUpstreamRevisionsException;
 import com.thoughtworks.go.util.Pair;
 import org.apache.commons.collections4.CollectionUtils;
@@ -29,7 +28,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static com.thoughtworks.go.server.service.dd.DependencyFanInNode.RevisionAlteration.*;
 
@@ -101,6 +99,9 @@ public class DependencyFanInNode extends FanInNode {
     public void initialize(FanInGraphContext context) {
         totalInstanceCount = context.pipelineTimeline.instanceCount(((DependencyMaterialConfig) materialConfig).getPipelineName());
         maxBackTrackLimit = context.maxBackTrackLimit;
+        currentCount = 0;
+        currentRevision = null;
+        stageIdentifierScmMaterial = new LinkedHashMap<>();
     }
 
     public PipelineTimelineEntry latestPipelineTimelineEntry(FanInGraphContext context) {
@@ -132,28 +133,54 @@ public class DependencyFanInNode extends FanInNode {
     }
 
     private Pair<StageIdentifier, List<FaninScmMaterial>> getRevisionNthFor(int n, FanInGraphContext context) {
-        List<FaninScmMaterial> scmMaterials = new ArrayList<>();
-        PipelineTimeline pipelineTimeline = context.pipelineTimeline;
-        Queue<PipelineTimelineEntry.Revision> revisionQueue = new ConcurrentLinkedQueue<>();
         DependencyMaterialConfig dependencyMaterial = (DependencyMaterialConfig) materialConfig;
-        PipelineTimelineEntry entry = pipelineTimeline.instanceFor(dependencyMaterial.getPipelineName(), totalInstanceCount - n);
-
-        Set<CaseInsensitiveString> visitedNodes = new HashSet<>();
+        PipelineTimelineEntry entry = context.pipelineTimeline.instanceFor(dependencyMaterial.getPipelineName(), totalInstanceCount - n);
 
         StageIdentifier dependentStageIdentifier = dependentStageIdentifier(context, entry, CaseInsensitiveString.str(dependencyMaterial.getStageName()));
-        if (!StageIdentifier.NULL.equals(dependentStageIdentifier)) {
-            addToRevisionQueue(entry, revisionQueue, scmMaterials, context, visitedNodes);
-        } else {
+        if (StageIdentifier.NULL.equals(dependentStageIdentifier)) {
             return null;
         }
-        while (!revisionQueue.isEmpty()) {
-            PipelineTimelineEntry.Revision revision = revisionQueue.poll();
-            DependencyMaterialRevision dmr = DependencyMaterialRevision.create(revision.revision, null);
-            PipelineTimelineEntry pte = pipelineTimeline.getEntryFor(new CaseInsensitiveString(dmr.getPipelineName()), dmr.getPipelineCounter());
-            addToRevisionQueue(pte, revisionQueue, scmMaterials, context, visitedNodes);
+
+        return new Pair<>(dependentStageIdentifier, scmMaterialsReachableFrom(entry, context));
+    }
+
+    /*
+     * The SCM revisions reachable from an upstream instance never change, and sibling nodes of a diamond reach the same
+     * upstream instances. So these are remembered for as long as the graph lives, rather than walked again for every
+     * child and every scheduling attempt. Each distinct revision of a material is kept, so that instances built from
+     * different revisions of the same material are still told apart.
+     */
+    private List<FaninScmMaterial> scmMaterialsReachableFrom(PipelineTimelineEntry entry, FanInGraphContext context) {
+        String key = entry.getPipelineName() + "/" + entry.getCounter() + "/" + entry.getId();
+        List<FaninScmMaterial> scmMaterials = context.scmMaterialsByUpstreamInstance.get(key);
+        if (scmMaterials != null) {
+            return scmMaterials;
+        }
+
+        Map<String, Set<PipelineTimelineEntry.Revision>> revisionsByFingerprint = new LinkedHashMap<>();
+        for (Map.Entry<String, List<PipelineTimelineEntry.Revision>> revisionList : entry.revisions().entrySet()) {
+            String fingerprint = revisionList.getKey();
+            PipelineTimelineEntry.Revision revision = revisionList.getValue().get(0);
+            if (isScmMaterial(fingerprint, context)) {
+                revisionsByFingerprint.computeIfAbsent(fingerprint, f -> new LinkedHashSet<>()).add(revision);
+            } else if (isDependencyMaterial(fingerprint, context)) {
+                DependencyMaterialRevision dmr = DependencyMaterialRevision.create(revision.revision, null);
+                PipelineTimelineEntry upstreamEntry = context.pipelineTimeline.getEntryFor(new CaseInsensitiveString(dmr.getPipelineName()), dmr.getPipelineCounter());
+                for (FaninScmMaterial upstreamScmMaterial : scmMaterialsReachableFrom(upstreamEntry, context)) {
+                    revisionsByFingerprint.computeIfAbsent(upstreamScmMaterial.fingerprint, f -> new LinkedHashSet<>()).add(upstreamScmMaterial.revision);
+                }
+            }
         }
 
-        return new Pair<>(dependentStageIdentifier, scmMaterials);
+        scmMaterials = new ArrayList<>();
+        for (Map.Entry<String, Set<PipelineTimelineEntry.Revision>> revisions : revisionsByFingerprint.entrySet()) {
+            for (PipelineTimelineEntry.Revision revision : revisions.getValue()) {
+                scmMaterials.add(new FaninScmMaterial(revisions.getKey(), revision));
+            }
+        }
+        scmMaterials = Collections.unmodifiableList(scmMaterials);
+        context.scmMaterialsByUpstreamInstance.put(key, scmMaterials);
+        return scmMaterials;
     }
 
     private boolean validateAllScmRevisionsAreSameWithinAFingerprint(Pair<StageIdentifier, List<FaninScmMaterial>> pIdScmPair) {
@@ -203,23 +230,6 @@ public class DependencyFanInNode extends FanInNode {
         return context.pipelineDao.latestPassedStageIdentifier(entry.getId(), stageName);
     }
 
-    private void addToRevisionQueue(PipelineTimelineEntry entry, Queue<PipelineTimelineEntry.Revision> revisionQueue, List<FaninScmMaterial> scmMaterials,
-                                    FanInGraphContext context, Set<CaseInsensitiveString> visitedNodes) {
-        for (Map.Entry<String, List<PipelineTimelineEntry.Revision>> revisionList : entry.revisions().entrySet()) {
-            String fingerprint = revisionList.getKey();
-            PipelineTimelineEntry.Revision revision = revisionList.getValue().get(0);
-            if (isScmMaterial(fingerprint, context)) {
-                scmMaterials.add(new FaninScmMaterial(fingerprint, revision));
-                continue;
-            }
-
-            if (isDependencyMaterial(fingerprint, context) && !visitedNodes.contains(new CaseInsensitiveString(revision.revision))) {
-                revisionQueue.add(revision);
-                visitedNodes.add(new CaseInsensitiveString(revision.revision));
-            }
-        }
-    }
-
     private boolean isDependencyMaterial(String fingerprint, FanInGraphContext context) {
         return context.fingerprintDepMaterialMap.containsKey(fingerprint);
     }
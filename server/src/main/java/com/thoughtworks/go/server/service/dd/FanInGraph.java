@@ -45,6 +45,7 @@ import static com.thoughtworks.go.server.service.dd.DependencyFanInNode.Revision
 
 public class FanInGraph {
     private static final int REVISION_BUFFER_SIZE = 5;
+    private static final int MAX_REMEMBERED_UPSTREAM_INSTANCES = 10000;
 
     private final PipelineDao pipelineDao;
     private final CruiseConfig cruiseConfig;
@@ -55,6 +56,8 @@ public class FanInGraph {
     private final Map<String, MaterialConfig> fingerprintScmMaterialMap = new HashMap<>();
     private final Map<String, DependencyMaterialConfig> fingerprintDepMaterialMap = new HashMap<>();
     private final Map<DependencyMaterialConfig, Set<String>> dependencyMaterialFingerprintMap = new HashMap<>();
+    private final Map<DependencyMaterialConfig, Set<MaterialConfig>> pipelineScmDepMap;
+    private final Map<String, List<FaninScmMaterial>> scmMaterialsByUpstreamInstance = new HashMap<>();
 
     private final DependencyFanInNode root;
     private final CaseInsensitiveString pipelineName;
@@ -74,6 +77,7 @@ public class FanInGraph {
         this.root = (DependencyFanInNode) FanInNodeFactory.create(new DependencyMaterialConfig(target.name(), target.get(0).name()));
 
         buildGraph(target);
+        this.pipelineScmDepMap = getPipelineScmDepMap();
     }
 
     private void buildGraph(PipelineConfig target) {
@@ -156,7 +160,8 @@ public class FanInGraph {
         return dependencyMaterialListMap;
     }
 
-    public MaterialRevisions computeRevisions(MaterialRevisions actualRevisions, PipelineTimeline pipelineTimeline) {
+    /* Synchronized, since a graph can be reused across scheduling attempts and its nodes hold the state of a computation. */
+    public synchronized MaterialRevisions computeRevisions(MaterialRevisions actualRevisions, PipelineTimeline pipelineTimeline) {
         assertAllDirectDependenciesArePresentInInput(actualRevisions, pipelineName);
 
         Pair<List<RootFanInNode>, List<DependencyFanInNode>> scmAndDepMaterialsChildren = getScmAndDepMaterialsChildren();
@@ -192,7 +197,7 @@ public class FanInGraph {
     //Ramraj ge salute
     //Srikant & Sachin
     @Deprecated
-    public Collection<MaterialRevision> computeRevisionsForReporting(CaseInsensitiveString pipelineName, PipelineTimeline pipelineTimeline) {
+    public synchronized Collection<MaterialRevision> computeRevisionsForReporting(CaseInsensitiveString pipelineName, PipelineTimeline pipelineTimeline) {
         Pair<List<RootFanInNode>, List<DependencyFanInNode>> scmAndDepMaterialsChildren = getScmAndDepMaterialsChildren();
         List<RootFanInNode> scmChildren = scmAndDepMaterialsChildren.first();
         List<DependencyFanInNode> depChildren = scmAndDepMaterialsChildren.last();
@@ -384,10 +389,14 @@ public class FanInGraph {
         context.revBatchCount = REVISION_BUFFER_SIZE;
         context.pipelineTimeline = pipelineTimeline;
         context.fingerprintScmMaterialMap = fingerprintScmMaterialMap;
-        context.pipelineScmDepMap = getPipelineScmDepMap();
+        context.pipelineScmDepMap = pipelineScmDepMap;
         context.fingerprintDepMaterialMap = fingerprintDepMaterialMap;
         context.pipelineDao = pipelineDao;
         context.maxBackTrackLimit = systemEnvironment.get(SystemEnvironment.RESOLVE_FANIN_MAX_BACK_TRACK_LIMIT);
+        if (scmMaterialsByUpstreamInstance.size() > MAX_REMEMBERED_UPSTREAM_INSTANCES) {
+            scmMaterialsByUpstreamInstance.clear();
+        }
+        context.scmMaterialsByUpstreamInstance = scmMaterialsByUpstreamInstance;
         return context;
     }
 
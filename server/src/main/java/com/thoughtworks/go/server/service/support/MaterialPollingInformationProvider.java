@@ -0,0 +1,57 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service.support;
+
+import com.thoughtworks.go.domain.materials.Material;
+import com.thoughtworks.go.server.materials.SCMMaterialSource;
+import com.thoughtworks.go.util.DateUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Component
+public class MaterialPollingInformationProvider implements ServerInfoProvider {
+    private final SCMMaterialSource scmMaterialSource;
+
+    @Autowired
+    public MaterialPollingInformationProvider(SCMMaterialSource scmMaterialSource) {
+        this.scmMaterialSource = scmMaterialSource;
+    }
+
+    @Override
+    public double priority() {
+        return 7.8;
+    }
+
+    @Override
+    public Map<String, Object> asJson() {
+        Map<String, Object> json = new TreeMap<>();
+        for (Map.Entry<Material, Date> entry : scmMaterialSource.nextPollTimes().entrySet()) {
+            Material material = entry.getKey();
+            json.put(material.getUriForDisplay() + " [" + material.getFingerprint() + "]",
+                    entry.getValue() == null ? "Not polled yet" : DateUtils.formatISO8601(entry.getValue()));
+        }
+        return json;
+    }
+
+    @Override
+    public String name() {
+        return "Material Next Poll Times";
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service.support;
+
+import com.thoughtworks.go.server.service.TimerScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+public class TimerTriggerInformationProvider implements ServerInfoProvider {
+    private final TimerScheduler timerScheduler;
+
+    @Autowired
+    public TimerTriggerInformationProvider(TimerScheduler timerScheduler) {
+        this.timerScheduler = timerScheduler;
+    }
+
+    @Override
+    public double priority() {
+        return 7.95;
+    }
+
+    @Override
+    public Map<String, Object> asJson() {
+        return timerScheduler.statistics();
+    }
+
+    @Override
+    public String name() {
+        return "Timer Triggers";
+    }
+}
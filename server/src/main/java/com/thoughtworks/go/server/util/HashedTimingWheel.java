@@ -0,0 +1,210 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.thoughtworks.go.util.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @understands running tasks once their deadline has passed, so that scheduling and cancelling a task takes constant time
+ * <p>
+ * Deadlines are rounded up to the next tick, and hashed onto a fixed number of buckets by that tick. Every tick, the
+ * worker only looks at the tasks in one bucket; a task that is due a whole number of turns of the wheel later stays
+ * in its bucket until then. Tasks run on the worker thread, so they are expected to hand any real work off quickly.
+ */
+public class HashedTimingWheel {
+    private static final Logger LOG = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private final String name;
+    private final long tickMillis;
+    private final Clock clock;
+    private final long startedAt;
+    private final Bucket[] buckets;
+    private final int mask;
+    private long nextTick = 0;
+    private int pending = 0;
+    private volatile Thread worker;
+
+    public HashedTimingWheel(String name, long tickMillis, int ticksPerWheel, Clock clock) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive, but was " + tickMillis);
+        }
+        this.name = name;
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.startedAt = clock.currentTimeMillis();
+        this.buckets = new Bucket[Integer.highestOneBit(Math.max(ticksPerWheel - 1, 1)) << 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = buckets.length - 1;
+    }
+
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new ThreadFactoryBuilder().setNameFormat(name).setDaemon(true).build().newThread(this::run);
+        worker.start();
+    }
+
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    /* A deadline that has already passed runs the task on the next tick. */
+    public synchronized Handle schedule(Runnable task, long deadlineMillis) {
+        long elapsed = deadlineMillis - startedAt;
+        long tick = Math.max(Math.floorDiv(elapsed + tickMillis - 1, tickMillis), nextTick);
+        Handle handle = new Handle(task, deadlineMillis, tick);
+        buckets[(int) (tick & mask)].add(handle);
+        pending++;
+        return handle;
+    }
+
+    public synchronized int pending() {
+        return pending;
+    }
+
+    /* Runs the tasks due by the given time. The worker calls this once every tick. */
+    public void advanceTo(long nowMillis) {
+        for (Handle handle : expireUpTo(Math.floorDiv(nowMillis - startedAt, tickMillis))) {
+            try {
+                handle.task.run();
+            } catch (Exception e) {
+                LOG.error("Task scheduled on timing wheel {} for {} failed", name, handle.deadlineMillis, e);
+            }
+        }
+    }
+
+    private synchronized List<Handle> expireUpTo(long currentTick) {
+        List<Handle> expired = new ArrayList<>();
+        // Having fallen a whole turn behind, every bucket is visited once.
+        long lastTick = Math.min(currentTick, nextTick + mask);
+        for (long tick = nextTick; tick <= lastTick; tick++) {
+            buckets[(int) (tick & mask)].expireUpTo(currentTick, expired);
+        }
+        nextTick = Math.max(nextTick, currentTick + 1);
+        pending -= expired.size();
+        return expired;
+    }
+
+    private synchronized long nextTickAt() {
+        return startedAt + nextTick * tickMillis;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                long sleepMillis = nextTickAt() - clock.currentTimeMillis();
+                if (sleepMillis > 0) {
+                    Thread.sleep(sleepMillis);
+                }
+                advanceTo(clock.currentTimeMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOG.error("Timing wheel {} failed to advance", name, e);
+            }
+        }
+    }
+
+    private synchronized boolean cancel(Handle handle) {
+        if (handle.bucket == null) {
+            return false;
+        }
+        handle.bucket.remove(handle);
+        pending--;
+        return true;
+    }
+
+    public class Handle {
+        private final Runnable task;
+        private final long deadlineMillis;
+        private final long tick;
+        private Bucket bucket;
+        private Handle previous;
+        private Handle next;
+
+        private Handle(Runnable task, long deadlineMillis, long tick) {
+            this.task = task;
+            this.deadlineMillis = deadlineMillis;
+            this.tick = tick;
+        }
+
+        public long deadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /* Returns false once the task has already been run or cancelled. */
+        public boolean cancel() {
+            return HashedTimingWheel.this.cancel(this);
+        }
+    }
+
+    /* A doubly linked list, so that a cancelled task can unlink itself. Always guarded by the wheel. */
+    private static class Bucket {
+        private Handle head;
+        private Handle tail;
+
+        void add(Handle handle) {
+            handle.bucket = this;
+            handle.previous = tail;
+            if (tail == null) {
+                head = handle;
+            } else {
+                tail.next = handle;
+            }
+            tail = handle;
+        }
+
+        void remove(Handle handle) {
+            if (handle.previous == null) {
+                head = handle.next;
+            } else {
+                handle.previous.next = handle.next;
+            }
+            if (handle.next == null) {
+                tail = handle.previous;
+            } else {
+                handle.next.previous = handle.previous;
+            }
+            handle.bucket = null;
+            handle.previous = null;
+            handle.next = null;
+        }
+
+        void expireUpTo(long currentTick, List<Handle> expired) {
+            Handle handle = head;
+            while (handle != null) {
+                Handle next = handle.next;
+                if (handle.tick <= currentTick) {
+                    remove(handle);
+                    expired.add(handle);
+                }
+                handle = next;
+            }
+        }
+    }
+}
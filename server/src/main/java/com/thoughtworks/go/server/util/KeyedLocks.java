@@ -0,0 +1,188 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.util;
+
+import com.google.common.collect.MapMaker;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @understands mutual exclusion per key, in place of synchronizing on interned strings
+ * <p>
+ * Equal keys always share one lock, whichever family acquires it, so code that used to synchronize on the same
+ * interned string still excludes each other. A family only groups the contention and hold time statistics of the
+ * code acquiring locks through it. Locks are held weakly, and are dropped once nobody holds or waits for them.
+ * <pre>
+ * try (KeyedLocks.Held ignored = LOCKS.lock(key)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public class KeyedLocks {
+    private static final ConcurrentMap<String, ReentrantLock> LOCKS = new MapMaker().weakValues().makeMap();
+    private static final ConcurrentMap<String, Family> FAMILIES = new ConcurrentHashMap<>();
+
+    private KeyedLocks() {
+    }
+
+    public static Family family(String name) {
+        return FAMILIES.computeIfAbsent(name, Family::new);
+    }
+
+    public static Map<String, Map<String, Object>> statistics() {
+        Map<String, Map<String, Object>> statistics = new TreeMap<>();
+        FAMILIES.forEach((name, family) -> statistics.put(name, family.statistics()));
+        return statistics;
+    }
+
+    private static ReentrantLock lockFor(String key) {
+        return LOCKS.computeIfAbsent(key, k -> new ReentrantLock());
+    }
+
+    public static class Family {
+        private final String name;
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contendedAcquisitions = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder totalHoldNanos = new LongAdder();
+        private final LongAccumulator maxHoldNanos = new LongAccumulator(Math::max, 0);
+
+        private Family(String name) {
+            this.name = name;
+        }
+
+        public Held lock(String key) {
+            ReentrantLock lock = lockFor(key);
+            if (!lock.tryLock()) {
+                long waitStartedAt = System.nanoTime();
+                lock.lock();
+                waited(System.nanoTime() - waitStartedAt);
+            }
+            return acquired(lock);
+        }
+
+        /* Takes the locks of all the keys in key order, so that callers locking overlapping keys cannot deadlock. */
+        public HeldAll lockAll(Collection<String> keys) {
+            HeldAll heldAll = new HeldAll();
+            try {
+                for (String key : new TreeSet<>(keys)) {
+                    heldAll.held.push(lock(key));
+                }
+            } catch (RuntimeException | Error e) {
+                heldAll.close();
+                throw e;
+            }
+            return heldAll;
+        }
+
+        /* Gives up, and returns nothing, when the lock could not be acquired within the timeout. */
+        public Optional<Held> tryLock(String key, long timeout, TimeUnit unit) throws InterruptedException {
+            ReentrantLock lock = lockFor(key);
+            if (!lock.tryLock()) {
+                long waitStartedAt = System.nanoTime();
+                boolean locked = lock.tryLock(timeout, unit);
+                waited(System.nanoTime() - waitStartedAt);
+                if (!locked) {
+                    timeouts.increment();
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(acquired(lock));
+        }
+
+        private void waited(long waitNanos) {
+            contendedAcquisitions.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulate(waitNanos);
+        }
+
+        private Held acquired(ReentrantLock lock) {
+            acquisitions.increment();
+            return new Held(this, lock);
+        }
+
+        private void released(long holdNanos) {
+            totalHoldNanos.add(holdNanos);
+            maxHoldNanos.accumulate(holdNanos);
+        }
+
+        Map<String, Object> statistics() {
+            long acquired = acquisitions.sum();
+            long contended = contendedAcquisitions.sum();
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("Acquisitions", acquired);
+            statistics.put("Contended acquisitions", contended);
+            statistics.put("Timeouts", timeouts.sum());
+            statistics.put("Average wait when contended (ms)", contended == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / contended));
+            statistics.put("Max wait (ms)", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+            statistics.put("Average hold (ms)", acquired == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalHoldNanos.sum() / acquired));
+            statistics.put("Max hold (ms)", TimeUnit.NANOSECONDS.toMillis(maxHoldNanos.get()));
+            return statistics;
+        }
+
+        @Override
+        public String toString() {
+            return "KeyedLocks.Family{" + name + "}";
+        }
+    }
+
+    public static class Held implements AutoCloseable {
+        private final Family family;
+        private final ReentrantLock lock;
+        private final long acquiredAt = System.nanoTime();
+
+        private Held(Family family, ReentrantLock lock) {
+            this.family = family;
+            this.lock = lock;
+        }
+
+        @Override
+        public void close() {
+            long holdNanos = System.nanoTime() - acquiredAt;
+            lock.unlock();
+            family.released(holdNanos);
+        }
+    }
+
+    public static class HeldAll implements AutoCloseable {
+        private final Deque<Held> held = new ArrayDeque<>();
+
+        private HeldAll() {
+        }
+
+        @Override
+        public void close() {
+            while (!held.isEmpty()) {
+                held.pop().close();
+            }
+        }
+    }
+}
@@ -25,9 +25,7 @@ import com.thoughtworks.go.server.dao.PipelineDao;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 @Component
 public class DownstreamInstancePopulator {
@@ -41,7 +39,9 @@ public class DownstreamInstancePopulator {
 	public void apply(ValueStreamMap valueStreamMap) {
 		if (valueStreamMap.getCurrentPipeline() != null) {
 			Node currentPipeline = valueStreamMap.getCurrentPipeline();
-			populateRevisionsForAllChildrenOf(currentPipeline, new HashSet<>());
+			Map<Node, List<PipelineIdentifier>> instances = new LinkedHashMap<>();
+			instances.put(currentPipeline, pipelineIdentifiersOf(currentPipeline));
+			populateRevisionsForAllChildrenOf(currentPipeline, new HashSet<>(), findInstancesDownstreamOf(instances));
 		} else {
 			Node currentMaterial = valueStreamMap.getCurrentMaterial();
 			MaterialInstance currentMaterialInstance = valueStreamMap.getCurrentMaterialInstance();
@@ -51,26 +51,80 @@ public class DownstreamInstancePopulator {
 
 	private void populateRevisionsFor(Node currentMaterial, MaterialInstance currentMaterialInstance, HashSet<Revision> visitedRevisions) {
 		String revision = currentMaterial.revisions().get(0).getRevisionString();
-		List<Node> downstreamPipelines = currentMaterial.getChildren();
-		for (Node downstreamPipeline : downstreamPipelines) {
-			List<PipelineIdentifier> pipelineIdentifiers = pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial(downstreamPipeline.getName(), currentMaterialInstance, revision);
-			addRevisionsToNode(downstreamPipeline, pipelineIdentifiers);
-			populateRevisionsForAllChildrenOf(downstreamPipeline, visitedRevisions);
+		Map<Node, List<PipelineIdentifier>> instances = new LinkedHashMap<>();
+		for (Node downstreamPipeline : currentMaterial.getChildren()) {
+			instances.put(downstreamPipeline, pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial(downstreamPipeline.getName(), currentMaterialInstance, revision));
 		}
+		Map<String, List<PipelineIdentifier>> downstreamInstances = findInstancesDownstreamOf(instances);
+		instances.forEach((downstreamPipeline, pipelineIdentifiers) -> {
+			addRevisionsToNode(downstreamPipeline, pipelineIdentifiers);
+			populateRevisionsForAllChildrenOf(downstreamPipeline, visitedRevisions, downstreamInstances);
+		});
 	}
 
-    private void populateRevisionsForAllChildrenOf(Node node, Set<Revision> visitedRevisions) {
+    private void populateRevisionsForAllChildrenOf(Node node, Set<Revision> visitedRevisions, Map<String, List<PipelineIdentifier>> downstreamInstances) {
         for (Revision revision : node.revisions()) {
             if (visitedRevisions.contains(revision)) {
                 continue;
             }
             visitedRevisions.add(revision);
             for (Node child : node.getChildren()) {
-                List<PipelineIdentifier> pipelineIdentifiers = pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial(child.getName(), ((PipelineRevision) revision).getPipelineIdentifier());
+                PipelineIdentifier pipelineIdentifier = ((PipelineRevision) revision).getPipelineIdentifier();
+                List<PipelineIdentifier> pipelineIdentifiers = downstreamInstances.get(downstreamInstanceKey(child, pipelineIdentifier));
+                if (pipelineIdentifiers == null) {
+                    pipelineIdentifiers = pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial(child.getName(), pipelineIdentifier);
+                }
 				addRevisionsToNode(child, pipelineIdentifiers);
-                populateRevisionsForAllChildrenOf(child, visitedRevisions);
+                populateRevisionsForAllChildrenOf(child, visitedRevisions, downstreamInstances);
+            }
+        }
+    }
+
+    /* Looks up the instances triggered by all the instances of a level of the graph together, rather than one instance at a time. */
+    private Map<String, List<PipelineIdentifier>> findInstancesDownstreamOf(Map<Node, List<PipelineIdentifier>> instancesOfLevel) {
+        Map<String, List<PipelineIdentifier>> downstreamInstances = new HashMap<>();
+        while (!instancesOfLevel.isEmpty()) {
+            List<Node> children = new ArrayList<>();
+            List<String> pipelineNames = new ArrayList<>();
+            List<PipelineIdentifier> upstreamInstances = new ArrayList<>();
+            Set<String> lookedUp = new HashSet<>();
+            instancesOfLevel.forEach((node, instances) -> {
+                for (PipelineIdentifier instance : instances) {
+                    for (Node child : node.getChildren()) {
+                        String key = downstreamInstanceKey(child, instance);
+                        if (!downstreamInstances.containsKey(key) && lookedUp.add(key)) {
+                            children.add(child);
+                            pipelineNames.add(child.getName());
+                            upstreamInstances.add(instance);
+                        }
+                    }
+                }
+            });
+            if (children.isEmpty()) {
+                break;
+            }
+
+            List<List<PipelineIdentifier>> found = pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterials(pipelineNames, upstreamInstances);
+            Map<Node, List<PipelineIdentifier>> instancesOfNextLevel = new LinkedHashMap<>();
+            for (int i = 0; i < children.size(); i++) {
+                downstreamInstances.put(downstreamInstanceKey(children.get(i), upstreamInstances.get(i)), found.get(i));
+                instancesOfNextLevel.computeIfAbsent(children.get(i), child -> new ArrayList<>()).addAll(found.get(i));
             }
+            instancesOfLevel = instancesOfNextLevel;
         }
+        return downstreamInstances;
+    }
+
+    private static List<PipelineIdentifier> pipelineIdentifiersOf(Node node) {
+        List<PipelineIdentifier> pipelineIdentifiers = new ArrayList<>();
+        for (Revision revision : node.revisions()) {
+            pipelineIdentifiers.add(((PipelineRevision) revision).getPipelineIdentifier());
+        }
+        return pipelineIdentifiers;
+    }
+
+    private static String downstreamInstanceKey(Node child, PipelineIdentifier upstreamInstance) {
+        return child.getName().toLowerCase() + "<-" + upstreamInstance.getName().toLowerCase() + "/" + upstreamInstance.getCounter();
     }
 
 	private void addRevisionsToNode(Node node, List<PipelineIdentifier> pipelineIdentifiers) {
@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.valuestreammap;
 
+import com.thoughtworks.go.domain.PipelineIdentifier;
 import com.thoughtworks.go.domain.Stages;
 import com.thoughtworks.go.domain.valuestreammap.Node;
 import com.thoughtworks.go.domain.valuestreammap.ValueStreamMap;
@@ -24,6 +25,10 @@ import com.thoughtworks.go.server.dao.StageDao;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Component
 public class RunStagesPopulator {
     private final StageDao stageDao;
@@ -34,19 +39,19 @@ public class RunStagesPopulator {
     }
 
     public void apply(ValueStreamMap graph) {
+        List<PipelineRevision> pipelineRevisions = new ArrayList<>();
         for (Node node : graph.allNodes()) {
             for (Revision revision : node.revisions()) {
                 if (revision instanceof PipelineRevision) {
-                    PipelineRevision pipelineRevision = (PipelineRevision) revision;
-                    Stages latestStages = latestRunStagesForRevsion(pipelineRevision);
-                    pipelineRevision.addStages(latestStages);
+                    pipelineRevisions.add((PipelineRevision) revision);
                 }
             }
         }
-    }
 
-    private Stages latestRunStagesForRevsion(PipelineRevision pipelineRevision) {
-        Stages allStages = stageDao.findAllStagesFor(pipelineRevision.getPipelineName(), pipelineRevision.getCounter());
-        return allStages.latestStagesInRunOrder();
+        List<PipelineIdentifier> pipelineInstances = pipelineRevisions.stream().map(PipelineRevision::getPipelineIdentifier).collect(Collectors.toList());
+        List<Stages> allStages = stageDao.findAllStagesFor(pipelineInstances);
+        for (int i = 0; i < pipelineRevisions.size(); i++) {
+            pipelineRevisions.get(i).addStages(allStages.get(i).latestStagesInRunOrder());
+        }
     }
 }
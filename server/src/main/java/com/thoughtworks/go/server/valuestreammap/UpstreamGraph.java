@@ -0,0 +1,51 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.valuestreammap;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.valuestreammap.PipelineDependencyNode;
+import com.thoughtworks.go.domain.valuestreammap.PipelineRevision;
+import com.thoughtworks.go.domain.valuestreammap.SCMDependencyNode;
+import com.thoughtworks.go.domain.valuestreammap.ValueStreamMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Understands the upstream dependencies of a pipeline instance, found by walking its build cause. Nodes of a
+ * {@link ValueStreamMap} are changed while it is being drawn, so this remembers how the upstream part was built
+ * rather than the nodes themselves, and adds fresh nodes to every value stream map it is added to.
+ */
+public class UpstreamGraph {
+    private final List<Consumer<ValueStreamMap>> steps = new ArrayList<>();
+
+    public void addUpstreamPipeline(CaseInsensitiveString upstreamPipeline, String pipelineName, Integer pipelineCounter, String pipelineLabel, CaseInsensitiveString dependentNodeId) {
+        steps.add(graph -> graph.addUpstreamNode(new PipelineDependencyNode(upstreamPipeline, upstreamPipeline.toString()),
+                new PipelineRevision(pipelineName, pipelineCounter, pipelineLabel), dependentNodeId));
+    }
+
+    public void addUpstreamMaterial(String fingerprint, String uriForDisplay, String materialType, CaseInsensitiveString materialName,
+                                    CaseInsensitiveString dependentNodeId, MaterialRevision materialRevision) {
+        steps.add(graph -> graph.addUpstreamMaterialNode(new SCMDependencyNode(fingerprint, uriForDisplay, materialType), materialName,
+                dependentNodeId, materialRevision));
+    }
+
+    public void addTo(ValueStreamMap graph) {
+        steps.forEach(step -> step.accept(graph));
+    }
+}
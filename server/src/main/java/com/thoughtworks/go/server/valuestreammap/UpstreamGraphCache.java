@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.valuestreammap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.config.PipelineConfig;
+import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.server.service.GoConfigService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the {@link UpstreamGraph} of pipeline instances. The build cause of a pipeline instance never changes, so
+ * its upstream graph stays the same for as long as the config does. Everything is forgotten when the config changes.
+ */
+@Component
+public class UpstreamGraphCache implements ConfigChangedListener {
+    private static final int MAX_GRAPHS = 1000;
+
+    private final Cache<String, UpstreamGraph> graphs = CacheBuilder.newBuilder().maximumSize(MAX_GRAPHS).build();
+
+    @Autowired
+    public UpstreamGraphCache(GoConfigService goConfigService) {
+        goConfigService.register(this);
+        goConfigService.register(new EntityConfigChangedListener<PipelineConfig>() {
+            @Override
+            public void onEntityConfigChange(PipelineConfig entity) {
+                clear();
+            }
+        });
+    }
+
+    public UpstreamGraph get(CaseInsensitiveString pipelineName, int counter) {
+        return graphs.getIfPresent(key(pipelineName, counter));
+    }
+
+    public void put(CaseInsensitiveString pipelineName, int counter, UpstreamGraph upstreamGraph) {
+        graphs.put(key(pipelineName, counter), upstreamGraph);
+    }
+
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig) {
+        clear();
+    }
+
+    void clear() {
+        graphs.invalidateAll();
+    }
+
+    private String key(CaseInsensitiveString pipelineName, int counter) {
+        return pipelineName.toLower() + "/" + counter;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.websocket;
+
+import com.thoughtworks.go.server.dashboard.GoDashboardPipeline;
+import com.thoughtworks.go.server.domain.Username;
+
+import java.net.URI;
+
+/**
+ * Understands rendering a dashboard pipeline for a user exactly like the dashboard API does, so that a pushed update
+ * can replace the pipeline on the dashboard. Implemented next to the dashboard API representers.
+ */
+public interface DashboardPipelineRenderer {
+    String render(GoDashboardPipeline pipeline, Username username, URI baseUrl);
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.websocket;
+
+import com.thoughtworks.go.server.domain.Username;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketError;
+import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+/**
+ * A dashboard subscription. Stays open until the client goes away, and receives a message every time a pipeline
+ * visible to the user changes on the dashboard.
+ */
+@WebSocket
+public class DashboardSocket implements SocketEndpoint {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DashboardSocket.class);
+
+    private final Username username;
+    private final URI baseUrl;
+    private final DashboardUpdatesSender sender;
+    private final SocketHealthService socketHealthService;
+    private final String key;
+    private Session session;
+
+    DashboardSocket(Username username, URI baseUrl, DashboardUpdatesSender sender, SocketHealthService socketHealthService) {
+        this.username = username;
+        this.baseUrl = baseUrl;
+        this.sender = sender;
+        this.socketHealthService = socketHealthService;
+        this.key = String.format("dashboard:%s:%d", username.getUsername(), hashCode());
+    }
+
+    @OnWebSocketConnect
+    public void onConnect(Session session) {
+        this.session = session;
+        socketHealthService.register(this);
+        sender.subscribe(this);
+        LOGGER.debug("Session[{}:{}] subscribed to dashboard updates", session.getRemoteAddress(), key);
+    }
+
+    @OnWebSocketError
+    public void onError(Throwable error) {
+        LOGGER.error("Session[{}] closing dashboard subscription because an error was thrown", key, error);
+        try {
+            close(StatusCode.SERVER_ERROR, error.getMessage());
+        } finally {
+            unsubscribe();
+        }
+    }
+
+    @OnWebSocketClose
+    public void onClose(int status, String reason) {
+        unsubscribe();
+    }
+
+    public Username username() {
+        return username;
+    }
+
+    /* The server URL the dashboard connected through, which links in the pushed pipelines are built from. */
+    public URI baseUrl() {
+        return baseUrl;
+    }
+
+    public void sendAsync(String message) {
+        if (isOpen()) {
+            session.getRemote().sendStringByFuture(message);
+        }
+    }
+
+    @Override
+    public void send(ByteBuffer data) throws IOException {
+        session.getRemote().sendBytes(data);
+    }
+
+    @Override
+    public void ping() throws IOException {
+        session.getRemote().sendString(WebsocketMessages.PING);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return session != null && session.isOpen();
+    }
+
+    @Override
+    public void close() {
+        close(StatusCode.NORMAL, null);
+    }
+
+    @Override
+    public void close(int code, String reason) {
+        if (session != null) {
+            session.close(code, reason);
+        }
+    }
+
+    @Override
+    public String key() {
+        return key;
+    }
+
+    private void unsubscribe() {
+        sender.unsubscribe(this);
+        socketHealthService.deregister(this);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.websocket;
+
+import com.thoughtworks.go.server.newsecurity.utils.SessionUtils;
+import org.eclipse.jetty.websocket.servlet.ServletUpgradeRequest;
+import org.eclipse.jetty.websocket.servlet.ServletUpgradeResponse;
+import org.eclipse.jetty.websocket.servlet.WebSocketCreator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+@Component
+public class DashboardSocketCreator implements WebSocketCreator {
+    private final DashboardUpdatesSender sender;
+    private final SocketHealthService socketHealthService;
+
+    @Autowired
+    public DashboardSocketCreator(DashboardUpdatesSender sender, SocketHealthService socketHealthService) {
+        this.sender = sender;
+        this.socketHealthService = socketHealthService;
+    }
+
+    @Override
+    public Object createWebSocket(ServletUpgradeRequest req, ServletUpgradeResponse resp) {
+        // the upgrade happens on the request thread, so the user authenticated for this request is still available
+        return new DashboardSocket(SessionUtils.currentUsername(), baseUrl(req.getHttpServletRequest()), sender, socketHealthService);
+    }
+
+    private URI baseUrl(HttpServletRequest request) {
+        try {
+            return new URI(request.getScheme(), null, request.getServerName(), request.getServerPort(), request.getContextPath(), null, null);
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
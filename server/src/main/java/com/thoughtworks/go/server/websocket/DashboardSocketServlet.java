@@ -0,0 +1,73 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.websocket;
+
+import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.newsecurity.utils.SessionUtils;
+import com.thoughtworks.go.server.security.userdetail.GoUserPrinciple;
+import com.thoughtworks.go.server.service.SecurityService;
+import org.eclipse.jetty.websocket.servlet.WebSocketServlet;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.apache.http.HttpStatus.SC_UNAUTHORIZED;
+
+/**
+ * Handles upgrade request for dashboard WebSocket connections. Validates that the user is logged in when security is
+ * enabled. Permissions are checked per pipeline, for every update sent on the connection.
+ */
+public class DashboardSocketServlet extends WebSocketServlet {
+
+    private SecurityService securityService;
+    private DashboardSocketCreator socketCreator;
+
+    @Override
+    public void init() throws ServletException {
+        WebApplicationContext wac = WebApplicationContextUtils.getWebApplicationContext(getServletContext());
+
+        socketCreator = wac.getBean(DashboardSocketCreator.class);
+        securityService = wac.getBean(SecurityService.class);
+
+        super.init();
+    }
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        GoUserPrinciple currentUser = SessionUtils.getCurrentUser();
+
+        if (currentUser != null && authorizedToSubscribe(currentUser.asUsernameObject())) {
+            super.service(request, response);
+            return;
+        }
+
+        response.sendError(SC_UNAUTHORIZED, "You must be logged in to subscribe to dashboard updates");
+    }
+
+    boolean authorizedToSubscribe(Username username) {
+        return !securityService.isSecurityEnabled() || !username.isAnonymous();
+    }
+
+    @Override
+    public void configure(WebSocketServletFactory factory) {
+        factory.setCreator(socketCreator);
+    }
+}
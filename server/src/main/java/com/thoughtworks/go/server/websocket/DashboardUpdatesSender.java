@@ -0,0 +1,172 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.websocket;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.thoughtworks.go.server.dashboard.GoDashboardCache;
+import com.thoughtworks.go.server.dashboard.GoDashboardCacheListener;
+import com.thoughtworks.go.server.dashboard.GoDashboardPipeline;
+import com.thoughtworks.go.server.dashboard.GoDashboardPipelines;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Pushes changes in the dashboard cache to every subscribed {@link DashboardSocket}, so that dashboards do not need
+ * to poll for changes. A changed pipeline is sent in its dashboard API representation, rendered for the subscriber,
+ * and only to subscribers who can view it. When the whole cache is replaced (on a config change), subscribers are asked
+ * to reload the dashboard, since pipelines could have moved between groups.
+ * <p>
+ * Reloads are sent after a random delay per subscriber, so that a config change does not have every open dashboard
+ * refetch at the same moment. A subscriber with a reload pending gets no further reload, nor changed pipelines, since
+ * the reload fetches them anyway.
+ */
+@Component
+public class DashboardUpdatesSender implements GoDashboardCacheListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DashboardUpdatesSender.class);
+    private static final Gson GSON = new Gson();
+    static final String RELOAD = "{\"type\":\"reload\"}";
+    private static final long RELOAD_JITTER_MILLIS = 5000;
+
+    private final Set<DashboardSocket> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<DashboardSocket> pendingReloads = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService reloadScheduler;
+    private final long reloadJitterMillis;
+    private volatile DashboardPipelineRenderer renderer;
+
+    @Autowired
+    public DashboardUpdatesSender(GoDashboardCache goDashboardCache) {
+        this(goDashboardCache, Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("dashboard-reload-%d").setDaemon(true).build()), RELOAD_JITTER_MILLIS);
+    }
+
+    DashboardUpdatesSender(GoDashboardCache goDashboardCache, ScheduledExecutorService reloadScheduler, long reloadJitterMillis) {
+        this.reloadScheduler = reloadScheduler;
+        this.reloadJitterMillis = reloadJitterMillis;
+        goDashboardCache.addListener(this);
+    }
+
+    /* Registered by the dashboard API, which owns the representation. Until then, viewers are asked to reload instead. */
+    public void useRenderer(DashboardPipelineRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    public void subscribe(DashboardSocket socket) {
+        subscribers.add(socket);
+    }
+
+    public void unsubscribe(DashboardSocket socket) {
+        subscribers.remove(socket);
+        pendingReloads.remove(socket);
+    }
+
+    @Override
+    public void pipelineChanged(GoDashboardPipeline pipeline) {
+        if (renderer == null) {
+            viewersOf(pipeline).forEach(this::scheduleReload);
+            return;
+        }
+
+        // subscribers who are the same user, on the same server URL, see the same representation
+        Map<String, String> renderedFor = new HashMap<>();
+        for (DashboardSocket subscriber : viewersOf(pipeline)) {
+            String key = subscriber.username().getUsername() + "@" + subscriber.baseUrl();
+            String rendered = renderedFor.computeIfAbsent(key, k -> render(pipeline, subscriber));
+            if (rendered != null) {
+                send(subscriber, changedMessage(rendered));
+            }
+        }
+    }
+
+    @Override
+    public void pipelineRemoved(GoDashboardPipeline pipeline) {
+        String message = removedMessage(pipeline);
+        for (DashboardSocket subscriber : viewersOf(pipeline)) {
+            send(subscriber, message);
+        }
+    }
+
+    @Override
+    public void allPipelinesReplaced(GoDashboardPipelines pipelines) {
+        subscribers.forEach(this::scheduleReload);
+    }
+
+    private void scheduleReload(DashboardSocket subscriber) {
+        if (pendingReloads.add(subscriber)) {
+            long delay = reloadJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(reloadJitterMillis) : 0;
+            reloadScheduler.schedule(() -> reload(subscriber), delay, MILLISECONDS);
+        }
+    }
+
+    private void reload(DashboardSocket subscriber) {
+        if (pendingReloads.remove(subscriber) && subscribers.contains(subscriber)) {
+            send(subscriber, RELOAD);
+        }
+    }
+
+    private List<DashboardSocket> viewersOf(GoDashboardPipeline pipeline) {
+        List<DashboardSocket> viewers = new ArrayList<>();
+        for (DashboardSocket subscriber : subscribers) {
+            if (!pendingReloads.contains(subscriber) && pipeline.canBeViewedBy(subscriber.username().getUsername().toString())) {
+                viewers.add(subscriber);
+            }
+        }
+        return viewers;
+    }
+
+    private String render(GoDashboardPipeline pipeline, DashboardSocket subscriber) {
+        try {
+            return renderer.render(pipeline, subscriber.username(), subscriber.baseUrl());
+        } catch (Exception e) {
+            LOGGER.warn("Failed to render dashboard pipeline {} for {}, not sending it", pipeline.name(), subscriber.key(), e);
+            return null;
+        }
+    }
+
+    private void send(DashboardSocket subscriber, String message) {
+        try {
+            subscriber.sendAsync(message);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to send dashboard update to {}, unsubscribing it", subscriber.key(), e);
+            unsubscribe(subscriber);
+        }
+    }
+
+    static String changedMessage(String renderedPipeline) {
+        return "{\"type\":\"pipeline_changed\",\"pipeline\":" + renderedPipeline + "}";
+    }
+
+    static String removedMessage(GoDashboardPipeline pipeline) {
+        Map<String, Object> pipelineJson = new LinkedHashMap<>();
+        pipelineJson.put("name", pipeline.name().toString());
+        pipelineJson.put("group", pipeline.groupName());
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("type", "pipeline_removed");
+        json.put("pipeline", pipelineJson);
+        return GSON.toJson(json);
+    }
+}
@@ -67,6 +67,22 @@ describe("Dashboard", () => {
       expect(actualPipeline.name).toEqual(expectedPipeline.name);
     });
 
+    it("should replace a pipeline shown on the dashboard with a pushed one", () => {
+      const pushed = _.cloneDeep(dashboardData._embedded.pipelines[0]);
+      pushed.locked = true;
+
+      expect(dashboard.updatePipeline(pushed)).toBe(true);
+      expect(dashboard.findPipeline("up42").isLocked).toBe(true);
+    });
+
+    it("should not add a pushed pipeline which is not shown on the dashboard", () => {
+      const pushed = _.cloneDeep(dashboardData._embedded.pipelines[0]);
+      pushed.name  = "not-shown";
+
+      expect(dashboard.updatePipeline(pushed)).toBe(false);
+      expect(dashboard.findPipeline("not-shown")).toBeUndefined();
+    });
+
     it('should get new dashboard json', async () => {
       jasmine.Ajax.stubRequest('/go/api/dashboard?allowEmpty=false', undefined, 'GET').andReturn({
         responseText: JSON.stringify(dashboardData),
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import {DashboardUpdates} from "models/dashboard/dashboard_updates";
+
+describe("DashboardUpdates", () => {
+  let sockets, callbacks, updates;
+
+  function FakeWebSocket(url) {
+    this.url   = url;
+    this.close = jasmine.createSpy("close");
+    sockets.push(this);
+  }
+
+  beforeEach(() => {
+    jasmine.clock().install();
+    sockets   = [];
+    callbacks = jasmine.createSpyObj("callbacks", ["onPipelineChanged", "onReload"]);
+    updates   = new DashboardUpdates(callbacks, FakeWebSocket);
+    updates.start();
+  });
+
+  afterEach(() => {
+    updates.stop();
+    jasmine.clock().uninstall();
+  });
+
+  it("should subscribe to the dashboard websocket", () => {
+    expect(sockets.length).toBe(1);
+    expect(sockets[0].url).toMatch(/^wss?:\/\/.*\/go\/dashboard-websocket$/);
+    expect(updates.isConnected()).toBe(false);
+  });
+
+  it("should ask for a reload once connected, to catch up with the changes missed until then", () => {
+    sockets[0].onopen();
+
+    expect(updates.isConnected()).toBe(true);
+    expect(callbacks.onReload).toHaveBeenCalled();
+  });
+
+  it("should hand pushed pipelines over", () => {
+    const pipeline = {name: "up42"};
+
+    sockets[0].onmessage({data: JSON.stringify({type: "pipeline_changed", pipeline})});
+
+    expect(callbacks.onPipelineChanged).toHaveBeenCalledWith(pipeline);
+  });
+
+  it("should ask for a reload when a pipeline is removed or the dashboard has to be reloaded", () => {
+    sockets[0].onmessage({data: JSON.stringify({type: "pipeline_removed", pipeline: {name: "up42"}})});
+    sockets[0].onmessage({data: JSON.stringify({type: "reload"})});
+
+    expect(callbacks.onReload).toHaveBeenCalledTimes(2);
+  });
+
+  it("should ignore pings", () => {
+    sockets[0].onmessage({data: JSON.stringify({type: "ping"})});
+
+    expect(callbacks.onPipelineChanged).not.toHaveBeenCalled();
+    expect(callbacks.onReload).not.toHaveBeenCalled();
+  });
+
+  it("should reconnect when the connection drops", () => {
+    sockets[0].onopen();
+    sockets[0].onclose();
+
+    expect(updates.isConnected()).toBe(false);
+
+    jasmine.clock().tick(DashboardUpdates.RECONNECT_INTERVAL);
+    expect(sockets.length).toBe(2);
+  });
+
+  it("should not reconnect once stopped", () => {
+    updates.stop();
+    sockets[0].onclose();
+
+    jasmine.clock().tick(DashboardUpdates.RECONNECT_INTERVAL);
+    expect(sockets.length).toBe(1);
+    expect(sockets[0].close).toHaveBeenCalled();
+  });
+});
@@ -20,6 +20,7 @@ import Stream from "mithril/stream";
 import {AjaxHelper} from "helpers/ajax_helper";
 import {DashboardGroups} from "models/dashboard/dashboard_groups";
 import {Pipelines} from "./pipelines";
+import {Pipeline} from "./pipeline";
 
 export function Dashboard() {
   let pipelineGroups = DashboardGroups.fromPipelineGroupsJSON([]);
@@ -34,6 +35,15 @@ export function Dashboard() {
   this.allPipelineNames = () => Object.keys(pipelines.pipelines);
   this.findPipeline     = (pipelineName) => pipelines.find(pipelineName);
 
+  // replaces a pipeline already on the dashboard with one pushed by the server, returns false when it is not shown
+  this.updatePipeline = (json) => {
+    if (!pipelines.find(json.name)) {
+      return false;
+    }
+    pipelines.pipelines[json.name] = new Pipeline(json);
+    return true;
+  };
+
   this.initialize = (json, showEmptyGroups) => {
     const newPipelineGroups = DashboardGroups.fromPipelineGroupsJSON(_.get(json, '_embedded.pipeline_groups', []), showEmptyGroups);
     const newEnvironments   = DashboardGroups.fromEnvironmentsJSON(_.get(json, '_embedded.environments', []));
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Subscribes to the dashboard websocket, on which the server pushes every change to a pipeline the user can view.
+ * Reconnects whenever the connection drops. Callers fall back to polling while it is not connected.
+ */
+export function DashboardUpdates(callbacks, WebSocketClass = window.WebSocket) {
+  let socket;
+  let connected = false;
+  let stopped   = false;
+  let reconnectTimer;
+
+  this.isConnected = () => connected;
+
+  const onMessage = (e) => {
+    let message;
+    try {
+      message = JSON.parse(e.data);
+    } catch (err) {
+      return;
+    }
+
+    switch (message.type) {
+      case "pipeline_changed":
+        callbacks.onPipelineChanged(message.pipeline);
+        break;
+      case "pipeline_removed":
+      case "reload":
+        callbacks.onReload();
+        break;
+      default:
+        // pings only keep the connection alive
+    }
+  };
+
+  const connect = () => {
+    socket = new WebSocketClass(DashboardUpdates.url());
+
+    socket.onopen = () => {
+      connected = true;
+      // changes may have been missed while disconnected
+      callbacks.onReload();
+    };
+
+    socket.onmessage = onMessage;
+
+    socket.onclose = () => {
+      const wasConnected = connected;
+      connected          = false;
+      if (wasConnected) {
+        callbacks.onReload();
+      }
+      if (!stopped) {
+        reconnectTimer = setTimeout(connect, DashboardUpdates.RECONNECT_INTERVAL);
+      }
+    };
+  };
+
+  this.start = () => {
+    if ("undefined" === typeof WebSocketClass) {
+      return;
+    }
+    stopped = false;
+    connect();
+  };
+
+  this.stop = () => {
+    stopped = true;
+    clearTimeout(reconnectTimer);
+    if (socket) {
+      socket.close();
+    }
+  };
+}
+
+DashboardUpdates.RECONNECT_INTERVAL = 10000;
+
+DashboardUpdates.url = (location = window.location) => `${location.protocol.replace("http", "ws")}//${location.host}/go/dashboard-websocket`;
@@ -18,6 +18,7 @@ import m from "mithril";
 import Stream from "mithril/stream";
 import {DashboardViewModel as DashboardVM} from "views/dashboard/models/dashboard_view_model";
 import {Dashboard} from "models/dashboard/dashboard";
+import {DashboardUpdates} from "models/dashboard/dashboard_updates";
 import {DashboardWidget} from "views/dashboard/dashboard_widget";
 import {AjaxPoller} from "helpers/ajax_poller";
 import {PageLoadError} from "views/shared/page_load_error";
@@ -96,9 +97,29 @@ $(() => {
     // Explicit set always refreshes; even if the viewName didn't change,
     // we should refresh because the filter definition may have changed as
     // currentView() is called after every personalization save operation.
+    refreshDashboard();
+  }
+
+  // while subscribed to dashboard updates, polls only fetch the dashboard when a pushed change could not be applied to it
+  let refreshNeeded = true;
+
+  function refreshDashboard() {
+    refreshNeeded = true;
     repeater().restart();
   }
 
+  const dashboardUpdates = new DashboardUpdates({
+    onPipelineChanged: (pipeline) => {
+      if (dashboard.updatePipeline(pipeline)) {
+        m.redraw();
+      } else {
+        // not shown in this view, or new to it; the next poll finds out which
+        refreshNeeded = true;
+      }
+    },
+    onReload:          refreshDashboard
+  });
+
   $(document.body).on("click", () => {
     dashboardVM.dropdown.hide();
     dashboardVM.stageOverview.hide();
@@ -149,6 +170,8 @@ $(() => {
     };
 
     const onerror = (jqXHR, textStatus, errorThrown) => {
+      refreshNeeded = true;
+
       // fix for issue #5391
       //forcefully remove the ETag if server backup is in progress,
       //so that on next dashboard request, the server will send a 200 and re-render the page
@@ -182,12 +205,19 @@ $(() => {
       onResponse({}, message);
     };
 
-    return new AjaxPoller(() => Dashboard.get(currentView(), dashboardVM.etag(), true)
-      .then(onsuccess, onerror)
-      .always(() => {
-        personalizeVM.loadingView(false);
-        showSpinner(false);
-      }));
+    return new AjaxPoller(() => {
+      if (dashboardUpdates.isConnected() && !refreshNeeded) {
+        return Promise.resolve();
+      }
+      refreshNeeded = false;
+
+      return Dashboard.get(currentView(), dashboardVM.etag(), true)
+        .then(onsuccess, onerror)
+        .always(() => {
+          personalizeVM.loadingView(false);
+          showSpinner(false);
+        });
+    });
   }
 
   const repeater    = Stream(createRepeater());
@@ -204,7 +234,7 @@ $(() => {
           testDrive,
           vm:                   dashboardVM,
           doCancelPolling:      () => repeater().stop(),
-          doRefreshImmediately: () => repeater().restart()
+          doRefreshImmediately: refreshDashboard
         });
       }
     };
@@ -229,6 +259,7 @@ $(() => {
 
     renderView();
     repeater().start();
+    dashboardUpdates.start();
   };
 
   const onInitialAPIsFailure = (response) => {
@@ -87,6 +87,26 @@ public class GoConfigRepoConfigDataSourceTest {
         verify(plugin, times(1)).load(eq(folder), any(PartialConfigLoadContext.class));
     }
 
+    @Test
+    public void shouldParseCheckoutButNotPublishTheParsedConfigUntilAskedTo() throws Exception {
+        ScmMaterialConfig material = git("http://my.git");
+        cruiseConfig.setConfigRepos(new ConfigReposConfig(ConfigRepoConfig.createConfigRepoConfig(material, "myplugin", "id")));
+        configWatchList.onConfigChange(cruiseConfig);
+        PartialConfigUpdateCompletedListener listener = mock(PartialConfigUpdateCompletedListener.class);
+        repoConfigDataSource.registerListener(listener);
+
+        Runnable publish = repoConfigDataSource.parseCheckout(material, folder, getModificationFor("7a8f"));
+
+        verify(plugin, times(1)).load(eq(folder), any(PartialConfigLoadContext.class));
+        assertNull(repoConfigDataSource.latestPartialConfigForMaterial(material));
+        verifyNoInteractions(listener);
+
+        publish.run();
+
+        assertNotNull(repoConfigDataSource.latestPartialConfigForMaterial(material));
+        verify(listener, times(1)).onSuccessPartialConfig(any(ConfigRepoConfig.class), any(PartialConfig.class));
+    }
+
     @Test
     public void shouldAssignConfigOrigin() throws Exception {
         ScmMaterialConfig material = git("http://my.git");
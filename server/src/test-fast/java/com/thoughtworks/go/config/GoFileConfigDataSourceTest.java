@@ -21,6 +21,7 @@ import com.thoughtworks.go.config.remote.ConfigRepoConfig;
 import com.thoughtworks.go.config.remote.PartialConfig;
 import com.thoughtworks.go.config.remote.RepoConfigOrigin;
 import com.thoughtworks.go.config.update.FullConfigUpdateCommand;
+import com.thoughtworks.go.config.update.PartialConfigUpdateCommand;
 import com.thoughtworks.go.domain.ConfigErrors;
 import com.thoughtworks.go.helper.GoConfigMother;
 import com.thoughtworks.go.helper.MaterialConfigsMother;
@@ -109,6 +110,27 @@ public class GoFileConfigDataSourceTest {
         }
     }
 
+    @Test
+    public void shouldValidatePartialUpdatesOnlyWhenLoadingTheUpdatedConfig() throws Exception {
+        BasicCruiseConfig cruiseConfig = GoConfigMother.configWithPipelines("p1");
+        when(xmlLoader.loadConfigHolder(any(String.class), any(MagicalGoConfigXmlLoader.Callback.class))).thenReturn(new GoConfigHolder(cruiseConfig, cruiseConfig));
+
+        dataSource.writeWithLock(new PartialConfigUpdateCommand(null, null, cachedGoPartials), new GoConfigHolder(cruiseConfig, cruiseConfig));
+
+        verify(xmlWriter).write(any(CruiseConfig.class), any(), eq(true));
+        verify(xmlLoader).loadConfigHolder(any(String.class), any(MagicalGoConfigXmlLoader.Callback.class));
+    }
+
+    @Test
+    public void shouldValidateOtherUpdatesBeforeWritingThem() throws Exception {
+        BasicCruiseConfig cruiseConfig = GoConfigMother.configWithPipelines("p1");
+        when(xmlLoader.loadConfigHolder(any(String.class), any(MagicalGoConfigXmlLoader.Callback.class))).thenReturn(new GoConfigHolder(cruiseConfig, cruiseConfig));
+
+        dataSource.writeWithLock(config -> config, new GoConfigHolder(cruiseConfig, cruiseConfig));
+
+        verify(xmlWriter).write(any(CruiseConfig.class), any(), eq(false));
+    }
+
     @Test
     public void shouldUpdateConfigWithLastKnownPartials_OnWriteFullConfigWithLock() throws Exception {
         com.thoughtworks.go.server.newsecurity.SessionUtilsHelper.loginAs("loser_boozer");
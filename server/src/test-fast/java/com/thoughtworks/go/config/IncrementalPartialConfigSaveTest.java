@@ -0,0 +1,131 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.config.exceptions.GoConfigInvalidMergeException;
+import com.thoughtworks.go.config.materials.dependency.DependencyMaterialConfig;
+import com.thoughtworks.go.config.remote.ConfigRepoConfig;
+import com.thoughtworks.go.config.remote.ConfigReposConfig;
+import com.thoughtworks.go.config.remote.PartialConfig;
+import com.thoughtworks.go.config.remote.RepoConfigOrigin;
+import com.thoughtworks.go.config.update.PartialConfigUpdateCommand;
+import com.thoughtworks.go.helper.GoConfigMother;
+import com.thoughtworks.go.helper.PartialConfigMother;
+import com.thoughtworks.go.serverhealth.ServerHealthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class IncrementalPartialConfigSaveTest {
+    private BasicCruiseConfig configForEdit;
+    private ConfigRepoConfig firstRepo;
+    private ConfigRepoConfig secondRepo;
+    private CachedGoPartials cachedGoPartials;
+    private IncrementalPartialConfigSave incrementalSave;
+
+    @BeforeEach
+    public void setUp() {
+        firstRepo = ConfigRepoConfig.createConfigRepoConfig(git("first-url"), "plugin", "first");
+        secondRepo = ConfigRepoConfig.createConfigRepoConfig(git("second-url"), "plugin", "second");
+        configForEdit = GoConfigMother.configWithPipelines("main");
+        configForEdit.setConfigRepos(new ConfigReposConfig(firstRepo, secondRepo));
+        configForEdit.getGroups().add(new BasicPipelineConfigs("first", new Authorization()));
+        configForEdit.getGroups().add(new BasicPipelineConfigs("second", new Authorization()));
+        cachedGoPartials = new CachedGoPartials(mock(ServerHealthService.class));
+        incrementalSave = new IncrementalPartialConfigSave(mock(PartialConfigHelper.class));
+    }
+
+    @Test
+    public void shouldSwapInThePartialOfARepoAndKeepThePreprocessedPartialsOfTheOthers() {
+        PartialConfig first = partial("first-pipeline", firstRepo, "1");
+        PartialConfig second = partial("second-pipeline", secondRepo, "1");
+        GoConfigHolder current = holderWith(first, second);
+        PartialConfig updatedFirst = partial("renamed-first-pipeline", firstRepo, "2");
+
+        GoConfigHolder updated = incrementalSave.save(command(updatedFirst, firstRepo), current, List.of(updatedFirst, second));
+
+        assertThat(updated.config.hasPipelineNamed(new CaseInsensitiveString("renamed-first-pipeline"))).isTrue();
+        assertThat(updated.config.hasPipelineNamed(new CaseInsensitiveString("first-pipeline"))).isFalse();
+        assertThat(updated.config.getPipelineConfigByName(new CaseInsensitiveString("second-pipeline")))
+                .isSameAs(current.config.getPipelineConfigByName(new CaseInsensitiveString("second-pipeline")));
+        assertThat(updated.config.getPipelineConfigByName(new CaseInsensitiveString("main")))
+                .isNotSameAs(current.config.getPipelineConfigByName(new CaseInsensitiveString("main")));
+        assertThat(updated.configForEdit.getPartials()).hasSize(2);
+        assertThat(updated.configForEdit.getPartials().get(0)).isSameAs(second);
+        assertThat(current.configForEdit.getPartials()).containsExactly(first, second);
+    }
+
+    @Test
+    public void shouldRejectAPartialWithAPipelineNamedLikeOneOfAnotherRepoWithoutMarkingTheOtherOne() {
+        PartialConfig first = partial("first-pipeline", firstRepo, "1");
+        PartialConfig second = partial("second-pipeline", secondRepo, "1");
+        GoConfigHolder current = holderWith(first, second);
+        PartialConfig updatedFirst = partial("second-pipeline", firstRepo, "2");
+
+        assertThatThrownBy(() -> incrementalSave.save(command(updatedFirst, firstRepo), current, List.of(updatedFirst, second)))
+                .isInstanceOf(GoConfigInvalidMergeException.class)
+                .hasMessageContaining("You have defined multiple pipelines named 'second-pipeline'");
+        assertThat(current.config.getPipelineConfigByName(new CaseInsensitiveString("second-pipeline")).errors().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void shouldLeaveAPartialDroppingAPipelineAnotherRepoDependsOnToAFullSave() {
+        PartialConfig first = partial("first-pipeline", firstRepo, "1");
+        PartialConfig second = partial("second-pipeline", secondRepo, "1");
+        PipelineConfig upstream = first.getGroups().first().get(0);
+        second.getGroups().first().get(0).materialConfigs().add(new DependencyMaterialConfig(upstream.name(), upstream.first().name()));
+        GoConfigHolder current = holderWith(first, second);
+        PartialConfig updatedFirst = partial("renamed-first-pipeline", firstRepo, "2");
+
+        assertThat(incrementalSave.save(command(updatedFirst, firstRepo), current, List.of(updatedFirst, second))).isNull();
+    }
+
+    @Test
+    public void shouldLeaveAPartialWithEnvironmentsToAFullSave() {
+        PartialConfig first = partial("first-pipeline", firstRepo, "1");
+        GoConfigHolder current = holderWith(first);
+        PartialConfig updatedFirst = partial("first-pipeline", firstRepo, "2");
+        updatedFirst.getEnvironments().add(new BasicEnvironmentConfig(new CaseInsensitiveString("main-environment")));
+        configForEdit.addEnvironment("main-environment");
+
+        assertThat(incrementalSave.save(command(updatedFirst, firstRepo), current, List.of(updatedFirst))).isNull();
+    }
+
+    private GoConfigHolder holderWith(PartialConfig... partials) {
+        configForEdit.setPartials(new ArrayList<>(List.of(partials)));
+        CruiseConfig config = new GoConfigCloner().deepClone(configForEdit);
+        MagicalGoConfigXmlLoader.preprocess(config);
+        return new GoConfigHolder(config, configForEdit);
+    }
+
+    private PartialConfigUpdateCommand command(PartialConfig partial, ConfigRepoConfig repo) {
+        cachedGoPartials.cacheAsLastKnown(repo.getRepo().getFingerprint(), partial);
+        return new PartialConfigUpdateCommand(partial, repo.getRepo().getFingerprint(), cachedGoPartials);
+    }
+
+    private static PartialConfig partial(String pipelineName, ConfigRepoConfig repo, String revision) {
+        PartialConfig partial = PartialConfigMother.withPipelineInGroup(pipelineName, repo.getId());
+        partial.setOrigins(new RepoConfigOrigin(repo, revision));
+        return partial;
+    }
+}
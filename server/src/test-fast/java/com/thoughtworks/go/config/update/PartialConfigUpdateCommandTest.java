@@ -29,6 +29,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
+import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -90,4 +93,39 @@ class PartialConfigUpdateCommandTest {
         assertFalse(updated.hasPipelineGroup("first"));
         assertFalse(updated.getEnvironments().hasEnvironmentNamed(prodEnv));
     }
+
+    @Test
+    void partialsAfterUpdateSwapsInThePartialOfTheFingerprint() {
+        ConfigRepoConfig repo = ConfigRepoConfig.createConfigRepoConfig(git("url"), "plugin", "id");
+        ConfigRepoConfig anotherRepo = ConfigRepoConfig.createConfigRepoConfig(git("another-url"), "plugin", "another-id");
+        cruiseConfig.getGroups().add(new BasicPipelineConfigs("first", new Authorization()));
+        PartialConfig previous = partialInGroup("first", new RepoConfigOrigin(repo, "1"));
+        PartialConfig another = partialInGroup("first", new RepoConfigOrigin(anotherRepo, "1"));
+        partial = partialInGroup("first", new RepoConfigOrigin(repo, "2"));
+
+        PartialConfigUpdateCommand command = new PartialConfigUpdateCommand(partial, repo.getRepo().getFingerprint(), resolver);
+        List<PartialConfig> updated = command.partialsAfterUpdate(cruiseConfig, List.of(previous, another));
+
+        assertEquals(2, updated.size());
+        assertSame(another, updated.get(0));
+        assertNotSame(partial, updated.get(1));
+        assertEquals("2", ((RepoConfigOrigin) updated.get(1).getOrigin()).getRevision());
+        assertTrue(cruiseConfig.getPartials().isEmpty());
+    }
+
+    @Test
+    void partialsAfterUpdateIsNullWhenTheUpdateAddsAGroupToTheConfig() {
+        ConfigRepoConfig repo = ConfigRepoConfig.createConfigRepoConfig(git("url"), "plugin", "id");
+        partial = partialInGroup("first", new RepoConfigOrigin(repo, "2"));
+
+        PartialConfigUpdateCommand command = new PartialConfigUpdateCommand(partial, repo.getRepo().getFingerprint(), resolver);
+
+        assertNull(command.partialsAfterUpdate(cruiseConfig, List.of()));
+    }
+
+    private static PartialConfig partialInGroup(String groupName, RepoConfigOrigin origin) {
+        PartialConfig partialConfig = new PartialConfig(new PipelineGroups(new BasicPipelineConfigs(groupName, new Authorization(), PipelineConfigMother.pipelineConfig("up42"))));
+        partialConfig.setOrigins(origin);
+        return partialConfig;
+    }
 }
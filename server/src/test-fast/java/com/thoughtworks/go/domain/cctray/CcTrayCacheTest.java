@@ -170,4 +170,34 @@ public class CcTrayCacheTest {
         assertThat(allProjects.get(1), is(status2_changed));
         assertThat(allProjects.get(2), is(status3));
     }
+
+    @Test
+    public void shouldBumpVersionEveryTimeTheCacheChanges() throws Exception {
+        ProjectStatus status1 = new ProjectStatus("item1", "Sleeping 1", "last-build-status 1", "last-build-label 1", new Date(), "web-url 1");
+        ProjectStatus status2 = new ProjectStatus("item2", "Sleeping 2", "last-build-status 2", "last-build-label 2", new Date(), "web-url 2");
+
+        long initialVersion = cache.version();
+
+        cache.put(status1);
+        long versionAfterPut = cache.version();
+        assertThat(versionAfterPut > initialVersion, is(true));
+
+        cache.putAll(List.of(status1, status2));
+        long versionAfterPutAll = cache.version();
+        assertThat(versionAfterPutAll > versionAfterPut, is(true));
+
+        cache.replaceAllEntriesInCacheWith(List.of(status2));
+        assertThat(cache.version() > versionAfterPutAll, is(true));
+    }
+
+    @Test
+    public void shouldNotBumpVersionOnReads() throws Exception {
+        cache.put(new ProjectStatus("item1", "Sleeping 1", "last-build-status 1", "last-build-label 1", new Date(), "web-url 1"));
+        long version = cache.version();
+
+        cache.get("item1");
+        cache.allEntriesInOrder();
+
+        assertThat(cache.version(), is(version));
+    }
 }
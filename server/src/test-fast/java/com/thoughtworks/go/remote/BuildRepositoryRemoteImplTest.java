@@ -18,8 +18,6 @@ package com.thoughtworks.go.remote;
 import ch.qos.logback.classic.Level;
 import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.exception.InvalidAgentInstructionException;
-import com.thoughtworks.go.server.messaging.JobStatusMessage;
-import com.thoughtworks.go.server.messaging.JobStatusTopic;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
 import com.thoughtworks.go.server.service.AgentService;
 import com.thoughtworks.go.server.service.BuildRepositoryService;
@@ -40,7 +38,6 @@ import static org.mockito.Mockito.*;
 class BuildRepositoryRemoteImplTest {
     private BuildRepositoryService repositoryService;
     private AgentService agentService;
-    private JobStatusTopic jobStatusTopic;
     private BuildRepositoryRemoteImpl buildRepository;
     private LogFixture logFixture;
     private AgentRuntimeInfo info;
@@ -49,8 +46,7 @@ class BuildRepositoryRemoteImplTest {
     void setUp() {
         repositoryService = mock(BuildRepositoryService.class);
         agentService = mock(AgentService.class);
-        jobStatusTopic = mock(JobStatusTopic.class);
-        buildRepository = new BuildRepositoryRemoteImpl(repositoryService, agentService, jobStatusTopic);
+        buildRepository = new BuildRepositoryRemoteImpl(repositoryService, agentService);
         logFixture = logFixtureFor(BuildRepositoryRemoteImpl.class, Level.TRACE);
         info = new AgentRuntimeInfo(new AgentIdentifier("host", "192.168.1.1", "uuid"), AgentRuntimeStatus.Idle, currentWorkingDirectory(), "cookie");
     }
@@ -107,8 +103,7 @@ class BuildRepositoryRemoteImplTest {
         JobIdentifier jobId = new JobIdentifier(new StageIdentifier("pipelineName", 1, "stageName", "1"), "job");
         buildRepository.reportCurrentStatus(info, jobId, JobState.Building);
         verify(agentService).updateRuntimeInfo(info);
-        verify(repositoryService).updateStatusFromAgent(jobId, JobState.Building, info.getUUId());
-        verify(jobStatusTopic).post(new JobStatusMessage(jobId, JobState.Building, info.getUUId()));
+        verify(repositoryService).queueStatusUpdateFromAgent(jobId, JobState.Building, info.getUUId());
         assertThat(logFixture.getRawMessages()).contains(String.format("[%s] is reporting status [%s] for [%s]", info.agentInfoDebugString(), JobState.Building, jobId.toFullString()));
     }
 
@@ -116,7 +111,7 @@ class BuildRepositoryRemoteImplTest {
     void shouldLogAgentReportingStatusExceptions() throws Exception {
         JobIdentifier jobId = new JobIdentifier(new StageIdentifier("pipelineName", 1, "stageName", "1"), "job");
         RuntimeException runtimeException = new RuntimeException("holy smoke");
-        doThrow(runtimeException).when(repositoryService).updateStatusFromAgent(jobId, JobState.Building, info.getUUId());
+        doThrow(runtimeException).when(repositoryService).queueStatusUpdateFromAgent(jobId, JobState.Building, info.getUUId());
         try {
             buildRepository.reportCurrentStatus(info, jobId, JobState.Building);
             fail("should have propagated exception raised by build repository service");
@@ -157,7 +152,7 @@ class BuildRepositoryRemoteImplTest {
 
         verify(repositoryService).completing(jobId, JobResult.Passed, info.getUUId());
         verify(agentService).updateRuntimeInfo(info);
-        verify(repositoryService).updateStatusFromAgent(jobId, JobState.Completed, info.getUUId());
+        verify(repositoryService).writeStatusUpdateFromAgent(jobId, JobState.Completed, info.getUUId());
         assertThat(logFixture.getRawMessages()).contains(String.format("[%s] is reporting status and result [%s, %s] for [%s]", info.agentInfoDebugString(), JobState.Completed, JobResult.Passed, jobId.toFullString()));
     }
 
@@ -45,10 +45,9 @@ class CacheKeyGeneratorTest {
     }
 
     @Test
-    void shouldAlwaysReturnInternedString() {
+    void shouldGenerateEqualKeysForEqualArguments() {
         final String generatedCacheKey = cacheKeyGenerator.generate("foo", "bar", new CaseInsensitiveString("1"), 1L);
-        assertThat(generatedCacheKey == "com.thoughtworks.go.domain.Pipeline.$foo.$bar.$1.$1")
-                .describedAs("Using '==' to check returned key is interned String").isTrue();
+        assertThat(generatedCacheKey).isEqualTo(cacheKeyGenerator.generate("foo", "bar", new CaseInsensitiveString("1"), 1L));
     }
 
     @Test
@@ -19,6 +19,7 @@ import com.thoughtworks.go.config.BasicCruiseConfig;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.GoConfigDao;
+import com.thoughtworks.go.config.exceptions.RecordNotFoundException;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
 import com.thoughtworks.go.config.materials.git.GitMaterial;
 import com.thoughtworks.go.domain.*;
@@ -55,6 +56,7 @@ import java.util.Map;
 
 import static com.thoughtworks.go.util.IBatisUtil.arguments;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 class PipelineSqlMapDaoCachingTest {
@@ -112,6 +114,45 @@ class PipelineSqlMapDaoCachingTest {
         verifyNoMoreInteractions(mockTemplate, repository);
     }
 
+    @Test
+    void buildCausesOfPipelines_shouldLoadThoseNotCachedTogetherAndCacheThem() {
+        Pipeline first = PipelineMother.pipeline("first");
+        first.setId(3);
+        first.setCounter(1);
+        Pipeline second = PipelineMother.pipeline("second");
+        second.setId(4);
+        second.setCounter(2);
+        MaterialRevisions firstRevisions = ModificationsMother.createHgMaterialRevisions();
+        MaterialRevisions secondRevisions = ModificationsMother.createSvnMaterialRevisions(ModificationsMother.oneModifiedFile("r1"));
+        doReturn(List.of(second, first)).when(mockTemplate).queryForList(eq("findPipelinesByNamesAndCounters"), any());
+        when(repository.findMaterialRevisionsForPipelines(List.of(4L, 3L))).thenReturn(Map.of(3L, firstRevisions, 4L, secondRevisions));
+
+        List<BuildCause> buildCauses = pipelineDao.findBuildCausesOfPipelines(List.of(new PipelineIdentifier("first", 1), new PipelineIdentifier("second", 2)));
+
+        assertThat(buildCauses).hasSize(2);
+        assertThat(buildCauses.get(0).getMaterialRevisions()).isEqualTo(firstRevisions);
+        assertThat(buildCauses.get(1).getMaterialRevisions()).isEqualTo(secondRevisions);
+
+        buildCauses = pipelineDao.findBuildCausesOfPipelines(List.of(new PipelineIdentifier("SECOND", 2), new PipelineIdentifier("first", 1)));
+
+        assertThat(buildCauses.get(0).getMaterialRevisions()).isEqualTo(secondRevisions);
+        assertThat(buildCauses.get(1).getMaterialRevisions()).isEqualTo(firstRevisions);
+        assertThat(pipelineDao.findBuildCauseOfPipelineByNameAndCounter("first", 1).getMaterialRevisions()).isEqualTo(firstRevisions);
+        verify(mockTemplate, times(1)).queryForList(eq("findPipelinesByNamesAndCounters"), any());
+        verify(repository, times(1)).findMaterialRevisionsForPipelines(any());
+        verifyNoMoreInteractions(mockTemplate, repository);
+    }
+
+    @Test
+    void buildCausesOfPipelines_shouldComplainAboutAPipelineInstanceWhichDoesNotExist() {
+        doReturn(List.of()).when(mockTemplate).queryForList(eq("findPipelinesByNamesAndCounters"), any());
+        when(repository.findMaterialRevisionsForPipelines(List.of())).thenReturn(Map.of());
+
+        assertThatThrownBy(() -> pipelineDao.findBuildCausesOfPipelines(List.of(new PipelineIdentifier("missing", 1))))
+                .isInstanceOf(RecordNotFoundException.class)
+                .hasMessage("Pipeline missing with counter 1 was not found");
+    }
+
     @Test
     void findPipelineIds_shouldCacheResultWhenOnlyLatestPipelineIdIsRequested() {
         List<Long> expectedIds = new ArrayList<>();
@@ -461,6 +502,33 @@ class PipelineSqlMapDaoCachingTest {
         verify(mockTemplate, times(1)).queryForList(eq("pipelineInstancesTriggeredOutOfDependencyMaterial"), any());
     }
 
+    @Test
+    void shouldLookUpPipelineInstancesTriggeredOutOfDependencyMaterialsWhichAreNotCachedTogether() {
+        String cachedKey = pipelineDao.cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial("cached", "up", 1);
+        List<PipelineIdentifier> cached = List.of(new PipelineIdentifier("cached", 5, "5"));
+        goCache.put(cachedKey, cached);
+        doReturn(List.of(
+                new PipelineTriggeredByDependency("down", 3, "3", "up", "up/2/stage/1"),
+                new PipelineTriggeredByDependency("down", 2, "2", "up", "up/1/stage/1"),
+                new PipelineTriggeredByDependency("down", 2, "2", "up", "up/1/another-stage/1"),
+                new PipelineTriggeredByDependency("other", 7, "7", "up", "up/1/stage/1")
+        )).when(mockTemplate).queryForList(eq("pipelineInstancesTriggeredOutOfDependencyMaterials"), any());
+
+        List<List<PipelineIdentifier>> actual = pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterials(
+                List.of("down", "cached", "other", "down"),
+                List.of(new PipelineIdentifier("up", 1), new PipelineIdentifier("up", 1), new PipelineIdentifier("up", 1), new PipelineIdentifier("up", 2)));
+
+        assertThat(actual).containsExactly(
+                List.of(new PipelineIdentifier("down", 2, "2")),
+                cached,
+                List.of(new PipelineIdentifier("other", 7, "7")),
+                List.of(new PipelineIdentifier("down", 3, "3")));
+        assertThat((Object) goCache.get(pipelineDao.cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial("down", "up", 2))).isEqualTo(List.of(new PipelineIdentifier("down", 3, "3")));
+        assertThat(pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial("DOWN", new PipelineIdentifier("UP", 1))).isEqualTo(List.of(new PipelineIdentifier("down", 2, "2")));
+        verify(mockTemplate, times(1)).queryForList(eq("pipelineInstancesTriggeredOutOfDependencyMaterials"), any());
+        verifyNoMoreInteractions(mockTemplate);
+    }
+
     @Test
     void shouldCacheEmptyPipelineInstancesTriggeredOutOfDependencyMaterial() {
         String cacheKey = pipelineDao.cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial("p1", "p", 1);
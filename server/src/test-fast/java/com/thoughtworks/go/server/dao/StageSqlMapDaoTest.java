@@ -17,8 +17,10 @@ package com.thoughtworks.go.server.dao;
 
 import com.opensymphony.oscache.base.Cache;
 import com.rits.cloning.Cloner;
+import com.thoughtworks.go.domain.PipelineIdentifier;
 import com.thoughtworks.go.domain.Stage;
 import com.thoughtworks.go.domain.StageIdentifier;
+import com.thoughtworks.go.domain.Stages;
 import com.thoughtworks.go.helper.StageMother;
 import com.thoughtworks.go.presentation.pipelinehistory.StageHistoryEntry;
 import com.thoughtworks.go.presentation.pipelinehistory.StageHistoryPage;
@@ -29,6 +31,7 @@ import com.thoughtworks.go.server.transaction.SqlMapClientTemplate;
 import com.thoughtworks.go.server.transaction.TestTransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.server.util.KeyedLocks;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.util.ReflectionUtil;
 import com.thoughtworks.go.util.SystemEnvironment;
@@ -41,6 +44,9 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -92,6 +98,50 @@ class StageSqlMapDaoTest {
         assertThat(goCache.get(cacheKey), is(nullValue()));
     }
 
+    @Test
+    void shouldHoldTheLockOfEveryPipelineInstanceWhileLoadingAndCachingItsStages() throws Exception {
+        PipelineIdentifier first = new PipelineIdentifier("first", 1);
+        PipelineIdentifier second = new PipelineIdentifier("second", 2);
+        String firstKey = stageSqlMapDao.cacheKeyForPipelineAndCounter("first", 1);
+        String secondKey = stageSqlMapDao.cacheKeyForPipelineAndCounter("second", 2);
+        List<Boolean> lockedWhileQuerying = new ArrayList<>();
+        when(sqlMapClientTemplate.queryForList(eq("getStagesByPipelineNamesAndCounters"), any())).thenAnswer(invocation -> {
+            lockedWhileQuerying.add(isLockedByAnotherThread(firstKey));
+            lockedWhileQuerying.add(isLockedByAnotherThread(secondKey));
+            return List.of();
+        });
+
+        List<Stages> stages = stageSqlMapDao.findAllStagesFor(List.of(first, second));
+
+        assertThat(stages, is(List.of(new Stages(), new Stages())));
+        assertThat(lockedWhileQuerying, is(List.of(true, true)));
+        assertThat(isLockedByAnotherThread(firstKey), is(false));
+        assertThat(goCache.get(firstKey), is(List.of()));
+        assertThat(goCache.get(secondKey), is(List.of()));
+    }
+
+    @Test
+    void shouldNotLoadThePipelineInstancesCachedBeforeTheirLocksWereTaken() {
+        PipelineIdentifier cached = new PipelineIdentifier("cached", 1);
+        List<Stage> cachedStages = List.of(StageMother.custom("stage"));
+        goCache.put(stageSqlMapDao.cacheKeyForPipelineAndCounter("cached", 1), cachedStages);
+
+        List<Stages> stages = stageSqlMapDao.findAllStagesFor(List.of(cached));
+
+        assertThat(stages, is(List.of(new Stages(cachedStages))));
+        verifyNoInteractions(sqlMapClientTemplate);
+    }
+
+    private static boolean isLockedByAnotherThread(String key) throws Exception {
+        FutureTask<Boolean> tryLock = new FutureTask<>(() -> {
+            Optional<KeyedLocks.Held> held = KeyedLocks.family("StageSqlMapDaoTest").tryLock(key, 0, TimeUnit.MILLISECONDS);
+            held.ifPresent(KeyedLocks.Held::close);
+            return held.isEmpty();
+        });
+        new Thread(tryLock).start();
+        return tryLock.get();
+    }
+
     @Test
     void shouldLoadStageHistoryEntryForAStageRunAfterTheLatestRunThatIsRetrievedForStageHistory() {
         String pipelineName = "some_pipeline_name";
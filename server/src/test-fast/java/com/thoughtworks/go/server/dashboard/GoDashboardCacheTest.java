@@ -25,7 +25,7 @@ import static com.thoughtworks.go.server.dashboard.GoDashboardPipelineMother.pip
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertNull;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.*;
 
 public class GoDashboardCacheTest {
     private GoDashboardCache cache;
@@ -85,6 +85,32 @@ public class GoDashboardCacheTest {
         assertThat(cache.allEntries().find(cis("pipeline5")), is(sameInstance(pipeline5)));
     }
 
+    @Test
+    public void shouldNotifyListenersOfChangesToTheCache() {
+        GoDashboardCacheListener listener = mock(GoDashboardCacheListener.class);
+        cache.addListener(listener);
+        GoDashboardPipeline pipeline1 = pipeline("pipeline1");
+
+        cache.put(pipeline1);
+        verify(listener).pipelineChanged(pipeline1);
+
+        cache.remove(cis("pipeline1"));
+        verify(listener).pipelineRemoved(pipeline1);
+
+        cache.replaceAllEntriesInCacheWith(List.of(pipeline("pipeline2")));
+        verify(listener).allPipelinesReplaced(cache.allEntries());
+    }
+
+    @Test
+    public void shouldNotNotifyListenersWhenRemovingAPipelineWhichIsNotInTheCache() {
+        GoDashboardCacheListener listener = mock(GoDashboardCacheListener.class);
+        cache.addListener(listener);
+
+        cache.remove(cis("pipeline1"));
+
+        verifyNoInteractions(listener);
+    }
+
     private CaseInsensitiveString cis(String value) {
         return new CaseInsensitiveString(value);
     }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.dashboard;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.config.security.GoConfigPipelinePermissionsAuthority;
+import com.thoughtworks.go.config.security.Permissions;
+import com.thoughtworks.go.config.security.permissions.NoOnePermission;
+import com.thoughtworks.go.config.security.users.AllowedUsers;
+import com.thoughtworks.go.config.security.users.NoOne;
+import com.thoughtworks.go.helper.GoConfigMother;
+import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.domain.user.ExcludesFilter;
+import com.thoughtworks.go.server.domain.user.Filters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static com.thoughtworks.go.server.dashboard.GoDashboardPipelineMother.pipeline;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+public class GoDashboardViewsCacheTest {
+    private GoDashboardCache cache;
+    private GoDashboardViewsCache viewsCache;
+    private CruiseConfig config;
+    private Permissions permissionsOfGroup1;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        cache = new GoDashboardCache(mock(TimeStampBasedCounter.class));
+        viewsCache = new GoDashboardViewsCache(cache, mock(GoConfigPipelinePermissionsAuthority.class));
+
+        GoConfigMother configMother = new GoConfigMother();
+        config = GoConfigMother.defaultCruiseConfig();
+        configMother.addPipelineWithGroup(config, "group1", "pipeline1", "stage1", "job1");
+        configMother.addPipelineWithGroup(config, "group1", "pipeline2", "stage1", "job1");
+        configMother.addPipelineWithGroup(config, "group2", "pipeline3", "stage1", "job1");
+
+        permissionsOfGroup1 = viewableBy("user1", "user2", "user3");
+        cache.replaceAllEntriesInCacheWith(List.of(
+                pipeline("pipeline1", "group1", permissionsOfGroup1),
+                pipeline("pipeline2", "group1", permissionsOfGroup1),
+                pipeline("pipeline3", "group2", viewableBy("user1"))));
+    }
+
+    @Test
+    public void shouldComputePipelineGroupsVisibleToTheUser() {
+        List<GoDashboardPipelineGroup> groupsOfUser1 = pipelineGroupsFor("user1");
+        List<GoDashboardPipelineGroup> groupsOfUser2 = pipelineGroupsFor("user2");
+
+        assertThat(groupsOfUser1.size(), is(2));
+        assertThat(groupsOfUser1.get(0).pipelines(), contains("pipeline1", "pipeline2"));
+        assertThat(groupsOfUser1.get(1).pipelines(), contains("pipeline3"));
+
+        assertThat(groupsOfUser2.size(), is(1));
+        assertThat(groupsOfUser2.get(0).pipelines(), contains("pipeline1", "pipeline2"));
+    }
+
+    @Test
+    public void shouldShareDashboardBetweenUsersWhoCanViewTheSameGroups() {
+        assertThat(pipelineGroupsFor("user2"), is(sameInstance(pipelineGroupsFor("user3"))));
+        assertThat(pipelineGroupsFor("user1"), is(not(sameInstance(pipelineGroupsFor("user2")))));
+    }
+
+    @Test
+    public void shouldRememberDashboardsPerFilter() {
+        ExcludesFilter filter = new ExcludesFilter("foo", CaseInsensitiveString.list("pipeline2"), Collections.emptySet());
+
+        List<GoDashboardPipelineGroup> groups = viewsCache.pipelineGroupsFor(config.getGroups(), filter, new Username("user2"), false);
+        assertThat(groups.get(0).pipelines(), contains("pipeline1"));
+
+        filter.allowPipeline(new CaseInsensitiveString("pipeline2"));
+
+        groups = viewsCache.pipelineGroupsFor(config.getGroups(), filter, new Username("user2"), false);
+        assertThat(groups.get(0).pipelines(), contains("pipeline1", "pipeline2"));
+    }
+
+    @Test
+    public void shouldPatchRememberedDashboardsWhenAPipelineIsReplacedByANewerStatusOfItself() {
+        List<GoDashboardPipelineGroup> before = pipelineGroupsFor("user2");
+        GoDashboardPipeline newerPipeline1 = pipeline("pipeline1", "group1", permissionsOfGroup1);
+
+        cache.put(newerPipeline1);
+        List<GoDashboardPipelineGroup> after = pipelineGroupsFor("user2");
+
+        assertThat(after, is(not(sameInstance(before))));
+        assertThat(after.get(0).allPipelines(), hasItem(sameInstance(newerPipeline1)));
+        assertThat(after.get(0).pipelines(), contains("pipeline1", "pipeline2"));
+        assertThat(before.get(0).allPipelines(), not(hasItem(sameInstance(newerPipeline1))));
+    }
+
+    @Test
+    public void shouldRecomputeDashboardsWhenPermissionsOfAPipelineChange() {
+        assertThat(pipelineGroupsFor("user2").size(), is(1));
+
+        cache.put(pipeline("pipeline3", "group2", viewableBy("user1", "user2")));
+
+        assertThat(pipelineGroupsFor("user2").size(), is(2));
+    }
+
+    @Test
+    public void shouldRecomputeDashboardsWhenAPipelineIsRemoved() {
+        assertThat(pipelineGroupsFor("user1").size(), is(2));
+
+        config.findGroup("group2").remove(0);
+        cache.remove(new CaseInsensitiveString("pipeline3"));
+
+        assertThat(pipelineGroupsFor("user1").size(), is(1));
+    }
+
+    @Test
+    public void shouldRecomputeDashboardsWhenConfigChanges() {
+        List<GoDashboardPipelineGroup> before = pipelineGroupsFor("user1");
+
+        CruiseConfig newConfig = GoConfigMother.defaultCruiseConfig();
+        new GoConfigMother().addPipelineWithGroup(newConfig, "group1", "pipeline1", "stage1", "job1");
+        List<GoDashboardPipelineGroup> after = viewsCache.pipelineGroupsFor(newConfig.getGroups(), Filters.WILDCARD_FILTER, new Username("user1"), false);
+
+        assertThat(before.size(), is(2));
+        assertThat(after.size(), is(1));
+        assertThat(after.get(0).pipelines(), contains("pipeline1"));
+    }
+
+    private List<GoDashboardPipelineGroup> pipelineGroupsFor(String userName) {
+        return viewsCache.pipelineGroupsFor(config.getGroups(), Filters.WILDCARD_FILTER, new Username(userName), false);
+    }
+
+    private Permissions viewableBy(String... users) {
+        return new Permissions(new AllowedUsers(Set.of(users), Collections.emptySet()), NoOne.INSTANCE, NoOne.INSTANCE, NoOnePermission.INSTANCE);
+    }
+}
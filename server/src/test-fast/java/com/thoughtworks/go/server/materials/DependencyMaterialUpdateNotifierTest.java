@@ -26,10 +26,12 @@ import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Mockito.*;
 
@@ -40,6 +42,7 @@ public class DependencyMaterialUpdateNotifierTest {
     private MaterialConfigConverter materialConfigConverter;
     private MaterialUpdateService materialUpdateService;
     private ServerHealthService serverHealthService;
+    private SystemEnvironment systemEnvironment;
     private Material dependencyMaterial = MaterialsMother.dependencyMaterial();
 
     @BeforeEach
@@ -48,12 +51,13 @@ public class DependencyMaterialUpdateNotifierTest {
         materialConfigConverter = mock(MaterialConfigConverter.class);
         materialUpdateService = mock(MaterialUpdateService.class);
         serverHealthService = mock(ServerHealthService.class);
+        systemEnvironment = mock(SystemEnvironment.class);
     }
 
     @Test
     public void shouldListenToConfigChange() {
         EntityConfigChangedListener entityConfigChangedListener = mock(EntityConfigChangedListener.class);
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
         notifier = spy(notifier);
 
         when(notifier.pipelineConfigChangedListener()).thenReturn(entityConfigChangedListener);
@@ -66,7 +70,7 @@ public class DependencyMaterialUpdateNotifierTest {
 
     @Test
     public void shouldListenToMaterialUpdateMessage() {
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
 
         notifier.initialize();
 
@@ -75,7 +79,7 @@ public class DependencyMaterialUpdateNotifierTest {
 
     @Test
     public void configLoadShouldScheduleAllDependencyMaterialsForUpdateThrough_onConfigChangeCallback() {
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
         notifier.initialize();
 
         Set<DependencyMaterialConfig> schedulableMaterialConfigs = Set.of((DependencyMaterialConfig) dependencyMaterial.config());
@@ -94,7 +98,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
         when(materialConfigConverter.toMaterial(dependencyMaterialForP1S1.config())).thenReturn(dependencyMaterialForP1S1);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
         notifier.initialize();
 
         DependencyMaterial dependencyMaterialForP2S2 = MaterialsMother.dependencyMaterial("p2", "s2");
@@ -113,7 +117,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
         notifier.initialize();
 
         notifier.onConfigChange(mock(CruiseConfig.class));
@@ -131,7 +135,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
         notifier.initialize();
 
         notifier.stageStatusChanged(stage);
@@ -139,9 +143,35 @@ public class DependencyMaterialUpdateNotifierTest {
         verify(materialUpdateService, times(2)).updateMaterial(dependencyMaterial);
     }
 
+    @Test
+    public void shouldCoalesceUpdatesForStagesPassingWithinTheCoalesceWindow() {
+        Stage stage = StageMother.passedStageInstance("Stage1", "plan", "Pipeline1");
+        Stage anotherRunOfStage = StageMother.passedStageInstance("Stage1", "plan", "Pipeline1");
+        DependencyMaterial dependencyMaterial = MaterialsMother.dependencyMaterial(stage.getIdentifier().getPipelineName(), stage.getName());
+        Set<DependencyMaterialConfig> schedulableMaterialConfigs = Set.of((DependencyMaterialConfig) dependencyMaterial.config());
+
+        when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
+        when(systemEnvironment.getDependencyMaterialUpdateCoalesceWindowInMillis()).thenReturn(TimeUnit.HOURS.toMillis(1));
+
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
+        notifier.initialize();
+
+        notifier.stageStatusChanged(stage);
+        notifier.stageStatusChanged(anotherRunOfStage);
+
+        //updated only during initialization, until the window closes
+        verify(materialUpdateService, times(1)).updateMaterial(dependencyMaterial);
+
+        notifier.updatePendingMaterials();
+        notifier.updatePendingMaterials();
+
+        verify(materialUpdateService, times(2)).updateMaterial(dependencyMaterial);
+    }
+
     @Test
     public void shouldDoNothingOnStageChangeIfStageDoesNotRepresentADependencyMaterial() {
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
         notifier.initialize();
 
         Stage pipeline2Stage2 = StageMother.passedStageInstance("Stage2", "plan", "Pipeline2");
@@ -159,7 +189,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
         notifier.initialize();
 
         notifier.stageStatusChanged(stage);
@@ -178,12 +208,12 @@ public class DependencyMaterialUpdateNotifierTest {
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
         when(materialUpdateService.updateMaterial(dependencyMaterial)).thenReturn(true, false);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
         notifier.initialize();
 
         notifier.stageStatusChanged(stage);
 
-        notifier.onMaterialUpdate(dependencyMaterial);
+        notifier.onMaterialUpdate(new MaterialUpdateSuccessfulMessage(dependencyMaterial, 0));
 
         verify(materialUpdateService, atMost(3)).updateMaterial(dependencyMaterial);
     }
@@ -198,10 +228,10 @@ public class DependencyMaterialUpdateNotifierTest {
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
         when(materialUpdateService.updateMaterial(dependencyMaterial)).thenThrow(new RuntimeException("some error")).thenReturn(true);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
         notifier.initialize();
 
-        notifier.onMaterialUpdate(dependencyMaterial);
+        notifier.onMaterialUpdate(new MaterialUpdateSuccessfulMessage(dependencyMaterial, 0));
 
         verify(materialUpdateService, atMost(2)).updateMaterial(dependencyMaterial);
     }
@@ -215,7 +245,7 @@ public class DependencyMaterialUpdateNotifierTest {
         when(goConfigService.getSchedulableDependencyMaterials()).thenReturn(schedulableMaterialConfigs);
         when(materialConfigConverter.toMaterial(dependencyMaterial.config())).thenReturn(dependencyMaterial);
 
-        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService);
+        notifier = new DependencyMaterialUpdateNotifier(goConfigService, materialConfigConverter, materialUpdateService, serverHealthService, systemEnvironment);
         notifier.disableUpdates();
         notifier.initialize();
 
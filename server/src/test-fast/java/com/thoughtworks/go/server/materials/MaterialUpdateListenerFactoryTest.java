@@ -56,6 +56,8 @@ public class MaterialUpdateListenerFactoryTest {
     @Mock private MaintenanceModeService maintenanceModeService;
     @Mock ConfigMaterialPostUpdateQueue configMaterialPostUpdateQueue;
     @Mock private GoConfigService goConfigService;
+    @Mock private PriorityMaterialUpdateQueue priorityQueue;
+    @Mock private MaterialUpdateQueueMetrics queueMetrics;
 
 
     @Test
@@ -66,12 +68,32 @@ public class MaterialUpdateListenerFactoryTest {
                 materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
                 transactionTemplate, dependencyMaterialUpdater, scmMaterialUpdater,
                 packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, mduPerformanceLogger,
-                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService);
+                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService,
+                priorityQueue, queueMetrics);
         factory.init();
 
         verify(queue, times(NUMBER_OF_CONSUMERS)).addListener(any(GoMessageListener.class));
     }
 
+    @Test
+    public void shouldCreateCompetingConsumersForSuppliedPriorityQueue() {
+        int noOfPriorityMaterialCheckListeners = 2;
+
+        when(systemEnvironment.getNumberOfPriorityMaterialCheckListener()).thenReturn(noOfPriorityMaterialCheckListeners);
+
+        MaterialUpdateListenerFactory factory = new MaterialUpdateListenerFactory(topic, queue, configQueue,
+                materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
+                transactionTemplate, dependencyMaterialUpdater, scmMaterialUpdater,
+                packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, mduPerformanceLogger,
+                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService,
+                priorityQueue, queueMetrics);
+        factory.init();
+
+        verify(priorityQueue, times(noOfPriorityMaterialCheckListeners)).addListener(any(GoMessageListener.class));
+        verify(queue, never()).addListener(any(GoMessageListener.class));
+        verify(queueMetrics, times(noOfPriorityMaterialCheckListeners)).workerAdded(MaterialUpdateQueueMetrics.Lane.PRIORITY);
+    }
+
     @Test
     public void shouldCreateCompetingConsumersForSuppliedConfigQueue() {
         when(systemEnvironment.getNumberOfConfigMaterialCheckListener()).thenReturn(NUMBER_OF_CONFIG_CONSUMERS);
@@ -80,7 +102,8 @@ public class MaterialUpdateListenerFactoryTest {
                 materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
                 transactionTemplate, dependencyMaterialUpdater, scmMaterialUpdater,
                 packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, mduPerformanceLogger,
-                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService);
+                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService,
+                priorityQueue, queueMetrics);
         factory.init();
 
         verify(configQueue, times(NUMBER_OF_CONFIG_CONSUMERS)).addListener(any(GoMessageListener.class));
@@ -96,7 +119,8 @@ public class MaterialUpdateListenerFactoryTest {
                 materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
                 transactionTemplate, dependencyMaterialUpdater, scmMaterialUpdater,
                 packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, mduPerformanceLogger,
-                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService);
+                dependencyMaterialQueue, maintenanceModeService, configMaterialPostUpdateQueue, goConfigService,
+                priorityQueue, queueMetrics);
         factory.init();
 
         verify(dependencyMaterialQueue, times(noOfDependencyMaterialCheckListeners)).addListener(any(GoMessageListener.class));
@@ -24,8 +24,11 @@ import com.thoughtworks.go.server.transaction.TransactionCallback;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 
 public class MaterialUpdateListenerTest {
@@ -37,6 +40,7 @@ public class MaterialUpdateListenerTest {
     private TransactionTemplate transactionTemplate;
     private MDUPerformanceLogger mduPerformanceLogger;
     private MaintenanceModeService maintenanceModeService;
+    private MaterialUpdateQueueMetrics queueMetrics;
 
     @BeforeEach
     public void setUp() throws Exception {
@@ -46,7 +50,9 @@ public class MaterialUpdateListenerTest {
         transactionTemplate = mock(TransactionTemplate.class);
         mduPerformanceLogger = mock(MDUPerformanceLogger.class);
         maintenanceModeService = mock(MaintenanceModeService.class);
-        materialUpdateListener = new MaterialUpdateListener(topic, updater, mduPerformanceLogger, diskSpaceMonitor, maintenanceModeService);
+        queueMetrics = mock(MaterialUpdateQueueMetrics.class);
+        materialUpdateListener = new MaterialUpdateListener(topic, updater, mduPerformanceLogger, diskSpaceMonitor, maintenanceModeService,
+                queueMetrics, MaterialUpdateQueueMetrics.Lane.PRIORITY);
     }
 
     @Test
@@ -79,6 +85,21 @@ public class MaterialUpdateListenerTest {
         verify(maintenanceModeService).mduFinishedForMaterial(MATERIAL);
     }
 
+    @Test
+    public void shouldRecordWaitAndProcessingTimesAgainstItsLane() throws Exception {
+        materialUpdateListener.onMessage(new MaterialUpdateMessage(MATERIAL, 0));
+        verify(queueMetrics).pickedUp(eq(MaterialUpdateQueueMetrics.Lane.PRIORITY), eq(MATERIAL), anyLong());
+        verify(queueMetrics).processed(eq(MaterialUpdateQueueMetrics.Lane.PRIORITY), eq(MATERIAL), anyLong());
+    }
+
+    @Test
+    public void shouldNotRecordProcessingTimeWhenServerIsInMaintenanceMode() {
+        when(maintenanceModeService.isMaintenanceMode()).thenReturn(true);
+        materialUpdateListener.onMessage(new MaterialUpdateMessage(MATERIAL, 0));
+        verify(queueMetrics).pickedUp(eq(MaterialUpdateQueueMetrics.Lane.PRIORITY), eq(MATERIAL), anyLong());
+        verify(queueMetrics, never()).processed(any(), any(), anyLong());
+    }
+
     private void setupTransactionTemplateStub() throws Exception {
         when(transactionTemplate.executeWithExceptionHandling(Mockito.any(TransactionCallback.class))).thenAnswer(invocationOnMock -> {
             TransactionCallback callback = (TransactionCallback) invocationOnMock.getArguments()[0];
@@ -93,6 +114,16 @@ public class MaterialUpdateListenerTest {
         verify(topic).post(new MaterialUpdateSuccessfulMessage(MATERIAL, 20));
     }
 
+    @Test
+    public void shouldTellWhetherTheUpdateFoundNewModificationsOnCompletion() throws Exception {
+        when(updater.updateMaterial(MATERIAL)).thenReturn(true);
+        materialUpdateListener.onMessage(new MaterialUpdateMessage(MATERIAL, 20));
+
+        ArgumentCaptor<MaterialUpdateCompletedMessage> message = ArgumentCaptor.forClass(MaterialUpdateCompletedMessage.class);
+        verify(topic).post(message.capture());
+        assertThat(((MaterialUpdateSuccessfulMessage) message.getValue()).foundNewModifications(), is(true));
+    }
+
     @Test
     public void shouldPostUpdateFailedMessageOnException() throws Exception {
         setupTransactionTemplateStub();
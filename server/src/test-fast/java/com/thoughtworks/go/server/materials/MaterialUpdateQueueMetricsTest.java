@@ -0,0 +1,75 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.config.materials.git.GitMaterial;
+import com.thoughtworks.go.config.materials.svn.SvnMaterial;
+import com.thoughtworks.go.helper.MaterialsMother;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MaterialUpdateQueueMetricsTest {
+    private final MaterialUpdateQueueMetrics metrics = new MaterialUpdateQueueMetrics();
+    private final GitMaterial gitMaterial = MaterialsMother.gitMaterial("https://example.com/repo.git");
+    private final SvnMaterial svnMaterial = MaterialsMother.svnMaterial();
+
+    @Test
+    void shouldTrackDepthAndWorkersPerLane() {
+        metrics.workerAdded(MaterialUpdateQueueMetrics.Lane.PRIORITY);
+        metrics.workerAdded(MaterialUpdateQueueMetrics.Lane.PRIORITY);
+        metrics.queued(MaterialUpdateQueueMetrics.Lane.PRIORITY);
+        metrics.queued(MaterialUpdateQueueMetrics.Lane.PRIORITY);
+        metrics.queued(MaterialUpdateQueueMetrics.Lane.ROUTINE);
+        metrics.pickedUp(MaterialUpdateQueueMetrics.Lane.PRIORITY, gitMaterial, 5);
+
+        assertThat(lane("Manual and webhook")).containsEntry("Workers", 2L).containsEntry("Depth", 1L);
+        assertThat(lane("Polling")).containsEntry("Workers", 0L).containsEntry("Depth", 1L);
+        assertThat(lane("Dependency")).containsEntry("Depth", 0L);
+    }
+
+    @Test
+    void shouldReportWaitAndProcessingTimesPerMaterialType() {
+        metrics.pickedUp(MaterialUpdateQueueMetrics.Lane.ROUTINE, gitMaterial, 10);
+        metrics.processed(MaterialUpdateQueueMetrics.Lane.ROUTINE, gitMaterial, 100);
+        metrics.pickedUp(MaterialUpdateQueueMetrics.Lane.ROUTINE, gitMaterial, 30);
+        metrics.processed(MaterialUpdateQueueMetrics.Lane.ROUTINE, gitMaterial, 300);
+        metrics.pickedUp(MaterialUpdateQueueMetrics.Lane.ROUTINE, svnMaterial, 1);
+        metrics.processed(MaterialUpdateQueueMetrics.Lane.ROUTINE, svnMaterial, 2);
+
+        Map<String, Object> byType = byMaterialType("Polling");
+        assertThat(byType).containsOnlyKeys(gitMaterial.getTypeForDisplay(), svnMaterial.getTypeForDisplay());
+        assertThat((Map<String, Object>) byType.get(gitMaterial.getTypeForDisplay()))
+                .containsEntry("Updates", 2L)
+                .containsEntry("Average wait (ms)", 20L)
+                .containsEntry("Max wait (ms)", 30L)
+                .containsEntry("Average processing (ms)", 200L)
+                .containsEntry("Max processing (ms)", 300L);
+        assertThat(byMaterialType("Manual and webhook")).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> lane(String name) {
+        return (Map<String, Object>) metrics.statistics().get(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> byMaterialType(String laneName) {
+        return (Map<String, Object>) lane(laneName).get("By material type");
+    }
+}
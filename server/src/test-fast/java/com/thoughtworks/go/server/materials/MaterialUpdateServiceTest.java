@@ -106,6 +106,10 @@ public class MaterialUpdateServiceTest {
     private MDUPerformanceLogger mduPerformanceLogger;
     @Mock
     private ExponentialBackoffService exponentialBackoffService;
+    @Mock
+    private PriorityMaterialUpdateQueue priorityQueue;
+    @Mock
+    private MaterialUpdateQueueMetrics queueMetrics;
 
     private static final SvnMaterialConfig MATERIAL_CONFIG = MaterialConfigsMother.svnMaterialConfig();
     private Username username;
@@ -118,7 +122,8 @@ public class MaterialUpdateServiceTest {
     void setUp() {
         service = new MaterialUpdateService(queue, configQueue, completed, watchList, goConfigService, systemEnvironment,
                 serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter,
-                dependencyMaterialUpdateQueue, maintenanceModeService, secretParamResolver, exponentialBackoffService);
+                dependencyMaterialUpdateQueue, maintenanceModeService, secretParamResolver, exponentialBackoffService,
+                priorityQueue, queueMetrics);
 
         service.registerMaterialSources(scmMaterialSource);
         service.registerMaterialUpdateCompleteListener(scmMaterialSource);
@@ -211,6 +216,84 @@ public class MaterialUpdateServiceTest {
             verify(configQueue, times(0)).post(any(MaterialUpdateMessage.class));
         }
 
+        @Test
+        void shouldPostOnDemandUpdateMessageOnPriorityQueueForNonConfigMaterial() {
+            assertThat(service.updateMaterialOnDemand(svnMaterial)).isTrue();
+
+            verify(priorityQueue).post(matchMaterialUpdateMessage(svnMaterial));
+            verify(queueMetrics).queued(MaterialUpdateQueueMetrics.Lane.PRIORITY);
+            verify(queue, times(0)).post(any(MaterialUpdateMessage.class));
+        }
+
+        @Test
+        void shouldPostOnDemandUpdateMessageOnConfigQueueForConfigMaterial() {
+            when(watchList.hasConfigRepoWithFingerprint(svnMaterial.getFingerprint())).thenReturn(true);
+
+            assertThat(service.updateMaterialOnDemand(svnMaterial)).isTrue();
+
+            verify(configQueue).post(matchMaterialUpdateMessage(svnMaterial));
+            verify(queueMetrics).queued(MaterialUpdateQueueMetrics.Lane.CONFIG_REPOSITORY);
+            verify(priorityQueue, times(0)).post(any(MaterialUpdateMessage.class));
+        }
+
+        @Test
+        void shouldMoveAWebhookUpdateToThePriorityLaneWhileARoutinePollOfTheSameMaterialIsQueued() {
+            assertThat(service.updateMaterial(svnMaterial)).isTrue();
+            assertThat(service.updateMaterialOnDemand(svnMaterial)).isTrue();
+
+            verify(queue).post(matchMaterialUpdateMessage(svnMaterial));
+            verify(priorityQueue).post(matchMaterialUpdateMessage(svnMaterial));
+            verify(queueMetrics).queued(MaterialUpdateQueueMetrics.Lane.ROUTINE);
+            verify(queueMetrics).queued(MaterialUpdateQueueMetrics.Lane.PRIORITY);
+        }
+
+        @Test
+        void shouldMoveAnUpdateToThePriorityLaneOnlyOnce() {
+            assertThat(service.updateMaterial(svnMaterial)).isTrue();
+            assertThat(service.updateMaterialOnDemand(svnMaterial)).isTrue();
+            assertThat(service.updateMaterialOnDemand(svnMaterial)).isFalse();
+            assertThat(service.updateMaterial(svnMaterial)).isFalse();
+
+            verify(queue, times(1)).post(any(MaterialUpdateMessage.class));
+            verify(priorityQueue, times(1)).post(any(MaterialUpdateMessage.class));
+        }
+
+        @Test
+        void shouldKeepAMaterialMovedToThePriorityLaneInProgressUntilBothUpdatesComplete() {
+            service.updateMaterial(svnMaterial);
+            service.updateMaterialOnDemand(svnMaterial);
+
+            service.onMessage(new MaterialUpdateCompletedMessage(svnMaterial, 1));
+            assertThat(service.isInProgress(svnMaterial)).isTrue();
+
+            service.onMessage(new MaterialUpdateCompletedMessage(svnMaterial, 0));
+            assertThat(service.isInProgress(svnMaterial)).isFalse();
+            verify(scmMaterialSource, times(2)).onMaterialUpdate(new MaterialUpdateCompletedMessage(svnMaterial, 0));
+        }
+
+        @Test
+        void shouldNotQueueAnotherUpdateWhileAnOnDemandUpdateOfTheSameMaterialIsInProgress() {
+            assertThat(service.updateMaterialOnDemand(svnMaterial)).isTrue();
+            assertThat(service.updateMaterialOnDemand(svnMaterial)).isFalse();
+            assertThat(service.updateMaterial(svnMaterial)).isFalse();
+
+            verify(priorityQueue, times(1)).post(any(MaterialUpdateMessage.class));
+            verify(queue, never()).post(any(MaterialUpdateMessage.class));
+        }
+
+        @Test
+        void shouldNotCountAnUpdateAsQueuedWhenPostingItFails() {
+            doThrow(new RuntimeException("failed")).when(priorityQueue).post(any(MaterialUpdateMessage.class));
+
+            try {
+                service.updateMaterialOnDemand(svnMaterial);
+                fail("Should have failed");
+            } catch (RuntimeException expected) {
+            }
+
+            verify(queueMetrics, never()).queued(any());
+        }
+
         @Test
         void shouldAllowConcurrentUpdatesForNonAutoUpdateMaterials() {
             ScmMaterial material = mock(ScmMaterial.class);
@@ -372,7 +455,7 @@ public class MaterialUpdateServiceTest {
             service.notifyMaterialsForUpdate(username, params, result);
 
             verify(svnPostCommitHookImplementer).prune(anySet(), eq(params));
-            verify(queue, times(1)).post(matchMaterialUpdateMessage(svnMaterial));
+            verify(priorityQueue, times(1)).post(matchMaterialUpdateMessage(svnMaterial));
 
             HttpLocalizedOperationResult acceptedResult = new HttpLocalizedOperationResult();
             acceptedResult.accepted("The material is now scheduled for an update. Please check relevant pipeline(s) for status.");
@@ -405,6 +488,26 @@ public class MaterialUpdateServiceTest {
             assertThat(materialArgumentCaptor.getValue()).isEqualTo(svnMaterial);
             verify(secretParamResolver, never()).resolve(gitMaterial);
         }
+
+        @Test
+        void shouldResolveSecretParamsOnCopiesOfThePostCommitMaterialsSharedAcrossRequests() {
+            Map<String, String> params = new HashMap<>();
+            params.put(MaterialUpdateService.TYPE, "svn");
+            final PostCommitHookImplementer svnPostCommitHookImplementer = mock(PostCommitHookImplementer.class);
+            final SvnMaterial svnMaterial = new SvnMaterial("http://url.com", "bob", "{{SECRET:[config_id][username]}}", false);
+
+            when(goConfigService.currentCruiseConfig()).thenReturn(mock(CruiseConfig.class));
+            when(goConfigService.isUserAdmin(username)).thenReturn(true);
+            when(postCommitHookMaterialType.toType("svn")).thenReturn(validMaterialType);
+            when(validMaterialType.getImplementer()).thenReturn(svnPostCommitHookImplementer);
+            when(materialConfigConverter.toMaterials(anySet())).thenReturn(Set.of(svnMaterial));
+
+            service.notifyMaterialsForUpdate(username, params, new HttpLocalizedOperationResult());
+            service.notifyMaterialsForUpdate(username, params, new HttpLocalizedOperationResult());
+
+            verify(secretParamResolver, times(2)).resolve(any(SvnMaterial.class));
+            verify(secretParamResolver, never()).resolve(same(svnMaterial));
+        }
     }
 
     @Test
@@ -467,8 +570,8 @@ public class MaterialUpdateServiceTest {
 
         service.onMessage(new MaterialUpdateCompletedMessage(material, 0));
 
-        verify(dependencyMaterialUpdateNotifier).onMaterialUpdate(material);
-        verify(scmMaterialSource).onMaterialUpdate(material);
+        verify(dependencyMaterialUpdateNotifier).onMaterialUpdate(new MaterialUpdateCompletedMessage(material, 0));
+        verify(scmMaterialSource).onMaterialUpdate(new MaterialUpdateCompletedMessage(material, 0));
     }
 
     @Test
@@ -530,9 +633,44 @@ public class MaterialUpdateServiceTest {
 
             assertThat(materialUpdated).isTrue();
             verify(mduPerformanceLogger).materialSentToUpdateQueue(pluggableSCMMaterial);
-            verify(queue).post(matchMaterialUpdateMessage(pluggableSCMMaterial));
+            verify(priorityQueue).post(matchMaterialUpdateMessage(pluggableSCMMaterial));
             verifyNoMoreInteractions(mduPerformanceLogger);
-            verifyNoMoreInteractions(queue);
+            verifyNoMoreInteractions(priorityQueue);
+            verifyNoInteractions(queue);
+        }
+
+        @Test
+        void shouldUpdateGitMaterialsMatchingBranchAndAnyOfThePossibleUrls() {
+            GitMaterial matching = MaterialsMother.gitMaterial("https://example.com/repo.git", null, "main");
+            GitMaterial otherBranch = MaterialsMother.gitMaterial("https://example.com/repo.git", null, "release");
+            GitMaterial otherRepo = MaterialsMother.gitMaterial("https://example.com/other.git", null, "main");
+
+            when(goConfigService.currentCruiseConfig()).thenReturn(mock(CruiseConfig.class));
+            when(materialConfigConverter.toMaterials(anySet())).thenReturn(Set.of(matching, otherBranch, otherRepo, svnMaterial));
+
+            boolean materialUpdated = service.updateGitMaterial("main", List.of("git@example.com:repo.git", "https://example.com/repo.git"), emptyList());
+
+            assertThat(materialUpdated).isTrue();
+            verify(priorityQueue).post(matchMaterialUpdateMessage(matching));
+            verifyNoMoreInteractions(priorityQueue);
+        }
+
+        @Test
+        void shouldConvertPostCommitMaterialsOnlyOncePerConfig() {
+            GitMaterial gitMaterial = MaterialsMother.gitMaterial("https://example.com/repo.git", null, "main");
+            CruiseConfig config = mock(CruiseConfig.class);
+            CruiseConfig changedConfig = mock(CruiseConfig.class);
+
+            when(goConfigService.currentCruiseConfig()).thenReturn(config, config, changedConfig);
+            when(materialConfigConverter.toMaterials(anySet())).thenReturn(Set.of(gitMaterial), Set.of());
+
+            assertThat(service.updateGitMaterial("main", List.of("https://example.com/repo.git"), emptyList())).isTrue();
+            service.onMessage(new MaterialUpdateSuccessfulMessage(gitMaterial, 0));
+            assertThat(service.updateGitMaterial("main", List.of("https://example.com/repo.git"), emptyList())).isTrue();
+            verify(materialConfigConverter, times(1)).toMaterials(anySet());
+
+            assertThat(service.updateGitMaterial("main", List.of("https://example.com/repo.git"), emptyList())).isFalse();
+            verify(materialConfigConverter, times(2)).toMaterials(anySet());
         }
     }
 }
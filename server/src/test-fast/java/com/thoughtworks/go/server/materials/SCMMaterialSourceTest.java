@@ -37,11 +37,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.util.Date;
 import java.util.Set;
 
 import static java.util.Collections.emptySet;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -62,6 +64,7 @@ public class SCMMaterialSourceTest {
         serverHealthService = mock(ServerHealthService.class);
         materialConfigConverter = mock(MaterialConfigConverter.class);
         materialUpdateService = mock(MaterialUpdateService.class);
+        systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY, "600000");
 
         source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService);
     }
@@ -69,6 +72,7 @@ public class SCMMaterialSourceTest {
     @AfterEach
     public void tearDown() throws Exception {
         systemEnvironment.reset(SystemEnvironment.MATERIAL_UPDATE_INACTIVE_TIMEOUT_IN_MINUTES);
+        systemEnvironment.clearProperty(SystemEnvironment.MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY);
     }
 
     @Test
@@ -94,10 +98,10 @@ public class SCMMaterialSourceTest {
         when(materialConfigConverter.toMaterials(schedulableMaterialConfigs)).thenReturn(Set.of(svnMaterial, gitMaterial));
 
         freezeTime(minuteBack);
-        source.onMaterialUpdate(gitMaterial);
+        source.onMaterialUpdate(updated(gitMaterial, false));
 
         resetTime();
-        source.onMaterialUpdate(svnMaterial);
+        source.onMaterialUpdate(updated(svnMaterial, false));
 
         Set<Material> materials = source.materialsForUpdate();
 
@@ -105,6 +109,83 @@ public class SCMMaterialSourceTest {
         assertTrue(materials.contains(gitMaterial));
     }
 
+    @Test
+    public void shouldPollMaterialsLessOftenWhileTheyKeepFindingNoNewRevisions() {
+        long now = DateTimeUtils.currentTimeMillis();
+        freezeTime(now);
+        source.onMaterialUpdate(updated(gitMaterial, false));
+        freezeTime(now + 60000);
+        assertTrue(source.hasUpdateIntervalElapsedForScmMaterial(gitMaterial));
+
+        source.onMaterialUpdate(updated(gitMaterial, false));
+        freezeTime(now + 120000);
+        assertFalse(source.hasUpdateIntervalElapsedForScmMaterial(gitMaterial));
+        freezeTime(now + 180000);
+        assertTrue(source.hasUpdateIntervalElapsedForScmMaterial(gitMaterial));
+        resetTime();
+    }
+
+    @Test
+    public void shouldKeepPollingAtTheIdleIntervalWhenNoMaxIdleIntervalIsSet() {
+        systemEnvironment.clearProperty(SystemEnvironment.MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService);
+
+        long now = DateTimeUtils.currentTimeMillis();
+        freezeTime(now);
+        source.onMaterialUpdate(updated(gitMaterial, false));
+        freezeTime(now + 60000);
+        source.onMaterialUpdate(updated(gitMaterial, false));
+
+        freezeTime(now + 120000);
+        assertTrue(source.hasUpdateIntervalElapsedForScmMaterial(gitMaterial));
+        resetTime();
+    }
+
+    @Test
+    public void shouldGoBackToPollingAtTheIdleIntervalOnceANewRevisionIsFound() {
+        long now = DateTimeUtils.currentTimeMillis();
+        freezeTime(now);
+        source.onMaterialUpdate(updated(gitMaterial, false));
+        freezeTime(now + 60000);
+        source.onMaterialUpdate(updated(gitMaterial, false));
+
+        freezeTime(now + 180000);
+        source.onMaterialUpdate(updated(gitMaterial, true));
+
+        freezeTime(now + 240000);
+        assertTrue(source.hasUpdateIntervalElapsedForScmMaterial(gitMaterial));
+        resetTime();
+    }
+
+    @Test
+    public void shouldPollMaterialsWhichAreNotifiedOfChangesOnlyAtTheMaxIdleInterval() {
+        long now = DateTimeUtils.currentTimeMillis();
+        freezeTime(now);
+        source.onMaterialNotified(gitMaterial);
+        source.onMaterialUpdate(updated(gitMaterial, false));
+
+        freezeTime(now + 60000);
+        assertFalse(source.hasUpdateIntervalElapsedForScmMaterial(gitMaterial));
+        freezeTime(now + systemEnvironment.getMaterialUpdateMaxIdleInterval());
+        assertTrue(source.hasUpdateIntervalElapsedForScmMaterial(gitMaterial));
+        resetTime();
+    }
+
+    @Test
+    public void shouldReportWhenEachSchedulableMaterialIsNextDueForAnUpdate() {
+        long now = DateTimeUtils.currentTimeMillis();
+        Set<MaterialConfig> schedulableMaterialConfigs = Set.of(svnMaterial.config(), gitMaterial.config());
+        when(goConfigService.getSchedulableSCMMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterials(schedulableMaterialConfigs)).thenReturn(Set.of(svnMaterial, gitMaterial));
+
+        freezeTime(now);
+        source.onMaterialUpdate(updated(gitMaterial, false));
+        resetTime();
+
+        assertThat(source.nextPollTimes().get(gitMaterial), is(new Date(now + 60000)));
+        assertThat(source.nextPollTimes().get(svnMaterial), is((Date) null));
+    }
+
     @Test
     public void shouldListenToConfigChange() {
         source = spy(source);
@@ -295,6 +376,10 @@ public class SCMMaterialSourceTest {
         assertTrue(materials.contains(gitMaterial));
     }
 
+    private MaterialUpdateSuccessfulMessage updated(Material material, boolean foundNewModifications) {
+        return new MaterialUpdateSuccessfulMessage(material, 0, foundNewModifications);
+    }
+
     private void freezeTime(Long millis) {
         DateTimeUtils.setCurrentMillisFixed(millis);
     }
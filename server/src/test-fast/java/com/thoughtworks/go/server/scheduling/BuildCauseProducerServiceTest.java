@@ -162,7 +162,7 @@ public class BuildCauseProducerServiceTest {
         buildCauseProducerService.manualSchedulePipeline(Username.ANONYMOUS, pipelineConfig.name(), new ScheduleOptions(), result);
         assertThat(result.getServerHealthState().isSuccess(), is(true));
 
-        verify(mockMaterialUpdateService, times(2)).updateMaterial(any(Material.class));
+        verify(mockMaterialUpdateService, times(2)).updateMaterialOnDemand(any(Material.class));
         verify(mockMaterialUpdateStatusNotifier).registerListenerFor(eq(pipelineConfig),
                 any(MaterialUpdateStatusListener.class));
     }
@@ -183,7 +183,7 @@ public class BuildCauseProducerServiceTest {
         assertThat(result.canContinue(), is(false));
         assertThat(result.message(), is("Failed to force pipeline: pipeline"));
 
-        verify(mockMaterialUpdateService, never()).updateMaterial(any(Material.class));
+        verify(mockMaterialUpdateService, never()).updateMaterialOnDemand(any(Material.class));
         verify(mockMaterialUpdateStatusNotifier, never()).registerListenerFor(eq(pipelineConfig),
                 any(MaterialUpdateStatusListener.class));
     }
@@ -252,7 +252,7 @@ public class BuildCauseProducerServiceTest {
     @Test
     public void shouldNotCheckForModificationsUnableToTriggerManualPipeline() throws Exception {
         buildCauseProducerService.manualSchedulePipeline(Username.ANONYMOUS, pipelineConfig.name(), new ScheduleOptions(), errorResult());
-        verify(mockMaterialUpdateService, never()).updateMaterial(any(Material.class));
+        verify(mockMaterialUpdateService, never()).updateMaterialOnDemand(any(Material.class));
         verify(mockMaterialUpdateStatusNotifier, never()).registerListenerFor(eq(pipelineConfig),
                 any(MaterialUpdateStatusListener.class));
     }
@@ -373,7 +373,7 @@ public class BuildCauseProducerServiceTest {
         buildCauseProducerService.manualSchedulePipeline(Username.ANONYMOUS, pipelineConfig.name(),
                 new ScheduleOptions(new HashMap<>(), new HashMap<>(), new HashMap<>()),
                 new ServerHealthStateOperationResult());
-        verify(mockMaterialUpdateService, times(1)).updateMaterial(any(Material.class));
+        verify(mockMaterialUpdateService, times(1)).updateMaterialOnDemand(any(Material.class));
         MaterialUpdateStatusListener statusListener = extractMaterialListenerInstanceFromRegisterCall();
         statusListener.onMaterialUpdate(new MaterialUpdateFailedMessage(materials[0], 0, new Exception("Cannot connect to repo")));
         verify(mockMaterialUpdateStatusNotifier).removeListenerFor(pipelineConfig);
@@ -460,8 +460,8 @@ public class BuildCauseProducerServiceTest {
 
         verify(goConfigService, times(2)).pipelineConfigNamed(pipelineConfig.name());
 
-        verify(mockMaterialUpdateService, times(1)).updateMaterial(material1);
-        verify(mockMaterialUpdateService, times(1)).updateMaterial(material2);
+        verify(mockMaterialUpdateService, times(1)).updateMaterialOnDemand(material1);
+        verify(mockMaterialUpdateService, times(1)).updateMaterialOnDemand(material2);
 
         statusListener.onMaterialUpdate(new MaterialUpdateSuccessfulMessage(material2, 0));
 
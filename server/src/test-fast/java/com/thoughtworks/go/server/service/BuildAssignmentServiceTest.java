@@ -96,6 +96,8 @@ class BuildAssignmentServiceTest {
     private JobStatusTopic jobStatusTopic;
     @Mock
     private ConsoleService consoleService;
+    @Mock
+    private JobStatusUpdateQueue jobStatusUpdateQueue;
 
     private BuildAssignmentService buildAssignmentService;
     private TransactionTemplate transactionTemplate;
@@ -115,7 +117,7 @@ class BuildAssignmentServiceTest {
         buildAssignmentService = new BuildAssignmentService(goConfigService, jobInstanceService, scheduleService, agentService,
                 environmentConfigService, transactionTemplate, scheduledPipelineLoader, pipelineService, builderFactory,
                 maintenanceModeService, elasticAgentPluginService, systemEnvironment, secretParamResolver,
-                jobStatusTopic, consoleService);
+                jobStatusTopic, consoleService, jobStatusUpdateQueue);
         elasticProfileId1 = "elastic.profile.id.1";
         elasticProfileId2 = "elastic.profile.id.2";
         elasticAgent = AgentMother.elasticAgent();
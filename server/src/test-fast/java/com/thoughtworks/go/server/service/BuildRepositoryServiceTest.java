@@ -21,9 +21,11 @@ import com.thoughtworks.go.domain.JobState;
 import com.thoughtworks.go.domain.NullJobInstance;
 import com.thoughtworks.go.helper.JobInstanceMother;
 import com.thoughtworks.go.remote.work.InvalidAgentException;
+import com.thoughtworks.go.server.messaging.JobStatusMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -40,11 +42,13 @@ public class BuildRepositoryServiceTest {
     private String agentUuid = "uuid";
     @Mock
     private ScheduleService scheduleService;
+    @Mock
+    private JobStatusUpdateQueue jobStatusUpdateQueue;
     private JobInstance jobInstance;
 
     @BeforeEach
     public void setup() {
-        buildRepositoryService = new BuildRepositoryService(jobInstanceService, scheduleService);
+        buildRepositoryService = new BuildRepositoryService(jobInstanceService, scheduleService, jobStatusUpdateQueue);
         jobInstance = JobInstanceMother.assignAgent(JobInstanceMother.building("job"), agentUuid);
         lenient().when(jobInstanceService.buildByIdWithTransitions(jobInstance.getIdentifier().getBuildId())).thenReturn(jobInstance);
     }
@@ -64,6 +68,36 @@ public class BuildRepositoryServiceTest {
         verify(scheduleService).updateJobStatus(jobInstance.getIdentifier(), state);
     }
 
+    @Test
+    public void shouldQueueStatusUpdateFromAssignedAgent() {
+        buildRepositoryService.queueStatusUpdateFromAgent(jobInstance.getIdentifier(), JobState.Building, agentUuid);
+        verify(jobStatusUpdateQueue).add(new JobStatusMessage(jobInstance.getIdentifier(), JobState.Building, agentUuid));
+        verifyNoInteractions(scheduleService);
+    }
+
+    @Test
+    public void shouldWriteStatusUpdateFromAssignedAgentThroughTheQueue() throws Exception {
+        buildRepositoryService.writeStatusUpdateFromAgent(jobInstance.getIdentifier(), JobState.Completed, agentUuid);
+        verify(jobStatusUpdateQueue).write(new JobStatusMessage(jobInstance.getIdentifier(), JobState.Completed, agentUuid));
+        verifyNoInteractions(scheduleService);
+    }
+
+    @Test
+    public void shouldNotWriteStatusUpdateFromWrongAgent() {
+        assertThatThrownBy(() -> buildRepositoryService.writeStatusUpdateFromAgent(jobInstance.getIdentifier(), JobState.Completed, "wrongId"))
+                .isInstanceOf(InvalidAgentException.class)
+                .hasMessageContaining("AgentUUID has changed in the middle of a job. AgentUUID:");
+        verifyNoInteractions(jobStatusUpdateQueue);
+    }
+
+    @Test
+    public void shouldNotQueueStatusUpdateFromWrongAgent() {
+        assertThatThrownBy(() -> buildRepositoryService.queueStatusUpdateFromAgent(jobInstance.getIdentifier(), JobState.Building, "wrongId"))
+                .isInstanceOf(InvalidAgentException.class)
+                .hasMessageContaining("AgentUUID has changed in the middle of a job. AgentUUID:");
+        verifyNoInteractions(jobStatusUpdateQueue);
+    }
+
     @Test
     public void shouldUpdateResult() {
         final JobResult result = JobResult.Passed;
@@ -71,6 +105,15 @@ public class BuildRepositoryServiceTest {
         verify(scheduleService).jobCompleting(jobInstance.getIdentifier(), result, agentUuid);
     }
 
+    @Test
+    public void shouldWriteStatusUpdatesQueuedByTheAgentBeforeUpdatingResult() {
+        buildRepositoryService.completing(jobInstance.getIdentifier(), JobResult.Passed, agentUuid);
+
+        InOrder inOrder = inOrder(jobStatusUpdateQueue, scheduleService);
+        inOrder.verify(jobStatusUpdateQueue).awaitUpdatesFrom(agentUuid);
+        inOrder.verify(scheduleService).jobCompleting(jobInstance.getIdentifier(), JobResult.Passed, agentUuid);
+    }
+
     @Test
     public void shouldNotUpdateResultFromWrongAgent() {
         final JobResult result = JobResult.Passed;
@@ -35,7 +35,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static com.thoughtworks.go.server.newsecurity.SessionUtilsHelper.loginAs;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @ExtendWith(ClearSingleton.class)
@@ -140,6 +140,7 @@ public class CcTrayServiceTest {
     @Test
     public void shouldChangeEtagIfProjectStatusChanges() throws Exception {
         when(goConfigService.isSecurityEnabled()).thenReturn(true);
+        when(ccTrayCache.version()).thenReturn(1L).thenReturn(2L);
         when(ccTrayCache.allEntriesInOrder())
                 .thenReturn(List.of(statusFor("proj1", "user1"), new ProjectStatus.NullProjectStatus("proj1").updateViewers(viewers("user1"))))
                 .thenReturn(List.of(statusFor("proj2", "user1"), new ProjectStatus.NullProjectStatus("proj1").updateViewers(viewers("user1"))));
@@ -155,6 +156,60 @@ public class CcTrayServiceTest {
         assertThat(originalXML).isNotEqualTo(newXML);
     }
 
+    @Test
+    public void shouldNotRenderAgainWhenCacheHasNotChanged() throws Exception {
+        when(goConfigService.isSecurityEnabled()).thenReturn(true);
+        when(ccTrayCache.version()).thenReturn(1L);
+        when(ccTrayCache.allEntriesInOrder()).thenReturn(List.of(statusFor("proj1", "user1"), statusFor("proj2", "user2")));
+
+        AtomicReference<String> originalEtag = new AtomicReference<>();
+        String originalXML = ccTrayService.renderCCTrayXML("prefix1", "user1", new StringBuilder(), originalEtag::set).toString();
+
+        AtomicReference<String> newEtag = new AtomicReference<>();
+        String newXML = ccTrayService.renderCCTrayXML("prefix1", "user1", new StringBuilder(), newEtag::set).toString();
+
+        assertThat(newEtag.get()).isEqualTo(originalEtag.get());
+        assertThat(newXML).isEqualTo(originalXML);
+        assertCcTrayXmlFor(newXML, "prefix1", "proj1");
+        verify(ccTrayCache, times(1)).allEntriesInOrder();
+    }
+
+    @Test
+    public void shouldRenderForUsersWithSamePermissionsFromTheSameStatuses() throws Exception {
+        when(goConfigService.isSecurityEnabled()).thenReturn(true);
+        Users viewers = viewers("user1", "user2");
+        ProjectStatus proj1 = new ProjectStatus("proj1", "activity1", "build-status-1", "build-label-1", DateUtils.parseRFC822("Sun, 23 May 2010 10:00:00 +0200"), "web-url").updateViewers(viewers);
+        ProjectStatus proj2 = new ProjectStatus("proj2", "activity1", "build-status-1", "build-label-1", DateUtils.parseRFC822("Sun, 23 May 2010 10:00:00 +0200"), "web-url").updateViewers(viewers);
+        when(ccTrayCache.allEntriesInOrder()).thenReturn(List.of(proj1, proj2, statusFor("proj3", "user3")));
+
+        String xmlForUser1 = ccTrayService.renderCCTrayXML("prefix1", "user1", new StringBuilder(), etag -> {
+        }).toString();
+        String xmlForUser2 = ccTrayService.renderCCTrayXML("prefix1", "user2", new StringBuilder(), etag -> {
+        }).toString();
+        String xmlForUser3 = ccTrayService.renderCCTrayXML("prefix1", "user3", new StringBuilder(), etag -> {
+        }).toString();
+
+        assertCcTrayXmlFor(xmlForUser1, "prefix1", "proj1", "proj2");
+        assertCcTrayXmlFor(xmlForUser2, "prefix1", "proj1", "proj2");
+        assertCcTrayXmlFor(xmlForUser3, "prefix1", "proj3");
+    }
+
+    @Test
+    public void shouldProvideEtagWithoutRenderingProjectStatuses() throws Exception {
+        when(goConfigService.isSecurityEnabled()).thenReturn(false);
+        when(ccTrayCache.version()).thenReturn(5L);
+        when(ccTrayCache.allEntriesInOrder()).thenReturn(List.of(statusFor("proj1", "user1")));
+
+        String etag = ccTrayService.etagFor("prefix1");
+        verify(ccTrayCache, never()).allEntriesInOrder();
+
+        AtomicReference<String> etagOfRenderedXML = new AtomicReference<>();
+        ccTrayService.renderCCTrayXML("prefix1", "user1", new StringBuilder(), etagOfRenderedXML::set);
+
+        assertThat(etag).isEqualTo(etagOfRenderedXML.get());
+        assertThat(ccTrayService.etagFor("prefix2")).isNotEqualTo(etag);
+    }
+
     private ProjectStatus statusFor(String projectName, String... allowedUsers) throws Exception {
         ProjectStatus status = new ProjectStatus(projectName, "activity1", "build-status-1", "build-label-1", DateUtils.parseRFC822("Sun, 23 May 2010 10:00:00 +0200"), "web-url");
         status.updateViewers(viewers(allowedUsers));
@@ -41,9 +41,15 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static com.thoughtworks.go.helper.ModificationsMother.oneModifiedFile;
 import static com.thoughtworks.go.plugin.domain.common.PluginConstants.CONFIG_REPO_EXTENSION;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -66,6 +72,9 @@ class ConfigRepositoryInitializerTest {
     @Mock
     private SystemEnvironment systemEnvironment;
 
+    @Mock
+    private Runnable publishParsedConfig;
+
     private ConfigRepositoryInitializer configRepositoryInitializer;
 
     private GoPluginDescriptor yamlPluginDescriptor;
@@ -139,6 +148,7 @@ class ConfigRepositoryInitializerTest {
         when(materialRepository.findMaterialInstance(gitMaterialConfig)).thenReturn(gitMaterialInstance);
         when(materialRepository.folderFor(gitMaterial)).thenReturn(folder);
         when(materialRepository.findLatestModification(gitMaterial)).thenReturn(materialRevisions);
+        when(goConfigRepoConfigDataSource.parseCheckout(gitMaterialConfig, folder, modification)).thenReturn(publishParsedConfig);
 
         // initialize config
         configRepositoryInitializer.onConfigChange(new BasicCruiseConfig());
@@ -147,13 +157,13 @@ class ConfigRepositoryInitializerTest {
         configRepositoryInitializer.pluginLoaded(yamlPluginDescriptor);
 
         // verify the config repo is initialized once all the in use plugins are loaded
-        verify(goConfigRepoConfigDataSource, times(1)).onCheckoutComplete(gitMaterialConfig, folder, modification);
+        verify(goConfigRepoConfigDataSource, times(1)).parseCheckout(gitMaterialConfig, folder, modification);
 
         // load json plugin
         configRepositoryInitializer.pluginLoaded(jsonPluginDescriptor);
 
         // verify the config repo is initialized once all the in use plugins are loaded
-        verify(goConfigRepoConfigDataSource, times(2)).onCheckoutComplete(gitMaterialConfig, folder, modification);
+        verify(goConfigRepoConfigDataSource, times(2)).parseCheckout(gitMaterialConfig, folder, modification);
 
         // load groovy plugin
         configRepositoryInitializer.pluginLoaded(groovyPluginDescriptor);
@@ -174,11 +184,48 @@ class ConfigRepositoryInitializerTest {
         when(materialRepository.findMaterialInstance(gitMaterialConfig)).thenReturn(gitMaterialInstance);
         when(materialRepository.folderFor(gitMaterial)).thenReturn(folder);
         when(materialRepository.findLatestModification(gitMaterial)).thenReturn(materialRevisions);
+        when(goConfigRepoConfigDataSource.parseCheckout(gitMaterialConfig, folder, modification)).thenReturn(publishParsedConfig);
+
+        configRepositoryInitializer.onConfigChange(new BasicCruiseConfig());
+        configRepositoryInitializer.pluginLoaded(yamlPluginDescriptor);
+
+        verify(goConfigRepoConfigDataSource, times(1)).parseCheckout(gitMaterialConfig, folder, modification);
+        verify(publishParsedConfig, times(1)).run();
+    }
+
+    @Test
+    void shouldParseConfigRepositoriesConcurrentlyButPublishTheParsedConfigsOnTheCallingThread() throws InterruptedException {
+        when(systemEnvironment.getNumberOfConfigRepositoryInitializationThreads()).thenReturn(2);
+        repoConfigs.clear();
+        CountDownLatch bothParsing = new CountDownLatch(2);
+        List<Thread> publishingThreads = Collections.synchronizedList(new ArrayList<>());
+        for (String repoName : List.of("repo1", "repo2")) {
+            ConfigRepoConfig repoConfig = new ConfigRepoConfig();
+            repoConfig.setId(repoName);
+            repoConfig.setPluginId(YAML_PLUGIN_ID);
+            repoConfig.setRepo(MaterialConfigsMother.git(repoName));
+            repoConfigs.add(repoConfig);
+
+            Material material = new Materials(new MaterialConfigs(repoConfig.getRepo())).first();
+            File folder = new File(repoName);
+            MaterialRevisions materialRevisions = new MaterialRevisions(new MaterialRevision(material, oneModifiedFile(repoName)));
+            Modification modification = materialRevisions.firstModifiedMaterialRevision().getLatestModification();
+
+            when(materialRepository.findMaterialInstance(repoConfig.getRepo())).thenReturn(new TestingMaterialInstance(repoName, "flyweight"));
+            when(materialRepository.folderFor(material)).thenReturn(folder);
+            when(materialRepository.findLatestModification(material)).thenReturn(materialRevisions);
+            when(goConfigRepoConfigDataSource.parseCheckout(repoConfig.getRepo(), folder, modification)).thenAnswer(invocation -> {
+                // a single parsing thread would never get past this
+                bothParsing.countDown();
+                assertThat(bothParsing.await(10, TimeUnit.SECONDS)).isTrue();
+                return (Runnable) () -> publishingThreads.add(Thread.currentThread());
+            });
+        }
 
         configRepositoryInitializer.onConfigChange(new BasicCruiseConfig());
         configRepositoryInitializer.pluginLoaded(yamlPluginDescriptor);
 
-        verify(goConfigRepoConfigDataSource, times(1)).onCheckoutComplete(gitMaterialConfig, folder, modification);
+        assertThat(publishingThreads).containsExactly(Thread.currentThread(), Thread.currentThread());
     }
 
     @Test
@@ -204,11 +251,12 @@ class ConfigRepositoryInitializerTest {
         when(materialRepository.findMaterialInstance(gitMaterialConfig)).thenReturn(gitMaterialInstance);
         when(materialRepository.folderFor(gitMaterial)).thenReturn(folder);
         when(materialRepository.findLatestModification(gitMaterial)).thenReturn(materialRevisions);
+        when(goConfigRepoConfigDataSource.parseCheckout(gitMaterialConfig, folder, modification)).thenReturn(publishParsedConfig);
 
         configRepositoryInitializer.onConfigChange(new BasicCruiseConfig());
         configRepositoryInitializer.pluginLoaded(yamlPluginDescriptor);
 
-        verify(goConfigRepoConfigDataSource, times(1)).onCheckoutComplete(gitMaterialConfig, folder, modification);
+        verify(goConfigRepoConfigDataSource, times(1)).parseCheckout(gitMaterialConfig, folder, modification);
 
         // config changes..
         configRepositoryInitializer.onConfigChange(new BasicCruiseConfig());
@@ -17,8 +17,13 @@
 package com.thoughtworks.go.server.service;
 
 import com.thoughtworks.go.config.AdminUser;
+import com.thoughtworks.go.config.AdminsConfig;
+import com.thoughtworks.go.config.Authorization;
+import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.ConfigCache;
 import com.thoughtworks.go.config.MagicalGoConfigXmlWriter;
+import com.thoughtworks.go.config.PipelineTemplateConfig;
+import com.thoughtworks.go.config.SecretConfig;
 import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.util.ConfigElementImplementationRegistryMother;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,13 +33,13 @@ import org.mockito.stubbing.Answer;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.util.CachedDigestUtils.sha512_256Hex;
 import static java.lang.String.format;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 class EntityHashesTest {
     private EntityHashes hashes;
@@ -56,9 +61,11 @@ class EntityHashesTest {
 
     @Nested
     class ConfigEntities {
+        private MagicalGoConfigXmlWriter writer;
+
         @BeforeEach
         void setup() {
-            final MagicalGoConfigXmlWriter writer = mock(MagicalGoConfigXmlWriter.class);
+            writer = mock(MagicalGoConfigXmlWriter.class);
 
             hashes = new EntityHashes(mock(ConfigCache.class), mock(ConfigElementImplementationRegistry.class)) {
                 @Override
@@ -72,6 +79,18 @@ class EntityHashesTest {
                 final AdminUser user = invocation.getArgument(0);
                 return user.getName().toString();
             });
+            when(writer.toXmlPartial(any(AdminsConfig.class))).thenAnswer((Answer<String>) invocation -> {
+                final AdminsConfig admins = invocation.getArgument(0);
+                return admins.stream().map(admin -> admin.getName().toString()).collect(Collectors.joining(","));
+            });
+            when(writer.toXmlPartial(any(SecretConfig.class))).thenAnswer((Answer<String>) invocation -> {
+                final SecretConfig secretConfig = invocation.getArgument(0);
+                return secretConfig.getId() + ":" + secretConfig.getDescription();
+            });
+            when(writer.toXmlPartial(any(PipelineTemplateConfig.class))).thenAnswer((Answer<String>) invocation -> {
+                final PipelineTemplateConfig template = invocation.getArgument(0);
+                return template.name() + ":" + template.getAuthorization().getAdminsConfig().stream().map(admin -> admin.getName().toString()).collect(Collectors.joining(","));
+            });
         }
 
         @Test
@@ -93,5 +112,62 @@ class EntityHashesTest {
         void digestDomainConfigEntity() {
             assertEquals(sha512_256Hex("bilbo"), hashes.digestDomainConfigEntity(new AdminUser("bilbo")));
         }
+
+        @Test
+        void digestDomainConfigEntity_remembersTheDigestOfAnEntity() {
+            final AdminUser user = new AdminUser("bilbo");
+
+            assertEquals(sha512_256Hex("bilbo"), hashes.digestDomainConfigEntity(user));
+            assertEquals(sha512_256Hex("bilbo"), hashes.digestDomainConfigEntity(user));
+            assertEquals(sha512_256Hex("bilbo"), hashes.digestDomainConfigEntity(new AdminUser("bilbo")));
+
+            verify(writer, times(2)).toXmlPartial(any(AdminUser.class));
+        }
+
+        @Test
+        void digestDomainConfigEntity_digestsAnEntityAgainWhenItIsChangedInPlace() {
+            final AdminsConfig admins = new AdminsConfig(new AdminUser("bilbo"));
+            assertEquals(sha512_256Hex("bilbo"), hashes.digestDomainConfigEntity(admins));
+
+            admins.add(new AdminUser("baggins"));
+
+            assertEquals(sha512_256Hex("bilbo,baggins"), hashes.digestDomainConfigEntity(admins));
+        }
+
+        @Test
+        void digestDomainConfigEntity_digestsAnEntityAgainWhenAFieldItsHashCodeIgnoresIsChangedInPlace() {
+            final PipelineTemplateConfig template = new PipelineTemplateConfig(new CaseInsensitiveString("template"), new Authorization(new AdminsConfig(new AdminUser("bilbo"))));
+            assertEquals(sha512_256Hex("template:bilbo"), hashes.digestDomainConfigEntity(template));
+            final int hashCode = template.hashCode();
+
+            template.getAuthorization().getAdminsConfig().add(new AdminUser("baggins"));
+
+            assertEquals(hashCode, template.hashCode());
+            assertEquals(sha512_256Hex("template:bilbo,baggins"), hashes.digestDomainConfigEntity(template));
+        }
+
+        @Test
+        void digestDomainConfigEntity_remembersTheDigestOfAnEntityWithoutItsOwnHashCodeUntilItIsChanged() {
+            final SecretConfig secretConfig = new SecretConfig("secrets", "plugin");
+            secretConfig.setDescription("before");
+            assertEquals(sha512_256Hex("secrets:before"), hashes.digestDomainConfigEntity(secretConfig));
+            assertEquals(sha512_256Hex("secrets:before"), hashes.digestDomainConfigEntity(secretConfig));
+
+            secretConfig.setDescription("after");
+
+            assertEquals(sha512_256Hex("secrets:after"), hashes.digestDomainConfigEntity(secretConfig));
+            verify(writer, times(2)).toXmlPartial(secretConfig);
+        }
+
+        @Test
+        void digestDomainConfigEntity_remembersTheDigestOfAnEntityWhenOnlyItsErrorsChange() {
+            final AdminUser user = new AdminUser("bilbo");
+            assertEquals(sha512_256Hex("bilbo"), hashes.digestDomainConfigEntity(user));
+
+            user.addError("name", "is not allowed");
+
+            assertEquals(sha512_256Hex("bilbo"), hashes.digestDomainConfigEntity(user));
+            verify(writer).toXmlPartial(user);
+        }
     }
-}
\ No newline at end of file
+}
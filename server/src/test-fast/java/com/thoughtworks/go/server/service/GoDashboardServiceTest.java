@@ -69,7 +69,7 @@ public class GoDashboardServiceTest {
         config = GoConfigMother.defaultCruiseConfig();
         Toggles.initializeWith(featureToggleService);
         lenient().when(cache.allEntries()).thenReturn(this.pipelines);
-        service = new GoDashboardService(cache, dashboardCurrentStateLoader, permissionsAuthority, goConfigService);
+        service = new GoDashboardService(cache, new GoDashboardViewsCache(cache, permissionsAuthority), dashboardCurrentStateLoader, goConfigService);
 
         GoConfigMother.addUserAsSuperAdmin(config, "superduper");
         configMother.addRoleAsSuperAdmin(config, "supers");
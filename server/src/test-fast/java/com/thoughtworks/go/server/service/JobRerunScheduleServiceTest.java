@@ -35,6 +35,7 @@ import com.thoughtworks.go.server.transaction.TestTransactionSynchronizationMana
 import com.thoughtworks.go.server.transaction.TestTransactionTemplate;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.util.LogFixture;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TimeProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -90,7 +91,7 @@ public class JobRerunScheduleServiceTest {
         service = new ScheduleService(goConfigService, pipelineService, stageService, schedulingChecker, mock(PipelineDao.class),
                 mock(StageDao.class), mock(StageOrderService.class), securityService, pipelineScheduleQueue, jobInstanceService, mock(JobInstanceDao.class), mock(AgentAssignment.class),
                 environmentConfigService, lockService, serverHealthService, txnTemplate, mock(AgentService.class), synchronizationManager, timeProvider, null, null, instanceFactory,
-                schedulingPerformanceLogger, elasticProfileService, clusterProfileService);
+                schedulingPerformanceLogger, elasticProfileService, clusterProfileService, new SystemEnvironment());
 
         SessionUtils.setCurrentUser(new GoUserPrinciple("anonymous", "anonymous", GoAuthority.ROLE_ANONYMOUS.asAuthority()));
     }
@@ -139,7 +140,7 @@ public class JobRerunScheduleServiceTest {
         service = new ScheduleService(goConfigService, pipelineService, stageService, schedulingChecker, mock(PipelineDao.class),
                 mock(StageDao.class), mock(StageOrderService.class), securityService, pipelineScheduleQueue, jobInstanceService, mock(JobInstanceDao.class), mock(AgentAssignment.class),
                 environmentConfigService, lockService, serverHealthService, txnTemplate, mock(AgentService.class), null, null, null, null, null, schedulingPerformanceLogger,
-                null, null
+                null, null, new SystemEnvironment()
         );
 
         HttpOperationResult result = new HttpOperationResult();
@@ -259,7 +260,7 @@ public class JobRerunScheduleServiceTest {
         service = new ScheduleService(goConfigService, pipelineService, stageService, schedulingChecker, mock(PipelineDao.class),
                 mock(StageDao.class), mock(StageOrderService.class), securityService, pipelineScheduleQueue, jobInstanceService, mock(JobInstanceDao.class), mock(AgentAssignment.class),
                 environmentConfigService, lockService, serverHealthService, template, mock(AgentService.class), null, timeProvider, null, null, mock(InstanceFactory.class),
-                schedulingPerformanceLogger, elasticProfileService, clusterProfileService) {
+                schedulingPerformanceLogger, elasticProfileService, clusterProfileService, new SystemEnvironment()) {
             @Override
             public Stage scheduleStage(Pipeline pipeline, String stageName, String username, StageInstanceCreator creator,
                                        ErrorConditionHandler errorHandler) {
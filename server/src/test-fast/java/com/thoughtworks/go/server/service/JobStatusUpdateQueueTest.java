@@ -0,0 +1,274 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.JobState;
+import com.thoughtworks.go.domain.StageIdentifier;
+import com.thoughtworks.go.server.messaging.JobStatusMessage;
+import com.thoughtworks.go.server.messaging.JobStatusTopic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JobStatusUpdateQueueTest {
+    @Mock
+    private ScheduleService scheduleService;
+    @Mock
+    private JobStatusTopic jobStatusTopic;
+
+    private List<Runnable> tasks;
+    private JobStatusUpdateQueue queue;
+
+    @BeforeEach
+    public void setUp() {
+        tasks = new ArrayList<>();
+        queue = new JobStatusUpdateQueue(scheduleService, jobStatusTopic, 1, tasks::add, 0);
+    }
+
+    @Test
+    public void shouldWriteTheUpdatesPilingUpForAStageAsOneBatchInTheOrderTheyWereReported() throws Exception {
+        JobStatusMessage firstPreparing = update("pipeline", "stage", "first", JobState.Preparing);
+        JobStatusMessage secondPreparing = update("pipeline", "stage", "second", JobState.Preparing);
+        JobStatusMessage firstBuilding = update("pipeline", "stage", "first", JobState.Building);
+        queue.add(firstPreparing);
+        queue.add(secondPreparing);
+        queue.add(firstBuilding);
+
+        runTasks();
+
+        InOrder inOrder = inOrder(scheduleService, jobStatusTopic);
+        inOrder.verify(scheduleService).updateJobStatuses(List.of(firstPreparing, secondPreparing, firstBuilding));
+        inOrder.verify(jobStatusTopic).post(firstPreparing);
+        inOrder.verify(jobStatusTopic).post(secondPreparing);
+        inOrder.verify(jobStatusTopic).post(firstBuilding);
+        verifyNoMoreInteractions(scheduleService, jobStatusTopic);
+    }
+
+    @Test
+    public void shouldWriteTheUpdatesOfEachStageSeparately() throws Exception {
+        JobStatusMessage upstream = update("upstream", "stage", "job", JobState.Completed);
+        JobStatusMessage downstream = update("downstream", "stage", "job", JobState.Building);
+        queue.add(upstream);
+        queue.add(downstream);
+
+        runTasks();
+
+        verify(scheduleService).updateJobStatuses(List.of(upstream));
+        verify(scheduleService).updateJobStatuses(List.of(downstream));
+        verifyNoMoreInteractions(scheduleService);
+    }
+
+    @Test
+    public void shouldRetryAndNotPostUpdatesWhichCouldNotBeWritten() throws Exception {
+        JobStatusMessage building = update("pipeline", "stage", "job", JobState.Building);
+        doThrow(new RuntimeException("could not write")).when(scheduleService).updateJobStatuses(any());
+        queue.add(building);
+
+        runTasks();
+        queue.awaitUpdatesFrom("agent");
+
+        // the failed batch was the job's first attempt
+        verify(scheduleService, times(3)).updateJobStatuses(List.of(building));
+        verifyNoInteractions(jobStatusTopic);
+    }
+
+    @Test
+    public void shouldStillWriteTheUpdatesOfOtherJobsWhenOneJobOfABatchFails() throws Exception {
+        JobStatusMessage good = update("pipeline", "stage", "good", JobState.Building);
+        JobStatusMessage bad = update("pipeline", "stage", "bad", JobState.Building);
+        lenient().doThrow(new RuntimeException("could not write")).when(scheduleService).updateJobStatuses(argThat(updates -> updates.contains(bad)));
+        queue.add(good);
+        queue.add(bad);
+
+        runTasks();
+
+        verify(scheduleService).updateJobStatuses(List.of(good, bad));
+        verify(scheduleService).updateJobStatuses(List.of(good));
+        verify(scheduleService, times(3)).updateJobStatuses(List.of(bad));
+        verify(jobStatusTopic).post(good);
+        verify(jobStatusTopic, never()).post(bad);
+    }
+
+    @Test
+    public void shouldWriteAnUpdateWhichSucceedsOnRetry() throws Exception {
+        JobStatusMessage building = update("pipeline", "stage", "job", JobState.Building);
+        doThrow(new RuntimeException("deadlock")).doNothing().when(scheduleService).updateJobStatuses(any());
+        queue.add(building);
+
+        runTasks();
+
+        verify(scheduleService, times(2)).updateJobStatuses(List.of(building));
+        verify(jobStatusTopic).post(building);
+    }
+
+    @Test
+    public void shouldWriteTheUpdatesPendingFromAnAgentWhenAwaitingThem() throws Exception {
+        JobStatusMessage building = update("pipeline", "stage", "job", JobState.Building);
+        queue.add(building);
+
+        queue.awaitUpdatesFrom("another-agent");
+        verifyNoInteractions(scheduleService);
+
+        queue.awaitUpdatesFrom("agent");
+        verify(scheduleService).updateJobStatuses(List.of(building));
+        verify(jobStatusTopic).post(building);
+
+        runTasks();
+        verifyNoMoreInteractions(scheduleService, jobStatusTopic);
+    }
+
+    @Test
+    public void shouldBackOffBetweenAttempts() throws Exception {
+        queue = new JobStatusUpdateQueue(scheduleService, jobStatusTopic, 1, tasks::add, 50);
+        JobStatusMessage building = update("pipeline", "stage", "job", JobState.Building);
+        doThrow(new RuntimeException("could not write")).when(scheduleService).updateJobStatuses(any());
+        queue.add(building);
+
+        long start = System.nanoTime();
+        runTasks();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        verify(scheduleService, times(3)).updateJobStatuses(List.of(building));
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(50 + 100);
+    }
+
+    @Test
+    public void shouldWriteAnUpdateTogetherWithTheUpdatesPendingForItsStageWhileTheCallerWaits() throws Exception {
+        JobStatusMessage firstBuilding = update("pipeline", "stage", "first", JobState.Building);
+        JobStatusMessage secondCompleted = update("pipeline", "stage", "second", JobState.Completed);
+        queue.add(firstBuilding);
+
+        queue.write(secondCompleted);
+
+        InOrder inOrder = inOrder(scheduleService, jobStatusTopic);
+        inOrder.verify(scheduleService).updateJobStatuses(List.of(firstBuilding, secondCompleted));
+        inOrder.verify(jobStatusTopic).post(firstBuilding);
+        inOrder.verify(jobStatusTopic).post(secondCompleted);
+
+        runTasks();
+        verifyNoMoreInteractions(scheduleService, jobStatusTopic);
+    }
+
+    @Test
+    public void shouldThrowWhyAnUpdateBeingWaitedForCouldNotBeWritten() throws Exception {
+        JobStatusMessage completed = update("pipeline", "stage", "job", JobState.Completed);
+        RuntimeException failure = new RuntimeException("could not write");
+        doThrow(failure).when(scheduleService).updateJobStatuses(any());
+
+        assertThatThrownBy(() -> queue.write(completed)).isSameAs(failure);
+
+        verify(scheduleService, times(3)).updateJobStatuses(List.of(completed));
+        verifyNoInteractions(jobStatusTopic);
+    }
+
+    @Test
+    public void shouldWriteJobsOfAStageCompletingWhileTheStageIsBeingWrittenAsOneBatch() throws Exception {
+        JobStatusMessage building = update("pipeline", "stage", "first", JobState.Building);
+        JobStatusMessage secondCompleted = update("pipeline", "stage", "second", JobState.Completed);
+        JobStatusMessage thirdCompleted = update("pipeline", "stage", "third", JobState.Completed);
+        CountDownLatch writingBuilding = new CountDownLatch(1);
+        CountDownLatch completionsWaiting = new CountDownLatch(1);
+        lenient().doAnswer(invocation -> {
+            writingBuilding.countDown();
+            completionsWaiting.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(scheduleService).updateJobStatuses(List.of(building));
+        queue.add(building);
+
+        Thread backgroundWrite = new Thread(this::runTasks);
+        backgroundWrite.start();
+        assertThat(writingBuilding.await(10, TimeUnit.SECONDS)).isTrue();
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+        Thread second = new Thread(() -> writeCatching(secondCompleted, failures));
+        Thread third = new Thread(() -> writeCatching(thirdCompleted, failures));
+        second.start();
+        third.start();
+        // both are waiting for the lane, with their updates queued in it
+        awaitWaiting(second);
+        awaitWaiting(third);
+        completionsWaiting.countDown();
+
+        for (Thread thread : List.of(backgroundWrite, second, third)) {
+            thread.join(10_000);
+        }
+
+        assertThat(failures).isEmpty();
+        verify(scheduleService).updateJobStatuses(List.of(building));
+        verify(scheduleService).updateJobStatuses(argThat(updates -> updates.size() == 2 && updates.containsAll(List.of(secondCompleted, thirdCompleted))));
+        verifyNoMoreInteractions(scheduleService);
+        verify(jobStatusTopic).post(secondCompleted);
+        verify(jobStatusTopic).post(thirdCompleted);
+    }
+
+    @Test
+    public void shouldWriteWhatIsPendingWhenStopped() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        queue = new JobStatusUpdateQueue(scheduleService, jobStatusTopic, 1, executor, 0);
+        JobStatusMessage building = update("pipeline", "stage", "job", JobState.Building);
+        JobStatusMessage preparing = update("pipeline", "stage", "another-job", JobState.Preparing);
+        queue.add(building);
+
+        queue.stop();
+        assertThat(executor.isTerminated()).isTrue();
+        verify(scheduleService).updateJobStatuses(List.of(building));
+        verify(jobStatusTopic).post(building);
+
+        queue.add(preparing);
+        verify(scheduleService).updateJobStatuses(List.of(preparing));
+        verify(jobStatusTopic).post(preparing);
+    }
+
+    private void writeCatching(JobStatusMessage update, List<Exception> failures) {
+        try {
+            queue.write(update);
+        } catch (Exception e) {
+            failures.add(e);
+        }
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void runTasks() {
+        tasks.forEach(Runnable::run);
+        tasks.clear();
+    }
+
+    private static JobStatusMessage update(String pipelineName, String stageName, String jobName, JobState state) {
+        return new JobStatusMessage(new JobIdentifier(new StageIdentifier(pipelineName, 1, stageName, "1"), jobName), state, "agent");
+    }
+}
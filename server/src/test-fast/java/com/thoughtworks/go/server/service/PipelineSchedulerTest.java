@@ -18,17 +18,24 @@ package com.thoughtworks.go.server.service;
 import com.thoughtworks.go.config.BasicCruiseConfig;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.PipelineConfig;
+import com.thoughtworks.go.config.materials.MaterialConfigs;
+import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
 import com.thoughtworks.go.config.remote.ConfigRepoConfig;
 import com.thoughtworks.go.config.remote.ConfigReposConfig;
 import com.thoughtworks.go.config.remote.PartialConfig;
 import com.thoughtworks.go.config.remote.RepoConfigOrigin;
+import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
 import com.thoughtworks.go.helper.MaterialConfigsMother;
 import com.thoughtworks.go.helper.PartialConfigMother;
+import com.thoughtworks.go.helper.PipelineConfigMother;
 import com.thoughtworks.go.helper.ScheduleCheckMessageMatcher;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.materials.MaterialUpdateCompletedTopic;
+import com.thoughtworks.go.server.materials.MaterialUpdateFailedMessage;
+import com.thoughtworks.go.server.materials.MaterialUpdateSuccessfulMessage;
 import com.thoughtworks.go.server.perf.SchedulingPerformanceLogger;
 import com.thoughtworks.go.server.scheduling.*;
 import com.thoughtworks.go.server.service.result.HttpOperationResult;
@@ -36,6 +43,8 @@ import com.thoughtworks.go.server.service.result.OperationResult;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.TestingClock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -55,18 +64,24 @@ public class PipelineSchedulerTest {
     private PipelineScheduler scheduler;
     private GoConfigService configService;
     private BuildCauseProducerService buildCauseProducerService;
+    private SchedulingCheckerService schedulingCheckerService;
+    private SystemEnvironment systemEnvironment;
+    private TestingClock clock;
 
     @BeforeEach
     public void setUp() {
         queue = mock(ScheduleCheckQueue.class);
         configService = mock(GoConfigService.class);
         ServerHealthService serverHealthService = mock(ServerHealthService.class);
-        SchedulingCheckerService schedulingCheckerService = mock(SchedulingCheckerService.class);
+        schedulingCheckerService = mock(SchedulingCheckerService.class);
         buildCauseProducerService = mock(BuildCauseProducerService.class);
         ScheduleCheckCompletedTopic topic = mock(ScheduleCheckCompletedTopic.class);
         SchedulingPerformanceLogger schedulingPerformanceLogger = mock(SchedulingPerformanceLogger.class);
+        MaterialUpdateCompletedTopic materialUpdateCompletedTopic = mock(MaterialUpdateCompletedTopic.class);
+        systemEnvironment = mock(SystemEnvironment.class);
+        clock = new TestingClock();
         scheduler = new PipelineScheduler(configService, serverHealthService, schedulingCheckerService,
-                buildCauseProducerService, queue, topic, schedulingPerformanceLogger);
+                buildCauseProducerService, queue, topic, schedulingPerformanceLogger, materialUpdateCompletedTopic, systemEnvironment, clock);
     }
 
     @Test
@@ -182,6 +197,7 @@ public class PipelineSchedulerTest {
 
 
         when(newPipeline.name()).thenReturn(new CaseInsensitiveString(pipelineName));
+        when(newPipeline.materialConfigs()).thenReturn(new MaterialConfigs());
         entityConfigChangedListener.onEntityConfigChange(newPipeline);
         scheduler.checkPipelines();
         verify(queue, times(1)).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage(pipelineName));
@@ -247,4 +263,101 @@ public class PipelineSchedulerTest {
         scheduler.checkPipelines();
         verify(queue, times(1)).post(any(ScheduleCheckMessage.class));
     }
+
+    @Test
+    public void shouldOnlyCheckPipelinesWhoseMaterialsFoundNewModificationsSinceTheyWereLastChecked() {
+        GitMaterialConfig upstreamRepo = MaterialConfigsMother.gitMaterialConfig("http://example.com/upstream.git");
+        GitMaterialConfig otherRepo = MaterialConfigsMother.gitMaterialConfig("http://example.com/other.git");
+        scheduler.onConfigChange(configWith(PipelineConfigMother.pipelineConfig("cruise", new MaterialConfigs(upstreamRepo)),
+                PipelineConfigMother.pipelineConfig("mingle", new MaterialConfigs(otherRepo))));
+
+        scheduler.checkPipelinesWithChanges();
+        verify(queue).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
+        verify(queue).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("mingle"));
+        scheduler.onMessage(new ScheduleCheckCompletedMessage("cruise", 1));
+        scheduler.onMessage(new ScheduleCheckCompletedMessage("mingle", 2));
+
+        scheduler.checkPipelinesWithChanges();
+        verifyNoMoreInteractions(queue);
+
+        scheduler.onMaterialUpdateCompleted(new MaterialUpdateSuccessfulMessage(materialWithFingerprintOf(upstreamRepo), 3, true));
+        scheduler.onMaterialUpdateCompleted(new MaterialUpdateFailedMessage(materialWithFingerprintOf(otherRepo), 4, new RuntimeException("failed")));
+        scheduler.checkPipelinesWithChanges();
+        verify(queue, times(2)).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
+        verify(queue, times(1)).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("mingle"));
+    }
+
+    @Test
+    public void shouldNotCheckPipelinesWhoseMaterialsWereUpdatedWithoutFindingNewModifications() {
+        GitMaterialConfig repo = MaterialConfigsMother.gitMaterialConfig("http://example.com/repo.git");
+        scheduler.onConfigChange(configWith(PipelineConfigMother.pipelineConfig("cruise", new MaterialConfigs(repo))));
+        scheduler.checkPipelinesWithChanges();
+        scheduler.onMessage(new ScheduleCheckCompletedMessage("cruise", 1));
+
+        scheduler.onMaterialUpdateCompleted(new MaterialUpdateSuccessfulMessage(materialWithFingerprintOf(repo), 2, false));
+        scheduler.checkPipelinesWithChanges();
+
+        verify(queue, times(1)).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
+    }
+
+    @Test
+    public void shouldCheckABusyPipelineAgainOnceIdleWhenItsMaterialWasUpdatedDuringTheCheck() {
+        GitMaterialConfig repo = MaterialConfigsMother.gitMaterialConfig("http://example.com/repo.git");
+        scheduler.onConfigChange(configWith(PipelineConfigMother.pipelineConfig("cruise", new MaterialConfigs(repo))));
+        scheduler.checkPipelinesWithChanges();
+
+        scheduler.onMaterialUpdateCompleted(new MaterialUpdateSuccessfulMessage(materialWithFingerprintOf(repo), 1, true));
+        scheduler.checkPipelinesWithChanges();
+        verify(queue, times(1)).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
+
+        scheduler.onMessage(new ScheduleCheckCompletedMessage("cruise", 2));
+        scheduler.checkPipelinesWithChanges();
+        verify(queue, times(2)).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
+    }
+
+    @Test
+    public void shouldCheckPipelinesWhoseMaterialsChangedInConfig() {
+        scheduler.onConfigChange(configWith(PipelineConfigMother.pipelineConfig("cruise", new MaterialConfigs(MaterialConfigsMother.gitMaterialConfig("http://example.com/old.git")))));
+        scheduler.checkPipelinesWithChanges();
+        scheduler.onMessage(new ScheduleCheckCompletedMessage("cruise", 1));
+
+        scheduler.onConfigChange(configWith(PipelineConfigMother.pipelineConfig("cruise", new MaterialConfigs(MaterialConfigsMother.gitMaterialConfig("http://example.com/old.git")))));
+        scheduler.checkPipelinesWithChanges();
+        verify(queue, times(1)).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
+
+        scheduler.onConfigChange(configWith(PipelineConfigMother.pipelineConfig("cruise", new MaterialConfigs(MaterialConfigsMother.gitMaterialConfig("http://example.com/new.git")))));
+        scheduler.checkPipelinesWithChanges();
+        verify(queue, times(2)).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
+    }
+
+    @Test
+    public void shouldCheckAllPipelinesOnTimerOnlyOnceTheFullCheckIntervalHasPassed() {
+        when(schedulingCheckerService.canSchedule(any(OperationResult.class))).thenReturn(true);
+        when(systemEnvironment.getPipelineSchedulerFullCheckIntervalInMillis()).thenReturn(60_000L);
+        scheduler.onConfigChange(configWithPipelines("cruise"));
+
+        scheduler.onTimer();
+        scheduler.onMessage(new ScheduleCheckCompletedMessage("cruise", 1));
+        clock.addSeconds(30);
+        scheduler.onTimer();
+        verify(queue, times(1)).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
+
+        clock.addSeconds(30);
+        scheduler.onTimer();
+        verify(queue, times(2)).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
+    }
+
+    private BasicCruiseConfig configWith(PipelineConfig... pipelineConfigs) {
+        BasicCruiseConfig cruiseConfig = new BasicCruiseConfig();
+        for (PipelineConfig pipelineConfig : pipelineConfigs) {
+            cruiseConfig.addPipeline("group", pipelineConfig);
+        }
+        return cruiseConfig;
+    }
+
+    private Material materialWithFingerprintOf(MaterialConfig materialConfig) {
+        Material material = mock(Material.class);
+        when(material.getFingerprint()).thenReturn(materialConfig.getFingerprint());
+        return material;
+    }
 }
@@ -45,7 +45,7 @@ public class ScheduleServiceRescheduleHungJobsTest {
         SchedulingPerformanceLogger schedulingPerformanceLogger = mock(SchedulingPerformanceLogger.class);
         scheduleService = new ScheduleService(null, null, null, null, null, null, null, null, null, jobInstanceService,
                 null, null, null, null, null, null, agentService, null, null, consoleActivityMonitor, null, null, schedulingPerformanceLogger,
-                null, null
+                null, null, new SystemEnvironment()
         );
     }
 
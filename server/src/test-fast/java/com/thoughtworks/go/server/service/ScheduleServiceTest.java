@@ -33,15 +33,18 @@ import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TimeProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
 
 import static com.thoughtworks.go.domain.JobResult.*;
 import static com.thoughtworks.go.domain.JobState.Building;
 import static com.thoughtworks.go.domain.JobState.Completed;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 import static org.apache.http.HttpStatus.SC_FORBIDDEN;
 import static org.hamcrest.Matchers.is;
@@ -227,6 +230,37 @@ public class ScheduleServiceTest {
         verify(serverHealthService).update(ServerHealthState.success(HealthStateType.general(HealthStateScope.forStage("pipeline-quux", "mingle"))));
     }
 
+    @Test
+    public void shouldCreateQueuedPipelinesConcurrently() {
+        final PipelineConfig first = PipelineConfigMother.pipelineConfig("first");
+        final PipelineConfig second = PipelineConfigMother.pipelineConfig("second");
+        when(goConfigService.pipelineConfigNamed(new CaseInsensitiveString("first"))).thenReturn(first);
+        when(goConfigService.pipelineConfigNamed(new CaseInsensitiveString("second"))).thenReturn(second);
+        CruiseConfig cruiseConfig = mock(BasicCruiseConfig.class);
+        when(cruiseConfig.getMd5()).thenReturn("md5-test");
+        when(goConfigService.getCurrentConfig()).thenReturn(cruiseConfig);
+        when(schedulingChecker.canAutoTriggerConsumer(any(PipelineConfig.class))).thenReturn(true);
+
+        final CountDownLatch bothCreationsStarted = new CountDownLatch(2);
+        when(pipelineScheduleQueue.createPipeline(any(BuildCause.class), any(PipelineConfig.class), any(SchedulingContext.class), eq("md5-test"), eq(timeProvider))).thenAnswer(invocation -> {
+            bothCreationsStarted.countDown();
+            if (!bothCreationsStarted.await(10, SECONDS)) {
+                throw new RuntimeException("pipelines were not created concurrently");
+            }
+            return mock(Pipeline.class);
+        });
+        final HashMap<CaseInsensitiveString, BuildCause> map = new HashMap<>();
+        map.put(new CaseInsensitiveString("first"), BuildCause.createManualForced());
+        map.put(new CaseInsensitiveString("second"), BuildCause.createManualForced());
+        when(pipelineScheduleQueue.toBeScheduled()).thenReturn(map);
+
+        service.autoSchedulePipelinesFromRequestBuffer();
+
+        verify(serverHealthService).update(ServerHealthState.success(HealthStateType.general(HealthStateScope.forStage("first", "mingle"))));
+        verify(serverHealthService).update(ServerHealthState.success(HealthStateType.general(HealthStateScope.forStage("second", "mingle"))));
+        verify(pipelineScheduleQueue, never()).clearPipeline(any(CaseInsensitiveString.class));
+    }
+
     @Test
     public void shouldCancelUnresponsiveJobs() {
         service.cancelHungJobs();
@@ -297,6 +331,7 @@ public class ScheduleServiceTest {
         service = new ScheduleService(goConfigService, pipelineService, stageService, schedulingChecker, mock(PipelineDao.class), mock(StageDao.class), stageOrderService, securityService, pipelineScheduleQueue,
                 jobInstanceService, mock(JobInstanceDao.class), mock(AgentAssignment.class), environmentConfigService, pipelineLockService, serverHealthService,
                 new TestTransactionTemplate(synchronizationManager),
-                mock(AgentService.class), synchronizationManager, timeProvider, consoleActivityMonitor, pipelinePauseService, instanceFactory, schedulingPerformanceLogger, elasticProfileService, clusterProfileService);
+                mock(AgentService.class), synchronizationManager, timeProvider, consoleActivityMonitor, pipelinePauseService, instanceFactory, schedulingPerformanceLogger, elasticProfileService, clusterProfileService,
+                new SystemEnvironment());
     }
 }
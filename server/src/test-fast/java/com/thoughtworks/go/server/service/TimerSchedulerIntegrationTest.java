@@ -27,37 +27,32 @@ import com.thoughtworks.go.util.TimeProvider;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.quartz.Scheduler;
-import org.quartz.SchedulerException;
-import org.quartz.impl.StdSchedulerFactory;
 
 import java.util.List;
 
 import static com.thoughtworks.go.helper.PipelineConfigMother.pipelineConfigWithTimer;
 import static org.mockito.Mockito.*;
 
-public class TimerSchedulerQuartzIntegrationTest {
-    private StdSchedulerFactory quartzSchedulerFactory;
-    private Scheduler scheduler;
+public class TimerSchedulerIntegrationTest {
     private MaintenanceModeService maintenanceModeService;
     private SystemEnvironment systemEnvironment;
+    private TimerScheduler timerScheduler;
 
     @BeforeEach
     public void setUp() throws Exception {
         systemEnvironment = new SystemEnvironment();
         maintenanceModeService = new MaintenanceModeService(new TimeProvider(), systemEnvironment);
-        quartzSchedulerFactory = new StdSchedulerFactory();
-        scheduler = quartzSchedulerFactory.getScheduler();
-        scheduler.start();
     }
 
     @AfterEach
-    public void tearDown() throws SchedulerException {
-        quartzSchedulerFactory.getScheduler().shutdown();
+    public void tearDown() {
+        if (timerScheduler != null) {
+            timerScheduler.stop();
+        }
     }
 
     @Test
-    public void shouldExecuteScheduledJobsWhenInvokedFromQuartz() throws InterruptedException {
+    public void shouldTriggerPipelinesWhenTheirTimersAreDue() throws InterruptedException {
         PipelineConfig uat = pipelineConfigWithTimer("uat", "* * * * * ?");
         PipelineConfig dist = pipelineConfigWithTimer("dist", "* * * * * ?");
         List<PipelineConfig> pipelineConfigs = List.of(uat, dist);
@@ -67,7 +62,7 @@ public class TimerSchedulerQuartzIntegrationTest {
 
         BuildCauseProducerService buildCauseProducerService = mock(BuildCauseProducerService.class);
 
-        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, buildCauseProducerService, null, maintenanceModeService);
+        timerScheduler = new TimerScheduler(goConfigService, buildCauseProducerService, null, maintenanceModeService, systemEnvironment, new TimeProvider());
         timerScheduler.initialize();
 
         pauseForScheduling();
@@ -90,7 +85,7 @@ public class TimerSchedulerQuartzIntegrationTest {
         serverMaintenanceMode.setMaintenanceMode(true);
         maintenanceModeService.update(serverMaintenanceMode);
 
-        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, buildCauseProducerService, null, maintenanceModeService);
+        timerScheduler = new TimerScheduler(goConfigService, buildCauseProducerService, null, maintenanceModeService, systemEnvironment, new TimeProvider());
         timerScheduler.initialize();
 
         pauseForScheduling();
@@ -99,7 +94,7 @@ public class TimerSchedulerQuartzIntegrationTest {
     }
 
     @Test
-    public void shouldUpdateJobsInTheQuartzSchedulerOnConfigChange() throws InterruptedException {
+    public void shouldUpdateTimersOnConfigChange() throws InterruptedException {
         PipelineConfig uat = pipelineConfigWithTimer("uat", "* * * * * ?");
         PipelineConfig dist = pipelineConfigWithTimer("dist", "* * * * * ?");
         List<PipelineConfig> pipelineConfigs = List.of(uat, dist);
@@ -109,7 +104,7 @@ public class TimerSchedulerQuartzIntegrationTest {
 
         BuildCauseProducerService buildCauseProducerService = mock(BuildCauseProducerService.class);
 
-        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, buildCauseProducerService, null, maintenanceModeService);
+        timerScheduler = new TimerScheduler(goConfigService, buildCauseProducerService, null, maintenanceModeService, systemEnvironment, new TimeProvider());
         timerScheduler.initialize();
 
         CruiseConfig cruiseConfig = new BasicCruiseConfig();
@@ -121,7 +116,7 @@ public class TimerSchedulerQuartzIntegrationTest {
     }
 
     private void pauseForScheduling() throws InterruptedException {
-        Thread.sleep(1000);
+        Thread.sleep(2000);
     }
 
 }
@@ -15,141 +15,185 @@
  */
 package com.thoughtworks.go.server.service;
 
-import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.BasicCruiseConfig;
+import com.thoughtworks.go.config.BasicPipelineConfigs;
+import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
-import com.thoughtworks.go.config.TimerConfig;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.server.scheduling.BuildCauseProducerService;
+import com.thoughtworks.go.server.service.result.ServerHealthStateOperationResult;
+import com.thoughtworks.go.server.util.HashedTimingWheel;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
-import org.junit.jupiter.api.AfterEach;
+import com.thoughtworks.go.util.TestingClock;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.quartz.*;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static com.thoughtworks.go.helper.PipelineConfigMother.pipelineConfig;
 import static com.thoughtworks.go.helper.PipelineConfigMother.pipelineConfigWithTimer;
-import static com.thoughtworks.go.server.service.TimerScheduler.PIPELINE_TRIGGGER_TIMER_GROUP;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
-import static org.quartz.CronScheduleBuilder.cronSchedule;
-import static org.quartz.JobKey.jobKey;
-import static org.quartz.TriggerKey.triggerKey;
 
 @ExtendWith(MockitoExtension.class)
 public class TimerSchedulerTest {
-    @Mock
-    private Scheduler scheduler;
     @Mock
     private GoConfigService goConfigService;
     @Mock
+    private BuildCauseProducerService buildCauseProducerService;
+    @Mock
+    private ServerHealthService serverHealthService;
+    @Mock
     private MaintenanceModeService maintenanceModeService;
 
-    @AfterEach
-    public void teardown() {
-        verifyNoMoreInteractions(scheduler);
+    private TestingClock clock;
+    private HashedTimingWheel timingWheel;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new TestingClock(new Date(at(2023, 6, 5, 9, 0)));
+        timingWheel = new HashedTimingWheel("timer-scheduler-test", 100, 1024, clock);
     }
 
     @Test
-    public void shouldRegisterJobsWithSchedulerForEachPipelineWithTimerOnInit() throws Exception {
-        List<PipelineConfig> pipelineConfigs = List.of(
+    public void shouldRegisterTimerForEachPipelineWithTimerOnInit() {
+        when(goConfigService.getAllPipelineConfigs()).thenReturn(List.of(
                 pipelineConfigWithTimer("uat", "0 15 10 ? * MON-FRI"),
-                pipelineConfig("dist"));
-        when(goConfigService.getAllPipelineConfigs()).thenReturn(pipelineConfigs);
+                pipelineConfig("dist")));
 
-        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, null, null, maintenanceModeService);
+        TimerScheduler timerScheduler = timerScheduler(0);
         timerScheduler.initialize();
 
-        JobDetail expectedJob = JobBuilder.newJob()
-                .ofType(TimerScheduler.SchedulePipelineQuartzJob.class)
-                .withIdentity(jobKey("uat", PIPELINE_TRIGGGER_TIMER_GROUP))
-                .build();
-        Trigger expectedTrigger = TriggerBuilder.newTrigger()
-                .withIdentity(triggerKey("uat", PIPELINE_TRIGGGER_TIMER_GROUP))
-                .withSchedule(cronSchedule("0 15 10 ? * MON-FRI"))
-                .build();
-        verify(scheduler).scheduleJob(expectedJob, expectedTrigger);
+        assertThat(timerScheduler.nextTriggerAt("uat"), is(Optional.of(at(2023, 6, 5, 10, 15))));
+        assertThat(timerScheduler.nextTriggerAt("dist"), is(Optional.empty()));
+        assertThat(timingWheel.pending(), is(1));
     }
 
     @Test
-    public void shouldUpdateServerHealthStatusWhenCronSpecCantBeParsed() throws Exception {
+    public void shouldUpdateServerHealthStatusWhenCronSpecCantBeParsed() {
         when(goConfigService.getAllPipelineConfigs()).thenReturn(List.of(pipelineConfigWithTimer("uat", "bad cron spec!!!")));
 
-        ServerHealthService serverHealthService = mock(ServerHealthService.class);
-
-        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, null, serverHealthService, maintenanceModeService);
+        TimerScheduler timerScheduler = timerScheduler(0);
         timerScheduler.initialize();
 
         verify(serverHealthService).update(
                 ServerHealthState.error("Bad timer specification for timer in Pipeline: uat", "Cannot schedule pipeline using the timer",
                         HealthStateType.general(HealthStateScope.forPipeline("uat"))));
+        assertThat(timerScheduler.nextTriggerAt("uat"), is(Optional.empty()));
     }
 
     @Test
-    public void shouldScheduleOtherPipelinesEvenIfOneHasAnInvalidCronSpec() throws Exception {
-        List<PipelineConfig> pipelineConfigs = List.of(
+    public void shouldScheduleOtherPipelinesEvenIfOneHasAnInvalidCronSpec() {
+        when(goConfigService.getAllPipelineConfigs()).thenReturn(List.of(
                 pipelineConfigWithTimer("uat", "---- bad cron spec!"),
-                pipelineConfigWithTimer("dist", "0 15 10 ? * MON-FRI"));
-        when(goConfigService.getAllPipelineConfigs()).thenReturn(pipelineConfigs);
+                pipelineConfigWithTimer("dist", "0 15 10 ? * MON-FRI")));
 
-        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, null, mock(ServerHealthService.class), maintenanceModeService);
+        TimerScheduler timerScheduler = timerScheduler(0);
         timerScheduler.initialize();
 
-        JobDetail expectedJob = JobBuilder.newJob()
-                .ofType(TimerScheduler.SchedulePipelineQuartzJob.class)
-                .withIdentity(jobKey("dist", PIPELINE_TRIGGGER_TIMER_GROUP))
-                .build();
+        assertThat(timerScheduler.nextTriggerAt("dist"), is(Optional.of(at(2023, 6, 5, 10, 15))));
+    }
 
-        Trigger expectedTrigger = TriggerBuilder.newTrigger()
-                .withIdentity(triggerKey("dist", PIPELINE_TRIGGGER_TIMER_GROUP))
-                .withSchedule(cronSchedule("0 15 10 ? * MON-FRI"))
-                .build();
-        verify(scheduler).scheduleJob(expectedJob, expectedTrigger);
+    @Test
+    public void shouldRegisterAsACruiseConfigChangeListener() {
+        TimerScheduler timerScheduler = timerScheduler(0);
 
+        timerScheduler.initialize();
+
+        verify(goConfigService).register(timerScheduler);
     }
 
     @Test
-    public void shouldUpdateServerHealthStatusWhenPipelineCantBeAddedToTheQuartzScheduler() throws Exception {
-        Scheduler scheduler = mock(Scheduler.class);
-        when(scheduler.scheduleJob(any(JobDetail.class), any(Trigger.class))).thenThrow(
-                new SchedulerException("scheduling failed!"));
+    public void shouldTriggerPipelineOnceItsTimerIsDueAndRegisterItsNextTrigger() {
+        PipelineConfig uat = pipelineConfigWithTimer("uat", "0 15 10 ? * MON-FRI");
+        when(goConfigService.getAllPipelineConfigs()).thenReturn(List.of(uat));
+        TimerScheduler timerScheduler = timerScheduler(0);
+        timerScheduler.initialize();
 
-        when(goConfigService.getAllPipelineConfigs()).thenReturn(List.of(pipelineConfigWithTimer("uat", "* * * * * ?")));
+        advanceTo(at(2023, 6, 5, 10, 14));
+        verifyNoInteractions(buildCauseProducerService);
 
-        ServerHealthService serverHealthService = mock(ServerHealthService.class);
+        advanceTo(at(2023, 6, 5, 10, 15) + 300);
+        verify(buildCauseProducerService).timerSchedulePipeline(eq(uat), any(ServerHealthStateOperationResult.class));
+        assertThat(timerScheduler.nextTriggerAt("uat"), is(Optional.of(at(2023, 6, 6, 10, 15))));
+        assertThat((Long) timerScheduler.statistics().get("Triggers"), is(1L));
+        assertThat((Long) timerScheduler.statistics().get("Max trigger lag (ms)"), is(300L));
+    }
 
-        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, null, serverHealthService, maintenanceModeService);
+    @Test
+    public void shouldTriggerJustOnceForAllTheTriggersMissedWhileFallingBehind() {
+        PipelineConfig uat = pipelineConfigWithTimer("uat", "0 0 * * * ?");
+        when(goConfigService.getAllPipelineConfigs()).thenReturn(List.of(uat));
+        TimerScheduler timerScheduler = timerScheduler(0);
         timerScheduler.initialize();
 
-        verify(serverHealthService).update(
-                ServerHealthState.error("Could not register pipeline 'uat' with timer", "",
-                        HealthStateType.general(HealthStateScope.forPipeline("uat"))));
+        advanceTo(at(2023, 6, 5, 13, 30));
 
+        verify(buildCauseProducerService).timerSchedulePipeline(eq(uat), any(ServerHealthStateOperationResult.class));
+        assertThat(timerScheduler.nextTriggerAt("uat"), is(Optional.of(at(2023, 6, 5, 14, 0))));
     }
 
     @Test
-    public void shouldRegisterAsACruiseConfigChangeListener() throws Exception {
-        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, null, null, maintenanceModeService);
+    public void shouldNotTriggerPipelineWhenServerIsInMaintenanceMode() {
+        when(goConfigService.getAllPipelineConfigs()).thenReturn(List.of(pipelineConfigWithTimer("uat", "0 15 10 ? * MON-FRI")));
+        when(maintenanceModeService.isMaintenanceMode()).thenReturn(true);
+        TimerScheduler timerScheduler = timerScheduler(0);
+        timerScheduler.initialize();
+
+        advanceTo(at(2023, 6, 5, 10, 15));
 
+        verifyNoInteractions(buildCauseProducerService);
+        assertThat((Long) timerScheduler.statistics().get("Skipped in maintenance mode"), is(1L));
+        assertThat(timerScheduler.nextTriggerAt("uat"), is(Optional.of(at(2023, 6, 6, 10, 15))));
+    }
+
+    @Test
+    public void shouldOnlyReregisterPipelinesWhoseTimerChangedOnConfigChange() {
+        HashedTimingWheel timingWheel = spy(this.timingWheel);
+        this.timingWheel = timingWheel;
+        when(goConfigService.getAllPipelineConfigs()).thenReturn(List.of(
+                pipelineConfigWithTimer("uat", "0 15 10 ? * MON-FRI"),
+                pipelineConfigWithTimer("dist", "0 0 12 * * ?"),
+                pipelineConfigWithTimer("staging", "0 0 12 * * ?")));
+        TimerScheduler timerScheduler = timerScheduler(0);
         timerScheduler.initialize();
 
-        verify(goConfigService).register(timerScheduler);
+        PipelineConfig uat = pipelineConfigWithTimer("uat", "0 15 10 ? * MON-FRI");
+        CruiseConfig cruiseConfig = new BasicCruiseConfig();
+        cruiseConfig.getGroups().add(new BasicPipelineConfigs(
+                uat,
+                pipelineConfigWithTimer("dist", "0 30 11 * * ?"),
+                pipelineConfigWithTimer("prod", "0 0 18 * * ?")));
+        timerScheduler.onConfigChange(cruiseConfig);
+
+        verify(timingWheel, times(1)).schedule(any(Runnable.class), eq(at(2023, 6, 5, 10, 15)));
+        assertThat(timerScheduler.nextTriggerAt("dist"), is(Optional.of(at(2023, 6, 5, 11, 30))));
+        assertThat(timerScheduler.nextTriggerAt("prod"), is(Optional.of(at(2023, 6, 5, 18, 0))));
+        assertThat(timerScheduler.nextTriggerAt("staging"), is(Optional.empty()));
+        assertThat(timingWheel.pending(), is(3));
+
+        advanceTo(at(2023, 6, 5, 10, 15));
+        verify(buildCauseProducerService).timerSchedulePipeline(eq(uat), any(ServerHealthStateOperationResult.class));
     }
 
     @Test
-    public void shouldRescheduleTimerTriggerPipelineWhenItsConfigChanges() throws SchedulerException {
-        String pipelineName = "timer-based-pipeline";
-        when(scheduler.getJobDetail(jobKey(pipelineName, PIPELINE_TRIGGGER_TIMER_GROUP))).thenReturn(mock(JobDetail.class));
-        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, null, null, maintenanceModeService);
+    public void shouldRescheduleTimerTriggerPipelineWhenItsConfigChanges() {
+        TimerScheduler timerScheduler = timerScheduler(0);
         ArgumentCaptor<ConfigChangedListener> captor = ArgumentCaptor.forClass(ConfigChangedListener.class);
         doNothing().when(goConfigService).register(captor.capture());
         timerScheduler.initialize();
@@ -157,21 +201,63 @@ public class TimerSchedulerTest {
         assertThat(listeners.get(1) instanceof EntityConfigChangedListener, is(true));
         EntityConfigChangedListener<PipelineConfig> pipelineConfigChangeListener = (EntityConfigChangedListener<PipelineConfig>) listeners.get(1);
 
-        PipelineConfig pipelineConfig = mock(PipelineConfig.class);
-        when(pipelineConfig.name()).thenReturn(new CaseInsensitiveString(pipelineName));
-        when(pipelineConfig.getTimer()).thenReturn(new TimerConfig("* * * * * ?", true));
-        ArgumentCaptor<JobDetail> jobDetailArgumentCaptor = ArgumentCaptor.forClass(JobDetail.class);
-        ArgumentCaptor<CronTrigger> triggerArgumentCaptor = ArgumentCaptor.forClass(CronTrigger.class);
-        when(scheduler.scheduleJob(jobDetailArgumentCaptor.capture(), triggerArgumentCaptor.capture())).thenReturn(new Date());
-        pipelineConfigChangeListener.onEntityConfigChange(pipelineConfig);
+        pipelineConfigChangeListener.onEntityConfigChange(pipelineConfigWithTimer("timer-based-pipeline", "0 15 10 ? * MON-FRI"));
+        assertThat(timerScheduler.nextTriggerAt("timer-based-pipeline"), is(Optional.of(at(2023, 6, 5, 10, 15))));
+
+        pipelineConfigChangeListener.onEntityConfigChange(pipelineConfigWithTimer("timer-based-pipeline", "0 45 9 ? * MON-FRI"));
+        assertThat(timerScheduler.nextTriggerAt("timer-based-pipeline"), is(Optional.of(at(2023, 6, 5, 9, 45))));
+        assertThat(timingWheel.pending(), is(1));
+
+        pipelineConfigChangeListener.onEntityConfigChange(pipelineConfig("timer-based-pipeline"));
+        assertThat(timerScheduler.nextTriggerAt("timer-based-pipeline"), is(Optional.empty()));
+        assertThat(timingWheel.pending(), is(0));
+    }
+
+    @Test
+    public void shouldSpreadTimersByTheSameJitterForTheSamePipelineEveryTime() {
+        long maxJitter = 60_000;
+        when(goConfigService.getAllPipelineConfigs()).thenReturn(List.of(
+                pipelineConfigWithTimer("uat", "0 0 12 * * ?"),
+                pipelineConfigWithTimer("dist", "0 0 12 * * ?")));
+
+        TimerScheduler timerScheduler = timerScheduler(maxJitter);
+        timerScheduler.initialize();
+        TimerScheduler anotherTimerScheduler = timerScheduler(maxJitter);
+        anotherTimerScheduler.initialize();
+
+        long noon = at(2023, 6, 5, 12, 0);
+        for (String pipelineName : List.of("uat", "dist")) {
+            long nextTriggerAt = timerScheduler.nextTriggerAt(pipelineName).orElseThrow();
+            assertThat(nextTriggerAt, is(both(greaterThanOrEqualTo(noon)).and(lessThanOrEqualTo(noon + maxJitter))));
+            assertThat(anotherTimerScheduler.nextTriggerAt(pipelineName), is(Optional.of(nextTriggerAt)));
+        }
+        assertThat(timerScheduler.nextTriggerAt("uat"), is(not(timerScheduler.nextTriggerAt("dist"))));
+    }
+
+    @Test
+    public void shouldStopTheTimingWheelAndTheTriggerThreadsWhenStopped() {
+        HashedTimingWheel timingWheel = spy(this.timingWheel);
+        ExecutorService triggerExecutor = Executors.newSingleThreadExecutor();
+        TimerScheduler timerScheduler = new TimerScheduler(goConfigService, buildCauseProducerService, serverHealthService, maintenanceModeService,
+                clock, timingWheel, triggerExecutor, 0);
 
-        assertThat(jobDetailArgumentCaptor.getValue().getKey().getName(), is(pipelineName));
-        assertThat(triggerArgumentCaptor.getValue().getCronExpression(), is("* * * * * ?"));
+        timerScheduler.stop();
 
-        verify(scheduler).getJobDetail(jobKey(pipelineName, PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(timingWheel).stop();
+        assertThat(triggerExecutor.isShutdown(), is(true));
+    }
+
+    private TimerScheduler timerScheduler(long maxJitterMillis) {
+        return new TimerScheduler(goConfigService, buildCauseProducerService, serverHealthService, maintenanceModeService,
+                clock, timingWheel, Runnable::run, maxJitterMillis);
+    }
+
+    private void advanceTo(long millis) {
+        clock.setTime(new Date(millis));
+        timingWheel.advanceTo(millis);
+    }
 
-        verify(scheduler).unscheduleJob(triggerKey(pipelineName, PIPELINE_TRIGGGER_TIMER_GROUP));
-        verify(scheduler).deleteJob(jobKey(pipelineName, PIPELINE_TRIGGGER_TIMER_GROUP));
-        verify(scheduler).scheduleJob(jobDetailArgumentCaptor.getValue(), triggerArgumentCaptor.getValue());
+    private static long at(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 }
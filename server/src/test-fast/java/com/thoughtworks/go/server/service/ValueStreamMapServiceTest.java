@@ -40,6 +40,7 @@ import com.thoughtworks.go.server.service.result.LocalizedOperationResult;
 import com.thoughtworks.go.server.valuestreammap.DownstreamInstancePopulator;
 import com.thoughtworks.go.server.valuestreammap.RunStagesPopulator;
 import com.thoughtworks.go.server.valuestreammap.UnrunStagesPopulator;
+import com.thoughtworks.go.server.valuestreammap.UpstreamGraphCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -51,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.domain.valuestreammap.VSMTestHelper.assertDepth;
 import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
@@ -81,6 +83,7 @@ public class ValueStreamMapServiceTest {
 
     private Username user;
     private ValueStreamMapService valueStreamMapService;
+    private UpstreamGraphCache upstreamGraphCache;
     private HttpLocalizedOperationResult result;
 
     @BeforeEach
@@ -93,10 +96,15 @@ public class ValueStreamMapServiceTest {
 
         setupViewPermissionForGroups("g1");
 
-        valueStreamMapService = new ValueStreamMapService(pipelineService, materialRepository, goConfigService, downstreaminstancepopulator, runStagesPopulator, unrunStagesPopulator, securityService);
+        upstreamGraphCache = new UpstreamGraphCache(goConfigService);
+        valueStreamMapService = new ValueStreamMapService(pipelineService, materialRepository, goConfigService, downstreaminstancepopulator, runStagesPopulator, unrunStagesPopulator, securityService, upstreamGraphCache);
         result = new HttpLocalizedOperationResult();
 
         when(goConfigService.findPipelineByName(any())).thenReturn(PipelineConfigMother.pipelineConfig("found-pipeline"));
+        lenient().when(pipelineService.buildCausesFor(any())).thenAnswer(invocation -> {
+            List<PipelineIdentifier> pipelineInstances = invocation.getArgument(0);
+            return pipelineInstances.stream().map(instance -> pipelineService.buildCauseFor(instance.getName(), instance.getCounter())).collect(Collectors.toList());
+        });
     }
 
     private void setupExistenceOfPipelines(String... pipelineNames) {
@@ -149,6 +157,33 @@ public class ValueStreamMapServiceTest {
         assertNode(0, secondLevel.get(0), pipelineName, pipelineName, 0);
     }
 
+    @Test
+    public void shouldReuseTheUpstreamGraphOfAPipelineInstanceAcrossRequests() {
+        String pipelineName = "myPipeline";
+        int counter = 1;
+
+        BuildCause buildCause = PipelineMother.pipeline(pipelineName, new Stage()).getBuildCause();
+        MaterialConfig materialConfig = buildCause.getMaterialRevisions().getMaterialRevision(0).getMaterial().config();
+        PipelineConfig p1Config = PipelineConfigMother.pipelineConfig(pipelineName, new MaterialConfigs(materialConfig));
+
+        when(pipelineService.buildCauseFor(pipelineName, counter)).thenReturn(buildCause);
+        when(goConfigService.currentCruiseConfig()).thenReturn(new BasicCruiseConfig(new BasicPipelineConfigs(p1Config)));
+        when(pipelineService.findPipelineByNameAndCounter(pipelineName, 1)).thenReturn(new Pipeline(pipelineName, "p1-label", buildCause, new EnvironmentVariables()));
+
+        ValueStreamMapPresentationModel first = valueStreamMapService.getValueStreamMap(new CaseInsensitiveString(pipelineName), counter, user, result);
+        ValueStreamMapPresentationModel second = valueStreamMapService.getValueStreamMap(new CaseInsensitiveString(pipelineName), counter, user, new HttpLocalizedOperationResult());
+
+        verify(pipelineService, times(1)).buildCauseFor(pipelineName, counter);
+        assertThat(second.getNodesAtEachLevel().size(), is(2));
+        assertNode(-1, second.getNodesAtEachLevel().get(0).get(0), materialConfig.getDisplayName(), materialConfig.getFingerprint(), 0, new CaseInsensitiveString(pipelineName));
+        assertThat(first.getNodesAtEachLevel().get(0).get(0).getId(), is(second.getNodesAtEachLevel().get(0).get(0).getId()));
+
+        upstreamGraphCache.onConfigChange(new BasicCruiseConfig());
+        valueStreamMapService.getValueStreamMap(new CaseInsensitiveString(pipelineName), counter, user, new HttpLocalizedOperationResult());
+
+        verify(pipelineService, times(2)).buildCauseFor(pipelineName, counter);
+    }
+
     @Test
     public void shouldGetAllDownstreamPipelinesForVSMOfUpstreamPipelineIfDownstreamPipelineRefersToUpstreamDependencyUsingADifferentCase() {
         /*
@@ -326,6 +361,29 @@ public class ValueStreamMapServiceTest {
         assertNode(0, thirdLevel.get(0), "p3", "p3", 0);
     }
 
+    @Test
+    public void shouldLoadTheBuildCausesOfTheUpstreamPipelinesOfALevelTogether() {
+        GitMaterial git = new GitMaterial("git");
+        BuildCause p3buildCause = createBuildCause(List.of("p1", "p2"), new ArrayList<>());
+        when(pipelineService.buildCauseFor("p3", 1)).thenReturn(p3buildCause);
+        when(pipelineService.buildCauseFor("p2", 1)).thenReturn(createBuildCause(new ArrayList<>(), List.of(git)));
+        when(pipelineService.buildCauseFor("p1", 1)).thenReturn(createBuildCause(new ArrayList<>(), List.of(git)));
+
+        PipelineConfig p1Config = PipelineConfigMother.pipelineConfig("p1", new MaterialConfigs(git.config()));
+        PipelineConfig p2Config = PipelineConfigMother.pipelineConfig("p2", new MaterialConfigs(git.config()));
+        PipelineConfig p3Config = PipelineConfigMother.pipelineConfig("p3",
+                new MaterialConfigs(new DependencyMaterialConfig(p1Config.name(), p1Config.getFirstStageConfig().name()), new DependencyMaterialConfig(p2Config.name(), p2Config.getFirstStageConfig().name())));
+        when(goConfigService.currentCruiseConfig()).thenReturn(new BasicCruiseConfig(new BasicPipelineConfigs(p1Config, p2Config, p3Config)));
+        when(pipelineService.findPipelineByNameAndCounter("p3", 1)).thenReturn(new Pipeline("p3", "p3-label", p3buildCause, new EnvironmentVariables()));
+
+        valueStreamMapService.getValueStreamMap(new CaseInsensitiveString("p3"), 1, user, result);
+
+        verify(pipelineService).buildCausesFor(List.of(new PipelineIdentifier("p1", 1), new PipelineIdentifier("p2", 1)));
+        verify(pipelineService).buildCausesFor(List.of());
+        verify(pipelineService).buildCauseFor("p1", 1);
+        verify(pipelineService).buildCauseFor("p2", 1);
+    }
+
     @Test
     public void shouldGetPipelineDependencyGraphForAPipelineWithDiamondDependency_VSMForMaterial() {
         /*
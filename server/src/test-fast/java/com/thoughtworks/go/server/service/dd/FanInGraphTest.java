@@ -26,15 +26,33 @@ import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
 import com.thoughtworks.go.config.materials.mercurial.HgMaterialConfig;
 
 import static com.thoughtworks.go.helper.MaterialConfigsMother.hg;
+
+import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.MaterialRevisions;
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import com.thoughtworks.go.domain.StageIdentifier;
+import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.helper.PipelineConfigMother;
+import com.thoughtworks.go.server.dao.PipelineDao;
+import com.thoughtworks.go.server.domain.PipelineTimeline;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import com.thoughtworks.go.server.persistence.PipelineRepository;
+import com.thoughtworks.go.server.service.MaterialConfigConverter;
+import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.Test;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class FanInGraphTest {
     @Test
@@ -59,4 +77,64 @@ public class FanInGraphTest {
         assertThat(scmMaterialUrls.contains("giturl"), is(true));
         assertThat(scmMaterialUrls.contains("hgurl"), is(true));
     }
+
+    @Test
+    public void shouldComputeTheSameRevisionsAsAFreshGraphWhenReusedAfterTheUpstreamTimelineChanged() {
+        GitMaterialConfig git = git("giturl", "dest");
+        PipelineConfig p1 = PipelineConfigMother.pipelineConfig("p1", new MaterialConfigs(git));
+        DependencyMaterialConfig p1Dep = new DependencyMaterialConfig(p1.name(), p1.get(0).name());
+        PipelineConfig p2 = PipelineConfigMother.pipelineConfig("p2", new MaterialConfigs(p1Dep));
+        PipelineConfig p3 = PipelineConfigMother.pipelineConfig("p3", new MaterialConfigs(p1Dep));
+        DependencyMaterialConfig p2Dep = new DependencyMaterialConfig(p2.name(), p2.get(0).name());
+        DependencyMaterialConfig p3Dep = new DependencyMaterialConfig(p3.name(), p3.get(0).name());
+        PipelineConfig p4 = PipelineConfigMother.pipelineConfig("p4", new MaterialConfigs(p2Dep, p3Dep));
+        CruiseConfig cruiseConfig = new BasicCruiseConfig(new BasicPipelineConfigs(p1, p2, p3, p4));
+
+        Map<Long, PipelineTimelineEntry> entriesById = new HashMap<>();
+        PipelineTimeline pipelineTimeline = new PipelineTimeline(mock(PipelineRepository.class), mock(TransactionTemplate.class), mock(TransactionSynchronizationManager.class));
+        PipelineDao pipelineDao = mock(PipelineDao.class);
+        when(pipelineDao.latestPassedStageIdentifier(anyLong(), anyString())).thenAnswer(invocation -> {
+            PipelineTimelineEntry entry = entriesById.get(invocation.<Long>getArgument(0));
+            return new StageIdentifier(entry.getPipelineName(), entry.getCounter(), invocation.getArgument(1), "1");
+        });
+        MaterialRepository materialRepository = mock(MaterialRepository.class);
+        when(materialRepository.modificationFor(any(StageIdentifier.class))).thenAnswer(invocation -> {
+            StageIdentifier stageIdentifier = invocation.getArgument(0);
+            return List.of(new Modification(new Date(), stageIdentifier.getStageLocator(), stageIdentifier.getPipelineLabel(), null));
+        });
+        MaterialConfigConverter materialConfigConverter = new MaterialConfigConverter();
+        SystemEnvironment systemEnvironment = new SystemEnvironment();
+        MaterialRevisions actualRevisions = new MaterialRevisions(
+                new MaterialRevision(materialConfigConverter.toMaterial(p2Dep), new Modification()),
+                new MaterialRevision(materialConfigConverter.toMaterial(p3Dep), new Modification()));
+
+        addToTimeline(pipelineTimeline, entriesById, new PipelineTimelineEntry("p1", 1, 1, Map.of(git.getFingerprint(), List.of(new PipelineTimelineEntry.Revision(new Date(1000), "g1", "folder", 1)))));
+        addToTimeline(pipelineTimeline, entriesById, new PipelineTimelineEntry("p1", 2, 2, Map.of(git.getFingerprint(), List.of(new PipelineTimelineEntry.Revision(new Date(2000), "g2", "folder", 2)))));
+        addToTimeline(pipelineTimeline, entriesById, new PipelineTimelineEntry("p2", 3, 1, Map.of(p1Dep.getFingerprint(), List.of(new PipelineTimelineEntry.Revision(new Date(1100), "p1/1/mingle/1", "folder", 3)))));
+        addToTimeline(pipelineTimeline, entriesById, new PipelineTimelineEntry("p3", 4, 1, Map.of(p1Dep.getFingerprint(), List.of(new PipelineTimelineEntry.Revision(new Date(1200), "p1/1/mingle/1", "folder", 4)))));
+        addToTimeline(pipelineTimeline, entriesById, new PipelineTimelineEntry("p2", 5, 2, Map.of(p1Dep.getFingerprint(), List.of(new PipelineTimelineEntry.Revision(new Date(2100), "p1/2/mingle/1", "folder", 5)))));
+
+        FanInGraph reusedGraph = new FanInGraph(cruiseConfig, p4.name(), materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+        assertThat(revisionsOf(reusedGraph.computeRevisions(actualRevisions, pipelineTimeline)), is(Set.of("p2/1/mingle/1", "p3/1/mingle/1")));
+
+        addToTimeline(pipelineTimeline, entriesById, new PipelineTimelineEntry("p3", 6, 2, Map.of(p1Dep.getFingerprint(), List.of(new PipelineTimelineEntry.Revision(new Date(2200), "p1/2/mingle/1", "folder", 6)))));
+
+        FanInGraph freshGraph = new FanInGraph(cruiseConfig, p4.name(), materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+        Set<String> expected = revisionsOf(freshGraph.computeRevisions(actualRevisions, pipelineTimeline));
+        assertThat(expected, is(Set.of("p2/2/mingle/1", "p3/2/mingle/1")));
+        assertThat(revisionsOf(reusedGraph.computeRevisions(actualRevisions, pipelineTimeline)), is(expected));
+    }
+
+    private static void addToTimeline(PipelineTimeline pipelineTimeline, Map<Long, PipelineTimelineEntry> entriesById, PipelineTimelineEntry entry) {
+        pipelineTimeline.add(entry);
+        entriesById.put(entry.getId(), entry);
+    }
+
+    private static Set<String> revisionsOf(MaterialRevisions materialRevisions) {
+        Set<String> revisions = new HashSet<>();
+        for (MaterialRevision materialRevision : materialRevisions) {
+            revisions.add(materialRevision.getLatestRevisionString());
+        }
+        return revisions;
+    }
 }
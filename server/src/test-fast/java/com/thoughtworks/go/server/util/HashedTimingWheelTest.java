@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.util;
+
+import com.thoughtworks.go.util.SystemTimeClock;
+import com.thoughtworks.go.util.TestingClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HashedTimingWheelTest {
+    private TestingClock clock;
+    private HashedTimingWheel wheel;
+    private List<String> ran;
+
+    @BeforeEach
+    void setUp() {
+        clock = new TestingClock(new Date(1_000_000));
+        wheel = new HashedTimingWheel("test-wheel", 100, 8, clock);
+        ran = new ArrayList<>();
+    }
+
+    @Test
+    void shouldRunTasksOnlyOnceTheirDeadlineHasPassed() {
+        wheel.schedule(() -> ran.add("first"), 1_000_250);
+        wheel.schedule(() -> ran.add("second"), 1_000_500);
+
+        wheel.advanceTo(1_000_200);
+        assertThat(ran).isEmpty();
+
+        wheel.advanceTo(1_000_300);
+        assertThat(ran).containsExactly("first");
+
+        wheel.advanceTo(1_000_500);
+        assertThat(ran).containsExactly("first", "second");
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void shouldKeepTasksDueAfterMoreThanOneTurnOfTheWheel() {
+        wheel.schedule(() -> ran.add("next turn"), 1_001_000);
+
+        wheel.advanceTo(1_000_900);
+        assertThat(ran).isEmpty();
+
+        wheel.advanceTo(1_001_000);
+        assertThat(ran).containsExactly("next turn");
+    }
+
+    @Test
+    void shouldRunOverdueTasksWhenFallingBehindByMoreThanATurnOfTheWheel() {
+        wheel.schedule(() -> ran.add("first"), 1_000_100);
+        wheel.schedule(() -> ran.add("second"), 1_000_700);
+        wheel.schedule(() -> ran.add("later"), 1_010_000);
+
+        wheel.advanceTo(1_005_000);
+
+        assertThat(ran).containsExactlyInAnyOrder("first", "second");
+        assertThat(wheel.pending()).isOne();
+    }
+
+    @Test
+    void shouldRunTasksScheduledInThePastOnTheNextTick() {
+        wheel.advanceTo(1_000_500);
+
+        wheel.schedule(() -> ran.add("late"), 1_000_000);
+        wheel.advanceTo(1_000_600);
+
+        assertThat(ran).containsExactly("late");
+    }
+
+    @Test
+    void shouldNotRunCancelledTasks() {
+        HashedTimingWheel.Handle cancelled = wheel.schedule(() -> ran.add("cancelled"), 1_000_200);
+        HashedTimingWheel.Handle kept = wheel.schedule(() -> ran.add("kept"), 1_000_200);
+
+        assertThat(cancelled.cancel()).isTrue();
+        assertThat(cancelled.cancel()).isFalse();
+        wheel.advanceTo(1_000_200);
+
+        assertThat(ran).containsExactly("kept");
+        assertThat(kept.cancel()).isFalse();
+    }
+
+    @Test
+    void shouldKeepRunningOtherTasksWhenOneFails() {
+        wheel.schedule(() -> {
+            throw new RuntimeException("failed");
+        }, 1_000_100);
+        wheel.schedule(() -> ran.add("after failure"), 1_000_100);
+
+        wheel.advanceTo(1_000_100);
+
+        assertThat(ran).containsExactly("after failure");
+    }
+
+    @Test
+    void shouldRunTasksOnTheWorkerThreadOnceStarted() throws InterruptedException {
+        HashedTimingWheel realWheel = new HashedTimingWheel("test-wheel-worker", 10, 8, new SystemTimeClock());
+        CountDownLatch latch = new CountDownLatch(1);
+        realWheel.schedule(latch::countDown, System.currentTimeMillis() + 50);
+
+        realWheel.start();
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            realWheel.stop();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeyedLocksTest {
+    @Test
+    void shouldExcludeHoldersOfEqualKeysAcrossFamilies() throws Exception {
+        KeyedLocks.Family first = KeyedLocks.family("KeyedLocksTest-first");
+        KeyedLocks.Family second = KeyedLocks.family("KeyedLocksTest-second");
+        String key = new String("KeyedLocksTest-shared-key");
+        String equalKey = new String("KeyedLocksTest-shared-key");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (KeyedLocks.Held ignored = first.lock(key)) {
+            Future<Boolean> acquired = executor.submit(() -> tryAndRelease(second, equalKey));
+            assertThat(acquired.get()).isFalse();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(tryAndRelease(second, equalKey)).isTrue();
+    }
+
+    @Test
+    void shouldNotExcludeHoldersOfDifferentKeys() throws Exception {
+        KeyedLocks.Family family = KeyedLocks.family("KeyedLocksTest-different");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (KeyedLocks.Held ignored = family.lock("KeyedLocksTest-one")) {
+            Future<Boolean> acquired = executor.submit(() -> tryAndRelease(family, "KeyedLocksTest-other"));
+            assertThat(acquired.get()).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldBeReentrant() {
+        KeyedLocks.Family family = KeyedLocks.family("KeyedLocksTest-reentrant");
+        try (KeyedLocks.Held outer = family.lock("KeyedLocksTest-reentrant-key")) {
+            try (KeyedLocks.Held inner = family.lock("KeyedLocksTest-reentrant-key")) {
+                assertThat(family.statistics().get("Acquisitions")).isEqualTo(2L);
+            }
+        }
+    }
+
+    @Test
+    void shouldHoldTheLocksOfAllTheKeysUntilClosed() throws Exception {
+        KeyedLocks.Family family = KeyedLocks.family("KeyedLocksTest-all");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            try (KeyedLocks.HeldAll ignored = family.lockAll(List.of("KeyedLocksTest-all-b", "KeyedLocksTest-all-a", "KeyedLocksTest-all-b"))) {
+                assertThat(executor.submit(() -> tryAndRelease(family, "KeyedLocksTest-all-a")).get()).isFalse();
+                assertThat(executor.submit(() -> tryAndRelease(family, "KeyedLocksTest-all-b")).get()).isFalse();
+            }
+            assertThat(executor.submit(() -> tryAndRelease(family, "KeyedLocksTest-all-a")).get()).isTrue();
+            assertThat(executor.submit(() -> tryAndRelease(family, "KeyedLocksTest-all-b")).get()).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRecordContentionAndTimeouts() throws Exception {
+        KeyedLocks.Family family = KeyedLocks.family("KeyedLocksTest-contention");
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {
+                try (KeyedLocks.Held ignored = family.lock("KeyedLocksTest-contended-key")) {
+                    locked.countDown();
+                    release.await();
+                }
+                return null;
+            });
+            locked.await();
+
+            assertThat(tryAndRelease(family, "KeyedLocksTest-contended-key")).isFalse();
+            release.countDown();
+            assertThat(family.tryLock("KeyedLocksTest-contended-key", 10, TimeUnit.SECONDS).map(held -> {
+                held.close();
+                return true;
+            })).contains(true);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Object> statistics = KeyedLocks.statistics().get("KeyedLocksTest-contention");
+        assertThat(statistics.get("Acquisitions")).isEqualTo(2L);
+        assertThat(statistics.get("Timeouts")).isEqualTo(1L);
+        assertThat((Long) statistics.get("Contended acquisitions")).isGreaterThanOrEqualTo(1L);
+    }
+
+    private static boolean tryAndRelease(KeyedLocks.Family family, String key) throws InterruptedException {
+        Optional<KeyedLocks.Held> held = family.tryLock(key, 10, TimeUnit.MILLISECONDS);
+        held.ifPresent(KeyedLocks.Held::close);
+        return held.isPresent();
+    }
+}
@@ -17,6 +17,7 @@ package com.thoughtworks.go.server.valuestreammap;
 
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.PipelineIdentifier;
 import com.thoughtworks.go.domain.Stage;
 import com.thoughtworks.go.domain.Stages;
 import com.thoughtworks.go.domain.valuestreammap.SCMDependencyNode;
@@ -32,18 +33,27 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class RunStagesPopulatorTest {
     private RunStagesPopulator runStagesPopulator;
     private StageDao stageDao;
+    private Map<PipelineIdentifier, Stages> stagesOfPipelineInstances;
 
     @BeforeEach
     public void setup() {
         stageDao = mock(StageDao.class);
         runStagesPopulator = new RunStagesPopulator(stageDao);
+        stagesOfPipelineInstances = new HashMap<>();
+        when(stageDao.findAllStagesFor(anyList())).thenAnswer(invocation -> {
+            List<PipelineIdentifier> pipelineInstances = invocation.getArgument(0);
+            return pipelineInstances.stream().map(pipelineInstance -> stagesOfPipelineInstances.get(new PipelineIdentifier(pipelineInstance.getName(), pipelineInstance.getCounter()))).collect(Collectors.toList());
+        });
     }
 
     @Test
@@ -69,10 +79,10 @@ public class RunStagesPopulatorTest {
         Stages stagesForP2_1 = stages("stages-for-p2-1");
         Stages stagesForP3_1 = stages("stages-for-p3-1");
 
-        when(stageDao.findAllStagesFor(p1.toString(), 1)).thenReturn(stagesForP1_1);
-        when(stageDao.findAllStagesFor(p1.toString(), 2)).thenReturn(stagesForP1_2);
-        when(stageDao.findAllStagesFor(p2.toString(), 1)).thenReturn(stagesForP2_1);
-        when(stageDao.findAllStagesFor(p3.toString(), 1)).thenReturn(stagesForP3_1);
+        stagesOf(p1.toString(), 1, stagesForP1_1);
+        stagesOf(p1.toString(), 2, stagesForP1_2);
+        stagesOf(p2.toString(), 1, stagesForP2_1);
+        stagesOf(p3.toString(), 1, stagesForP3_1);
 
         runStagesPopulator.apply(graph);
 
@@ -105,9 +115,9 @@ public class RunStagesPopulatorTest {
         Stage latestStage = StageMother.createPassedStage(p1.toString(), 1, "s1_p1", 2, "sample", new Date());
         stagesForP1_1.add(latestStage);
 
-        when(stageDao.findAllStagesFor(p1.toString(), 1)).thenReturn(stagesForP1_1);
-        when(stageDao.findAllStagesFor(p2.toString(), 1)).thenReturn(stagesForP2_1);
-        when(stageDao.findAllStagesFor(p3.toString(), 1)).thenReturn(stagesForP3_1);
+        stagesOf(p1.toString(), 1, stagesForP1_1);
+        stagesOf(p2.toString(), 1, stagesForP2_1);
+        stagesOf(p3.toString(), 1, stagesForP3_1);
 
         runStagesPopulator.apply(graph);
 
@@ -116,6 +126,27 @@ public class RunStagesPopulatorTest {
         VSMTestHelper.assertStageDetailsOf(graph, p3, "1", stagesForP3_1);
     }
 
+    @Test
+    public void shouldLoadStagesOfAllNodesInGraphTogether() {
+        CaseInsensitiveString p1 = new CaseInsensitiveString("p1");
+        CaseInsensitiveString p2 = new CaseInsensitiveString("p2");
+        ValueStreamMap graph = new ValueStreamMap(p2, new PipelineRevision(p2.toString(), 1, "labelp2-1"));
+        graph.addUpstreamNode(new PipelineDependencyNode(p1, p1.toString()), new PipelineRevision(p1.toString(), 1, "labelp1-1"), p2);
+        graph.addUpstreamMaterialNode(new SCMDependencyNode("g1", "g1", "git"), new CaseInsensitiveString("git"), p1, new MaterialRevision(null));
+
+        stagesOf(p1.toString(), 1, stages("stages-for-p1-1"));
+        stagesOf(p2.toString(), 1, stages("stages-for-p2-1"));
+
+        runStagesPopulator.apply(graph);
+
+        verify(stageDao, times(1)).findAllStagesFor(anyList());
+        verify(stageDao, never()).findAllStagesFor(anyString(), anyInt());
+    }
+
+    private void stagesOf(String pipelineName, int counter, Stages stages) {
+        stagesOfPipelineInstances.put(new PipelineIdentifier(pipelineName, counter), stages);
+    }
+
     private Stages stages(String stageName) {
         ArrayList<Stage> stages = new ArrayList<>();
         stages.add(StageMother.completedStageInstanceWithTwoPlans(stageName));
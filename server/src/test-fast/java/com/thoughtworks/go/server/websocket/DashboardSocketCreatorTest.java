@@ -0,0 +1,58 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.websocket;
+
+import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.newsecurity.utils.SessionUtils;
+import com.thoughtworks.go.server.security.GoAuthority;
+import com.thoughtworks.go.server.security.userdetail.GoUserPrinciple;
+import org.eclipse.jetty.websocket.servlet.ServletUpgradeRequest;
+import org.eclipse.jetty.websocket.servlet.ServletUpgradeResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DashboardSocketCreatorTest {
+
+    @AfterEach
+    public void tearDown() {
+        SessionUtils.unsetCurrentUser();
+    }
+
+    @Test
+    public void shouldCreateASocketForTheCurrentUserAndTheServerUrlItConnectedThrough() {
+        SessionUtils.setCurrentUser(new GoUserPrinciple("bob", "Bob", GoAuthority.ROLE_USER.asAuthority()));
+        HttpServletRequest httpRequest = mock(HttpServletRequest.class);
+        when(httpRequest.getScheme()).thenReturn("https");
+        when(httpRequest.getServerName()).thenReturn("gocd.example.com");
+        when(httpRequest.getServerPort()).thenReturn(8154);
+        when(httpRequest.getContextPath()).thenReturn("/go");
+        ServletUpgradeRequest request = mock(ServletUpgradeRequest.class);
+        when(request.getHttpServletRequest()).thenReturn(httpRequest);
+
+        DashboardSocketCreator creator = new DashboardSocketCreator(mock(DashboardUpdatesSender.class), new SocketHealthService());
+        DashboardSocket socket = (DashboardSocket) creator.createWebSocket(request, mock(ServletUpgradeResponse.class));
+
+        assertThat(socket.username()).isEqualTo(new Username("bob", "Bob"));
+        assertThat(socket.baseUrl()).isEqualTo(URI.create("https://gocd.example.com:8154/go"));
+    }
+}
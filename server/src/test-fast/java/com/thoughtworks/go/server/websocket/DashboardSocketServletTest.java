@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.websocket;
+
+import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.newsecurity.utils.SessionUtils;
+import com.thoughtworks.go.server.service.SecurityService;
+import com.thoughtworks.go.util.ReflectionUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.apache.http.HttpStatus.SC_UNAUTHORIZED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DashboardSocketServletTest {
+    private SecurityService securityService;
+    private DashboardSocketServlet servlet;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        securityService = mock(SecurityService.class);
+        servlet = new DashboardSocketServlet();
+        ReflectionUtil.setField(servlet, "securityService", securityService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SessionUtils.unsetCurrentUser();
+    }
+
+    @Test
+    public void shouldAllowAnyoneToSubscribeWhenSecurityIsDisabled() {
+        when(securityService.isSecurityEnabled()).thenReturn(false);
+
+        assertThat(servlet.authorizedToSubscribe(Username.ANONYMOUS)).isTrue();
+    }
+
+    @Test
+    public void shouldOnlyAllowLoggedInUsersToSubscribeWhenSecurityIsEnabled() {
+        when(securityService.isSecurityEnabled()).thenReturn(true);
+
+        assertThat(servlet.authorizedToSubscribe(new Username("bob"))).isTrue();
+        assertThat(servlet.authorizedToSubscribe(Username.ANONYMOUS)).isFalse();
+    }
+
+    @Test
+    public void shouldRejectTheUpgradeWhenNoUserIsAuthenticatedForTheRequest() throws Exception {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        servlet.service(mock(HttpServletRequest.class), response);
+
+        verify(response).sendError(eq(SC_UNAUTHORIZED), anyString());
+        verifyNoInteractions(securityService);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.websocket;
+
+import com.thoughtworks.go.server.domain.Username;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.mockito.Mockito.*;
+
+public class DashboardSocketTest {
+    private DashboardUpdatesSender sender;
+    private SocketHealthService socketHealthService;
+    private Session session;
+    private RemoteEndpoint remote;
+    private DashboardSocket socket;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        sender = mock(DashboardUpdatesSender.class);
+        socketHealthService = mock(SocketHealthService.class);
+        session = mock(Session.class);
+        remote = mock(RemoteEndpoint.class);
+        when(session.getRemote()).thenReturn(remote);
+        socket = new DashboardSocket(new Username("bob"), URI.create("https://gocd.example.com/go"), sender, socketHealthService);
+    }
+
+    @Test
+    public void shouldSubscribeToDashboardUpdatesOnConnect() {
+        socket.onConnect(session);
+
+        verify(sender).subscribe(socket);
+        verify(socketHealthService).register(socket);
+    }
+
+    @Test
+    public void shouldUnsubscribeOnClose() {
+        socket.onConnect(session);
+
+        socket.onClose(StatusCode.NORMAL, null);
+
+        verify(sender).unsubscribe(socket);
+        verify(socketHealthService).deregister(socket);
+    }
+
+    @Test
+    public void shouldCloseAndUnsubscribeOnError() {
+        socket.onConnect(session);
+
+        socket.onError(new RuntimeException("boom"));
+
+        verify(session).close(StatusCode.SERVER_ERROR, "boom");
+        verify(sender).unsubscribe(socket);
+    }
+
+    @Test
+    public void shouldSendOnlyWhileTheSessionIsOpen() {
+        socket.onConnect(session);
+        when(session.isOpen()).thenReturn(true, false);
+
+        socket.sendAsync("first");
+        socket.sendAsync("second");
+
+        verify(remote).sendStringByFuture("first");
+        verify(remote, never()).sendStringByFuture("second");
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.websocket;
+
+import com.thoughtworks.go.config.security.Permissions;
+import com.thoughtworks.go.config.security.permissions.NoOnePermission;
+import com.thoughtworks.go.config.security.users.AllowedUsers;
+import com.thoughtworks.go.config.security.users.NoOne;
+import com.thoughtworks.go.server.dashboard.GoDashboardCache;
+import com.thoughtworks.go.server.dashboard.GoDashboardPipeline;
+import com.thoughtworks.go.server.dashboard.TimeStampBasedCounter;
+import com.thoughtworks.go.server.domain.Username;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.thoughtworks.go.server.dashboard.GoDashboardPipelineMother.pipeline;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DashboardUpdatesSenderTest {
+    private static final URI BASE_URL = URI.create("https://gocd.example.com/go");
+
+    private GoDashboardCache cache;
+    private DashboardPipelineRenderer renderer;
+    private DashboardUpdatesSender sender;
+    private DashboardSocket socketOfUser1;
+    private DashboardSocket socketOfUser2;
+    private ScheduledExecutorService reloadScheduler;
+    private List<Runnable> scheduledReloads;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        cache = new GoDashboardCache(mock(TimeStampBasedCounter.class));
+        renderer = mock(DashboardPipelineRenderer.class);
+        scheduledReloads = new ArrayList<>();
+        reloadScheduler = mock(ScheduledExecutorService.class);
+        doAnswer(invocation -> {
+            scheduledReloads.add(invocation.getArgument(0));
+            return null;
+        }).when(reloadScheduler).schedule(any(Runnable.class), anyLong(), eq(MILLISECONDS));
+        sender = new DashboardUpdatesSender(cache, reloadScheduler, 5000);
+        sender.useRenderer(renderer);
+
+        socketOfUser1 = socketFor("user1");
+        socketOfUser2 = socketFor("user2");
+        sender.subscribe(socketOfUser1);
+        sender.subscribe(socketOfUser2);
+    }
+
+    @Test
+    public void shouldSendChangedPipelineRenderedForTheSubscriberOnlyToSubscribersWhoCanViewIt() {
+        GoDashboardPipeline pipeline = pipeline("pipeline1", "group1", viewableBy("user1"));
+        when(renderer.render(pipeline, new Username("user1"), BASE_URL)).thenReturn("{\"name\":\"pipeline1\"}");
+
+        cache.put(pipeline);
+
+        verify(socketOfUser1).sendAsync("{\"type\":\"pipeline_changed\",\"pipeline\":{\"name\":\"pipeline1\"}}");
+        verify(socketOfUser2, never()).sendAsync(anyString());
+        verify(renderer, never()).render(any(), eq(new Username("user2")), any());
+    }
+
+    @Test
+    public void shouldRenderAChangedPipelineOnceForAllSubscriptionsOfAUser() {
+        DashboardSocket anotherSocketOfUser1 = socketFor("user1");
+        sender.subscribe(anotherSocketOfUser1);
+        GoDashboardPipeline pipeline = pipeline("pipeline1", "group1", viewableBy("user1"));
+        when(renderer.render(pipeline, new Username("user1"), BASE_URL)).thenReturn("{}");
+
+        cache.put(pipeline);
+
+        verify(renderer, times(1)).render(pipeline, new Username("user1"), BASE_URL);
+        verify(socketOfUser1).sendAsync(DashboardUpdatesSender.changedMessage("{}"));
+        verify(anotherSocketOfUser1).sendAsync(DashboardUpdatesSender.changedMessage("{}"));
+    }
+
+    @Test
+    public void shouldNotSendAChangedPipelineWhichCouldNotBeRendered() {
+        GoDashboardPipeline pipeline = pipeline("pipeline1", "group1", viewableBy("user1"));
+        when(renderer.render(pipeline, new Username("user1"), BASE_URL)).thenThrow(new RuntimeException("failed"));
+
+        cache.put(pipeline);
+
+        verify(socketOfUser1, never()).sendAsync(anyString());
+    }
+
+    @Test
+    public void shouldAskViewersToReloadWhenNoRendererIsRegistered() {
+        DashboardUpdatesSender senderWithoutRenderer = new DashboardUpdatesSender(cache, reloadScheduler, 5000);
+        DashboardSocket socket = socketFor("user1");
+        senderWithoutRenderer.subscribe(socket);
+
+        cache.put(pipeline("pipeline1", "group1", viewableBy("user1")));
+        runScheduledReloads();
+
+        verify(socket).sendAsync(DashboardUpdatesSender.RELOAD);
+    }
+
+    @Test
+    public void shouldSendRemovedPipelineOnlyToSubscribersWhoCouldViewIt() {
+        GoDashboardPipeline pipeline = pipeline("pipeline1", "group1", viewableBy("user2"));
+        cache.put(pipeline);
+
+        cache.remove(pipeline.name());
+
+        verify(socketOfUser2).sendAsync(DashboardUpdatesSender.removedMessage(pipeline));
+        verify(socketOfUser1, never()).sendAsync(anyString());
+    }
+
+    @Test
+    public void shouldAskAllSubscribersToReloadWhenAllPipelinesAreReplaced() {
+        cache.replaceAllEntriesInCacheWith(List.of(pipeline("pipeline1", "group1", viewableBy("user1"))));
+        runScheduledReloads();
+
+        verify(socketOfUser1).sendAsync(DashboardUpdatesSender.RELOAD);
+        verify(socketOfUser2).sendAsync(DashboardUpdatesSender.RELOAD);
+    }
+
+    @Test
+    public void shouldSpreadTheReloadsOfSubscribersOverTheJitterWindow() {
+        cache.replaceAllEntriesInCacheWith(List.of(pipeline("pipeline1")));
+
+        verify(reloadScheduler, times(2)).schedule(any(Runnable.class), longThat(delay -> delay >= 0 && delay < 5000), eq(MILLISECONDS));
+        verify(socketOfUser1, never()).sendAsync(anyString());
+        verify(socketOfUser2, never()).sendAsync(anyString());
+    }
+
+    @Test
+    public void shouldSendOneReloadForConfigChangesWhileAReloadIsPending() {
+        cache.replaceAllEntriesInCacheWith(List.of(pipeline("pipeline1")));
+        cache.replaceAllEntriesInCacheWith(List.of(pipeline("pipeline2")));
+        runScheduledReloads();
+
+        verify(socketOfUser1, times(1)).sendAsync(DashboardUpdatesSender.RELOAD);
+        verify(socketOfUser2, times(1)).sendAsync(DashboardUpdatesSender.RELOAD);
+
+        cache.replaceAllEntriesInCacheWith(List.of(pipeline("pipeline3")));
+        runScheduledReloads();
+
+        verify(socketOfUser1, times(2)).sendAsync(DashboardUpdatesSender.RELOAD);
+    }
+
+    @Test
+    public void shouldNotSendChangedPipelinesToSubscribersWithAReloadPending() {
+        when(renderer.render(any(), any(), any())).thenReturn("{}");
+        cache.replaceAllEntriesInCacheWith(List.of(pipeline("pipeline1")));
+
+        cache.put(pipeline("pipeline2"));
+
+        verify(socketOfUser1, never()).sendAsync(anyString());
+        verify(renderer, never()).render(any(), any(), any());
+    }
+
+    @Test
+    public void shouldNotReloadSubscribersWhichUnsubscribedWhileTheReloadWasPending() {
+        cache.replaceAllEntriesInCacheWith(List.of(pipeline("pipeline1")));
+        sender.unsubscribe(socketOfUser1);
+        runScheduledReloads();
+
+        verify(socketOfUser1, never()).sendAsync(anyString());
+        verify(socketOfUser2).sendAsync(DashboardUpdatesSender.RELOAD);
+    }
+
+    @Test
+    public void shouldStopSendingToSubscribersWhichFailed() {
+        doThrow(new RuntimeException("failed")).when(socketOfUser1).sendAsync(anyString());
+        when(renderer.render(any(), any(), any())).thenReturn("{}");
+
+        cache.put(pipeline("pipeline1"));
+        cache.put(pipeline("pipeline2"));
+
+        verify(socketOfUser1, times(1)).sendAsync(anyString());
+        verify(socketOfUser2, times(2)).sendAsync(anyString());
+    }
+
+    private void runScheduledReloads() {
+        List<Runnable> reloads = new ArrayList<>(scheduledReloads);
+        scheduledReloads.clear();
+        reloads.forEach(Runnable::run);
+    }
+
+    private DashboardSocket socketFor(String userName) {
+        DashboardSocket socket = mock(DashboardSocket.class);
+        when(socket.username()).thenReturn(new Username(userName));
+        when(socket.baseUrl()).thenReturn(BASE_URL);
+        when(socket.key()).thenReturn("dashboard:" + userName);
+        return socket;
+    }
+
+    private Permissions viewableBy(String userName) {
+        return new Permissions(new AllowedUsers(Set.of(userName), Collections.emptySet()), NoOne.INSTANCE, NoOne.INSTANCE, NoOnePermission.INSTANCE);
+    }
+}
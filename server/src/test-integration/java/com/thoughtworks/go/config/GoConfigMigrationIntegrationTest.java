@@ -112,6 +112,15 @@ public class GoConfigMigrationIntegrationTest {
         assertThat(newContent).isEqualTo(configMigration.upgradeIfNecessary(newContent));
     }
 
+    @Test
+    public void shouldMigrateConfigContentTheSameWayWhenTheUpgradeScriptsHaveAlreadyBeenCompiled() {
+        GoConfigMigration configMigration = new GoConfigMigration(new TimeProvider(),
+                ConfigElementImplementationRegistryMother.withNoPlugins());
+        String firstMigration = configMigration.upgradeIfNecessary(ConfigFileFixture.VERSION_0);
+        String secondMigration = configMigration.upgradeIfNecessary(ConfigFileFixture.VERSION_0);
+        assertThat(secondMigration).isEqualTo(firstMigration);
+    }
+
     @Test
     public void shouldMigrateToRevision22() throws Exception {
         final String content = IOUtils.toString(getClass().getResource("cruise-config-escaping-migration-test-fixture.xml"), UTF_8);
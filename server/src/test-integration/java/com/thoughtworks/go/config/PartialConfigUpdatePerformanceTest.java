@@ -0,0 +1,125 @@
+/*
+ * Copyright 2023 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.config.parts.XmlPartialConfigProvider;
+import com.thoughtworks.go.config.remote.ConfigRepoConfig;
+import com.thoughtworks.go.config.remote.PartialConfig;
+import com.thoughtworks.go.config.remote.RepoConfigOrigin;
+import com.thoughtworks.go.config.rules.Allow;
+import com.thoughtworks.go.helper.PartialConfigMother;
+import com.thoughtworks.go.server.service.GoConfigService;
+import com.thoughtworks.go.util.GoConfigFileHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = {
+        "classpath:/applicationContext-global.xml",
+        "classpath:/applicationContext-dataLocalAccess.xml",
+        "classpath:/testPropertyConfigurer.xml",
+        "classpath:/spring-all-servlet.xml",
+})
+public class PartialConfigUpdatePerformanceTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartialConfigUpdatePerformanceTest.class);
+
+    @Autowired
+    private GoConfigDao goConfigDao;
+    @Autowired
+    private GoConfigService goConfigService;
+    @Autowired
+    private PartialConfigService partialConfigService;
+    @Autowired
+    private CachedGoPartials cachedGoPartials;
+
+    private final GoConfigFileHelper configHelper = new GoConfigFileHelper();
+    private final int numberOfConfigRepos = 1000;
+    private final int numberOfUpdates = 100;
+    private List<ConfigRepoConfig> configRepos;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        configHelper.usingCruiseConfigDao(goConfigDao);
+        configHelper.onSetUp();
+        cachedGoPartials.clear();
+
+        configRepos = new ArrayList<>();
+        CruiseConfig config = configHelper.loadForEdit();
+        for (int i = 0; i < numberOfConfigRepos; i++) {
+            ConfigRepoConfig configRepo = ConfigRepoConfig.createConfigRepoConfig(git("config-repo-" + i), XmlPartialConfigProvider.providerName, "config-repo-" + i);
+            configRepo.getRules().add(new Allow("refer", "*", "*"));
+            configRepos.add(configRepo);
+            config.getConfigRepos().add(configRepo);
+            config.getGroups().add(new BasicPipelineConfigs("group-" + i, new Authorization()));
+        }
+        configHelper.writeConfigFile(config);
+        goConfigService.forceNotifyListeners();
+
+        for (int i = 0; i < numberOfConfigRepos; i++) {
+            partialConfigService.onSuccessPartialConfig(configRepos.get(i), partial(i, "r1"));
+        }
+        assertThat(goConfigService.getCurrentConfig().getAllPipelineConfigs().size(), is(numberOfConfigRepos));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cachedGoPartials.clear();
+        configHelper.onTearDown();
+    }
+
+    @Test
+    @Timeout(value = 10, unit = MINUTES)
+    public void shouldSwapInThePartialOfAConfigRepoWithoutSavingTheWholeConfig() {
+        String md5 = goConfigService.getConfigForEditing().getMd5();
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < numberOfUpdates; i++) {
+            partialConfigService.onSuccessPartialConfig(configRepos.get(i), partial(i, "r2"));
+        }
+        long averageMillis = (System.currentTimeMillis() - start) / numberOfUpdates;
+        LOGGER.info("Updating a partial among {} config repos took {}ms on average", numberOfConfigRepos, averageMillis);
+
+        for (int i = 0; i < numberOfUpdates; i++) {
+            String fingerprint = configRepos.get(i).getRepo().getFingerprint();
+            assertThat(((RepoConfigOrigin) cachedGoPartials.getValid(fingerprint).getOrigin()).getRevision(), is("r2"));
+        }
+        assertThat(goConfigService.getConfigForEditing().getMd5(), is(md5));
+        assertThat(String.format("Updating a partial took %dms. Should have finished in 500ms.", averageMillis), averageMillis, lessThan(500L));
+    }
+
+    private PartialConfig partial(int i, String revision) {
+        PartialConfig partial = PartialConfigMother.withPipelineInGroup("pipeline-" + i + "-" + revision, "group-" + i);
+        partial.setOrigins(new RepoConfigOrigin(configRepos.get(i), revision));
+        return partial;
+    }
+}
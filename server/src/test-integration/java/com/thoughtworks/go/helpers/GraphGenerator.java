@@ -60,6 +60,26 @@ public class GraphGenerator {
         return createPipelineWithInstances(endNodeName, previousNodes, numberOfInstances);
     }
 
+    /*
+        create chain of diamonds, where every diamond fans out of one pipeline into a number of pipelines and back into one:
+                 +---->D11----+         +---->D21----+
+                /              \       /              \
+        start--+------>D12------+--->J1--+------>D22------+--->end
+     */
+    public PipelineConfig createDiamondChain(PipelineConfig startNode, String endNodeName, String pipelineNameSuffix, int numberOfInstances, int numberOfDiamonds, int width) {
+        PipelineConfig join = startNode;
+        for (int i = 1; i <= numberOfDiamonds; i++) {
+            List<PipelineConfig> branches = new ArrayList<>();
+            for (int j = 1; j <= width; j++) {
+                String pipelineName = String.format("diamond_%s_%d_%d", pipelineNameSuffix, i, j);
+                branches.add(createPipelineWithInstances(pipelineName, List.of(join), numberOfInstances));
+            }
+            String joinName = i == numberOfDiamonds ? endNodeName : String.format("join_%s_%d", pipelineNameSuffix, i);
+            join = createPipelineWithInstances(joinName, branches, numberOfInstances);
+        }
+        return join;
+    }
+
     public PipelineConfig createPipelineWithInstances(String pipelineName, List<PipelineConfig> previousNodes, int numberOfInstances) {
         PipelineConfig pipelineConfig = getPipelineWithName(pipelineName, previousNodes);
         configHelper.addPipeline(pipelineConfig);
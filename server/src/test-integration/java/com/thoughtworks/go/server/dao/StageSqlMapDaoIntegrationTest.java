@@ -936,6 +936,26 @@ public class StageSqlMapDaoIntegrationTest {
         assertThat(stages.first().getJobInstances().size()).isEqualTo(1);
     }
 
+    @Test
+    public void shouldFindAllStagesOfManyPipelineInstancesTogether() throws Exception {
+        Pipeline[] pipelines = pipelineWithOnePassedAndOneCurrentlyRunning(mingleConfig);
+        Pipeline first = pipelines[0];
+        Pipeline second = pipelines[1];
+        PipelineIdentifier firstIdentifier = new PipelineIdentifier(first.getName(), first.getCounter(), first.getLabel());
+        PipelineIdentifier secondIdentifier = new PipelineIdentifier(second.getName(), second.getCounter(), second.getLabel());
+        PipelineIdentifier neverRun = new PipelineIdentifier(first.getName(), 100, "100");
+
+        stageDao.findAllStagesFor(first.getName(), first.getCounter());
+        List<Stages> stages = stageDao.findAllStagesFor(List.of(secondIdentifier, neverRun, firstIdentifier));
+
+        assertThat(stages.size()).isEqualTo(3);
+        assertThat(stages.get(0)).isEqualTo(stageDao.findAllStagesFor(second.getName(), second.getCounter()));
+        assertThat(stages.get(0).first().getIdentifier().getPipelineCounter()).isEqualTo(second.getCounter());
+        assertThat(stages.get(1).isEmpty()).isTrue();
+        assertThat(stages.get(2)).isEqualTo(stageDao.findAllStagesFor(first.getName(), first.getCounter()));
+        assertThat(stages.get(2).first().getIdentifier().getPipelineCounter()).isEqualTo(first.getCounter());
+    }
+
     @Test
     public void shouldGetLatestStageInstancesByPipelineId() throws Exception {
         Pipeline[] pipelines = pipelineWithOnePassedAndOneCurrentlyRunning(mingleConfig);
@@ -100,7 +100,7 @@ public class PluggableSCMMaterialUpdaterIntegrationTest {
         addMetadata(material, "fieldX", false);
         material.getScmConfig().getConfiguration().addNewConfiguration("fieldX", true);
         final List<Modification> modifications = ModificationsMother.multipleModificationList();
-        doNothing().when(scmMaterialUpdater).insertLatestOrNewModifications(material, materialInstance, new File(""), new Modifications(modifications));
+        doReturn(false).when(scmMaterialUpdater).insertLatestOrNewModifications(material, materialInstance, new File(""), new Modifications(modifications));
         transactionTemplate.execute(transactionStatus -> {
             pluggableSCMMaterialUpdater.insertLatestOrNewModifications(material, materialInstance, new File(""), new Modifications(modifications));
             return null;
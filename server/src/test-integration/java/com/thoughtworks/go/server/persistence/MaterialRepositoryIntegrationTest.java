@@ -85,6 +85,7 @@ import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static com.thoughtworks.go.helper.ModificationsMother.EMAIL_ADDRESS;
@@ -412,9 +413,9 @@ public class MaterialRepositoryIntegrationTest {
     }
 
     @Test
-    public void shouldMaterialCacheKeyShouldReturnTheSameInstance() {
+    public void shouldMaterialCacheKeyShouldReturnTheSameKey() {
         Material svn = MaterialsMother.svnMaterial("url", null, "username", "password", false, null);
-        assertSame(repo.materialKey(svn), repo.materialKey(svn));
+        assertEquals(repo.materialKey(svn), repo.materialKey(svn));
     }
 
     @Test
@@ -732,6 +733,28 @@ public class MaterialRepositoryIntegrationTest {
         assertThat(revisionsFor13.getModifications(material).get(0).getRevision(), is("12"));
     }
 
+    @Test
+    public void shouldFindTheMaterialRevisionsOfManyPipelinesTogether() {
+        HgMaterial material = new HgMaterial("sdg", null);
+        MaterialRevision firstRevision = new MaterialRevision(material, new Modifications(modification("10"), modification("9")));
+        saveMaterialRev(firstRevision);
+        Pipeline firstPipeline = createPipeline();
+        savePMR(firstRevision, firstPipeline);
+        MaterialRevision secondRevision = new MaterialRevision(material, new Modifications(modification("11")));
+        saveMaterialRev(secondRevision);
+        Pipeline secondPipeline = createPipeline();
+        savePMR(secondRevision, secondPipeline);
+        MaterialRevisions cachedRevisionsOfFirst = repo.findMaterialRevisionsForPipeline(firstPipeline.getId());
+
+        Map<Long, MaterialRevisions> revisions = repo.findMaterialRevisionsForPipelines(List.of(firstPipeline.getId(), secondPipeline.getId()));
+
+        assertThat(revisions.get(firstPipeline.getId()), is(cachedRevisionsOfFirst));
+        assertThat(revisions.get(secondPipeline.getId()).getModifications(material).size(), is(1));
+        assertThat(revisions.get(secondPipeline.getId()).getModifications(material).get(0).getRevision(), is("11"));
+        goCache.clear();
+        assertThat(repo.findMaterialRevisionsForPipeline(secondPipeline.getId()), is(revisions.get(secondPipeline.getId())));
+    }
+
     @Test
     public void shouldFixToAsFromForDependencyMaterialRevisionWhileSavingAndUpdating() {
         Material material = new DependencyMaterial(new CaseInsensitiveString("pipeline_name"), new CaseInsensitiveString("stage_name"));
@@ -146,6 +146,8 @@ public class BuildAssignmentServiceIntegrationTest {
     @Autowired
     private JobStatusTopic jobStatusTopic;
     @Autowired
+    private JobStatusUpdateQueue jobStatusUpdateQueue;
+    @Autowired
     private EntityHashingService entityHashingService;
 
     private PipelineConfig evolveConfig;
@@ -415,7 +417,7 @@ public class BuildAssignmentServiceIntegrationTest {
 
         final BuildAssignmentService buildAssignmentServiceUnderTest = new BuildAssignmentService(goConfigService, mockJobInstanceService, scheduleService,
                 agentService, environmentConfigService, transactionTemplate, scheduledPipelineLoader, pipelineService, builderFactory,
-                maintenanceModeService, elasticAgentPluginService, systemEnvironment, secretParamResolver, jobStatusTopic, consoleService);
+                maintenanceModeService, elasticAgentPluginService, systemEnvironment, secretParamResolver, jobStatusTopic, consoleService, jobStatusUpdateQueue);
 
         final Throwable[] fromThread = new Throwable[1];
         buildAssignmentServiceUnderTest.onTimer();
@@ -457,7 +459,7 @@ public class BuildAssignmentServiceIntegrationTest {
 
         buildAssignmentService = new BuildAssignmentService(mockGoConfigService, jobInstanceService, scheduleService, agentService, environmentConfigService,
                 transactionTemplate, scheduledPipelineLoader, pipelineService, builderFactory, maintenanceModeService, elasticAgentPluginService,
-                systemEnvironment, secretParamResolver, jobStatusTopic, consoleService);
+                systemEnvironment, secretParamResolver, jobStatusTopic, consoleService, jobStatusUpdateQueue);
         buildAssignmentService.onTimer();
 
         Agent agent = AgentMother.localAgent();
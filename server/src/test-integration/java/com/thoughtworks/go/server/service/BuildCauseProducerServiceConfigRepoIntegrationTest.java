@@ -282,7 +282,7 @@ public class BuildCauseProducerServiceConfigRepoIntegrationTest {
     @Test
     public void shouldNotSchedulePipelineWhenConfigAndMaterialRevisionsMismatch() throws Exception {
         // we will use this worker to force material update without updating config
-        MaterialUpdateListener byPassWorker = new MaterialUpdateListener(topic, materialDatabaseUpdater, logger, goDiskSpaceMonitor, maintenanceModeService);
+        MaterialUpdateListener byPassWorker = new MaterialUpdateListener(topic, materialDatabaseUpdater, logger, goDiskSpaceMonitor, maintenanceModeService, new MaterialUpdateQueueMetrics(), MaterialUpdateQueueMetrics.Lane.CONFIG_REPOSITORY);
         List<Modification> mod = configTestRepo.addCodeToRepositoryAndPush("a.java", "added code file", "some java code");
         byPassWorker.onMessage(new MaterialUpdateMessage(material, 123));
         //now db should have been updated, but config is still old
@@ -337,7 +337,7 @@ public class BuildCauseProducerServiceConfigRepoIntegrationTest {
     // We already let all manual triggers to bypass revision match check
     public void shouldSchedulePipelineWhenConfigAndMaterialRevisionsMismatch_AndManuallyTriggered() throws Exception {
         // we will use this worker to force material update without updating config
-        MaterialUpdateListener byPassWorker = new MaterialUpdateListener(topic, materialDatabaseUpdater, logger, goDiskSpaceMonitor, maintenanceModeService);
+        MaterialUpdateListener byPassWorker = new MaterialUpdateListener(topic, materialDatabaseUpdater, logger, goDiskSpaceMonitor, maintenanceModeService, new MaterialUpdateQueueMetrics(), MaterialUpdateQueueMetrics.Lane.CONFIG_REPOSITORY);
         List<Modification> lastPush = configTestRepo.addCodeToRepositoryAndPush("a.java", "added code file", "some java code");
         byPassWorker.onMessage(new MaterialUpdateMessage(material, 123));
         //now db should have been updated, but config is still old
@@ -121,6 +121,45 @@ public class FanInPerformanceTest {
         assertThat(finalRevisions, is(given));
     }
 
+    @Test
+    @Timeout(value = 4, unit = MINUTES)
+    public void shouldTestFanInForChainOfDiamonds() throws Exception {
+        int numberOfDiamonds = 13;
+        int width = 2;
+        int numberOfInstancesForUpstream = 1;
+
+        ScmMaterial svn = u.wf((ScmMaterial) MaterialsMother.defaultMaterials().get(0), "folder1");
+        String[] svn_revs = {"svn_1"};
+        u.checkinInOrder(svn, svn_revs);
+
+        PipelineConfig upstreamConfig = graphGenerator.createPipelineWithInstances("upstream", new ArrayList<>(), numberOfInstancesForUpstream);
+        PipelineConfig currentConfig = graphGenerator.createDiamondChain(upstreamConfig, "current", "up", numberOfInstancesForUpstream, numberOfDiamonds, width);
+
+        List<MaterialRevision> revisions = new ArrayList<>();
+        revisions.add(u.mr(svn, true, "svn_1"));
+        for (int i = 1; i <= width; i++) {
+            String pipelineName = String.format("diamond_%s_%d_%d", "up", numberOfDiamonds, i);
+            revisions.add(u.mr(new DependencyMaterial(new CaseInsensitiveString(pipelineName), new CaseInsensitiveString("stage")), true, pipelineName + "/1/stage/1"));
+        }
+        MaterialRevisions given = new MaterialRevisions(revisions);
+        CruiseConfig cruiseConfig = configHelper.currentConfig();
+
+        long start = System.currentTimeMillis();
+        MaterialRevisions firstRevisions = getRevisionsBasedOnDependencies(currentConfig.name(), cruiseConfig, given);
+        long firstAttempt = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        MaterialRevisions secondRevisions = getRevisionsBasedOnDependencies(currentConfig.name(), cruiseConfig, given);
+        long secondAttempt = System.currentTimeMillis() - start;
+
+        String timings = String.format("Fan-in took %dms on the first attempt and %dms on the next, against the same config.", firstAttempt, secondAttempt);
+        assertThat(timings, firstAttempt, Matchers.lessThan(10000L));
+        assertThat(timings, secondAttempt, Matchers.lessThan(10000L));
+
+        assertThat(firstRevisions, is(given));
+        assertThat(secondRevisions, is(given));
+    }
+
     private MaterialRevisions getRevisionsBasedOnDependencies(CaseInsensitiveString pipeline, CruiseConfig cruiseConfig, MaterialRevisions given) {
         pipelineTimeline.update();
         return pipelineService.getRevisionsBasedOnDependencies(given, cruiseConfig, pipeline);
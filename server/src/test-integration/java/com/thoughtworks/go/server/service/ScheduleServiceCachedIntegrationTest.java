@@ -34,6 +34,7 @@ import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.server.ui.StageSummaryModel;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.util.GoConfigFileHelper;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -168,7 +169,7 @@ public class ScheduleServiceCachedIntegrationTest {
         ScheduleService service = new ScheduleService(goConfigService, pipelineService, stageService, schedulingChecker, pipelineDao,
                 stageDao, stageOrderService, securityService, pipelineScheduleQueue, jobInstanceService, jobInstanceDao, agentAssignment, environmentConfigService,
                 pipelineLockService, serverHealthService, transactionTemplate, agentService, synchronizationManager, null, null, null, null, schedulingPerformanceLogger,
-                null,null
+                null, null, new SystemEnvironment()
         );
 
         Pipeline assigned = preCondition.createPipelineWithFirstStageAssigned();
@@ -456,6 +456,31 @@ public class ScheduleServiceIntegrationTest {
         assertThat(stageService.findLatestStage(pipelineName, secondStage), is(notNullValue()));
     }
 
+    @Test
+    public void shouldApplyABatchOfJobStatusUpdatesInOrderAndTriggerTheNextStageOnceTheJobCompletes() throws Exception {
+        String pipelineName = UUID.randomUUID().toString();
+        String firstStage = "firstStage";
+        String secondStage = "secondStage";
+        PipelineConfig pipelineConfig = configHelper.addPipeline(PipelineConfigMother.createPipelineConfigWithStages(pipelineName, firstStage, secondStage));
+        Pipeline pipeline = dbHelper.schedulePipeline(pipelineConfig, forceBuild(pipelineConfig), new TimeProvider());
+        JobInstance job = pipeline.getFirstStage().getFirstJob();
+        JobIdentifier jobIdentifier = job.getIdentifier();
+
+        scheduleService.updateJobStatuses(List.of(
+                new JobStatusMessage(jobIdentifier, JobState.Preparing, job.getAgentUuid()),
+                new JobStatusMessage(jobIdentifier, JobState.Building, job.getAgentUuid())));
+
+        JobInstance building = jobInstanceService.buildByIdWithTransitions(job.getId());
+        assertThat(building.getState(), is(JobState.Building));
+        assertThat(building.getTransition(JobState.Preparing), is(notNullValue()));
+
+        scheduleService.jobCompleting(jobIdentifier, JobResult.Passed, job.getAgentUuid());
+        scheduleService.updateJobStatuses(List.of(new JobStatusMessage(jobIdentifier, JobState.Completed, job.getAgentUuid())));
+
+        assertThat(jobInstanceService.buildByIdWithTransitions(job.getId()).getState(), is(JobState.Completed));
+        assertThat(stageService.findLatestStage(pipelineName, secondStage), is(notNullValue()));
+    }
+
     // This could happen during race condition between rescheduleHungJobs and rescheduleAbandonedBuildIfNecessary.
     // The threads coud have run the queries and gotten the same jobid from the corresponding queries, but waiting to
     // acquire a lock on one of the synchronized objects in rescheduleJob
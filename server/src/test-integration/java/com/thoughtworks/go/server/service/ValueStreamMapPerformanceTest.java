@@ -25,6 +25,7 @@ import com.thoughtworks.go.config.materials.mercurial.HgMaterial;
 import com.thoughtworks.go.domain.valuestreammap.Node;
 import com.thoughtworks.go.helper.MaterialsMother;
 import com.thoughtworks.go.helpers.GraphGenerator;
+import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.dao.DatabaseAccessHelper;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
@@ -70,6 +71,8 @@ public class ValueStreamMapPerformanceTest {
     private MaterialRepository materialRepository;
     @Autowired
     private TransactionTemplate transactionTemplate;
+    @Autowired
+    private GoCache goCache;
 
     private GoConfigFileHelper configHelper;
     private ScheduleTestUtil u;
@@ -144,6 +147,33 @@ public class ValueStreamMapPerformanceTest {
         assertThat(presentationModel.getNodesAtEachLevel().size(), is(14));
     }
 
+    @Test
+    @Timeout(value = 4, unit = MINUTES)
+    public void shouldTestVSMForWideUpstreamAndDownstream() throws Exception {
+        int numberOfNodesPerLevel = 25;
+        int numberOfLevels = 2;
+        int numberOfInstancesForDownstream = 5;
+
+        ScmMaterial svn = u.wf((ScmMaterial) MaterialsMother.defaultMaterials().get(0), "folder1");
+        String[] svn_revs = {"svn_1"};
+        u.checkinInOrder(svn, svn_revs);
+
+        PipelineConfig upstreamConfig = graphGenerator.createPipelineWithInstances("upstream", new ArrayList<>(), 1);
+        PipelineConfig currentConfig = graphGenerator.createMesh(upstreamConfig, "current", "up", 1, numberOfNodesPerLevel, numberOfLevels);
+        graphGenerator.createMesh(currentConfig, "downstream", "down", numberOfInstancesForDownstream, numberOfNodesPerLevel, numberOfLevels);
+        // nothing looked up while setting up the graph should make rendering it cheaper
+        goCache.clear();
+
+        long start = System.currentTimeMillis();
+        DefaultLocalizedOperationResult result = new DefaultLocalizedOperationResult();
+        ValueStreamMapPresentationModel presentationModel = valueStreamMapService.getValueStreamMap(new CaseInsensitiveString("current"), 1, Username.ANONYMOUS, result);
+        long timeTaken = (System.currentTimeMillis() - start) / 1000;
+        assertThat(String.format("VSM took %ds. Should have been generated in 10s.", timeTaken), timeTaken, Matchers.lessThan(10L));
+
+        assertThat(result.isSuccessful(), is(true));
+        assertThat(getAllNodes(presentationModel).stream().filter(node -> node.getName().startsWith("pipeline_")).count(), is(4L * numberOfNodesPerLevel));
+    }
+
     private void doRun(int numberOfDownstreamPipelines, CruiseConfig cruiseConfig, String threadName) throws InterruptedException {
         HttpLocalizedOperationResult result = new HttpLocalizedOperationResult();
         for (PipelineConfig pipelineConfig : cruiseConfig.allPipelines()) {